@@ -0,0 +1,254 @@
+/*
+ * Copyright 2020, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.agent.protocol;
+
+import org.openremote.model.attribute.AttributeRef;
+import org.openremote.model.query.AssetQuery;
+import org.openremote.model.query.filter.StringPredicate;
+import org.openremote.model.util.TextUtil;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Dispatches inbound messages of a protocol configuration to the consumers of its linked attributes (see
+ * {@link Protocol#createGenericAttributeMessageConsumer}); rather than passing every message to every consumer, the
+ * {@link Protocol#META_ATTRIBUTE_MATCH_PREDICATE} literals of all consumers are compiled into a single automaton (a
+ * trie of the literals with Aho-Corasick failure links) so that one pass over the message finds the consumers whose
+ * predicate can match. Only these consumers receive the message and run their (potentially expensive)
+ * {@link Protocol#META_ATTRIBUTE_MATCH_FILTERS}. Negated and empty predicates can't be indexed so those consumers
+ * receive every message.
+ * <p>
+ * Consumers are called in the order they were added; the automaton is rebuilt on the first message after consumers
+ * have been added or removed.
+ */
+public class MessageDemultiplexer implements Consumer<String> {
+
+    protected static class Entry {
+        protected final AttributeRef attributeRef;
+        protected final StringPredicate predicate;
+        protected final Consumer<String> consumer;
+        protected final String literal; // The text to find in the message, null if the predicate can't be indexed
+
+        protected Entry(AttributeRef attributeRef, StringPredicate predicate, Consumer<String> consumer) {
+            this.attributeRef = attributeRef;
+            this.predicate = predicate;
+            this.consumer = consumer;
+
+            boolean indexable = predicate != null
+                && !predicate.negate
+                && predicate.match != null
+                && !TextUtil.isNullOrEmpty(predicate.value);
+            literal = !indexable ? null : predicate.caseSensitive ? predicate.value : predicate.value.toUpperCase(Locale.ROOT);
+        }
+    }
+
+    protected static class Node {
+        protected final Map<Character, Node> next = new HashMap<>();
+        protected final List<Integer> literalEntries = new ArrayList<>(1);
+        protected Node fail;
+        // Entries whose literal ends at this node, including those of the failure links
+        protected int[] entries;
+    }
+
+    protected static class Index {
+        protected final Entry[] entries;
+        protected final int[] unindexedEntries;
+        protected final Node caseSensitiveRoot;
+        protected final Node caseInsensitiveRoot;
+
+        protected Index(Entry[] entries) {
+            this.entries = entries;
+            List<Integer> unindexed = new ArrayList<>();
+            Node caseSensitive = null;
+            Node caseInsensitive = null;
+
+            for (int i = 0; i < entries.length; i++) {
+                Entry entry = entries[i];
+                if (entry.literal == null) {
+                    unindexed.add(i);
+                } else if (entry.predicate.caseSensitive) {
+                    caseSensitive = addLiteral(caseSensitive, entry.literal, i);
+                } else {
+                    caseInsensitive = addLiteral(caseInsensitive, entry.literal, i);
+                }
+            }
+
+            unindexedEntries = unindexed.stream().mapToInt(Integer::intValue).toArray();
+            caseSensitiveRoot = link(caseSensitive);
+            caseInsensitiveRoot = link(caseInsensitive);
+        }
+
+        protected static Node addLiteral(Node root, String literal, int entryIndex) {
+            if (root == null) {
+                root = new Node();
+            }
+            Node node = root;
+            for (int i = 0; i < literal.length(); i++) {
+                node = node.next.computeIfAbsent(literal.charAt(i), c -> new Node());
+            }
+            node.literalEntries.add(entryIndex);
+            return root;
+        }
+
+        /**
+         * Adds the failure links breadth first so the failure node of a node is always complete before the node.
+         */
+        protected static Node link(Node root) {
+            if (root == null) {
+                return null;
+            }
+
+            root.fail = root;
+            root.entries = new int[0];
+            Deque<Node> queue = new ArrayDeque<>();
+
+            root.next.values().forEach(child -> {
+                child.fail = root;
+                queue.add(child);
+            });
+
+            while (!queue.isEmpty()) {
+                Node node = queue.remove();
+                node.entries = concat(node.literalEntries, node.fail.entries);
+
+                node.next.forEach((c, child) -> {
+                    Node fail = node.fail;
+                    while (fail != root && !fail.next.containsKey(c)) {
+                        fail = fail.fail;
+                    }
+                    Node target = fail.next.get(c);
+                    child.fail = target != null && target != child ? target : root;
+                    queue.add(child);
+                });
+            }
+
+            return root;
+        }
+
+        protected static int[] concat(List<Integer> own, int[] inherited) {
+            int[] entries = new int[own.size() + inherited.length];
+            for (int i = 0; i < own.size(); i++) {
+                entries[i] = own.get(i);
+            }
+            System.arraycopy(inherited, 0, entries, own.size(), inherited.length);
+            return entries;
+        }
+
+        protected void match(Node root, String text, BitSet candidates) {
+            Node node = root;
+            int last = text.length() - 1;
+
+            for (int i = 0; i <= last; i++) {
+                char c = text.charAt(i);
+                Node next;
+                while ((next = node.next.get(c)) == null && node != root) {
+                    node = node.fail;
+                }
+                node = next != null ? next : root;
+
+                for (int entryIndex : node.entries) {
+                    Entry entry = entries[entryIndex];
+                    boolean atStart = i + 1 == entry.literal.length();
+                    boolean atEnd = i == last;
+                    if (isMatch(entry.predicate.match, atStart, atEnd)) {
+                        candidates.set(entryIndex);
+                    }
+                }
+            }
+        }
+
+        protected static boolean isMatch(AssetQuery.Match match, boolean atStart, boolean atEnd) {
+            switch (match) {
+                case BEGIN:
+                    return atStart;
+                case END:
+                    return atEnd;
+                case CONTAINS:
+                    return true;
+            }
+            return atStart && atEnd;
+        }
+    }
+
+    protected final List<Entry> entries = new ArrayList<>();
+    protected volatile Index index;
+
+    /**
+     * @param predicate The {@link Protocol#META_ATTRIBUTE_MATCH_PREDICATE} of the attribute, the consumer must apply
+     *                  it itself as the index only selects the consumers that can match.
+     */
+    public synchronized void add(AttributeRef attributeRef, StringPredicate predicate, Consumer<String> consumer) {
+        entries.add(new Entry(attributeRef, predicate, consumer));
+        index = null;
+    }
+
+    public synchronized void remove(AttributeRef attributeRef) {
+        if (entries.removeIf(entry -> entry.attributeRef.equals(attributeRef))) {
+            index = null;
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    @Override
+    public void accept(String message) {
+        if (TextUtil.isNullOrEmpty(message)) {
+            return;
+        }
+
+        Index index = getIndex();
+        BitSet candidates = new BitSet(index.entries.length);
+
+        for (int entryIndex : index.unindexedEntries) {
+            candidates.set(entryIndex);
+        }
+        if (index.caseSensitiveRoot != null) {
+            index.match(index.caseSensitiveRoot, message, candidates);
+        }
+        if (index.caseInsensitiveRoot != null) {
+            index.match(index.caseInsensitiveRoot, message.toUpperCase(Locale.ROOT), candidates);
+        }
+
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            index.entries[i].consumer.accept(message);
+        }
+    }
+
+    protected Index getIndex() {
+        Index index = this.index;
+        if (index == null) {
+            synchronized (this) {
+                index = this.index;
+                if (index == null) {
+                    index = new Index(entries.toArray(new Entry[0]));
+                    this.index = index;
+                }
+            }
+        }
+        return index;
+    }
+}
@@ -24,6 +24,7 @@ import org.apache.commons.codec.binary.Hex;
 import org.openremote.container.web.OAuthGrant;
 import org.openremote.container.Container;
 import org.openremote.container.ContainerService;
+import org.openremote.container.message.MessageQueueFactory;
 import org.openremote.model.AbstractValueHolder;
 import org.openremote.model.asset.Asset;
 import org.openremote.model.asset.AssetAttribute;
@@ -403,7 +404,7 @@ public interface Protocol extends ContainerService {
     String ACTUATOR_TOPIC = "seda://ActuatorTopic?multipleConsumers=true&concurrentConsumers=1&waitForTaskToComplete=NEVER&purgeWhenStopping=true&discardIfNoConsumers=true&limitConcurrentConsumers=false&size=1000";
 
     // Message queue for communicating from protocol to asset/thing layer (sensor changed, trigger asset attribute update)
-    String SENSOR_QUEUE = "seda://SensorQueue?waitForTaskToComplete=NEVER&purgeWhenStopping=true&discardIfNoConsumers=false&size=25000";
+    String SENSOR_QUEUE = "seda://SensorQueue?waitForTaskToComplete=NEVER&purgeWhenStopping=true&discardIfNoConsumers=false&size=25000&queueFactory=#" + MessageQueueFactory.NAME;
 
     String DYNAMIC_VALUE_PLACEHOLDER = "{$value}";
 
@@ -691,38 +692,45 @@ public interface Protocol extends ContainerService {
             .orElse(new Pair<>(true, value));
     }
 
-    static Consumer<String> createGenericAttributeMessageConsumer(AssetAttribute attribute, ProtocolAssetService assetService, Consumer<AttributeState> stateConsumer) {
-
-        ValueFilter[] matchFilters = Values.getMetaItemValueOrThrow(
+    /**
+     * Get the {@link #META_ATTRIBUTE_MATCH_PREDICATE} of the attribute, <code>null</code> if it is missing or invalid.
+     */
+    static StringPredicate getMatchPredicate(AssetAttribute attribute) {
+        return Values.getMetaItemValueOrThrow(
             attribute,
-            META_ATTRIBUTE_MATCH_FILTERS,
+            META_ATTRIBUTE_MATCH_PREDICATE,
             false,
             true)
             .map(Value::toJson)
-            .map(json -> {
+            .map(s -> {
                 try {
-                    return Container.JSON.readValue(json, ValueFilter[].class);
+                    return Container.JSON.readValue(s, StringPredicate.class);
                 } catch (IOException e) {
-                    LOG.log(Level.WARNING, "Failed to deserialize ValueFilter[]", e);
+                    LOG.log(Level.WARNING, "Failed to deserialise StringPredicate", e);
                     return null;
                 }
-            }).orElse(null);
+            })
+            .orElse(null);
+    }
+
+    static Consumer<String> createGenericAttributeMessageConsumer(AssetAttribute attribute, ProtocolAssetService assetService, Consumer<AttributeState> stateConsumer) {
 
-        StringPredicate matchPredicate = Values.getMetaItemValueOrThrow(
+        ValueFilter[] matchFilters = Values.getMetaItemValueOrThrow(
             attribute,
-            META_ATTRIBUTE_MATCH_PREDICATE,
+            META_ATTRIBUTE_MATCH_FILTERS,
             false,
             true)
             .map(Value::toJson)
-            .map(s -> {
+            .map(json -> {
                 try {
-                    return Container.JSON.readValue(s, StringPredicate.class);
+                    return Container.JSON.readValue(json, ValueFilter[].class);
                 } catch (IOException e) {
-                    LOG.log(Level.WARNING, "Failed to deserialise StringPredicate", e);
+                    LOG.log(Level.WARNING, "Failed to deserialize ValueFilter[]", e);
                     return null;
                 }
-            })
-            .orElse(null);
+            }).orElse(null);
+
+        StringPredicate matchPredicate = getMatchPredicate(attribute);
 
         if (matchPredicate == null) {
             return null;
@@ -27,7 +27,9 @@ import java.util.concurrent.ScheduledFuture;
 /**
  * All protocol implementors should use this service to execute non-blocking background tasks.
  * <p>
- * TODO: If we need to run blocking tasks in protocols we can add a regular thread pool/ExecutorService here
+ * Scheduled tasks share a small pool of platform threads and must not block. Tasks submitted for immediate execution
+ * with {@link #execute} or {@link #submit} run on a virtual thread each when the container is configured with
+ * {@link org.openremote.container.Container#VIRTUAL_THREADS}, so they may block on I/O in that mode.
  */
 public interface ProtocolExecutorService extends ScheduledExecutorService, ContainerService {
 
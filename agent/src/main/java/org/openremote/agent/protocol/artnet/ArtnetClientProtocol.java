@@ -3,11 +3,9 @@ package org.openremote.agent.protocol.artnet;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import io.netty.buffer.ByteBuf;
 import io.netty.channel.*;
 import org.openremote.agent.protocol.ProtocolLinkedAttributeImport;
 import org.openremote.agent.protocol.io.AbstractIoClientProtocol;
-import org.openremote.agent.protocol.io.AbstractNettyIoClient;
 import org.openremote.agent.protocol.udp.UdpIoClient;
 import org.openremote.container.Container;
 import org.openremote.container.util.CodecUtil;
@@ -23,7 +21,6 @@ import org.openremote.model.util.Pair;
 import org.openremote.model.value.*;
 
 import java.util.*;
-import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -43,7 +40,6 @@ public class ArtnetClientProtocol extends AbstractIoClientProtocol<ArtnetPacket,
     private static final String PROTOCOL_VERSION = "1.70";
     public static final String PROTOCOL_NAME = PROTOCOL_NAMESPACE + ":artnet";
     public static final String PROTOCOL_DISPLAY_NAME = "Artnet Client";
-    public static final List<MetaItemDescriptor> PROTOCOL_META_ITEM_DESCRIPTORS = joinCollections(ArtnetClientProtocol.PROTOCOL_META_ITEM_DESCRIPTORS, AbstractIoClientProtocol.PROTOCOL_GENERIC_META_ITEM_DESCRIPTORS);
     public static final String agentProtocolConfigName = "ArtnetProtocolAgent";
     public static final MetaItemDescriptor META_ARTNET_LIGHT_ID = metaItemInteger(
             "lightId",
@@ -73,6 +69,17 @@ public class ArtnetClientProtocol extends AbstractIoClientProtocol<ArtnetPacket,
             true,
             1,
             65536);
+    /**
+     * Sets the number of DMX frames sent per second for each universe, changes to the lights of a universe within a
+     * frame are sent together (default {@link ArtnetUniverseCompositor#REFRESH_RATE_DEFAULT}).
+     */
+    public static final MetaItemDescriptor META_ARTNET_REFRESH_RATE = metaItemInteger(
+            PROTOCOL_NAME + ":refreshRate",
+            ACCESS_PRIVATE,
+            false,
+            1,
+            ArtnetUniverseCompositor.REFRESH_RATE_MAX);
+    public static final List<MetaItemDescriptor> PROTOCOL_META_ITEM_DESCRIPTORS = joinCollections(Arrays.asList(META_PROTOCOL_BIND_PORT, META_ARTNET_REFRESH_RATE), AbstractIoClientProtocol.PROTOCOL_GENERIC_META_ITEM_DESCRIPTORS);
 
     public static final List<MetaItemDescriptor> ATTRIBUTE_META_ITEM_DESCRIPTORS = Arrays.asList(
             META_ATTRIBUTE_MATCH_FILTERS,
@@ -82,6 +89,8 @@ public class ArtnetClientProtocol extends AbstractIoClientProtocol<ArtnetPacket,
 
     protected final Map<AttributeRef, List<Pair<AttributeRef, Consumer<ArtnetPacket>>>> protocolMessageConsumers = new HashMap<>();
 
+    protected final Map<AttributeRef, ArtnetUniverseCompositor> compositors = new HashMap<>();
+
     private List<ArtnetLight> artnetLightMemory = new ArrayList<>();
 
     @Override
@@ -120,14 +129,71 @@ public class ArtnetClientProtocol extends AbstractIoClientProtocol<ArtnetPacket,
                 );
     }
 
+    @Override
+    protected void doLinkProtocolConfiguration(Asset agent, AssetAttribute protocolConfiguration) {
+        super.doLinkProtocolConfiguration(agent, protocolConfiguration);
+
+        AttributeRef protocolRef = protocolConfiguration.getReferenceOrThrow();
+        ProtocolIoClient<ArtnetPacket, UdpIoClient<ArtnetPacket>> protocolIoClient = protocolIoClientMap.get(protocolRef);
+
+        if (protocolIoClient == null) {
+            return;
+        }
+
+        int refreshRate = Values.getMetaItemValueOrThrow(
+                protocolConfiguration,
+                META_ARTNET_REFRESH_RATE,
+                false,
+                false
+        ).flatMap(Values::getIntegerCoerced)
+                .map(rate -> Math.max(1, Math.min(rate, ArtnetUniverseCompositor.REFRESH_RATE_MAX)))
+                .orElse(ArtnetUniverseCompositor.REFRESH_RATE_DEFAULT);
+
+        UdpIoClient<ArtnetPacket> client = protocolIoClient.client;
+        ArtnetUniverseCompositor compositor = new ArtnetUniverseCompositor(executorService, refreshRate, client::sendMessage);
+
+        synchronized (compositors) {
+            ArtnetUniverseCompositor oldCompositor = compositors.put(protocolRef, compositor);
+            if (oldCompositor != null) {
+                oldCompositor.stop();
+            }
+        }
+    }
+
     @Override
     protected void doUnlinkProtocolConfiguration(Asset agent, AssetAttribute protocolConfiguration) {
         synchronized (protocolMessageConsumers) {
             protocolMessageConsumers.remove(protocolConfiguration.getReferenceOrThrow());
         }
+        synchronized (compositors) {
+            ArtnetUniverseCompositor compositor = compositors.remove(protocolConfiguration.getReferenceOrThrow());
+            if (compositor != null) {
+                compositor.stop();
+            }
+        }
         super.doUnlinkProtocolConfiguration(agent, protocolConfiguration);
     }
 
+    @Override
+    protected void processLinkedAttributeWrite(AttributeEvent event, Value processedValue, AssetAttribute protocolConfiguration) {
+        ArtnetUniverseCompositor compositor;
+        synchronized (compositors) {
+            compositor = compositors.get(protocolConfiguration.getReferenceOrThrow());
+        }
+        AssetAttribute attribute = getLinkedAttribute(event.getAttributeRef());
+
+        if (compositor == null || attribute == null) {
+            return;
+        }
+
+        ArtnetPacket packet = createWriteMessage(protocolConfiguration, attribute, event, processedValue);
+
+        // The compositor sends the frame of the universe on its next tick
+        if (packet != null) {
+            compositor.update(packet);
+        }
+    }
+
     @Override
     protected UdpIoClient<ArtnetPacket> createIoClient(AssetAttribute protocolConfiguration) throws Exception {
         String host = Values.getMetaItemValueOrThrow(
@@ -166,12 +232,7 @@ public class ArtnetClientProtocol extends AbstractIoClientProtocol<ArtnetPacket,
     protected Supplier<ChannelHandler[]> getEncoderDecoderProvider(UdpIoClient<ArtnetPacket> client, AssetAttribute protocolConfiguration) {
         Supplier<ChannelHandler[]> encoderDecoderProvider = () -> {
             List<ChannelHandler> encodersDecoders = new ArrayList<>();
-            encodersDecoders.add(new AbstractNettyIoClient.MessageToByteEncoder<ArtnetPacket>(ArtnetPacket.class, client, new BiConsumer<ArtnetPacket, ByteBuf>() {
-                @Override
-                public void accept(ArtnetPacket packet, ByteBuf buf) {
-                    packet.toByteBuf(buf);
-                }
-            }));
+            encodersDecoders.add(new ArtnetPacketEncoder(client));
             return encodersDecoders.toArray(new ChannelHandler[0]);
         };
         return encoderDecoderProvider;
@@ -319,7 +380,7 @@ public class ArtnetClientProtocol extends AbstractIoClientProtocol<ArtnetPacket,
                                 for(ArtnetLight abstractLight : artnetLightMemory.stream().filter(light -> light.getUniverse() == universeId).collect(Collectors.toList()))
                                     lightsToSend.add((ArtnetLight)abstractLight);
                                 updateLinkedAttribute(event.getAttributeState());
-                                return new ArtnetPacket(universeId, lightsToSend);
+                                return ArtnetPacket.newInstance(universeId, lightsToSend);
                             }
                         }
                     }
@@ -3,6 +3,7 @@ package org.openremote.agent.protocol.artnet;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
 import org.openremote.model.attribute.*;
 import org.openremote.model.value.Value;
 import org.openremote.model.value.ValueType;
@@ -49,6 +50,20 @@ public class ArtnetLightState {
             .toArray(size -> new Byte[size]);
     }
 
+    public int getValueCount() {
+        return this.getReceivedValues().size();
+    }
+
+    /**
+     * Writes the same bytes as {@link #getValues} without creating any intermediate arrays.
+     */
+    public void writeValues(ByteBuf buf) {
+        int enable = this.enabled? 1 : 0;
+        for (Integer value : this.getReceivedValues().values()) {
+            buf.writeByte((byte)(value * (this.dim/100.) * enable));
+        }
+    }
+
     public void fromAttribute(AttributeEvent event, Attribute attr) {
         AttributeRef reference = event.getAttributeRef();
         MetaItem metaItem = attr.getMetaItem("lightId").orElse(null);
@@ -1,61 +1,160 @@
 package org.openremote.agent.protocol.artnet;
 
 import io.netty.buffer.ByteBuf;
-import org.apache.commons.lang.ArrayUtils;
+import io.netty.util.AbstractReferenceCounted;
+import io.netty.util.Recycler;
+import io.netty.util.ReferenceCounted;
 
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 
-public class ArtnetPacket {
+/**
+ * An ArtDmx packet with the values of the lights of a universe, or with the channel values of a universe composed by
+ * the {@link ArtnetUniverseCompositor}.
+ * <p>
+ * Packets are reference counted so they can be pooled: a packet obtained from {@link #newInstance} returns to the
+ * pool when it is released, which the encoder does once the packet has been written.
+ */
+public class ArtnetPacket extends AbstractReferenceCounted {
 
-    private byte[] PREFIX = { 65, 114, 116, 45, 78, 101, 116, 0, 0, 80, 0, 14 };
-    private byte SEQUENCE = 0;
-    private byte PHYSICAL = 0;
-    private byte DUMMY_LENGTH_HI = 0;
-    private byte DUMMY_LENGTH_LO = 0;
+    private static final Recycler<ArtnetPacket> RECYCLER = new Recycler<ArtnetPacket>() {
+        @Override
+        protected ArtnetPacket newObject(Handle<ArtnetPacket> handle) {
+            return new ArtnetPacket(handle);
+        }
+    };
 
+    private static final byte[] PREFIX = { 65, 114, 116, 45, 78, 101, 116, 0, 0, 80, 0, 14 };
+    private static final byte SEQUENCE = 0;
+    private static final byte PHYSICAL = 0;
+    public static final int HEADER_LENGTH = PREFIX.length + 6;
+    public static final int MAX_DATA_LENGTH = 512;
+
+    private final Recycler.Handle<ArtnetPacket> handle;
     private int universe;
     private List<ArtnetLight> lights;
+    // Kept when the packet is recycled so pooled channel packets don't allocate
+    private byte[] channels;
+    private int channelCount;
 
     public ArtnetPacket(int universe, List<ArtnetLight> lights) {
+        this((Recycler.Handle<ArtnetPacket>) null);
+        init(universe, lights);
+    }
+
+    private ArtnetPacket(Recycler.Handle<ArtnetPacket> handle) {
+        this.handle = handle;
+    }
+
+    /**
+     * @return A packet from the pool, it must be released (or passed to the encoder) once used.
+     */
+    public static ArtnetPacket newInstance(int universe, List<ArtnetLight> lights) {
+        ArtnetPacket packet = RECYCLER.get();
+        packet.setRefCnt(1);
+        packet.init(universe, lights);
+        return packet;
+    }
+
+    /**
+     * @return A packet from the pool with a copy of the first <code>length</code> channel values, it must be released
+     * (or passed to the encoder) once used.
+     */
+    public static ArtnetPacket newInstance(int universe, byte[] channels, int length) {
+        if (length < 0 || length > MAX_DATA_LENGTH) {
+            throw new IllegalArgumentException("Length must be in the range 0-" + MAX_DATA_LENGTH);
+        }
+        ArtnetPacket packet = RECYCLER.get();
+        packet.setRefCnt(1);
+        packet.universe = universe;
+        packet.lights = null;
+        if (packet.channels == null) {
+            packet.channels = new byte[MAX_DATA_LENGTH];
+        }
+        System.arraycopy(channels, 0, packet.channels, 0, length);
+        packet.channelCount = length;
+        return packet;
+    }
+
+    private void init(int universe, List<ArtnetLight> lights) {
         this.universe = universe;
-        Collections.sort(lights, Comparator.comparingInt(ArtnetLight ::getLightId));
+        lights.sort(Comparator.comparingInt(ArtnetLight::getLightId));
         this.lights = lights;
     }
 
-    public void toByteBuf(ByteBuf buf) {
-        writePrefix(buf, this.universe);
-        for(ArtnetLight light : lights)
-            writeLight(buf, light.getLightState().getValues(), light.getAmountOfLeds());
-        updateLength(buf);
+    public int getUniverse() {
+        return universe;
     }
 
+    /**
+     * @return The size of the packet in bytes.
+     */
+    public int getLength() {
+        return HEADER_LENGTH + getDataLength();
+    }
 
-    private void writePrefix(ByteBuf buf, int universe)
-    {
+    public void toByteBuf(ByteBuf buf) {
+        int dataLength = getDataLength();
+        buf.ensureWritable(HEADER_LENGTH + dataLength);
         buf.writeBytes(PREFIX);
         buf.writeByte(SEQUENCE);
         buf.writeByte(PHYSICAL);
-        buf.writeByte((universe >> 8) & 0xff);
-        buf.writeByte(universe & 0xff);
-        buf.writeByte(DUMMY_LENGTH_HI);
-        buf.writeByte(DUMMY_LENGTH_LO);
-    }
-
-    // Required as we do not know how many light ids we will need to send
-    private void updateLength(ByteBuf buf)
-    {
-        int len_idx = PREFIX.length + 4;
-        int len = buf.writerIndex() - len_idx - 2;
-        buf.setByte(len_idx, (len >> 8) & 0xff);
-        buf.setByte(len_idx+1, len & 0xff);
-    }
-
-    private void writeLight(ByteBuf buf, Byte[] light, int repeat)
-    {
-        byte[] values = ArrayUtils.toPrimitive(light);
-        for(int i = 0; i < repeat; i++)
-            buf.writeBytes(values);
+        buf.writeShort(universe);
+        buf.writeShort(dataLength);
+        writeData(buf);
+    }
+
+    /**
+     * Writes only the channel values of the packet.
+     */
+    public void writeData(ByteBuf buf) {
+        if (lights == null) {
+            buf.writeBytes(channels, 0, channelCount);
+            return;
+        }
+
+        for (ArtnetLight light : lights) {
+            writeLight(buf, light.getLightState(), light.getAmountOfLeds());
+        }
+    }
+
+    public int getDataLength() {
+        if (lights == null) {
+            return channelCount;
+        }
+
+        int dataLength = 0;
+        for (ArtnetLight light : lights) {
+            dataLength += light.getLightState().getValueCount() * light.getAmountOfLeds();
+        }
+        return dataLength;
+    }
+
+    private void writeLight(ByteBuf buf, ArtnetLightState lightState, int repeat) {
+        if (repeat <= 0) {
+            return;
+        }
+
+        // Write the values once and copy them within the buffer for the other LEDs
+        int startIndex = buf.writerIndex();
+        lightState.writeValues(buf);
+        int length = buf.writerIndex() - startIndex;
+
+        for (int i = 1; i < repeat; i++) {
+            buf.writeBytes(buf, startIndex, length);
+        }
+    }
+
+    @Override
+    protected void deallocate() {
+        lights = null;
+        if (handle != null) {
+            handle.recycle(this);
+        }
+    }
+
+    @Override
+    public ReferenceCounted touch(Object hint) {
+        return this;
     }
 }
@@ -0,0 +1,21 @@
+package org.openremote.agent.protocol.artnet;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import org.openremote.agent.protocol.io.AbstractNettyIoClient;
+
+/**
+ * Writes an {@link ArtnetPacket} into a pooled buffer of exactly its size; the packet is released (returning it to
+ * the pool) once it has been written.
+ */
+public class ArtnetPacketEncoder extends AbstractNettyIoClient.MessageToByteEncoder<ArtnetPacket> {
+
+    public ArtnetPacketEncoder(AbstractNettyIoClient<ArtnetPacket, ?> client) {
+        super(ArtnetPacket.class, client, ArtnetPacket::toByteBuf);
+    }
+
+    @Override
+    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, ArtnetPacket packet, boolean preferDirect) {
+        return preferDirect ? ctx.alloc().ioBuffer(packet.getLength()) : ctx.alloc().heapBuffer(packet.getLength());
+    }
+}
@@ -0,0 +1,211 @@
+package org.openremote.agent.protocol.artnet;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.openremote.container.metrics.MetricsService;
+import org.openremote.model.syslog.SyslogCategory;
+
+import java.util.*;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.openremote.agent.protocol.artnet.ArtnetPacket.MAX_DATA_LENGTH;
+import static org.openremote.model.syslog.SyslogCategory.PROTOCOL;
+
+/**
+ * Keeps the channel values of every DMX universe and sends at most one ArtDmx packet per universe per refresh tick,
+ * so a scene change across many lights of a universe produces a single packet rather than one per light.
+ * <p>
+ * Each update is composed into the frame of its universe and only the channels whose value changed are marked dirty;
+ * an update that changes nothing doesn't cause a packet. A tick is only scheduled whilst a universe is dirty, at the
+ * next multiple of the refresh period, so a change is sent within one period and an idle compositor costs nothing.
+ */
+public class ArtnetUniverseCompositor {
+
+    protected static class Universe {
+        protected final int id;
+        protected final byte[] channels = new byte[MAX_DATA_LENGTH];
+        protected final BitSet dirtyChannels = new BitSet(MAX_DATA_LENGTH);
+        protected int length;
+        protected long dirtyNanos;
+
+        protected Universe(int id) {
+            this.id = id;
+        }
+    }
+
+    private static final Logger LOG = SyslogCategory.getLogger(PROTOCOL, ArtnetUniverseCompositor.class);
+    public static final int REFRESH_RATE_DEFAULT = 30;
+    // The highest rate at which a full universe can be sent over DMX512
+    public static final int REFRESH_RATE_MAX = 44;
+    protected static final Timer FRAME_LATENCY_TIMER = MetricsService.timer("or.artnet.frame.latency", "Time from the first change of a DMX universe until its frame is sent");
+    protected static final Counter FRAME_COUNTER = MetricsService.counter("or.artnet.frames", "Art-Net DMX frames sent");
+    protected static final Counter MERGED_COUNTER = MetricsService.counter("or.artnet.updates.merged", "Art-Net light updates merged into a frame that was already pending");
+    protected final ScheduledExecutorService executorService;
+    protected final long periodNanos;
+    protected final Consumer<ArtnetPacket> packetSender;
+    protected final Map<Integer, Universe> universes = new HashMap<>();
+    protected final ByteBuf composeBuffer = Unpooled.buffer(MAX_DATA_LENGTH);
+    protected final long originNanos = System.nanoTime();
+    protected ScheduledFuture<?> tickTask;
+    protected boolean started = true;
+    protected long frameCount;
+    protected long updateCount;
+    protected long mergedUpdateCount;
+
+    /**
+     * @param refreshRate  Ticks per second, in the range 1-{@link #REFRESH_RATE_MAX}.
+     * @param packetSender Sends a packet and takes ownership of it, it is called outside of any lock.
+     */
+    public ArtnetUniverseCompositor(ScheduledExecutorService executorService, int refreshRate, Consumer<ArtnetPacket> packetSender) {
+        if (refreshRate < 1 || refreshRate > REFRESH_RATE_MAX) {
+            throw new IllegalArgumentException("Refresh rate must be in the range 1-" + REFRESH_RATE_MAX);
+        }
+        this.executorService = executorService;
+        this.periodNanos = TimeUnit.SECONDS.toNanos(1) / refreshRate;
+        this.packetSender = packetSender;
+    }
+
+    /**
+     * Composes the channel values of the packet into the frame of its universe and releases the packet; values beyond
+     * {@link ArtnetPacket#MAX_DATA_LENGTH} channels are dropped.
+     */
+    public synchronized void update(ArtnetPacket packet) {
+        try {
+            if (!started) {
+                return;
+            }
+
+            composeBuffer.clear();
+            packet.writeData(composeBuffer);
+            int length = composeBuffer.writerIndex();
+
+            if (length > MAX_DATA_LENGTH) {
+                LOG.fine("Dropping the values of channels beyond " + MAX_DATA_LENGTH + " in universe " + packet.getUniverse());
+                length = MAX_DATA_LENGTH;
+            }
+
+            // ArtDmx requires an even number of channels
+            length += length % 2;
+            Universe universe = universes.computeIfAbsent(packet.getUniverse(), Universe::new);
+            boolean wasDirty = !universe.dirtyChannels.isEmpty();
+
+            for (int i = 0; i < length; i++) {
+                byte value = i < composeBuffer.writerIndex() ? composeBuffer.getByte(i) : 0;
+                if (universe.channels[i] != value) {
+                    universe.channels[i] = value;
+                    universe.dirtyChannels.set(i);
+                }
+            }
+
+            if (length != universe.length) {
+                // Channels no longer sent are cleared so they are zero if the universe grows again
+                if (length < universe.length) {
+                    Arrays.fill(universe.channels, length, universe.length, (byte) 0);
+                }
+                universe.dirtyChannels.set(Math.min(length, universe.length), Math.max(length, universe.length));
+                universe.length = length;
+            }
+
+            updateCount++;
+
+            if (universe.dirtyChannels.isEmpty()) {
+                return;
+            }
+
+            if (wasDirty) {
+                mergedUpdateCount++;
+                MERGED_COUNTER.increment();
+                return;
+            }
+
+            universe.dirtyNanos = System.nanoTime();
+
+            if (tickTask == null) {
+                long untilTickNanos = periodNanos - (universe.dirtyNanos - originNanos) % periodNanos;
+                tickTask = executorService.schedule(this::onTick, untilTickNanos, TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            packet.release();
+        }
+    }
+
+    /**
+     * Stops sending frames, pending changes are dropped.
+     */
+    public synchronized void stop() {
+        started = false;
+        if (tickTask != null) {
+            tickTask.cancel(false);
+            tickTask = null;
+        }
+        universes.clear();
+    }
+
+    protected void onTick() {
+        List<ArtnetPacket> packets = new ArrayList<>();
+
+        synchronized (this) {
+            tickTask = null;
+
+            if (!started) {
+                return;
+            }
+
+            long now = System.nanoTime();
+
+            for (Universe universe : universes.values()) {
+                if (universe.dirtyChannels.isEmpty()) {
+                    continue;
+                }
+                packets.add(ArtnetPacket.newInstance(universe.id, universe.channels, universe.length));
+                universe.dirtyChannels.clear();
+                FRAME_LATENCY_TIMER.record(now - universe.dirtyNanos, TimeUnit.NANOSECONDS);
+            }
+
+            frameCount += packets.size();
+        }
+
+        for (ArtnetPacket packet : packets) {
+            try {
+                packetSender.accept(packet);
+                FRAME_COUNTER.increment();
+            } catch (Exception e) {
+                LOG.log(Level.INFO, "Failed to send Art-Net frame of universe " + packet.getUniverse(), e);
+            }
+        }
+    }
+
+    public long getPeriodMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(periodNanos);
+    }
+
+    public synchronized long getFrameCount() {
+        return frameCount;
+    }
+
+    public synchronized long getUpdateCount() {
+        return updateCount;
+    }
+
+    public synchronized long getMergedUpdateCount() {
+        return mergedUpdateCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return getClass().getSimpleName() + "{" +
+            "periodMillis=" + getPeriodMillis() +
+            ", universes=" + universes.size() +
+            ", frameCount=" + frameCount +
+            ", updateCount=" + updateCount +
+            ", mergedUpdateCount=" + mergedUpdateCount +
+            '}';
+    }
+}
@@ -20,12 +20,12 @@
 package org.openremote.agent.protocol.controller;
 
 import org.apache.http.client.utils.URIBuilder;
-import org.apache.http.conn.HttpHostConnectException;
 import org.jboss.resteasy.client.jaxrs.ResteasyClient;
 import org.jboss.resteasy.client.jaxrs.ResteasyWebTarget;
 import org.openremote.agent.protocol.AbstractProtocol;
 import org.openremote.agent.protocol.controller.command.ControllerCommandBasic;
 import org.openremote.agent.protocol.controller.command.ControllerCommandMapped;
+import org.openremote.agent.protocol.http.AsyncHttpClient;
 import org.openremote.agent.protocol.http.HttpClientProtocol;
 import org.openremote.container.web.WebTargetBuilder;
 import org.openremote.container.Container;
@@ -45,6 +45,10 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.UnknownHostException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
@@ -54,7 +58,6 @@ import java.util.logging.Logger;
 import static org.openremote.container.web.WebTargetBuilder.CONNECTION_POOL_SIZE;
 import static org.openremote.container.web.WebTargetBuilder.createClient;
 import static org.openremote.container.concurrent.GlobalLock.withLock;
-import static org.openremote.container.concurrent.GlobalLock.withLockReturning;
 import static org.openremote.model.Constants.PROTOCOL_NAMESPACE;
 import static org.openremote.model.syslog.SyslogCategory.PROTOCOL;
 import static org.openremote.model.util.TextUtil.*;
@@ -69,8 +72,10 @@ import static org.openremote.model.util.TextUtil.*;
  * <p>
  * The protocol manage two kinds of request :
  * <ul>
- * <li>A set of polling requests (one by controller/device name couple) {@link #pollingSensorList}. For each request we just wait for a response 200 (new status) or 403 (timeout after 60 seconds) and relaunch the
- * same request as soon as we have one of those two responses.</li>
+ * <li>A set of long polling requests (one by controller/device name couple with all the sensors of that device) {@link #pollingSensorList}.
+ * For each request we just wait for a response 200 (new status) or 408 (timeout after 60 seconds) and relaunch the same request as soon
+ * as we have one of those two responses. Requests are sent with an {@link AsyncHttpClient} so no thread is held whilst waiting. Any other
+ * response or failure delays the next request by {@link #POLLING_BACKOFF_INITIAL_MILLIS}, doubling up to {@link #POLLING_BACKOFF_MAX_MILLIS}.</li>
  * <li>Executing commands provided by Write Attribute with necessary information. There is different kind of situations explained in
  * {@link org.openremote.agent.protocol.controller.ControllerCommand}</li>
  * </ul>
@@ -89,7 +94,6 @@ import static org.openremote.model.util.TextUtil.*;
  * <p>
  */
 @SuppressWarnings("JavaDoc")
-// TODO: Fix or remove this protocol - it does constant polling with no delay for each sensor - should be using long poll mechanism; also futures are not cancelled and NPEs appear etc...nasty
 public class ControllerProtocol extends AbstractProtocol {
 
     private static final Logger LOG = SyslogCategory.getLogger(PROTOCOL, ControllerProtocol.class);
@@ -154,6 +158,26 @@ public class ControllerProtocol extends AbstractProtocol {
 
     public static final int HEARTBEAT_DELAY_SECONDS = 5;
 
+    /**
+     * The controller answers a polling request within 60 seconds so allow for some network delay
+     */
+    public static final int POLLING_TIMEOUT_MILLIS = 70000;
+
+    /**
+     * Delay of the next polling or initial status request after the first failure, doubled after each further failure
+     */
+    public static long POLLING_BACKOFF_INITIAL_MILLIS = 1000;
+
+    /**
+     * Maximum delay of the next polling or initial status request after a failure
+     */
+    public static long POLLING_BACKOFF_MAX_MILLIS = 60000;
+
+    /**
+     * Every device has a polling request waiting on the controller so allow for plenty of devices per controller
+     */
+    public static int MAX_POLLING_CONNECTIONS_PER_CONTROLLER = 100;
+
     protected static final List<MetaItemDescriptorImpl> PROTOCOL_META_ITEM_DESCRIPTORS = Arrays
             .asList(new MetaItemDescriptorImpl(META_PROTOCOL_BASE_URI, ValueType.STRING, true,
                             REGEXP_PATTERN_BASIC_HTTP_URL, MetaItemDescriptor.PatternFailure.HTTP_URL.name(), 1, null, false, null, null, null),
@@ -180,8 +204,70 @@ public class ControllerProtocol extends AbstractProtocol {
     public static final String PROTOCOL_DISPLAY_NAME = "Controller Client";
     public static final String PROTOCOL_VERSION = "1.0";
 
+    /**
+     * The long polling request loop of a device of a controller; all linked sensors of the device are polled with a
+     * single request and the loop is restarted whenever the sensors change.
+     */
+    protected class PollingTask {
+        protected final PollingKey pollingKey;
+        protected final List<String> sensorNameList;
+        protected Future<?> future;
+        protected boolean cancelled;
+        protected int failureCount;
+
+        protected PollingTask(PollingKey pollingKey, List<String> sensorNameList) {
+            this.pollingKey = pollingKey;
+            this.sensorNameList = sensorNameList;
+        }
+
+        protected synchronized void schedule(long delayMillis) {
+            if (!cancelled) {
+                future = executorService.schedule(this::poll, delayMillis);
+            }
+        }
+
+        protected void poll() {
+            LOG.fine("### Polling Request for device [device=" + pollingKey.getDeviceName() + ", sensors=" + formatSensors(sensorNameList) + "]");
+
+            Controller controller = controllersMap.get(pollingKey.getControllerAgentRef());
+            ResteasyWebTarget controllerTarget = controllersTargetMap.get(pollingKey.getControllerAgentRef());
+
+            if (controller == null || controllerTarget == null) {
+                return;
+            }
+
+            HttpClientProtocol.HttpClientRequest httpClientRequest = RequestBuilder
+                    .buildStatusPollingRequest(pollingKey.getDeviceName(), sensorNameList, controller.getDeviceId(), controllerTarget);
+            httpClientRequest.setAsyncClient(getAsyncClient(), POLLING_TIMEOUT_MILLIS);
+
+            CompletableFuture<Response> responseFuture;
+
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                responseFuture = httpClientRequest.invokeAsync(null, null);
+                future = responseFuture;
+            }
+
+            responseFuture.whenCompleteAsync((response, error) -> onPollingResponse(this, response, error), executorService);
+        }
+
+        protected synchronized void cancel() {
+            cancelled = true;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+
+        protected synchronized boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
     protected ResteasyClient client;
-    private Map<PollingKey, ScheduledFuture> pollingSensorList = new HashMap<>();
+    protected AsyncHttpClient asyncClient;
+    private Map<PollingKey, PollingTask> pollingSensorList = new ConcurrentHashMap<>();
     private Map<AttributeRef, Controller> controllersMap = new HashMap<>();
     private Map<AttributeRef, ResteasyWebTarget> controllersTargetMap = new HashMap<>();
     private Map<AttributeRef, ScheduledFuture> controllerHeartbeat = new HashMap<>();
@@ -190,7 +276,31 @@ public class ControllerProtocol extends AbstractProtocol {
     @Override
     public void init(Container container) throws Exception {
         super.init(container);
-        client = createClient(executorService, CONNECTION_POOL_SIZE, 70000, null);
+        client = createClient(executorService, CONNECTION_POOL_SIZE, POLLING_TIMEOUT_MILLIS, null, AsyncHttpClient.CapturingHttpEngine::new);
+    }
+
+    @Override
+    protected void doStop(Container container) {
+        withLock(getProtocolName() + "::doStop", () -> {
+            pollingSensorList.values().forEach(PollingTask::cancel);
+            pollingSensorList.clear();
+            controllerHeartbeat.values().forEach(heartbeat -> heartbeat.cancel(true));
+            controllerHeartbeat.clear();
+        });
+
+        synchronized (this) {
+            if (asyncClient != null) {
+                asyncClient.close();
+                asyncClient = null;
+            }
+        }
+    }
+
+    protected synchronized AsyncHttpClient getAsyncClient() {
+        if (asyncClient == null) {
+            asyncClient = new AsyncHttpClient(1, MAX_POLLING_CONNECTIONS_PER_CONTROLLER);
+        }
+        return asyncClient;
     }
 
     @Override
@@ -237,15 +347,17 @@ public class ControllerProtocol extends AbstractProtocol {
 
     @Override
     protected void doUnlinkProtocolConfiguration(Asset agent, AssetAttribute protocolConfiguration) {
-        controllersMap.remove(protocolConfiguration.getReferenceOrThrow());
-        controllersTargetMap.remove(protocolConfiguration.getReferenceOrThrow());
-        controllerHeartbeat.remove(protocolConfiguration.getReferenceOrThrow());
+        AttributeRef controllerRef = protocolConfiguration.getReferenceOrThrow();
 
-        for (PollingKey key : this.pollingSensorList.keySet()) {
-            if (key.getControllerAgentRef().equals(protocolConfiguration.getReferenceOrThrow())) {
-                this.pollingSensorList.remove(key);
-            }
+        this.cancelPollingTasks(controllerRef, true);
+
+        ScheduledFuture heartbeat = controllerHeartbeat.remove(controllerRef);
+        if (heartbeat != null) {
+            heartbeat.cancel(true);
         }
+
+        controllersMap.remove(controllerRef);
+        controllersTargetMap.remove(controllerRef);
     }
 
     @Override
@@ -273,19 +385,14 @@ public class ControllerProtocol extends AbstractProtocol {
             LOG.fine("### Adding new sensor [" + deviceName + "," + sensorName + "] linked to " + protocolConfiguration.getReferenceOrThrow() + " (" + protocolConfiguration.getNameOrThrow() + ")");
             controllersMap.get(protocolConfiguration.getReferenceOrThrow()).addSensor(attribute.getReferenceOrThrow(), new ControllerSensor(deviceName, sensorName));
 
-            //Properly stop previously existing polling on device name --> use of false parameter
             PollingKey pollingKey = new PollingKey(deviceName, protocolConfiguration.getReferenceOrThrow());
 
-            if (pollingSensorList.containsKey(pollingKey)) {
-                pollingSensorList.get(pollingKey).cancel(true);
-            }
-
             this.initStatusDone.put(attribute.getReferenceOrThrow(), false);
 
             //Get initial status of sensor
-            this.collectInitialStatus(attribute.getReferenceOrThrow(), deviceName, sensorName, protocolConfiguration.getReferenceOrThrow());
+            this.collectInitialStatus(attribute.getReferenceOrThrow(), deviceName, sensorName, protocolConfiguration.getReferenceOrThrow(), 0);
 
-            //Put new polling on a new device name or update previous
+            //Put new polling on a new device name or replace the previous one (which is cancelled) to include this sensor
             this.schedulePollingTask(pollingKey);
         }
 
@@ -309,15 +416,31 @@ public class ControllerProtocol extends AbstractProtocol {
     }
 
     /**
-     * Clearing elements if an attribute is unlinked from Controller Agent
-     * We don't have to clear {@link #pollingSensorList} as a check is done before scheduling task {@link #schedulePollingTask}
+     * Clearing elements if an attribute is unlinked from Controller Agent; the polling of the sensor's device is restarted
+     * without the sensor or stopped if it was the last sensor of the device (see {@link #schedulePollingTask})
      *
      * @param attribute
      * @param protocolConfiguration
      */
     @Override
     protected void doUnlinkAttribute(AssetAttribute attribute, AssetAttribute protocolConfiguration) {
-        controllersMap.get(protocolConfiguration.getReferenceOrThrow()).removeAttributeRef(attribute.getReferenceOrThrow());
+        AttributeRef controllerRef = protocolConfiguration.getReferenceOrThrow();
+        Controller controller = controllersMap.get(controllerRef);
+
+        initStatusDone.remove(attribute.getReferenceOrThrow());
+
+        if (controller == null) {
+            return;
+        }
+
+        controller.removeAttributeRef(attribute.getReferenceOrThrow());
+
+        String deviceName = attribute.getMetaItem(META_ATTRIBUTE_DEVICE_NAME).flatMap(AbstractValueHolder::getValueAsString).orElse(null);
+        boolean isSensor = attribute.getMetaItem(META_ATTRIBUTE_SENSOR_NAME).isPresent();
+
+        if (deviceName != null && isSensor) {
+            this.schedulePollingTask(new PollingKey(deviceName, controllerRef));
+        }
     }
 
     /**
@@ -363,17 +486,29 @@ public class ControllerProtocol extends AbstractProtocol {
         return commandsMap;
     }
 
-    private void collectInitialStatus(AttributeRef attributeRef, String deviceName, String sensorName, AttributeRef controllerRef) {
+    /**
+     * Schedule the initial status request of a sensor, failed attempts are retried with the same backoff as polling requests
+     *
+     * @param failureCount number of previous failed attempts
+     */
+    private void collectInitialStatus(AttributeRef attributeRef, String deviceName, String sensorName, AttributeRef controllerRef, int failureCount) {
         this.executorService
-                .schedule(() -> this.executeInitialStatus(attributeRef, deviceName, sensorName, controllerRef,response -> onInitialStatusResponse(attributeRef, deviceName, sensorName, controllerRef, response)),
-                        0);
+                .schedule(() -> this.executeInitialStatus(attributeRef, deviceName, sensorName, controllerRef,response -> onInitialStatusResponse(attributeRef, deviceName, sensorName, controllerRef, response, failureCount)),
+                        failureCount > 0 ? getBackoffMillis(failureCount) : 0);
     }
 
     private void executeInitialStatus(AttributeRef attributeRef, String deviceName, String sensorName, AttributeRef controllerRef, Consumer<Response> responseConsumer) {
         withLock(getProtocolName() + "::executeInitialStatus::" + attributeRef, () -> {
+            ResteasyWebTarget controllerTarget = this.controllersTargetMap.get(controllerRef);
+
+            if (controllerTarget == null || !this.initStatusDone.containsKey(attributeRef)) {
+                // Unlinked in the meantime
+                return;
+            }
+
             LOG.info("### Initial status check for " + attributeRef.getAttributeName() + " [" + deviceName + "," + sensorName + "] ...");
 
-            HttpClientProtocol.HttpClientRequest checkRequest = RequestBuilder.buildStatusRequest(deviceName, Arrays.asList(sensorName), this.controllersTargetMap.get(controllerRef));
+            HttpClientProtocol.HttpClientRequest checkRequest = RequestBuilder.buildStatusRequest(deviceName, Arrays.asList(sensorName), controllerTarget);
 
             Response response = null;
 
@@ -382,6 +517,7 @@ public class ControllerProtocol extends AbstractProtocol {
                 responseConsumer.accept(response);
             } catch (ProcessingException e) {
                 LOG.log(Level.SEVERE, "### Initial status for " + attributeRef.getAttributeName() + " [" + deviceName + "," + sensorName + "] doesn't succeed", e);
+                responseConsumer.accept(null);
             } finally {
                 if (response != null) {
                     response.close();
@@ -391,7 +527,7 @@ public class ControllerProtocol extends AbstractProtocol {
         });
     }
 
-    private void onInitialStatusResponse(AttributeRef attributeRef, String deviceName, String sensorName, AttributeRef controllerRef, Response response) {
+    private void onInitialStatusResponse(AttributeRef attributeRef, String deviceName, String sensorName, AttributeRef controllerRef, Response response, int failureCount) {
         if(response != null) {
             if (response.getStatusInfo().equals(Response.Status.OK)) {
                 String responseBodyAsString = response.readEntity(String.class);
@@ -421,113 +557,123 @@ public class ControllerProtocol extends AbstractProtocol {
             LOG.warning("### Initial status check return a null value for " + attributeRef.getAttributeName() + " [" + deviceName + "," + sensorName + "]");
         }
 
-        if(!this.initStatusDone.get(attributeRef)) {
-            collectInitialStatus(attributeRef, deviceName, sensorName, controllerRef);
+        if(Boolean.FALSE.equals(this.initStatusDone.get(attributeRef))) {
+            collectInitialStatus(attributeRef, deviceName, sensorName, controllerRef, failureCount + 1);
         }
     }
 
     /**
-     * Compute the polling request for a given deviceName and controller. Method check all registered sensor's (linked to the Protocol) and collect all sensor's name
-     * to put them into polling request
+     * Polling request should return three different responses :
+     * <ul>
+     * <li>OK (200) : new values are available for at least one of the sensor provided in queryParam</li>
+     * <li>TIMEOUT (408) : during the last 60 seconds following the start of the request, none of the sensors have new values</li>
+     * <li>Others : error</li>
+     * </ul>
+     * <p>
+     * After a 200 or 408 response we start a new polling request directly, after an error or an exception the next request is
+     * delayed (see {@link #getBackoffMillis}). If the exception is a connection issue {@link #checkIfConnectionRefused(Throwable, AttributeRef)}
+     * cancels the polling until the heartbeat reconnects. Only the 200 response induce an update of every linked attribute having a sensor
+     * status updated.
      *
-     * @param pollingKey Device name and controller agent reference on which we're polling
-     * @return {@link ScheduledFuture} task to keep a track on
+     * @param pollingTask polling of the device name and controller agent ref on which polling has been execute
+     * @param response    Response received from request
+     * @param error       Exception thrown by the request
      */
-    private ScheduledFuture computePollingTask(PollingKey pollingKey) {
-        return withLockReturning(getProtocolName() + "::computePollingTask::" + pollingKey.getControllerAgentRef() + "::" + pollingKey.getDeviceName(), () -> {
-            List<String> sensorNameList = this.controllersMap.get(pollingKey.getControllerAgentRef()).collectSensorNameLinkedToDeviceName(pollingKey.getDeviceName());
+    private void onPollingResponse(PollingTask pollingTask, Response response, Throwable error) {
+        PollingKey pollingKey = pollingTask.pollingKey;
+        List<String> sensorNameList = pollingTask.sensorNameList;
 
-            if (sensorNameList.isEmpty()) {
-                return null;
+        if (pollingTask.isCancelled()) {
+            if (response != null) {
+                response.close();
             }
+            return;
+        }
 
-            return executorService.schedule(() -> executePollingRequest(pollingKey, sensorNameList,
-                    response -> onPollingResponse(pollingKey, sensorNameList, response)), 0);
-        });
-    }
-
-    /**
-     * Polling Request execution if a Connection issue (exception) occurs, we check the nature {@link #checkIfConnectionRefused(Exception, AttributeRef)}
-     *
-     * @param pollingKey       device name and controller agent ref on which we'll polling
-     * @param sensorList       list of sensors to catch status
-     * @param responseConsumer Consumer for onResponse treatment
-     */
-    private void executePollingRequest(PollingKey pollingKey, List<String> sensorList, Consumer<Response> responseConsumer) {
-        LOG.info("### Polling Request for device [device=" + pollingKey.getDeviceName() + ", sensors=" + this.formatSensors(sensorList) + "]");
-
-        HttpClientProtocol.HttpClientRequest httpClientRequest = RequestBuilder
-                .buildStatusPollingRequest(pollingKey.getDeviceName(), sensorList, this.controllersMap.get(pollingKey.getControllerAgentRef()).getDeviceId(), this.controllersTargetMap.get(pollingKey.getControllerAgentRef()));
+        long delayMillis = 0;
 
-        Response response = null;
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            LOG.log(Level.SEVERE,
+                    "### Exception thrown whilst doing polling request [device=" + pollingKey.getDeviceName() + ", sensors=" + this.formatSensors(sensorNameList) + "]",
+                    cause);
 
-        try {
-            response = httpClientRequest.invoke(null);
+            this.checkIfConnectionRefused(cause, pollingKey.getControllerAgentRef());
+            delayMillis = getBackoffMillis(++pollingTask.failureCount);
+        } else {
+            try {
+                this.updateConnectionStatus(pollingKey.getControllerAgentRef(), ConnectionStatus.CONNECTED);
 
-            this.updateConnectionStatus(pollingKey.getControllerAgentRef(), ConnectionStatus.CONNECTED);
-        } catch (Exception e) {
-            LOG.log(Level.SEVERE,
-                    "### Exception thrown whilst doing polling request [device=" + pollingKey.getDeviceName() + ", sensors=" + this.formatSensors(sensorList) + "]",
-                    e);
+                if (processPollingResponse(pollingKey, sensorNameList, response)) {
+                    pollingTask.failureCount = 0;
+                } else {
+                    delayMillis = getBackoffMillis(++pollingTask.failureCount);
+                }
+            } finally {
+                response.close();
+            }
+        }
 
-            this.checkIfConnectionRefused(e, pollingKey.getControllerAgentRef());
+        if (delayMillis > 0) {
+            LOG.fine("### Next polling request for device [device=" + pollingKey.getDeviceName() + "] in " + delayMillis + "ms");
         }
 
-        responseConsumer.accept(response);
+        pollingTask.schedule(delayMillis);
     }
 
     /**
-     * Polling request should return three different responses :
-     * <ul>
-     * <li>OK (200) : new values are available for at least one of the sensor provided in queryParam</li>
-     * <li>TIMEOUT (408) : during the last 60 seconds following the start of the request, none of the sensors have new values</li>
-     * <li>Others : error</li>
-     * </ul>
-     * <p>
-     * In every case, we should start a new polling request directly. Only the 200 response induce an update of every linked attribute having a sensor
-     * status updated.
-     *
-     * @param pollingKey     device name and controller agent ref on which polling has been execute
-     * @param sensorNameList sensors requested
-     * @param response       Response received from request
+     * @return <code>true</code> if the response is a 200 or 408 response
      */
-    private void onPollingResponse(PollingKey pollingKey, List<String> sensorNameList, Response response) {
-        if(response != null) {
-            if (response.getStatusInfo() == Response.Status.OK) {
-                String responseBodyAsString = response.readEntity(String.class);
+    private boolean processPollingResponse(PollingKey pollingKey, List<String> sensorNameList, Response response) {
+        Controller controller = this.controllersMap.get(pollingKey.getControllerAgentRef());
 
-                LOG.info("### New sensors status received");
-                LOG.finer("### Polling request body response : " + responseBodyAsString);
+        if (controller == null) {
+            return true;
+        }
 
-                Optional<ArrayValue> arrayValue = Values.parse(responseBodyAsString).flatMap(Values::getArray);
-                Optional<List<ObjectValue>> statuses = Values.getArrayElements(arrayValue.orElse(null), ObjectValue.class, false, false);
+        if (response.getStatus() == Response.Status.OK.getStatusCode()) {
+            String responseBodyAsString = response.readEntity(String.class);
 
-                if (!statuses.isPresent()) {
-                    LOG.warning("### Polling response is not a JSON array or empty: " + responseBodyAsString);
-                } else {
-                    statuses.get().forEach(status -> {
-                        String name = status.getString("name").orElse(null);
-                        String value = status.getString("value").orElse(null);
+            LOG.fine("### New sensors status received");
+            LOG.finer("### Polling request body response : " + responseBodyAsString);
 
-                        /**
-                         * For every sensors in the request body, find the linked attributeref and update value by calling {@link updateAttributeValue}
-                         */
-                        this.controllersMap.get(pollingKey.getControllerAgentRef()).getSensorsListForDevice(pollingKey.getDeviceName()).stream()
-                                .filter(entry -> entry.getValue().getSensorName().equals(name))
-                                .forEach(e -> this.updateAttributeValue(e.getKey(), value));
-                    });
-                }
-            } else if (response.getStatusInfo() == Response.Status.REQUEST_TIMEOUT) {
-                LOG.info("### Timeout from polling no changes on Controller side given sensors [device=" + pollingKey.getDeviceName() + ", sensors=" + this.formatSensors(sensorNameList) + "]");
+            Optional<ArrayValue> arrayValue = Values.parse(responseBodyAsString).flatMap(Values::getArray);
+            Optional<List<ObjectValue>> statuses = Values.getArrayElements(arrayValue.orElse(null), ObjectValue.class, false, false);
+
+            if (!statuses.isPresent()) {
+                LOG.warning("### Polling response is not a JSON array or empty: " + responseBodyAsString);
             } else {
-                LOG.severe("### Status code received error : " + response.getStatus() + " --> " + response.getStatusInfo().getReasonPhrase());
+                statuses.get().forEach(status -> {
+                    String name = status.getString("name").orElse(null);
+                    String value = status.getString("value").orElse(null);
+
+                    /**
+                     * For every sensors in the request body, find the linked attributeref and update value by calling {@link updateAttributeValue}
+                     */
+                    controller.getSensorsListForDevice(pollingKey.getDeviceName()).stream()
+                            .filter(entry -> entry.getValue().getSensorName().equals(name))
+                            .forEach(e -> this.updateAttributeValue(e.getKey(), value));
+                });
             }
-        } else {
-            LOG.severe("### Received null response from polling (due to previous exception)");
+            return true;
+        }
+
+        if (response.getStatus() == Response.Status.REQUEST_TIMEOUT.getStatusCode()) {
+            LOG.fine("### Timeout from polling no changes on Controller side given sensors [device=" + pollingKey.getDeviceName() + ", sensors=" + this.formatSensors(sensorNameList) + "]");
+            return true;
         }
 
-        //No matter status code, we're continuing to poll
-        this.schedulePollingTask(pollingKey);
+        LOG.severe("### Status code received error : " + response.getStatus() + " --> " + response.getStatusInfo().getReasonPhrase());
+        return false;
+    }
+
+    /**
+     * Exponential backoff delay of the next polling or initial status request
+     *
+     * @param failureCount number of consecutive failures (at least 1)
+     */
+    protected static long getBackoffMillis(int failureCount) {
+        return Math.min(POLLING_BACKOFF_MAX_MILLIS, POLLING_BACKOFF_INITIAL_MILLIS << Math.min(failureCount - 1, 20));
     }
 
     /**
@@ -538,7 +684,14 @@ public class ControllerProtocol extends AbstractProtocol {
      */
     private void updateAttributeValue(AttributeRef attributeRef, String value) {
         LOG.fine("### Updating attribute " + attributeRef + " with value " + value);
-        AttributeValueDescriptor attributeType = this.linkedAttributes.get(attributeRef).getTypeOrThrow();
+        AssetAttribute attribute = this.linkedAttributes.get(attributeRef);
+
+        if (attribute == null) {
+            // Unlinked in the meantime
+            return;
+        }
+
+        AttributeValueDescriptor attributeType = attribute.getTypeOrThrow();
 
         ValueType valueType = attributeType.getValueType();
         try {
@@ -590,28 +743,29 @@ public class ControllerProtocol extends AbstractProtocol {
     }
 
     /**
-     * {@link #checkIfConnectionRefused(Exception, AttributeRef)} check the exception received from a request execution to see if it's not a
+     * {@link #checkIfConnectionRefused(Throwable, AttributeRef)} check the exception received from a request execution to see if it's not a
      * connection issue. If it is the case, we'll start a heartbeat task until we get a new signal. Heartbeat is done evey
      * {@link #HEARTBEAT_DELAY_SECONDS} seconds.
      *
      * @param e           is the exception thrown by invoking the request
      * @param protocolRef is the reference to Protocol configuration (to update status,...)
      */
-    private void checkIfConnectionRefused(Exception e, AttributeRef protocolRef) {
-        if (e.getCause() instanceof HttpHostConnectException) {
-            HttpHostConnectException e2 = (HttpHostConnectException) e.getCause();
-
-            if (e2.getCause() instanceof ConnectException || e2.getCause() instanceof UnknownHostException) {
-                ConnectException e3 = (ConnectException) e2.getCause();
-                LOG.log(Level.SEVERE, "### Connection refused : " + e3.getMessage());
-                this.updateConnectionStatus(protocolRef, ConnectionStatus.DISCONNECTED);
-
-                //Starting a heartbeat Task until connection is OK
-                if (!this.controllerHeartbeat.containsKey(protocolRef) || this.controllerHeartbeat.get(protocolRef).isCancelled()) {
-                    this.controllerHeartbeat.put(protocolRef, this.executorService
-                            .scheduleWithFixedDelay(() -> this.executeHeartbeat(protocolRef, response -> onHeartbeatResponse(protocolRef, response)),
-                                    0, HEARTBEAT_DELAY_SECONDS, TimeUnit.SECONDS));
-                }
+    private void checkIfConnectionRefused(Throwable e, AttributeRef protocolRef) {
+        // Blocking requests wrap the cause in a HttpHostConnectException, async requests fail with the cause itself
+        Throwable cause = e;
+        while (cause != null && !(cause instanceof ConnectException || cause instanceof UnknownHostException)) {
+            cause = cause.getCause();
+        }
+
+        if (cause != null && controllersMap.containsKey(protocolRef)) {
+            LOG.log(Level.SEVERE, "### Connection refused : " + cause.getMessage());
+            this.updateConnectionStatus(protocolRef, ConnectionStatus.DISCONNECTED);
+
+            //Starting a heartbeat Task until connection is OK
+            if (!this.controllerHeartbeat.containsKey(protocolRef) || this.controllerHeartbeat.get(protocolRef).isCancelled()) {
+                this.controllerHeartbeat.put(protocolRef, this.executorService
+                        .scheduleWithFixedDelay(() -> this.executeHeartbeat(protocolRef, response -> onHeartbeatResponse(protocolRef, response)),
+                                0, HEARTBEAT_DELAY_SECONDS, TimeUnit.SECONDS));
             }
         }
     }
@@ -633,7 +787,7 @@ public class ControllerProtocol extends AbstractProtocol {
             if (this.pollingSensorList.isEmpty()) {
                 LOG.info("### no polling to restart for " + protocolRef.getAttributeName() + "...");
             }
-            for (PollingKey key : this.pollingSensorList.keySet()) {
+            for (PollingKey key : new ArrayList<>(this.pollingSensorList.keySet())) {
                 if (key.getControllerAgentRef().equals(protocolRef)) {
                     this.schedulePollingTask(key);
                 }
@@ -641,9 +795,8 @@ public class ControllerProtocol extends AbstractProtocol {
         }
 
         if (status.equals(ConnectionStatus.DISCONNECTED)) {
-            for (ScheduledFuture task : this.pollingSensorList.values()) {
-                task.cancel(true);
-            }
+            //Polling tasks are kept so they can be relaunched once connected
+            this.cancelPollingTasks(protocolRef, false);
         }
     }
 
@@ -681,7 +834,10 @@ public class ControllerProtocol extends AbstractProtocol {
             this.updateConnectionStatus(protocolRef, ConnectionStatus.CONNECTED);
             //cancel has to be the last step
             LOG.info("### Stop Heartbeat task for " + protocolRef.getAttributeName());
-            this.controllerHeartbeat.get(protocolRef).cancel(true);
+            ScheduledFuture heartbeat = this.controllerHeartbeat.get(protocolRef);
+            if (heartbeat != null) {
+                heartbeat.cancel(true);
+            }
         } else {
             if (response != null) {
                 LOG.severe("### Heartbeat check response is " + response.getStatus());
@@ -693,16 +849,56 @@ public class ControllerProtocol extends AbstractProtocol {
     /**
      * Scheduling of a polling request
      * <p>
-     * We check if there is sensor to poll for the given device name.
+     * Any existing polling of the given device name is cancelled (including a request in progress) and a new one is started if there
+     * are sensors to poll for the given device name.
      *
      * @param key
      */
     private void schedulePollingTask(PollingKey key) {
-        ScheduledFuture scheduledFuture = computePollingTask(key);
+        withLock(getProtocolName() + "::schedulePollingTask::" + key.getControllerAgentRef() + "::" + key.getDeviceName(), () -> {
+            PollingTask previousTask = pollingSensorList.remove(key);
 
-        if (scheduledFuture != null) {
-            pollingSensorList.put(key, scheduledFuture);
-        }
+            if (previousTask != null) {
+                previousTask.cancel();
+            }
+
+            Controller controller = this.controllersMap.get(key.getControllerAgentRef());
+            List<String> sensorNameList = controller != null
+                    ? controller.collectSensorNameLinkedToDeviceName(key.getDeviceName())
+                    : Collections.emptyList();
+
+            if (sensorNameList.isEmpty()) {
+                LOG.fine("### No sensors to poll for device [device=" + key.getDeviceName() + "]");
+                return;
+            }
+
+            PollingTask pollingTask = new PollingTask(key, sensorNameList);
+            pollingSensorList.put(key, pollingTask);
+            pollingTask.schedule(0);
+        });
+    }
+
+    /**
+     * Cancel the polling of every device of a controller
+     *
+     * @param protocolRef
+     * @param remove      also forget the polling tasks, otherwise they are relaunched once the controller is connected
+     */
+    private void cancelPollingTasks(AttributeRef protocolRef, boolean remove) {
+        withLock(getProtocolName() + "::cancelPollingTasks::" + protocolRef, () -> {
+            Iterator<Map.Entry<PollingKey, PollingTask>> iterator = pollingSensorList.entrySet().iterator();
+
+            while (iterator.hasNext()) {
+                Map.Entry<PollingKey, PollingTask> entry = iterator.next();
+
+                if (entry.getKey().getControllerAgentRef().equals(protocolRef)) {
+                    entry.getValue().cancel();
+                    if (remove) {
+                        iterator.remove();
+                    }
+                }
+            }
+        });
     }
 
     @Override
@@ -0,0 +1,545 @@
+/*
+ * Copyright 2020, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.agent.protocol.http;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+import io.netty.channel.pool.AbstractChannelPoolMap;
+import io.netty.channel.pool.FixedChannelPool;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.*;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+import org.jboss.resteasy.client.jaxrs.ClientHttpEngine;
+import org.jboss.resteasy.client.jaxrs.internal.ClientInvocation;
+import org.jboss.resteasy.client.jaxrs.internal.ClientResponse;
+import org.jboss.resteasy.core.Headers;
+import org.jboss.resteasy.specimpl.BuiltResponse;
+import org.openremote.container.web.WebTargetBuilder;
+import org.openremote.model.syslog.SyslogCategory;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLException;
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+import static org.openremote.model.syslog.SyslogCategory.PROTOCOL;
+
+/**
+ * A non-blocking HTTP/1.1 client that sends requests over pooled keep-alive connections (at most
+ * {@link #MAX_CONNECTIONS_PER_HOST} per scheme, host and port) and completes a {@link CompletableFuture} when the
+ * response arrives, so no thread is held whilst waiting on a slow server. Cancelling the returned future closes the
+ * connection of the request.
+ * <p>
+ * Requests are built with a normal JAX-RS client that uses the {@link CapturingHttpEngine}; {@link #invoke} runs the
+ * {@link Invocation} through all the registered filters (authentication, header and query parameter injection etc.)
+ * and the engine captures the filtered request instead of sending it. If a filter aborts the request then its response
+ * is returned as is. Response filters are not applied and redirects are not followed. Response entities are buffered
+ * and can be read as {@link String} or <code>byte[]</code>.
+ * <p>
+ * The server may close a keep-alive connection whilst it is idle in the pool; an idempotent request that fails
+ * because its pooled connection turns out to be closed is sent once more on a new connection.
+ */
+public class AsyncHttpClient implements Closeable {
+
+    /**
+     * A request that has been through the JAX-RS filter chain and is ready to be sent.
+     */
+    public static class CapturedRequest {
+        protected URI uri;
+        protected String method;
+        protected MultivaluedMap<String, String> headers;
+        protected byte[] body;
+
+        public boolean isCaptured() {
+            return uri != null;
+        }
+
+        @Override
+        public String toString() {
+            return method + " " + uri;
+        }
+    }
+
+    /**
+     * Wraps the engine of a JAX-RS client and captures any request that has the {@link #CAPTURED_REQUEST} property
+     * instead of sending it, all other requests are sent by the wrapped engine.
+     */
+    public static class CapturingHttpEngine implements ClientHttpEngine {
+
+        protected final ClientHttpEngine engine;
+
+        public CapturingHttpEngine(ClientHttpEngine engine) {
+            this.engine = engine;
+        }
+
+        @Override
+        public SSLContext getSslContext() {
+            return engine.getSslContext();
+        }
+
+        @Override
+        public HostnameVerifier getHostnameVerifier() {
+            return engine.getHostnameVerifier();
+        }
+
+        @Override
+        public ClientResponse invoke(ClientInvocation request) {
+            Object capturedRequest = request.getClientConfiguration().getProperty(CAPTURED_REQUEST);
+
+            if (!(capturedRequest instanceof CapturedRequest)) {
+                return engine.invoke(request);
+            }
+
+            CapturedRequest captured = (CapturedRequest) capturedRequest;
+            captured.method = request.getMethod();
+            captured.headers = request.getHeaders().asMap();
+            MediaType mediaType = request.getHeaders().getMediaType();
+            if (mediaType != null && !captured.headers.containsKey(HttpHeaderNames.CONTENT_TYPE.toString())) {
+                captured.headers.putSingle(HttpHeaderNames.CONTENT_TYPE.toString(), mediaType.toString());
+            }
+
+            if (request.getEntity() != null) {
+                ByteArrayOutputStream body = new ByteArrayOutputStream();
+                try {
+                    request.writeRequestBody(body);
+                } catch (IOException e) {
+                    throw new ProcessingException("Failed to write request body", e);
+                }
+                captured.body = body.toByteArray();
+            }
+
+            captured.uri = request.getUri();
+
+            ClientResponse response = new ClientResponse(request.getClientConfiguration()) {
+                @Override
+                protected InputStream getInputStream() {
+                    return null;
+                }
+
+                @Override
+                protected void setInputStream(InputStream is) {
+                }
+
+                @Override
+                public void releaseConnection() {
+                }
+            };
+            response.setStatus(Response.Status.NO_CONTENT.getStatusCode());
+            return response;
+        }
+
+        @Override
+        public void close() {
+            engine.close();
+        }
+    }
+
+    /**
+     * A response with a fully buffered entity.
+     */
+    protected static class BufferedResponse extends BuiltResponse {
+
+        protected final byte[] content;
+        protected final Charset charset;
+
+        protected BufferedResponse(int status, Headers<Object> metadata, byte[] content, Charset charset) {
+            super(status, metadata, content.length > 0 ? content : null, null);
+            this.content = content;
+            this.charset = charset;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <T> T readEntity(Class<T> type) {
+            if (type == byte[].class) {
+                return (T) content;
+            }
+            if (type == String.class || type == Object.class) {
+                return (T) new String(content, charset);
+            }
+            throw new ProcessingException("Unsupported entity type: " + type);
+        }
+
+        @Override
+        public <T> T readEntity(Class<T> type, Type genericType, Annotation[] anns) {
+            return readEntity(type);
+        }
+    }
+
+    /**
+     * Handles the response to a single request on an acquired connection and returns the connection to its pool.
+     */
+    protected class ResponseHandler extends SimpleChannelInboundHandler<FullHttpResponse> {
+
+        protected final FixedChannelPool pool;
+        protected final Channel channel;
+        protected final CompletableFuture<Response> future;
+        protected final Runnable retry;
+        protected final AtomicBoolean done = new AtomicBoolean();
+        protected ScheduledFuture<?> timeoutFuture;
+
+        /**
+         * @param retry Sends the request again on a new connection if this (reused) connection turns out to be closed,
+         *              <code>null</code> if the request must not be sent again.
+         */
+        protected ResponseHandler(FixedChannelPool pool, Channel channel, CompletableFuture<Response> future, Runnable retry) {
+            this.pool = pool;
+            this.channel = channel;
+            this.future = future;
+            this.retry = retry;
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse msg) {
+            Response response = toResponse(msg);
+            channel.attr(REUSED).set(Boolean.TRUE);
+            finish(!HttpUtil.isKeepAlive(msg));
+            future.complete(response);
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            fail(new ClosedChannelException());
+            super.channelInactive(ctx);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            fail(cause);
+        }
+
+        protected void fail(Throwable cause) {
+            if (!finish(true)) {
+                return;
+            }
+            if (retry != null && !future.isDone() && (cause instanceof IOException)) {
+                LOG.fine("Pooled connection was closed by the server so sending the request again: " + channel);
+                retry.run();
+                return;
+            }
+            future.completeExceptionally(cause);
+        }
+
+        /**
+         * Returns the connection to the pool exactly once, a connection that might still receive (part of) a response
+         * must be closed so it isn't reused.
+         */
+        protected boolean finish(boolean close) {
+            if (!done.compareAndSet(false, true)) {
+                return false;
+            }
+            if (timeoutFuture != null) {
+                timeoutFuture.cancel(false);
+            }
+            if (channel.pipeline().context(this) != null) {
+                channel.pipeline().remove(this);
+            }
+            if (close) {
+                channel.close();
+            }
+            pool.release(channel);
+            return true;
+        }
+    }
+
+    private static final Logger LOG = SyslogCategory.getLogger(PROTOCOL, AsyncHttpClient.class);
+    public static final String CAPTURED_REQUEST = AsyncHttpClient.class.getName() + ".capturedRequest";
+    // Set on a connection once it has received a response, so it has been (or will be) taken from the pool again
+    protected static final AttributeKey<Boolean> REUSED = AttributeKey.valueOf(AsyncHttpClient.class.getName() + ".reused");
+    public static int MAX_CONNECTIONS_PER_HOST = 10;
+    public static int MAX_PENDING_REQUESTS_PER_HOST = 1000;
+    public static int MAX_CONTENT_LENGTH = 10 * 1024 * 1024;
+    protected final EventLoopGroup eventLoopGroup;
+    protected final SslContext sslContext;
+    protected final AbstractChannelPoolMap<URI, FixedChannelPool> pools;
+
+    /**
+     * @param threads Number of event loop threads; one is enough for thousands of concurrent requests.
+     */
+    public AsyncHttpClient(int threads) {
+        this(threads, MAX_CONNECTIONS_PER_HOST);
+    }
+
+    /**
+     * @param threads Number of event loop threads; one is enough for thousands of concurrent requests.
+     * @param maxConnectionsPerHost Maximum number of concurrent requests per scheme, host and port, others are queued.
+     */
+    public AsyncHttpClient(int threads, int maxConnectionsPerHost) {
+        eventLoopGroup = new NioEventLoopGroup(threads);
+
+        try {
+            sslContext = SslContextBuilder.forClient().build();
+        } catch (SSLException e) {
+            eventLoopGroup.shutdownGracefully();
+            throw new IllegalStateException("Failed to create SSL context", e);
+        }
+
+        pools = new AbstractChannelPoolMap<URI, FixedChannelPool>() {
+            @Override
+            protected FixedChannelPool newPool(URI origin) {
+                Bootstrap bootstrap = new Bootstrap()
+                    .group(eventLoopGroup)
+                    .channel(NioSocketChannel.class)
+                    .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) WebTargetBuilder.CONNECTION_TIMEOUT_MILLISECONDS)
+                    .option(ChannelOption.SO_KEEPALIVE, true)
+                    .remoteAddress(origin.getHost(), origin.getPort());
+
+                return new FixedChannelPool(bootstrap, new AbstractChannelPoolHandler() {
+                    @Override
+                    public void channelCreated(Channel channel) {
+                        if ("https".equals(origin.getScheme())) {
+                            channel.pipeline().addLast(sslContext.newHandler(channel.alloc(), origin.getHost(), origin.getPort()));
+                        }
+                        channel.pipeline().addLast(
+                            new HttpClientCodec(),
+                            new HttpContentDecompressor(),
+                            new HttpObjectAggregator(MAX_CONTENT_LENGTH));
+                    }
+                }, maxConnectionsPerHost, MAX_PENDING_REQUESTS_PER_HOST);
+            }
+        };
+    }
+
+    /**
+     * Runs the invocation through the filters of its JAX-RS client, which must use the {@link CapturingHttpEngine}, and
+     * then sends the filtered request without blocking.
+     */
+    public CompletableFuture<Response> invoke(Invocation invocation, long timeoutMillis) {
+        CapturedRequest capturedRequest = new CapturedRequest();
+        Response response;
+
+        try {
+            invocation.property(CAPTURED_REQUEST, capturedRequest);
+            response = invocation.invoke();
+        } catch (Exception e) {
+            CompletableFuture<Response> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        if (!capturedRequest.isCaptured()) {
+            // A filter provided the response
+            return CompletableFuture.completedFuture(response);
+        }
+
+        response.close();
+        return send(capturedRequest, timeoutMillis);
+    }
+
+    public CompletableFuture<Response> send(CapturedRequest request, long timeoutMillis) {
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        URI uri = request.uri;
+        boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+        int port = uri.getPort() != -1 ? uri.getPort() : secure ? 443 : 80;
+        FixedChannelPool pool;
+
+        try {
+            if (!secure && !"http".equalsIgnoreCase(uri.getScheme())) {
+                throw new IllegalArgumentException("Only HTTP(S) is supported: " + uri);
+            }
+            pool = pools.get(new URI(secure ? "https" : "http", null, uri.getHost(), port, null, null, null));
+        } catch (IllegalArgumentException | URISyntaxException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        send(pool, request, port, secure, timeoutMillis, future, false);
+        return future;
+    }
+
+    /**
+     * Sends the request on a pooled connection; if the request is idempotent and is sent on a reused connection that
+     * turns out to be closed it is sent again, once, with <code>fresh</code> set so it gets a new connection.
+     */
+    protected void send(FixedChannelPool pool, CapturedRequest request, int port, boolean secure, long timeoutMillis, CompletableFuture<Response> future, boolean fresh) {
+        FullHttpRequest httpRequest = toHttpRequest(request, port, secure);
+        boolean retryable = !fresh && isIdempotent(httpRequest.method());
+
+        acquire(pool, fresh).addListener((Future<Channel> acquired) -> {
+            if (!acquired.isSuccess()) {
+                httpRequest.release();
+                future.completeExceptionally(acquired.cause());
+                return;
+            }
+
+            Channel channel = acquired.getNow();
+            Runnable retry = retryable && channel.hasAttr(REUSED)
+                ? () -> send(pool, request, port, secure, timeoutMillis, future, true)
+                : null;
+            ResponseHandler handler = new ResponseHandler(pool, channel, future, retry);
+
+            // The handler has to be in place before the request is written so do it on the event loop of the channel
+            channel.eventLoop().execute(() -> {
+                if (future.isDone()) {
+                    // Cancelled whilst waiting for a connection
+                    httpRequest.release();
+                    pool.release(channel);
+                    return;
+                }
+                if (!channel.isActive()) {
+                    httpRequest.release();
+                    pool.release(channel);
+                    if (retry != null) {
+                        retry.run();
+                    } else {
+                        future.completeExceptionally(new ClosedChannelException());
+                    }
+                    return;
+                }
+                channel.pipeline().addLast(handler);
+                // Cancelling the future closes the connection as the response can no longer be read from it
+                future.whenComplete((response, throwable) -> {
+                    if (future.isCancelled()) {
+                        channel.eventLoop().execute(() -> handler.fail(throwable));
+                    }
+                });
+                handler.timeoutFuture = channel.eventLoop().schedule(
+                    () -> handler.fail(new TimeoutException("No response within " + timeoutMillis + "ms: " + request)),
+                    timeoutMillis,
+                    TimeUnit.MILLISECONDS);
+                channel.writeAndFlush(httpRequest).addListener(written -> {
+                    if (!written.isSuccess()) {
+                        handler.fail(written.cause());
+                    }
+                });
+            });
+        });
+    }
+
+    /**
+     * Acquires a connection from the pool; with <code>fresh</code> set reused connections are closed until a new one
+     * is connected, as the other idle connections are likely to have been closed by the server as well.
+     */
+    protected Future<Channel> acquire(FixedChannelPool pool, boolean fresh) {
+        if (!fresh) {
+            return pool.acquire();
+        }
+
+        Promise<Channel> promise = eventLoopGroup.next().newPromise();
+        pool.acquire().addListener((Future<Channel> acquired) -> {
+            if (!acquired.isSuccess()) {
+                promise.setFailure(acquired.cause());
+                return;
+            }
+            Channel channel = acquired.getNow();
+            if (!channel.hasAttr(REUSED)) {
+                promise.setSuccess(channel);
+                return;
+            }
+            channel.close().addListener(closed -> pool.release(channel).addListener(released ->
+                acquire(pool, true).addListener((Future<Channel> next) -> {
+                    if (next.isSuccess()) {
+                        promise.setSuccess(next.getNow());
+                    } else {
+                        promise.setFailure(next.cause());
+                    }
+                })));
+        });
+        return promise;
+    }
+
+    protected static boolean isIdempotent(HttpMethod method) {
+        return HttpMethod.GET.equals(method)
+            || HttpMethod.HEAD.equals(method)
+            || HttpMethod.PUT.equals(method)
+            || HttpMethod.DELETE.equals(method)
+            || HttpMethod.OPTIONS.equals(method)
+            || HttpMethod.TRACE.equals(method);
+    }
+
+    protected FullHttpRequest toHttpRequest(CapturedRequest request, int port, boolean secure) {
+        URI uri = request.uri;
+        String target = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        if (uri.getRawQuery() != null) {
+            target += "?" + uri.getRawQuery();
+        }
+
+        ByteBuf content = request.body != null ? Unpooled.wrappedBuffer(request.body) : Unpooled.EMPTY_BUFFER;
+        FullHttpRequest httpRequest = new DefaultFullHttpRequest(
+            HttpVersion.HTTP_1_1,
+            HttpMethod.valueOf(request.method),
+            target,
+            content);
+
+        if (request.headers != null) {
+            request.headers.forEach((name, values) -> httpRequest.headers().add(name, values));
+        }
+
+        boolean defaultPort = port == (secure ? 443 : 80);
+        httpRequest.headers().set(HttpHeaderNames.HOST, defaultPort ? uri.getHost() : uri.getHost() + ":" + port);
+        httpRequest.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
+        if (!httpRequest.headers().contains(HttpHeaderNames.ACCEPT_ENCODING)) {
+            httpRequest.headers().set(HttpHeaderNames.ACCEPT_ENCODING, HttpHeaderValues.GZIP_DEFLATE);
+        }
+        if (request.body != null) {
+            httpRequest.headers().set(HttpHeaderNames.CONTENT_LENGTH, content.readableBytes());
+        }
+        return httpRequest;
+    }
+
+    protected static Response toResponse(FullHttpResponse msg) {
+        Headers<Object> headers = new Headers<>();
+        msg.headers().forEach(header -> headers.add(header.getKey(), header.getValue()));
+        byte[] content = ByteBufUtil.getBytes(msg.content());
+        Charset charset = HttpUtil.getCharset(msg, StandardCharsets.UTF_8);
+        return new BufferedResponse(msg.status().code(), headers, content, charset);
+    }
+
+    @Override
+    public void close() {
+        LOG.fine("Closing async HTTP client");
+        pools.close();
+        eventLoopGroup.shutdownGracefully(0, 2, TimeUnit.SECONDS);
+    }
+}
@@ -49,6 +49,7 @@ import javax.ws.rs.HttpMethod;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.Invocation;
 import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedHashMap;
 import javax.ws.rs.core.MultivaluedMap;
@@ -58,6 +59,9 @@ import java.lang.reflect.Type;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -84,7 +88,8 @@ import static org.openremote.model.util.TextUtil.REGEXP_PATTERN_STRING_NON_EMPTY
  * <li>{@link #META_PROTOCOL_PASSWORD}</li> <li>{@link Protocol#META_PROTOCOL_OAUTH_GRANT}</li> <li>{@link
  * #META_PROTOCOL_PING_PATH}</li> <li>{@link #META_PROTOCOL_PING_METHOD}</li> <li>{@link #META_PROTOCOL_PING_BODY}</li>
  * <li>{@link #META_PROTOCOL_PING_QUERY_PARAMETERS}</li> <li>{@link #META_PROTOCOL_PING_MILLIS}</li> <li>{@link
- * #META_PROTOCOL_FOLLOW_REDIRECTS}</li> <li>{@link #META_FAILURE_CODES}</li> <li>{@link #META_HEADERS}</li> </ul>
+ * #META_PROTOCOL_FOLLOW_REDIRECTS}</li> <li>{@link #META_PROTOCOL_ASYNC_REQUESTS}</li> <li>{@link
+ * #META_FAILURE_CODES}</li> <li>{@link #META_HEADERS}</li> </ul>
  * <h1>Linked Attributes</h1>
  * <p>
  * {@link Attribute}s that are linked to this protocol using an {@link MetaItemType#AGENT_LINK} {@link MetaItem} support
@@ -103,6 +108,22 @@ import static org.openremote.model.util.TextUtil.REGEXP_PATTERN_STRING_NON_EMPTY
  * #META_ATTRIBUTE_POLLING_MILLIS} {@link MetaItem}) can use the standard {@link Protocol#META_ATTRIBUTE_VALUE_FILTERS} in
  * order to filter the received HTTP response.
  * <p>
+ * <h1>Shared polling</h1>
+ * <p>
+ * Linked {@link Attribute}s of the same {@link ProtocolConfiguration} with identical polling requests (path, method,
+ * headers, query parameters, body and {@link #META_ATTRIBUTE_POLLING_MILLIS}) share a single polling request and each
+ * receives the response through its own {@link Protocol#META_ATTRIBUTE_VALUE_FILTERS}. Polling requests are
+ * conditional: the <code>ETag</code> and <code>Last-Modified</code> headers of the last response are sent back to the
+ * server and if it responds with <code>304 Not Modified</code> then no attributes are updated.
+ * <p>
+ * <h1>Asynchronous requests</h1>
+ * <p>
+ * By default each request blocks a protocol thread until the response is received, when {@link
+ * #META_PROTOCOL_ASYNC_REQUESTS} is <code>true</code> requests are sent by a non-blocking {@link AsyncHttpClient}
+ * over pooled keep-alive connections instead, so slow servers cannot hold up the other protocols. Each polling request
+ * is scheduled again once its response has been processed. Paging requests are always blocking and asynchronous
+ * requests cannot be combined with {@link #META_PROTOCOL_FOLLOW_REDIRECTS}.
+ * <p>
  * <h1>Connection Status</h1>
  * <p>
  * The {@link ConnectionStatus} of the {@link ProtocolConfiguration} is determined by the ping {@link
@@ -177,6 +198,8 @@ public class HttpClientProtocol extends AbstractProtocol {
         protected boolean dynamicQueryParameters;
         protected boolean updateConnectionStatus;
         protected boolean pagingEnabled;
+        protected AsyncHttpClient asyncClient;
+        protected long asyncTimeoutMillis;
 
         public HttpClientRequest(WebTarget client,
                                  String path,
@@ -269,11 +292,48 @@ public class HttpClientProtocol extends AbstractProtocol {
         }
 
         public Response invoke(String value) {
+            return invoke(value, null);
+        }
+
+        /**
+         * @param additionalHeaders Headers to add to this request only, e.g. conditional request headers.
+         */
+        public Response invoke(String value, Map<String, String> additionalHeaders) {
             Invocation.Builder requestBuilder = getRequestBuilder(value);
+            if (additionalHeaders != null) {
+                additionalHeaders.forEach(requestBuilder::header);
+            }
             Invocation invocation = buildInvocation(requestBuilder, value);
             return invocation.invoke();
         }
 
+        /**
+         * Sends the request with the {@link AsyncHttpClient}, if one is set, otherwise the request is sent by the
+         * calling thread.
+         */
+        public CompletableFuture<Response> invokeAsync(String value, Map<String, String> additionalHeaders) {
+            if (asyncClient == null) {
+                CompletableFuture<Response> future = new CompletableFuture<>();
+                try {
+                    future.complete(invoke(value, additionalHeaders));
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+                return future;
+            }
+
+            Invocation.Builder requestBuilder = getRequestBuilder(value);
+            if (additionalHeaders != null) {
+                additionalHeaders.forEach(requestBuilder::header);
+            }
+            return asyncClient.invoke(buildInvocation(requestBuilder, value), asyncTimeoutMillis);
+        }
+
+        public void setAsyncClient(AsyncHttpClient asyncClient, long timeoutMillis) {
+            this.asyncClient = asyncClient;
+            this.asyncTimeoutMillis = timeoutMillis;
+        }
+
         protected Future<Response> submit(String dynamicRequestValue) {
             Invocation.Builder requestBuilder = getRequestBuilder(dynamicRequestValue);
             Invocation invocation = buildInvocation(requestBuilder, dynamicRequestValue);
@@ -326,6 +386,79 @@ public class HttpClientProtocol extends AbstractProtocol {
         }
     }
 
+    /**
+     * A scheduled polling request and the linked attributes that share its response; the ping request of a protocol
+     * configuration is a polling request without any attributes.
+     */
+    protected static class PollingRequest {
+
+        protected final List<Object> key;
+        protected final HttpClientRequest clientRequest;
+        protected final AttributeRef protocolConfigurationRef;
+        protected final String body;
+        protected final int pollingMillis;
+        protected final Set<AttributeRef> attributeRefs = new CopyOnWriteArraySet<>();
+        protected ScheduledFuture<?> pollingFuture;
+        protected boolean cancelled; // Guarded by this, stops an asynchronous request from scheduling itself again
+        protected volatile String eTag;
+        protected volatile String lastModified;
+        protected volatile int version; // Changes when an attribute starts consuming the response
+        protected int requestVersion;
+
+        /**
+         * @param key Identifies identical polling requests, <code>null</code> if the request cannot be shared.
+         */
+        public PollingRequest(List<Object> key, HttpClientRequest clientRequest, AttributeRef protocolConfigurationRef, String body, int pollingMillis) {
+            this.key = key;
+            this.clientRequest = clientRequest;
+            this.protocolConfigurationRef = protocolConfigurationRef;
+            this.body = body;
+            this.pollingMillis = pollingMillis;
+        }
+
+        protected Map<String, String> getConditionalHeaders() {
+            requestVersion = version;
+            String eTag = this.eTag;
+            String lastModified = this.lastModified;
+            if (eTag == null && lastModified == null) {
+                return null;
+            }
+            Map<String, String> headers = new HashMap<>(2);
+            if (eTag != null) {
+                headers.put(HttpHeaders.IF_NONE_MATCH, eTag);
+            }
+            if (lastModified != null) {
+                headers.put(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+            }
+            return headers;
+        }
+
+        protected void updateValidators(Response response) {
+            // An attribute that started consuming the response during the request might have missed it
+            boolean current = response != null && requestVersion == version;
+            eTag = current ? response.getHeaderString(HttpHeaders.ETAG) : null;
+            lastModified = current ? response.getHeaderString(HttpHeaders.LAST_MODIFIED) : null;
+        }
+
+        /**
+         * Forces a full response to the next request, needed when an attribute starts consuming the response.
+         */
+        protected void resetValidators() {
+            version++;
+            eTag = null;
+            lastModified = null;
+        }
+
+        @Override
+        public String toString() {
+            return getClass().getSimpleName() + "{" +
+                "request=" + clientRequest +
+                ", pollingMillis=" + pollingMillis +
+                ", attributeRefs=" + attributeRefs +
+                '}';
+        }
+    }
+
     public static final String PROTOCOL_NAME = PROTOCOL_NAMESPACE + ":httpClient";
     public static final String PROTOCOL_DISPLAY_NAME = "HTTP Client";
     public static final String PROTOCOL_VERSION = "1.0";
@@ -424,6 +557,15 @@ public class HttpClientProtocol extends AbstractProtocol {
             ACCESS_PRIVATE,
             false);
 
+    /**
+     * Flag to indicate whether requests should be sent by a non-blocking client (boolean), see class javadoc for
+     * details
+     */
+    public static final MetaItemDescriptor META_PROTOCOL_ASYNC_REQUESTS = metaItemFixedBoolean(
+            PROTOCOL_NAME + ":asyncRequests",
+            ACCESS_PRIVATE,
+            false);
+
     /*--------------- META ITEMS TO BE USED ON LINKED ATTRIBUTES ---------------*/
     /**
      * Relative path to endpoint on the server; supports dynamic value insertion, see class javadoc for details
@@ -555,6 +697,7 @@ public class HttpClientProtocol extends AbstractProtocol {
             META_PROTOCOL_PING_QUERY_PARAMETERS,
             META_PROTOCOL_PING_HEADERS,
             META_PROTOCOL_FOLLOW_REDIRECTS,
+            META_PROTOCOL_ASYNC_REQUESTS,
             META_QUERY_PARAMETERS,
             META_HEADERS,
             META_FAILURE_CODES,
@@ -563,9 +706,12 @@ public class HttpClientProtocol extends AbstractProtocol {
 
     protected final Map<AttributeRef, Pair<ResteasyWebTarget, List<Integer>>> clientMap = new HashMap<>();
     protected final Map<AttributeRef, HttpClientRequest> requestMap = new HashMap<>();
-    protected final Map<AttributeRef, ScheduledFuture> pollingMap = new HashMap<>();
+    protected final Map<AttributeRef, PollingRequest> pollingMap = new HashMap<>();
+    protected final Map<List<Object>, PollingRequest> sharedPollingMap = new HashMap<>();
     protected final Map<AttributeRef, Set<AttributeRef>> pollingLinkedAttributeMap = new HashMap<>();
+    protected final Map<AttributeRef, Long> asyncTimeoutMap = new HashMap<>();
     protected ResteasyClient client;
+    protected AsyncHttpClient asyncClient;
 
     public static Optional<Pair<StringValue, StringValue>> getUsernameAndPassword(AssetAttribute attribute) throws IllegalArgumentException {
         Optional<StringValue> username = Values.getMetaItemValueOrThrow(
@@ -647,15 +793,39 @@ public class HttpClientProtocol extends AbstractProtocol {
     }
 
     protected ResteasyClient createClient() {
-        return WebTargetBuilder.createClient(executorService);
+        return createClient(WebTargetBuilder.CONNECTION_TIMEOUT_MILLISECONDS);
+    }
+
+    protected ResteasyClient createClient(long readTimeoutMillis) {
+        // The engine lets the async client send requests that have been through the filters of this client
+        return WebTargetBuilder.createClient(executorService, WebTargetBuilder.CONNECTION_POOL_SIZE, readTimeoutMillis, null, AsyncHttpClient.CapturingHttpEngine::new);
+    }
+
+    protected AsyncHttpClient getAsyncClient() {
+        if (asyncClient == null) {
+            asyncClient = new AsyncHttpClient(1);
+        }
+        return asyncClient;
     }
 
     @Override
     protected void doStop(Container container) {
-        pollingMap.forEach((attributeRef, scheduledFuture) -> scheduledFuture.cancel(true));
+        pollingMap.values().stream().distinct().forEach(pollingRequest -> {
+            synchronized (pollingRequest) {
+                pollingRequest.cancelled = true;
+                pollingRequest.pollingFuture.cancel(true);
+            }
+        });
         pollingMap.clear();
+        sharedPollingMap.clear();
         requestMap.clear();
         clientMap.clear();
+        asyncTimeoutMap.clear();
+
+        if (asyncClient != null) {
+            asyncClient.close();
+            asyncClient = null;
+        }
     }
 
     @Override
@@ -689,6 +859,17 @@ public class HttpClientProtocol extends AbstractProtocol {
                 false,
                 true).flatMap(Values::getBoolean).orElse(false);
 
+        boolean asyncRequests = Values.getMetaItemValueOrThrow(
+                protocolConfiguration,
+                META_PROTOCOL_ASYNC_REQUESTS,
+                false,
+                true).flatMap(Values::getBoolean).orElse(false);
+
+        if (asyncRequests && followRedirects) {
+            LOG.warning("Asynchronous requests cannot follow redirects so using blocking requests: " + protocolRef);
+            asyncRequests = false;
+        }
+
         List<Integer> failureCodes = protocolConfiguration.getMetaItem(META_FAILURE_CODES)
                 .flatMap(AbstractValueHolder::getValueAsArray)
                 .flatMap(arrayValue ->
@@ -734,7 +915,7 @@ public class HttpClientProtocol extends AbstractProtocol {
 
         WebTargetBuilder webTargetBuilder;
         if (readTimeout != null) {
-            webTargetBuilder = new WebTargetBuilder(WebTargetBuilder.createClient(executorService, WebTargetBuilder.CONNECTION_POOL_SIZE, readTimeout.longValue(), null), uri);
+            webTargetBuilder = new WebTargetBuilder(createClient(readTimeout.longValue()), uri);
         } else {
             webTargetBuilder = new WebTargetBuilder(client, uri);
         }
@@ -758,6 +939,9 @@ public class HttpClientProtocol extends AbstractProtocol {
         ResteasyWebTarget client = webTargetBuilder.build();
 
         clientMap.put(protocolRef, new Pair<>(client, failureCodes));
+        if (asyncRequests) {
+            asyncTimeoutMap.put(protocolRef, readTimeout != null ? readTimeout.longValue() : WebTargetBuilder.CONNECTION_TIMEOUT_MILLISECONDS);
+        }
         updateStatus(protocolRef, ConnectionStatus.CONNECTED);
 
         if (pingPath == null) {
@@ -816,21 +1000,25 @@ public class HttpClientProtocol extends AbstractProtocol {
                 false,
                 contentType);
 
+        setAsyncClient(pingRequest, protocolRef);
         LOG.info("Creating ping polling request '" + pingRequest + "'");
 
         requestMap.put(protocolRef, pingRequest);
-        pollingMap.put(protocolRef, schedulePollingRequest(
+        PollingRequest pingPollingRequest = new PollingRequest(
                 null,
-                protocolRef,
                 pingRequest,
+                protocolRef,
                 pingBody != null ? pingBody.toString() : null,
-                pingPollingMillis));
+                pingPollingMillis);
+        pollingMap.put(protocolRef, pingPollingRequest);
+        schedulePollingRequest(pingPollingRequest);
     }
 
     @Override
     protected void doUnlinkProtocolConfiguration(Asset agent, AssetAttribute protocolConfiguration) {
         AttributeRef protocolConfigurationRef = protocolConfiguration.getReferenceOrThrow();
         clientMap.remove(protocolConfigurationRef);
+        asyncTimeoutMap.remove(protocolConfigurationRef);
         requestMap.remove(protocolConfigurationRef);
         cancelPolling(protocolConfigurationRef);
     }
@@ -932,6 +1120,12 @@ public class HttpClientProtocol extends AbstractProtocol {
                     return links;
                 });
             }
+
+            // This attribute needs the next response even if it hasn't changed
+            PollingRequest pollingSourceRequest = pollingMap.get(new AttributeRef(attributeRef.getEntityId(), pollingAttribute));
+            if (pollingSourceRequest != null) {
+                pollingSourceRequest.resetValidators();
+            }
         }
 
         addHttpClientRequest(protocolConfiguration,
@@ -994,20 +1188,43 @@ public class HttpClientProtocol extends AbstractProtocol {
                 pagingEnabled,
                 contentType);
 
+        if (!pagingEnabled) {
+            setAsyncClient(clientRequest, protocolConfigurationRef);
+        }
+
         LOG.fine("Creating HTTP request for attributeRef '" + clientRequest + "': " + attributeRef);
 
         requestMap.put(attributeRef, clientRequest);
 
-        Optional.ofNullable(pollingMillis).ifPresent(seconds -> {
+        Optional.ofNullable(pollingMillis).ifPresent(millis -> {
             String body = Values.getMetaItemValueOrThrow(attribute, META_ATTRIBUTE_WRITE_VALUE, false, true)
                 .map(Object::toString).orElse(null);
 
-            pollingMap.put(attributeRef, schedulePollingRequest(
-                attributeRef,
+            List<Object> key = Arrays.asList(
                 protocolConfigurationRef,
-                clientRequest,
+                method,
+                path,
+                headers,
+                queryParams,
                 body,
-                seconds));
+                contentType,
+                pagingEnabled,
+                clientRequest.failureCodes,
+                millis);
+            PollingRequest pollingRequest = sharedPollingMap.get(key);
+
+            if (pollingRequest == null) {
+                pollingRequest = new PollingRequest(key, clientRequest, protocolConfigurationRef, body, millis);
+                pollingRequest.attributeRefs.add(attributeRef);
+                sharedPollingMap.put(key, pollingRequest);
+                schedulePollingRequest(pollingRequest);
+            } else {
+                LOG.fine("Sharing polling request '" + clientRequest + "' with attribute: " + attributeRef);
+                pollingRequest.attributeRefs.add(attributeRef);
+                pollingRequest.resetValidators();
+            }
+
+            pollingMap.put(attributeRef, pollingRequest);
         });
     }
 
@@ -1119,35 +1336,46 @@ public class HttpClientProtocol extends AbstractProtocol {
                 contentType);
     }
 
-    protected ScheduledFuture schedulePollingRequest(AttributeRef attributeRef,
-                                                     AttributeRef protocolConfigurationRef,
-                                                     HttpClientRequest clientRequest,
-                                                     String body,
-                                                     int pollingMillis) {
+    /**
+     * Makes the request use the {@link AsyncHttpClient} if the protocol configuration has asynchronous requests enabled.
+     */
+    protected void setAsyncClient(HttpClientRequest clientRequest, AttributeRef protocolConfigurationRef) {
+        Long timeoutMillis = asyncTimeoutMap.get(protocolConfigurationRef);
+        if (timeoutMillis != null) {
+            clientRequest.setAsyncClient(getAsyncClient(), timeoutMillis);
+        }
+    }
+
+    protected void schedulePollingRequest(PollingRequest pollingRequest) {
+        HttpClientRequest clientRequest = pollingRequest.clientRequest;
 
-        LOG.fine("Scheduling polling request '" + clientRequest + "' to execute every " + pollingMillis + " ms for attribute: " + attributeRef);
+        LOG.fine("Scheduling polling request '" + clientRequest + "' to execute every " + pollingRequest.pollingMillis + " ms for attributes: " + pollingRequest.attributeRefs);
 
-        return executorService.scheduleWithFixedDelay(() ->
-                executePollingRequest(clientRequest, body, response -> {
+        if (clientRequest.asyncClient != null) {
+            synchronized (pollingRequest) {
+                pollingRequest.pollingFuture = executorService.schedule(() -> executeAsyncPollingRequest(pollingRequest), 0, TimeUnit.MILLISECONDS);
+            }
+            return;
+        }
+
+        pollingRequest.pollingFuture = executorService.scheduleWithFixedDelay(() ->
+                executePollingRequest(pollingRequest, response -> {
                     try {
-                        onPollingResponse(
-                            clientRequest,
-                            response,
-                            attributeRef,
-                            protocolConfigurationRef);
+                        onPollingResponse(pollingRequest, response);
                     } catch (Exception e) {
                         LOG.log(Level.WARNING, getProtocolDisplayName() + " exception thrown whilst processing polling response [" + (e.getCause() != null ? e.getCause().getMessage() : e.getMessage()) + "]: " + clientRequest.requestTarget.getUriBuilder().build().toString());
                     }
-                }), 0, pollingMillis, TimeUnit.MILLISECONDS);
+                }), 0, pollingRequest.pollingMillis, TimeUnit.MILLISECONDS);
     }
 
-    protected void executePollingRequest(HttpClientRequest clientRequest, String body, Consumer<Response> responseConsumer) {
+    protected void executePollingRequest(PollingRequest pollingRequest, Consumer<Response> responseConsumer) {
+        HttpClientRequest clientRequest = pollingRequest.clientRequest;
         Response originalResponse = null, lastResponse = null;
         List<String> entities = new ArrayList<>();
 
         try {
-            originalResponse = clientRequest.invoke(body);
-            if (clientRequest.pagingEnabled) {
+            originalResponse = clientRequest.invoke(pollingRequest.body, pollingRequest.getConditionalHeaders());
+            if (clientRequest.pagingEnabled && originalResponse.getStatus() != Response.Status.NOT_MODIFIED.getStatusCode()) {
                 lastResponse = originalResponse;
                 entities.add(lastResponse.readEntity(String.class));
                 while ((lastResponse = executePagingRequest(clientRequest, lastResponse)) != null) {
@@ -1170,6 +1398,37 @@ public class HttpClientProtocol extends AbstractProtocol {
         }
     }
 
+    /**
+     * Sends the polling request without blocking and schedules the next one once the response has been processed on a
+     * protocol thread.
+     */
+    protected void executeAsyncPollingRequest(PollingRequest pollingRequest) {
+        HttpClientRequest clientRequest = pollingRequest.clientRequest;
+
+        clientRequest.invokeAsync(pollingRequest.body, pollingRequest.getConditionalHeaders()).whenCompleteAsync((response, error) -> {
+            try {
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    LOG.log(Level.WARNING, getProtocolDisplayName() + " exception thrown whilst doing polling request [" + cause + "]: " + clientRequest);
+                } else {
+                    onPollingResponse(pollingRequest, response);
+                }
+            } catch (Exception e) {
+                LOG.log(Level.WARNING, getProtocolDisplayName() + " exception thrown whilst processing polling response [" + (e.getCause() != null ? e.getCause().getMessage() : e.getMessage()) + "]: " + clientRequest);
+            } finally {
+                if (response != null) {
+                    response.close();
+                }
+            }
+
+            synchronized (pollingRequest) {
+                if (!pollingRequest.cancelled) {
+                    pollingRequest.pollingFuture = executorService.schedule(() -> executeAsyncPollingRequest(pollingRequest), pollingRequest.pollingMillis, TimeUnit.MILLISECONDS);
+                }
+            }
+        }, executorService);
+    }
+
     protected Response executePagingRequest(HttpClientRequest clientRequest, Response response) {
         if (response.hasLink("next")) {
             URI nextUrl = response.getLink("next").getUri();
@@ -1182,6 +1441,26 @@ public class HttpClientProtocol extends AbstractProtocol {
                                                 Value attributeValue,
                                                 Consumer<Response> responseConsumer) {
         String valueStr = attributeValue == null ? null : attributeValue.toString();
+
+        if (clientRequest.asyncClient != null) {
+            clientRequest.invokeAsync(valueStr, null).whenCompleteAsync((response, error) -> {
+                try {
+                    if (error != null) {
+                        LOG.log(Level.SEVERE, "Exception thrown whilst doing attribute write request", error);
+                    } else {
+                        responseConsumer.accept(response);
+                    }
+                } catch (Exception e) {
+                    LOG.log(Level.SEVERE, "Exception thrown whilst processing attribute write response", e);
+                } finally {
+                    if (response != null) {
+                        response.close();
+                    }
+                }
+            }, executorService);
+            return;
+        }
+
         Response response = null;
 
         try {
@@ -1196,23 +1475,32 @@ public class HttpClientProtocol extends AbstractProtocol {
         }
     }
 
-    protected void onPollingResponse(HttpClientRequest request,
-                                     Response response,
-                                     AttributeRef attributeRef,
-                                     AttributeRef protocolConfigurationRef) {
+    protected void onPollingResponse(PollingRequest pollingRequest, Response response) {
 
+        HttpClientRequest request = pollingRequest.clientRequest;
+        AttributeRef protocolConfigurationRef = pollingRequest.protocolConfigurationRef;
         int responseCode = response != null ? response.getStatus() : 500;
 
+        if (responseCode == Response.Status.NOT_MODIFIED.getStatusCode()) {
+            // The server confirmed the last response is still current so there is nothing to update
+            if (request.updateConnectionStatus) {
+                updateConnectionStatus(request, protocolConfigurationRef, Response.Status.OK.getStatusCode());
+            }
+            return;
+        }
+
         if (request.updateConnectionStatus) {
             updateConnectionStatus(request, protocolConfigurationRef, responseCode);
         }
 
         Value value = null;
+        pollingRequest.updateValidators(null);
 
         if (response != null && response.hasEntity() && response.getStatusInfo().getFamily() == Response.Status.Family.SUCCESSFUL) {
             try {
                 String responseBody = response.readEntity(String.class);
                 value = responseBody != null ? Values.create(responseBody) : null;
+                pollingRequest.updateValidators(response);
             } catch (Exception e) {
                 LOG.log(Level.SEVERE, "Error occurred whilst trying to read response body", e);
                 response.close();
@@ -1222,20 +1510,24 @@ public class HttpClientProtocol extends AbstractProtocol {
             }
         } else if (isPermanentFailure(responseCode, request.failureCodes)) {
             doPermanentFailure(protocolConfigurationRef);
-            cancelPolling(attributeRef != null ? attributeRef : protocolConfigurationRef);
+            cancelPolling(pollingRequest);
             return;
         }
 
-        if (attributeRef != null) {
+        for (AttributeRef attributeRef : pollingRequest.attributeRefs) {
             updateLinkedAttribute(new AttributeState(attributeRef, value));
 
             // Look for any attributes that also want to use this polling response
+            Set<AttributeRef> linkedRefs;
             synchronized (pollingLinkedAttributeMap) {
-                Set<AttributeRef> linkedRefs = pollingLinkedAttributeMap.get(attributeRef);
-                if (linkedRefs != null) {
-                    Value finalValue = value;
-                    linkedRefs.forEach(ref -> updateLinkedAttribute(new AttributeState(ref, finalValue)));
-                }
+                linkedRefs = pollingLinkedAttributeMap.containsKey(attributeRef)
+                    ? new HashSet<>(pollingLinkedAttributeMap.get(attributeRef))
+                    : null;
+            }
+            // Update outside the lock as the update can block when the message queues are full
+            if (linkedRefs != null) {
+                Value finalValue = value;
+                linkedRefs.forEach(ref -> updateLinkedAttribute(new AttributeState(ref, finalValue)));
             }
         }
     }
@@ -1255,11 +1547,31 @@ public class HttpClientProtocol extends AbstractProtocol {
         }
     }
 
+    /**
+     * Stops the attribute or protocol configuration (ping) from consuming its polling request, the request is cancelled
+     * when no other attributes share it.
+     */
     protected void cancelPolling(AttributeRef attributeRef) {
         withLock(getProtocolName() + "::cancelPolling", () -> {
-            ScheduledFuture pingPoll = pollingMap.remove(attributeRef);
-            if (pingPoll != null) {
-                pingPoll.cancel(false);
+            PollingRequest pollingRequest = pollingMap.remove(attributeRef);
+            if (pollingRequest != null) {
+                pollingRequest.attributeRefs.remove(attributeRef);
+                if (pollingRequest.attributeRefs.isEmpty()) {
+                    cancelPolling(pollingRequest);
+                }
+            }
+        });
+    }
+
+    protected void cancelPolling(PollingRequest pollingRequest) {
+        withLock(getProtocolName() + "::cancelPolling", () -> {
+            synchronized (pollingRequest) {
+                pollingRequest.cancelled = true;
+                pollingRequest.pollingFuture.cancel(false);
+            }
+            pollingMap.values().removeIf(request -> request == pollingRequest);
+            if (pollingRequest.key != null) {
+                sharedPollingMap.remove(pollingRequest.key, pollingRequest);
             }
         });
     }
@@ -23,6 +23,8 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledFuture;
 import java.util.function.Consumer;
 import java.util.logging.Level;
@@ -37,6 +39,7 @@ public class KNXConnection implements NetworkLinkListener, ProcessListener {
     protected final static int INITIAL_RECONNECT_DELAY_MILLIS = 1000;
     protected final static int MAX_RECONNECT_DELAY_MILLIS = 60000;
     protected final static int RECONNECT_BACKOFF_MULTIPLIER = 2;
+    public final static int READ_TELEGRAMS_PER_SECOND_DEFAULT = 20; // Leaves most of a TP1 line for live telegrams
     protected ScheduledFuture<?> reconnectTask;
     protected int reconnectDelayMilliseconds = INITIAL_RECONNECT_DELAY_MILLIS;
     
@@ -47,8 +50,10 @@ public class KNXConnection implements NetworkLinkListener, ProcessListener {
     protected final String connectionType;
     protected KNXNetworkLink knxLink;
     protected ProcessCommunicator processCommunicator;
-    protected final Map<GroupAddress, byte[]> groupAddressStateMap = new HashMap<>();
-    protected final Map<GroupAddress, List<Pair<StateDP, Consumer<Value>>>> groupAddressConsumerMap = new HashMap<>();
+    protected final Map<GroupAddress, byte[]> groupAddressStateMap = new ConcurrentHashMap<>();
+    // Consumer lists are copy on write so telegrams can be dispatched without locking
+    protected final Map<GroupAddress, List<Pair<StateDP, Consumer<Value>>>> groupAddressConsumerMap = new ConcurrentHashMap<>();
+    protected final KNXReadScheduler readScheduler;
 
     protected final String gatewayIp;
     
@@ -63,6 +68,10 @@ public class KNXConnection implements NetworkLinkListener, ProcessListener {
     private static final Logger LOG = SyslogCategory.getLogger(PROTOCOL, KNXConnection.class);
     
     public KNXConnection(String gatewayIp, String connectionType, ProtocolExecutorService executorService, String localIp, Integer remotePort, Boolean useNat, String localKNXAddress) {
+        this(gatewayIp, connectionType, executorService, localIp, remotePort, useNat, localKNXAddress, READ_TELEGRAMS_PER_SECOND_DEFAULT);
+    }
+
+    public KNXConnection(String gatewayIp, String connectionType, ProtocolExecutorService executorService, String localIp, Integer remotePort, Boolean useNat, String localKNXAddress, int readTelegramsPerSecond) {
         this.gatewayIp = gatewayIp;
         this.executorService = executorService;
         this.connectionType =  connectionType;
@@ -70,6 +79,7 @@ public class KNXConnection implements NetworkLinkListener, ProcessListener {
         this.remotePort = remotePort;
         this.useNat = useNat;
         this.localKNXAddress = localKNXAddress;
+        this.readScheduler = new KNXReadScheduler(executorService, readTelegramsPerSecond, this::getGroupAddressValue);
     }
 
     public synchronized void connect() {
@@ -106,17 +116,17 @@ public class KNXConnection implements NetworkLinkListener, ProcessListener {
                 reconnectDelayMilliseconds = INITIAL_RECONNECT_DELAY_MILLIS;
                 onConnectionStatusChanged(ConnectionStatus.CONNECTED);
 
-                // Get the values of all registered group addresses
+                // Get the values of all registered group addresses, throttled so the tunnel isn't flooded
                 LOG.fine("Initialising group address values");
-                synchronized (groupAddressConsumerMap) {
-                    groupAddressConsumerMap.forEach((groupAddress, datapointConsumerList) -> {
-                        if (!datapointConsumerList.isEmpty()) {
-                            // Take first data point for the group address and request the value
-                            Pair<StateDP, Consumer<Value>> datapointConsumer = datapointConsumerList.get(0);
-                            getGroupAddressValue(datapointConsumer.key.getMainAddress(), datapointConsumer.key.getPriority());
-                        }
-                    });
-                }
+                readScheduler.start();
+                groupAddressConsumerMap.forEach((groupAddress, datapointConsumerList) -> {
+                    if (!datapointConsumerList.isEmpty()) {
+                        // Take first data point for the group address and request the value
+                        Pair<StateDP, Consumer<Value>> datapointConsumer = datapointConsumerList.get(0);
+                        readScheduler.requestRead(groupAddress, datapointConsumer.key.getPriority(), datapointConsumerList.size(), true);
+                    }
+                });
+                readScheduler.onStartupReadsQueued();
 
             } else {
                 LOG.log(Level.INFO, "Connection error");
@@ -141,6 +151,7 @@ public class KNXConnection implements NetworkLinkListener, ProcessListener {
 
         LOG.finest("Disconnecting");
         onConnectionStatusChanged(ConnectionStatus.DISCONNECTING);
+        readScheduler.stop();
         if (processCommunicator != null) {
             processCommunicator.detach();
         }
@@ -195,20 +206,21 @@ public class KNXConnection implements NetworkLinkListener, ProcessListener {
     }
 
     protected void onGroupAddressUpdated(GroupAddress groupAddress, byte[] value) {
-        synchronized (groupAddressStateMap) {
-            // Update the state map and notify consumers
-            groupAddressStateMap.compute(groupAddress, (ga, oldValue) -> value);
+        // Update the state map and notify consumers
+        if (value != null) {
+            groupAddressStateMap.put(groupAddress, value);
+            readScheduler.onValueReceived(groupAddress);
+        } else {
+            groupAddressStateMap.remove(groupAddress);
         }
 
-        synchronized (groupAddressConsumerMap) {
-            groupAddressConsumerMap.computeIfPresent(groupAddress, (ga, datapointAndConsumerList) -> {
-                datapointAndConsumerList.forEach(datapointAndConsumer -> {
-                    StateDP datapoint = datapointAndConsumer.key;
-                    Consumer<Value> consumer = datapointAndConsumer.value;
-                    updateConsumer(value, datapoint, consumer);
-                });
+        List<Pair<StateDP, Consumer<Value>>> datapointAndConsumerList = groupAddressConsumerMap.get(groupAddress);
 
-                return datapointAndConsumerList;
+        if (datapointAndConsumerList != null) {
+            datapointAndConsumerList.forEach(datapointAndConsumer -> {
+                StateDP datapoint = datapointAndConsumer.key;
+                Consumer<Value> consumer = datapointAndConsumer.value;
+                updateConsumer(value, datapoint, consumer);
             });
         }
     }
@@ -247,6 +259,7 @@ public class KNXConnection implements NetworkLinkListener, ProcessListener {
 
     protected void onConnectionError() {
         onConnectionStatusChanged(ConnectionStatus.ERROR);
+        readScheduler.stop();
         processCommunicator.detach();
         if (knxLink != null) {
             knxLink.removeLinkListener(this);
@@ -255,8 +268,7 @@ public class KNXConnection implements NetworkLinkListener, ProcessListener {
         knxLink = null;
 
         // Clear out the group address states
-        List<GroupAddress> groupAddresses = Arrays.asList(groupAddressStateMap.keySet().toArray(new GroupAddress[groupAddressStateMap.size()]));
-        groupAddresses.forEach(groupAddress -> onGroupAddressUpdated(groupAddress, null));
+        new ArrayList<>(groupAddressStateMap.keySet()).forEach(groupAddress -> onGroupAddressUpdated(groupAddress, null));
 
         scheduleReconnect();
     }
@@ -265,25 +277,22 @@ public class KNXConnection implements NetworkLinkListener, ProcessListener {
      * Add a consumer for the specified {@link StateDP}.
      */
     public void addDatapointValueConsumer(StateDP datapoint, Consumer<Value> consumer) {
-        synchronized (groupAddressConsumerMap) {
-            List<Pair<StateDP, Consumer<Value>>> groupAddressConsumers = groupAddressConsumerMap
-                .computeIfAbsent(datapoint.getMainAddress(), groupAddress -> new ArrayList<>());
-
-            groupAddressConsumers.add(new Pair<>(datapoint, consumer));
-
-            // Look for existing value for this GA
-            synchronized (groupAddressStateMap) {
-                groupAddressStateMap.compute(datapoint.getMainAddress(), (groupAddress, groupValue) -> {
-                    if (groupValue == null) {
-                        // State not available for this group address so request it
-                        getGroupAddressValue(datapoint.getMainAddress(), datapoint.getPriority());
-                    } else {
-                        updateConsumer(groupValue, datapoint, consumer);
-                    }
-
-                    return groupValue;
-                });
+        List<Pair<StateDP, Consumer<Value>>> groupAddressConsumers = groupAddressConsumerMap.compute(datapoint.getMainAddress(), (groupAddress, datapointConsumerList) -> {
+            if (datapointConsumerList == null) {
+                datapointConsumerList = new CopyOnWriteArrayList<>();
             }
+            datapointConsumerList.add(new Pair<>(datapoint, consumer));
+            return datapointConsumerList;
+        });
+
+        // Look for existing value for this GA
+        byte[] groupValue = groupAddressStateMap.get(datapoint.getMainAddress());
+
+        if (groupValue == null) {
+            // State not available for this group address so request it ahead of any startup reads
+            readScheduler.requestRead(datapoint.getMainAddress(), datapoint.getPriority(), groupAddressConsumers.size(), false);
+        } else {
+            updateConsumer(groupValue, datapoint, consumer);
         }
     }
 
@@ -293,16 +302,14 @@ public class KNXConnection implements NetworkLinkListener, ProcessListener {
      * <b>NOTE: The {@link StateDP} must be the same instance as supplied at registration.</b>
      */
     public void removeDatapointValueConsumer(StateDP datapoint) {
-        synchronized (groupAddressConsumerMap) {
-            groupAddressConsumerMap.computeIfPresent(datapoint.getMainAddress(), (groupAddress, datapointConsumerList) -> {
-                if (datapointConsumerList.removeIf(datapointConsumer -> datapointConsumer.key == datapoint)) {
-                    if (datapointConsumerList.isEmpty()) {
-                        datapointConsumerList = null;
-                    }
-                }
-                return datapointConsumerList;
-            });
-        }
+        groupAddressConsumerMap.computeIfPresent(datapoint.getMainAddress(), (groupAddress, datapointConsumerList) -> {
+            datapointConsumerList.removeIf(datapointConsumer -> datapointConsumer.key == datapoint);
+            return datapointConsumerList.isEmpty() ? null : datapointConsumerList;
+        });
+    }
+
+    public KNXReadScheduler getReadScheduler() {
+        return readScheduler;
     }
 
     protected void getGroupAddressValue(GroupAddress groupAddress, Priority priority) {
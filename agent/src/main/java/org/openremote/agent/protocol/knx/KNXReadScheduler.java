@@ -0,0 +1,359 @@
+package org.openremote.agent.protocol.knx;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import org.openremote.container.metrics.MetricsService;
+import org.openremote.model.syslog.SyslogCategory;
+import tuwien.auto.calimero.GroupAddress;
+import tuwien.auto.calimero.Priority;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.openremote.model.syslog.SyslogCategory.PROTOCOL;
+
+/**
+ * Sends group address read requests at no more than a configured number of telegrams per second, so reading the state
+ * of every status group address after (re)connecting doesn't flood the KNX/IP tunnel and cause telegrams to be
+ * dropped.
+ * <p>
+ * Reads are sent in batches every {@link #READ_BATCH_INTERVAL_MILLIS}, a batch is only sent once the previous one has
+ * been sent. A read requested when an attribute is linked whilst connected is sent before the reads queued on connect,
+ * after that reads for group addresses with more subscribers (linked attributes) are sent first. Only one read is
+ * queued per group address and it is dropped if the value of the group address arrives before it is sent.
+ */
+public class KNXReadScheduler {
+
+    protected static class PendingRead implements Comparable<PendingRead> {
+        protected final GroupAddress groupAddress;
+        protected final Priority priority;
+        protected final int subscriberCount;
+        protected final boolean startup;
+        protected final long sequence;
+        protected final long queuedNanos;
+        protected long sentNanos;
+
+        protected PendingRead(GroupAddress groupAddress, Priority priority, int subscriberCount, boolean startup, long sequence) {
+            this.groupAddress = groupAddress;
+            this.priority = priority;
+            this.subscriberCount = subscriberCount;
+            this.startup = startup;
+            this.sequence = sequence;
+            this.queuedNanos = System.nanoTime();
+        }
+
+        @Override
+        public int compareTo(PendingRead other) {
+            if (startup != other.startup) {
+                return startup ? 1 : -1;
+            }
+            if (subscriberCount != other.subscriberCount) {
+                return Integer.compare(other.subscriberCount, subscriberCount);
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private static final Logger LOG = SyslogCategory.getLogger(PROTOCOL, KNXReadScheduler.class);
+    public static int READ_BATCH_INTERVAL_MILLIS = 100;
+    // Reads that aren't answered within this time are forgotten (the group address may not have a readable status)
+    public static int READ_RESPONSE_TIMEOUT_MILLIS = 10000;
+    protected static final Timer STARTUP_READ_TIMER = MetricsService.timer("or.knx.read", "Time from queueing a KNX group address read until its value is received", "phase", "startup");
+    protected static final Timer LINK_READ_TIMER = MetricsService.timer("or.knx.read", "Time from queueing a KNX group address read until its value is received", "phase", "link");
+    protected static final Timer STARTUP_TIMER = MetricsService.timer("or.knx.read.startup", "Time taken to send the reads of all status group addresses after connecting");
+    protected static final Counter SENT_COUNTER = MetricsService.counter("or.knx.read.sent", "KNX group address reads sent");
+    protected static final Counter SKIPPED_COUNTER = MetricsService.counter("or.knx.read.skipped", "KNX group address reads not sent because the value arrived first");
+    protected final ScheduledExecutorService executorService;
+    protected final int telegramsPerSecond;
+    protected final BiConsumer<GroupAddress, Priority> readSender;
+    protected final PriorityQueue<PendingRead> pendingReads = new PriorityQueue<>();
+    protected final Map<GroupAddress, PendingRead> pendingReadMap = new HashMap<>();
+    protected final Map<GroupAddress, PendingRead> sentReads = new ConcurrentHashMap<>();
+    // Lets values that arrive whilst nothing is pending skip the lock
+    protected volatile int pendingReadCount;
+    protected ScheduledFuture<?> batchTask;
+    protected boolean started;
+    // Incremented on every stop so a batch still being sent can tell that it belongs to a previous connection
+    protected volatile long generation;
+    protected boolean sending;
+    protected double budget;
+    protected long lastBatchNanos;
+    protected long lastSweepNanos;
+    protected long sequence;
+    protected long startupNanos;
+    protected boolean startupReadsQueued;
+    protected int pendingStartupReadCount;
+    protected long sentCount;
+    protected long skippedCount;
+    protected long completedCount;
+    protected long unansweredCount;
+
+    /**
+     * @param readSender Sends a read request, it is called outside of any lock and may block.
+     */
+    public KNXReadScheduler(ScheduledExecutorService executorService, int telegramsPerSecond, BiConsumer<GroupAddress, Priority> readSender) {
+        if (telegramsPerSecond <= 0) {
+            throw new IllegalArgumentException("Telegrams per second must be positive");
+        }
+        this.executorService = executorService;
+        this.telegramsPerSecond = telegramsPerSecond;
+        this.readSender = readSender;
+    }
+
+    /**
+     * Starts sending reads, call when connected and then queue the startup reads followed by
+     * {@link #onStartupReadsQueued}.
+     */
+    public synchronized void start() {
+        stop();
+        started = true;
+        startupNanos = System.nanoTime();
+        lastBatchNanos = startupNanos;
+        lastSweepNanos = startupNanos;
+        budget = getBatchSize();
+    }
+
+    /**
+     * Stops sending reads and drops all pending reads, call when disconnected.
+     */
+    public synchronized void stop() {
+        started = false;
+        generation++;
+        if (batchTask != null) {
+            batchTask.cancel(false);
+            batchTask = null;
+        }
+        pendingReads.clear();
+        pendingReadMap.clear();
+        pendingReadCount = 0;
+        pendingStartupReadCount = 0;
+        sentReads.clear();
+        startupNanos = 0;
+        startupReadsQueued = false;
+    }
+
+    /**
+     * Queues a read of the group address unless one is already queued; a read queued with startup set is timed as
+     * part of the reads sent after connecting.
+     */
+    public synchronized void requestRead(GroupAddress groupAddress, Priority priority, int subscriberCount, boolean startup) {
+        if (!started) {
+            return;
+        }
+
+        PendingRead existingRead = pendingReadMap.get(groupAddress);
+        PendingRead read = new PendingRead(groupAddress, priority, subscriberCount, startup && startupNanos != 0, sequence++);
+
+        if (existingRead != null) {
+            if (read.compareTo(existingRead) >= 0) {
+                return;
+            }
+            // Move it up the queue
+            removePendingRead(existingRead);
+        }
+
+        pendingReads.add(read);
+        pendingReadMap.put(groupAddress, read);
+        pendingReadCount = pendingReadMap.size();
+        if (read.startup) {
+            pendingStartupReadCount++;
+        }
+
+        if (batchTask == null) {
+            batchTask = executorService.schedule(this::onBatchInterval, READ_BATCH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Call once all startup reads have been requested, the startup completes when they have all been sent.
+     */
+    public synchronized void onStartupReadsQueued() {
+        startupReadsQueued = true;
+        LOG.fine("Queued startup reads of KNX group addresses: " + this);
+        onStartupReadsSent();
+    }
+
+    /**
+     * Call for every value received for a group address, this completes a sent read or drops a pending one.
+     */
+    public void onValueReceived(GroupAddress groupAddress) {
+        PendingRead sentRead = sentReads.remove(groupAddress);
+
+        if (sentRead != null) {
+            (sentRead.startup ? STARTUP_READ_TIMER : LINK_READ_TIMER).record(System.nanoTime() - sentRead.queuedNanos, TimeUnit.NANOSECONDS);
+            synchronized (this) {
+                completedCount++;
+            }
+        }
+
+        if (pendingReadCount > 0) {
+            synchronized (this) {
+                PendingRead pendingRead = pendingReadMap.get(groupAddress);
+                if (pendingRead != null) {
+                    removePendingRead(pendingRead);
+                    skippedCount++;
+                    SKIPPED_COUNTER.increment();
+                    onStartupReadsSent();
+                }
+            }
+        }
+    }
+
+    protected synchronized void onBatchInterval() {
+        batchTask = null;
+
+        if (!started) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        budget = Math.min(budget + (now - lastBatchNanos) * telegramsPerSecond / 1_000_000_000d, getBatchSize());
+        lastBatchNanos = now;
+
+        if (now - lastSweepNanos > TimeUnit.MILLISECONDS.toNanos(READ_RESPONSE_TIMEOUT_MILLIS)) {
+            lastSweepNanos = now;
+            long expiredNanos = now - TimeUnit.MILLISECONDS.toNanos(READ_RESPONSE_TIMEOUT_MILLIS);
+            sentReads.values().removeIf(read -> {
+                if (read.sentNanos < expiredNanos) {
+                    unansweredCount++;
+                    return true;
+                }
+                return false;
+            });
+        }
+
+        if (!sending && budget >= 1 && !pendingReads.isEmpty()) {
+            List<PendingRead> batch = new ArrayList<>();
+
+            while (budget >= 1 && !pendingReads.isEmpty()) {
+                PendingRead read = pendingReads.poll();
+                pendingReadMap.remove(read.groupAddress);
+                batch.add(read);
+                budget--;
+            }
+
+            pendingReadCount = pendingReadMap.size();
+            sending = true;
+            long batchGeneration = generation;
+            executorService.execute(() -> sendBatch(batch, batchGeneration));
+        }
+
+        if (!pendingReads.isEmpty()) {
+            batchTask = executorService.schedule(this::onBatchInterval, READ_BATCH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    protected void sendBatch(List<PendingRead> batch, long batchGeneration) {
+        int sent = 0;
+        try {
+            for (PendingRead read : batch) {
+                if (generation != batchGeneration) {
+                    // Stopped whilst sending, the rest of the batch belongs to the previous connection
+                    break;
+                }
+                // Register before sending so a fast response is matched
+                read.sentNanos = System.nanoTime();
+                sentReads.put(read.groupAddress, read);
+                readSender.accept(read.groupAddress, read.priority);
+                SENT_COUNTER.increment();
+                sent++;
+            }
+        } catch (Exception e) {
+            LOG.log(Level.INFO, "Failed to send KNX group address read batch", e);
+        } finally {
+            synchronized (this) {
+                sending = false;
+                sentCount += sent;
+                // The pending reads of a new connection don't include this batch
+                if (generation == batchGeneration) {
+                    for (PendingRead read : batch) {
+                        if (read.startup) {
+                            pendingStartupReadCount--;
+                        }
+                    }
+                    onStartupReadsSent();
+                } else {
+                    for (PendingRead read : batch) {
+                        sentReads.remove(read.groupAddress, read);
+                    }
+                }
+            }
+        }
+    }
+
+    protected void onStartupReadsSent() {
+        if (started && startupReadsQueued && startupNanos != 0 && pendingStartupReadCount == 0) {
+            long startupMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startupNanos);
+            STARTUP_TIMER.record(startupMillis, TimeUnit.MILLISECONDS);
+            LOG.fine("Sent startup reads of KNX group addresses in " + startupMillis + "ms: " + this);
+            startupNanos = 0;
+        }
+    }
+
+    protected void removePendingRead(PendingRead read) {
+        pendingReads.remove(read);
+        pendingReadMap.remove(read.groupAddress);
+        pendingReadCount = pendingReadMap.size();
+        if (read.startup) {
+            pendingStartupReadCount--;
+        }
+    }
+
+    /**
+     * @return The most reads sent in one batch, at least one.
+     */
+    public int getBatchSize() {
+        return Math.max(1, (int) Math.ceil(telegramsPerSecond * READ_BATCH_INTERVAL_MILLIS / 1000d));
+    }
+
+    public int getTelegramsPerSecond() {
+        return telegramsPerSecond;
+    }
+
+    public synchronized int getPendingReadCount() {
+        return pendingReads.size();
+    }
+
+    public int getAwaitedReadCount() {
+        return sentReads.size();
+    }
+
+    public synchronized boolean isStartupComplete() {
+        return startupNanos == 0;
+    }
+
+    public synchronized long getSentCount() {
+        return sentCount;
+    }
+
+    public synchronized long getSkippedCount() {
+        return skippedCount;
+    }
+
+    public synchronized long getCompletedCount() {
+        return completedCount;
+    }
+
+    public synchronized long getUnansweredCount() {
+        return unansweredCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return getClass().getSimpleName() + "{" +
+            "telegramsPerSecond=" + telegramsPerSecond +
+            ", pendingReads=" + pendingReads.size() +
+            ", awaitedReads=" + sentReads.size() +
+            ", sentCount=" + sentCount +
+            ", skippedCount=" + skippedCount +
+            ", completedCount=" + completedCount +
+            ", unansweredCount=" + unansweredCount +
+            '}';
+    }
+}
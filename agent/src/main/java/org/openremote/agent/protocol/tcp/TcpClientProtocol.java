@@ -20,14 +20,15 @@
 package org.openremote.agent.protocol.tcp;
 
 import io.netty.channel.ChannelHandler;
+import org.openremote.agent.protocol.MessageDemultiplexer;
 import org.openremote.agent.protocol.Protocol;
 import org.openremote.agent.protocol.io.AbstractIoClientProtocol;
 import org.openremote.model.asset.Asset;
 import org.openremote.model.asset.AssetAttribute;
 import org.openremote.model.asset.agent.ProtocolConfiguration;
 import org.openremote.model.attribute.*;
+import org.openremote.model.query.filter.StringPredicate;
 import org.openremote.model.syslog.SyslogCategory;
-import org.openremote.model.util.Pair;
 import org.openremote.model.value.Value;
 import org.openremote.model.value.ValueFilter;
 import org.openremote.model.value.Values;
@@ -88,7 +89,7 @@ public class TcpClientProtocol extends AbstractTcpClientProtocol<String> {
         META_ATTRIBUTE_MATCH_FILTERS,
         META_ATTRIBUTE_MATCH_PREDICATE);
 
-    protected final Map<AttributeRef, List<Pair<AttributeRef, Consumer<String>>>> protocolMessageConsumers = new HashMap<>();
+    protected final Map<AttributeRef, MessageDemultiplexer> protocolMessageConsumers = new HashMap<>();
 
     @Override
     public String getProtocolName() {
@@ -138,17 +139,11 @@ public class TcpClientProtocol extends AbstractTcpClientProtocol<String> {
         Consumer<String> messageConsumer = Protocol.createGenericAttributeMessageConsumer(attribute, assetService, this::updateLinkedAttribute);
 
         if (messageConsumer != null) {
+            StringPredicate matchPredicate = Protocol.getMatchPredicate(attribute);
             synchronized (protocolMessageConsumers) {
-                protocolMessageConsumers.compute(protocolRef, (ref, consumers) -> {
-                    if (consumers == null) {
-                        consumers = new ArrayList<>();
-                    }
-                    consumers.add(new Pair<>(
-                        attribute.getReferenceOrThrow(),
-                        messageConsumer
-                    ));
-                    return consumers;
-                });
+                protocolMessageConsumers
+                    .computeIfAbsent(protocolRef, ref -> new MessageDemultiplexer())
+                    .add(attribute.getReferenceOrThrow(), matchPredicate, messageConsumer);
             }
         }
     }
@@ -157,12 +152,10 @@ public class TcpClientProtocol extends AbstractTcpClientProtocol<String> {
     protected void doUnlinkAttribute(AssetAttribute attribute, AssetAttribute protocolConfiguration) {
         AttributeRef attributeRef = attribute.getReferenceOrThrow();
         synchronized (protocolMessageConsumers) {
-            protocolMessageConsumers.compute(protocolConfiguration.getReferenceOrThrow(), (ref, consumers) -> {
-                if (consumers != null) {
-                    consumers.removeIf((attrRefConsumer) -> attrRefConsumer.key.equals(attributeRef));
-                }
-                return consumers;
-            });
+            MessageDemultiplexer consumers = protocolMessageConsumers.get(protocolConfiguration.getReferenceOrThrow());
+            if (consumers != null) {
+                consumers.remove(attributeRef);
+            }
         }
     }
 
@@ -173,18 +166,14 @@ public class TcpClientProtocol extends AbstractTcpClientProtocol<String> {
 
     @Override
     protected void onMessageReceived(AttributeRef protocolRef, String message) {
-        List<Pair<AttributeRef, Consumer<String>>> consumers;
+        MessageDemultiplexer consumers;
 
         synchronized (protocolMessageConsumers) {
             consumers = protocolMessageConsumers.get(protocolRef);
+        }
 
-            if (consumers != null) {
-                consumers.forEach(c -> {
-                    if (c.value != null) {
-                        c.value.accept(message);
-                    }
-                });
-            }
+        if (consumers != null) {
+            consumers.accept(message);
         }
     }
 
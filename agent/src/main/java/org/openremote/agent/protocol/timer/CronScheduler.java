@@ -19,122 +19,320 @@
  */
 package org.openremote.agent.protocol.timer;
 
+import org.openremote.container.Container;
+import org.openremote.container.ContainerService;
+import org.openremote.container.concurrent.ContainerExecutor;
+import org.openremote.container.concurrent.ContainerScheduledExecutor;
+import org.openremote.container.concurrent.ContainerThreadFactory;
+import org.openremote.container.timer.TimerService;
+import org.openremote.container.timer.TimingWheel;
 import org.openremote.model.syslog.SyslogCategory;
-import org.openremote.model.util.Pair;
-import org.quartz.*;
-import org.quartz.impl.StdSchedulerFactory;
+import org.quartz.CronExpression;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Properties;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import static org.openremote.container.concurrent.ContainerThreads.DEFAULT_REJECTED_EXECUTION_HANDLER;
+import static org.openremote.container.util.MapAccess.getInteger;
 import static org.openremote.model.syslog.SyslogCategory.PROTOCOL;
 
-class CronScheduler {
+/**
+ * Runs jobs at the times of their {@link CronExpression}; shared by all timers of the {@link TimerProtocol} and the
+ * timer conditions of JSON rules.
+ * <p>
+ * The next trigger of every job is held in a {@link TimingWheel} that is advanced every {@link #TICK_MILLIS} by a
+ * single ticker thread; trigger times are based on the clock of the {@link TimerService}, so with the pseudo clock
+ * jobs only run once the clock has been advanced past their trigger time. All triggers that are due on the same tick are dispatched together in at most
+ * {@link #CRON_SCHEDULER_THREADS} batches, which run in parallel on that many worker threads. A job is never run
+ * concurrently with itself: a trigger that is due whilst the previous trigger of the same job is still waiting or
+ * running is coalesced into it, as are any triggers that were missed (e.g. because the system was suspended).
+ * <p>
+ * The lateness of every run (the time between the trigger time and the start of the job) is recorded, see
+ * {@link #getMaxLatenessMillis} and {@link #getMeanLatenessMillis}.
+ */
+public class CronScheduler implements ContainerService {
 
-    private static final Logger LOG = SyslogCategory.getLogger(PROTOCOL, CronScheduler.class);
+    /**
+     * A job and the time of its pending trigger.
+     */
+    protected class Job {
+        protected final String id;
+        protected final CronExpression expression;
+        protected final Runnable action;
+        protected TimingWheel<Job>.Timeout timeout;
+        protected long triggerMillis;
+        protected boolean running;
+        protected boolean removed;
 
-    protected static final int ALARM_UPDATE_DELAY_MS = 10000;
-    protected final List<String> jobIds = new ArrayList<>();
-    protected final org.quartz.Scheduler scheduler;
+        protected Job(String id, CronExpression expression, Runnable action) {
+            this.id = id;
+            this.expression = expression;
+            this.action = action;
+        }
 
-    public CronScheduler() {
-        org.quartz.Scheduler tempScheduler;
+        protected void run(long triggerMillis) {
+            recordLateness(timerService.getCurrentTimeMillis() - triggerMillis);
 
-        // Set properties for cronScheduler factory
-        Properties schedulerProperties = new Properties();
-        schedulerProperties.setProperty("org.quartz.threadPool.threadCount", "1");
-        // Use default thread pool for now
-        //schedulerProperties.setProperty("org.quartz.threadPool.class", null);
+            try {
+                action.run();
+            } catch (Throwable e) {
+                LOG.log(Level.WARNING, "Cron job threw an exception: " + id, e);
+            } finally {
+                synchronized (this) {
+                    running = false;
+                }
+            }
+        }
 
-        try {
-            // Initialise Quartz CronScheduler
-            SchedulerFactory factory = new StdSchedulerFactory(schedulerProperties);
-            tempScheduler = factory.getScheduler();
-        } catch (SchedulerException e) {
-            tempScheduler = null;
-            LOG.log(Level.WARNING, "Failed to create quartz cronScheduler", e);
+        @Override
+        public String toString() {
+            return getClass().getSimpleName() + "{" +
+                "id='" + id + '\'' +
+                ", expression=" + expression.getCronExpression() +
+                '}';
         }
+    }
+
+    private static final Logger LOG = SyslogCategory.getLogger(PROTOCOL, CronScheduler.class);
+
+    /**
+     * Number of threads that run cron jobs, jobs that are due at the same time are spread over these threads.
+     */
+    public static final String CRON_SCHEDULER_THREADS = "CRON_SCHEDULER_THREADS";
+    public static final int CRON_SCHEDULER_THREADS_DEFAULT = Math.max(Runtime.getRuntime().availableProcessors(), 2);
+    public static final int PRIORITY = ContainerService.HIGH_PRIORITY + 400;
+    public static long TICK_MILLIS = 100;
+    /**
+     * Covers the cron expressions with a resolution of minutes or less in one revolution of the wheel.
+     */
+    public static int WHEEL_SLOTS = 1024;
+    /**
+     * A tick with fewer due jobs than this runs them in a single batch.
+     */
+    public static int MIN_BATCH_SIZE = 16;
+    protected final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    protected TimerService timerService;
+    protected TimingWheel<Job> wheel;
+    protected int threads;
+    protected ScheduledExecutorService tickExecutor;
+    protected ExecutorService jobExecutor;
+    protected final LongAdder runCount = new LongAdder();
+    protected final LongAdder coalescedCount = new LongAdder();
+    protected final LongAdder totalLatenessMillis = new LongAdder();
+    protected final AtomicLong maxLatenessMillis = new AtomicLong();
 
-        scheduler = tempScheduler;
+    @Override
+    public int getPriority() {
+        return PRIORITY;
     }
 
-    protected boolean isValid() {
-        return scheduler != null;
+    @Override
+    public void init(Container container) throws Exception {
+        timerService = container.getService(TimerService.class);
+        threads = Math.max(getInteger(container.getConfig(), CRON_SCHEDULER_THREADS, CRON_SCHEDULER_THREADS_DEFAULT), 1);
+        wheel = new TimingWheel<>(TICK_MILLIS, WHEEL_SLOTS, timerService.getCurrentTimeMillis());
     }
 
-    protected void shutdown() {
-        if (scheduler != null) {
-            try {
-                scheduler.shutdown(false);
-            } catch (SchedulerException e) {
-                LOG.log(Level.FINE, "Exception has occurred during force shutdown of quartz cronScheduler", e);
+    @Override
+    public void start(Container container) throws Exception {
+        LOG.info("Starting the cron scheduler with threads: " + threads);
+        jobExecutor = new ContainerExecutor(
+            new ContainerThreadFactory("Cron job"),
+            DEFAULT_REJECTED_EXECUTION_HANDLER,
+            threads,
+            threads,
+            60,
+            new LinkedBlockingQueue<>()
+        );
+        tickExecutor = new ContainerScheduledExecutor("Cron scheduler", 1);
+        tickExecutor.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop(Container container) throws Exception {
+        if (tickExecutor != null) {
+            tickExecutor.shutdownNow();
+            tickExecutor = null;
+        }
+        if (jobExecutor != null) {
+            jobExecutor.shutdownNow();
+            jobExecutor = null;
+        }
+        LOG.info("Stopped the cron scheduler: " + this);
+    }
+
+    public boolean isRunning() {
+        ScheduledExecutorService tickExecutor = this.tickExecutor;
+        return tickExecutor != null && !tickExecutor.isShutdown();
+    }
+
+    public void addOrReplaceJob(String id, CronExpression expression, Runnable executeHandler) {
+        if (expression == null) {
+            LOG.info("Cron expression is null so cannot schedule job: " + id);
+            return;
+        }
+
+        Job job = new Job(id, expression, executeHandler);
+        LOG.fine("Scheduling job: " + id);
+
+        synchronized (job) {
+            Job previousJob = jobs.put(id, job);
+            if (previousJob != null) {
+                cancel(previousJob);
             }
+            scheduleNextTrigger(job, timerService.getCurrentTimeMillis());
         }
     }
 
-    protected void addOrReplaceJob(String id, CronExpression expression, Runnable executeHandler) {
-        if (jobIds.contains(id)) {
-            removeJob(id);
+    public void removeJob(String id) {
+        Job job = jobs.remove(id);
+
+        if (job != null) {
+            LOG.fine("Unscheduling job: " + id);
+            cancel(job);
         }
+    }
 
-        Pair<JobDetail, CronTrigger> cronTrigger = createCronTrigger(id, expression, executeHandler);
+    public Set<String> getJobIds() {
+        return new HashSet<>(jobs.keySet());
+    }
 
-        try {
-            LOG.fine("Scheduling job: " + id);
-            scheduler.scheduleJob(cronTrigger.key, cronTrigger.value);
+    /**
+     * @return The cron expression of the job or <code>null</code> if there is no such job.
+     */
+    public CronExpression getJobExpression(String id) {
+        Job job = jobs.get(id);
+        return job != null ? job.expression : null;
+    }
+
+    /**
+     * @return The number of times a job has been run.
+     */
+    public long getRunCount() {
+        return runCount.sum();
+    }
+
+    /**
+     * @return The number of triggers that were coalesced into a trigger of the same job that had not finished yet.
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    public long getMaxLatenessMillis() {
+        return maxLatenessMillis.get();
+    }
 
-            if (!scheduler.isStarted()) {
-                LOG.info("Starting the cron scheduler");
-                scheduler.start();
+    public double getMeanLatenessMillis() {
+        long runs = runCount.sum();
+        return runs > 0 ? (double) totalLatenessMillis.sum() / runs : 0d;
+    }
+
+    protected void cancel(Job job) {
+        synchronized (job) {
+            job.removed = true;
+            if (job.timeout != null) {
+                job.timeout.cancel();
+                job.timeout = null;
             }
+        }
+    }
 
-            jobIds.add(id);
-        } catch (SchedulerException e) {
-            LOG.log(Level.WARNING, "Unable to start cron job: " + id, e);
+    /**
+     * Must be called whilst holding the lock of the job.
+     */
+    protected void scheduleNextTrigger(Job job, long afterMillis) {
+        Date nextTrigger = job.expression.getNextValidTimeAfter(new Date(afterMillis));
+
+        if (nextTrigger == null) {
+            LOG.fine("Cron job has no more triggers: " + job.id);
+            job.timeout = null;
+            return;
         }
+
+        job.triggerMillis = nextTrigger.getTime();
+        job.timeout = wheel.add(job, job.triggerMillis);
     }
 
-    protected void removeJob(String id) {
+    protected void tick() {
         try {
-            LOG.fine("Unscheduling job: " + id);
-            scheduler.unscheduleJob(TriggerKey.triggerKey(id));
-            scheduler.deleteJob(JobKey.jobKey("cronJob1", id));
-        } catch (SchedulerException e) {
-            LOG.log(Level.FINE, "Exception thrown whilst trying to unschedule cron job: " + id, e);
-        } finally {
-            jobIds.remove(id);
+            long now = timerService.getCurrentTimeMillis();
+            List<Job> dueJobs = new ArrayList<>();
+            wheel.advance(now, timeout -> dueJobs.add(timeout.getItem()));
+
+            if (dueJobs.isEmpty()) {
+                return;
+            }
+
+            List<Runnable> runs = new ArrayList<>(dueJobs.size());
+
+            for (Job job : dueJobs) {
+                synchronized (job) {
+                    if (job.removed) {
+                        continue;
+                    }
+
+                    long triggerMillis = job.triggerMillis;
+
+                    if (job.running) {
+                        coalescedCount.increment();
+                        LOG.fine("Cron job is still running so coalescing trigger: " + job.id);
+                    } else {
+                        job.running = true;
+                        runs.add(() -> job.run(triggerMillis));
+                    }
+
+                    // Triggers that have been missed are coalesced into this one
+                    scheduleNextTrigger(job, Math.max(now, triggerMillis));
+                }
+            }
+
+            dispatch(runs);
+        } catch (Exception e) {
+            LOG.log(Level.WARNING, "Exception whilst processing cron scheduler tick", e);
         }
     }
 
-    protected static Pair<JobDetail, CronTrigger> createCronTrigger(String id, CronExpression cronExpression, Runnable executeHandler) {
-        if (cronExpression == null) {
-            LOG.info("Cron expression is null so cannot create trigger: " + id);
-            return null;
+    /**
+     * Splits the runs that are due on the same tick into as few batches as needed to use all the threads.
+     */
+    protected void dispatch(List<Runnable> runs) {
+        if (runs.isEmpty()) {
+            return;
         }
 
-        // Create the cron schedule
-        CronScheduleBuilder cronSchedule = CronScheduleBuilder.cronSchedule(cronExpression);
+        int batchCount = Math.min(threads, (runs.size() + MIN_BATCH_SIZE - 1) / MIN_BATCH_SIZE);
+        int batchSize = (runs.size() + batchCount - 1) / batchCount;
 
-        // Create the job data with just the execute handler
-        JobDataMap jobData = new JobDataMap();
-        jobData.put("ACTION", executeHandler);
+        for (int i = 0; i < runs.size(); i += batchSize) {
+            List<Runnable> batch = runs.subList(i, Math.min(i + batchSize, runs.size()));
+            jobExecutor.execute(() -> batch.forEach(Runnable::run));
+        }
+    }
 
-        // Create the execution job
-        JobDetail cronJob = JobBuilder.newJob(CronJob.class)
-            .withIdentity("cronJob1", id)
-            .setJobData(jobData)
-            .build();
+    protected void recordLateness(long latenessMillis) {
+        runCount.increment();
+        totalLatenessMillis.add(latenessMillis);
+        maxLatenessMillis.accumulateAndGet(latenessMillis, Math::max);
 
-        // Create the cron trigger for this alarm
-        CronTrigger trigger = TriggerBuilder.newTrigger()
-            .withIdentity(TriggerKey.triggerKey(id))
-            .withSchedule(cronSchedule)
-            .forJob(cronJob)
-            .build();
+        if (latenessMillis > TICK_MILLIS * 10) {
+            LOG.fine("Cron job started late by: " + latenessMillis + "ms");
+        }
+    }
 
-        return new Pair<>(cronJob, trigger);
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+            "threads=" + threads +
+            ", jobs=" + jobs.size() +
+            ", runCount=" + getRunCount() +
+            ", coalescedCount=" + getCoalescedCount() +
+            ", maxLatenessMillis=" + getMaxLatenessMillis() +
+            ", meanLatenessMillis=" + getMeanLatenessMillis() +
+            '}';
     }
-}
\ No newline at end of file
+}
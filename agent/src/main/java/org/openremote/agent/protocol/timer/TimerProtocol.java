@@ -20,6 +20,7 @@
 package org.openremote.agent.protocol.timer;
 
 import org.openremote.agent.protocol.AbstractProtocol;
+import org.openremote.container.Container;
 import org.openremote.model.asset.Asset;
 import org.openremote.model.asset.AssetAttribute;
 import org.openremote.model.attribute.MetaItemType;
@@ -124,6 +125,18 @@ public class TimerProtocol extends AbstractProtocol {
     protected final Map<AttributeRef, CronExpressionParser> cronExpressionMap = new HashMap<>();
     protected CronScheduler cronScheduler;
 
+    @Override
+    public void init(Container container) throws Exception {
+        super.init(container);
+        cronScheduler = container.getService(CronScheduler.class);
+    }
+
+    @Override
+    protected void doStop(Container container) throws Exception {
+        cronExpressionMap.keySet().forEach(timerRef -> getCronScheduler().removeJob(getTimerId(timerRef)));
+        cronExpressionMap.clear();
+    }
+
     @Override
     public String getProtocolName() {
         return PROTOCOL_NAME;
@@ -368,11 +381,6 @@ public class TimerProtocol extends AbstractProtocol {
     }
 
     protected CronScheduler getCronScheduler() {
-        if (cronScheduler == null) {
-            LOG.fine("Create cron scheduler");
-            cronScheduler = new CronScheduler();
-        }
-
         return cronScheduler;
     }
 
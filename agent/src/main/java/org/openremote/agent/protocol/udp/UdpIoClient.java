@@ -75,10 +75,13 @@ public class UdpIoClient<T> extends AbstractNettyIoClient<T, InetSocketAddress>
 
     @Override
     protected void addEncodersDecoders(Channel channel) {
+        // Resolve the host once per channel rather than for every datagram
+        InetSocketAddress recipient = host != null ? new InetSocketAddress(host, port) : new InetSocketAddress(port);
+
         channel.pipeline().addLast(new MessageToMessageEncoder<ByteBuf>() {
             @Override
             protected void encode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
-                out.add(new DatagramPacket(msg.retain(), host != null ? new InetSocketAddress(host, port) : new InetSocketAddress(port)));
+                out.add(new DatagramPacket(msg.retain(), recipient));
             }
         });
 
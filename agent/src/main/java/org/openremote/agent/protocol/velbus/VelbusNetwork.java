@@ -20,6 +20,7 @@
 package org.openremote.agent.protocol.velbus;
 
 import org.openremote.agent.protocol.io.IoClient;
+import org.openremote.agent.protocol.velbus.VelbusTransmitQueue.TransmitClass;
 import org.openremote.agent.protocol.velbus.device.DevicePropertyValue;
 import org.openremote.agent.protocol.velbus.device.VelbusDevice;
 import org.openremote.model.asset.agent.ConnectionStatus;
@@ -36,7 +37,7 @@ public class VelbusNetwork {
     protected static int DELAY_BETWEEN_PACKET_WRITES_MILLISECONDS = 100; // Need to throttle bus writes
     protected final Integer timeInjectionIntervalSeconds;
     protected IoClient<VelbusPacket> client;
-    protected final Queue<VelbusPacket> messageQueue = new ArrayDeque<>();
+    protected final VelbusTransmitQueue messageQueue = new VelbusTransmitQueue(DELAY_BETWEEN_PACKET_WRITES_MILLISECONDS);
     protected List<ScheduledFuture> scheduledTasks = new ArrayList<>();
     protected ScheduledFuture timeInjector;
     protected VelbusDevice[] devices = new VelbusDevice[254];
@@ -51,6 +52,7 @@ public class VelbusNetwork {
         this.timeInjectionIntervalSeconds = timeInjectionIntervalSeconds;
         client.addConnectionStatusConsumer(this::onConnectionStatusChanged);
         client.addMessageConsumer(this::onPacketReceived);
+        messageQueue.bindMetrics(String.valueOf(client.getClientUri()));
         onConnectionStatusChanged(getConnectionStatus());
         if (timeInjectionIntervalSeconds != null) {
             timeInjector = getExecutorService().scheduleWithFixedDelay(this::doTimeInjection, timeInjectionIntervalSeconds, timeInjectionIntervalSeconds, TimeUnit.SECONDS);
@@ -74,12 +76,22 @@ public class VelbusNetwork {
     }
 
     public void sendPackets(VelbusPacket... packets) {
+        sendPackets(TransmitClass.WRITE, packets);
+    }
+
+    /**
+     * Queues the packets for sending; packets of a higher {@link TransmitClass} are sent first and status reads and
+     * maintenance packets identical to one that is still queued are dropped.
+     */
+    public void sendPackets(TransmitClass transmitClass, VelbusPacket... packets) {
         if (getConnectionStatus() != ConnectionStatus.CONNECTED) {
             return;
         }
 
         synchronized (messageQueue) {
-            messageQueue.addAll(Arrays.asList(packets));
+            for (VelbusPacket packet : packets) {
+                messageQueue.add(transmitClass, packet);
+            }
 
             if (queueProcessingTask == null) {
                 startSendingPackets();
@@ -115,6 +127,7 @@ public class VelbusNetwork {
         }
 
         disconnect();
+        messageQueue.unbindMetrics();
 
         if (client != null) {
             client.removeConnectionStatusConsumer(this::onConnectionStatusChanged);
@@ -133,9 +146,9 @@ public class VelbusNetwork {
         }
 
         if (status == ConnectionStatus.CONNECTED) {
-            // Don't process stale messages
+            // Don't process stale messages and relearn the pace of the bus
             synchronized (messageQueue) {
-                messageQueue.clear();
+                messageQueue.reset();
             }
 
             // Initialise the devices
@@ -168,6 +181,11 @@ public class VelbusNetwork {
         // Forward the packet to the device if it exists
         int address = packet.getAddress();
 
+        if (address == 0) {
+            onInterfacePacketReceived(packet);
+            return;
+        }
+
         if (address > 254 || address < 1) {
             return;
         }
@@ -176,15 +194,39 @@ public class VelbusNetwork {
         VelbusPacket.InboundCommand command = VelbusPacket.InboundCommand.fromCode(packet.getCommand());
         LOG.finest("Received packet " + command + " : " + packet);
 
-        if (matchingDevice != null) {
-            matchingDevice.processReceivedPacket(packet);
-        } else {
+        if (matchingDevice == null) {
             // Look for sub address device
             matchingDevice = subAddressDevices[address-1];
+        }
 
-            if (matchingDevice != null) {
-                matchingDevice.processReceivedPacket(packet);
-            }
+        // Any packet from a device acknowledges a status read sent to it
+        messageQueue.onPacketReceived(address, matchingDevice != null ? matchingDevice.getBaseAddress() : address);
+
+        if (matchingDevice != null) {
+            matchingDevice.processReceivedPacket(packet);
+        }
+    }
+
+    /**
+     * Handles the flow control packets sent by the interface itself.
+     */
+    protected void onInterfacePacketReceived(VelbusPacket packet) {
+        VelbusPacket.InboundCommand command = VelbusPacket.InboundCommand.fromCode(packet.getCommand());
+        LOG.finest("Received interface packet " + command + " : " + packet);
+
+        switch (command) {
+            case RECEIVE_BUFFER_FULL:
+                messageQueue.onReceiveBufferFull(System.currentTimeMillis());
+                LOG.fine("Velbus interface receive buffer is full, slowing down: " + messageQueue);
+                break;
+            case BUS_OFF:
+                messageQueue.onBusOff(System.currentTimeMillis());
+                LOG.info("Velbus bus is off, pausing writes: " + messageQueue);
+                break;
+            case RECEIVE_READY:
+            case BUS_ACTIVE:
+                messageQueue.onReady();
+                break;
         }
     }
 
@@ -267,14 +309,17 @@ public class VelbusNetwork {
     }
 
     protected void startSendingPackets() {
-        queueProcessingTask = getExecutorService().scheduleWithFixedDelay(
+        queueProcessingTask = getExecutorService().schedule(
             this::doSendPacket,
-            0,
-            DELAY_BETWEEN_PACKET_WRITES_MILLISECONDS,
+            messageQueue.getPauseMillis(System.currentTimeMillis()),
             TimeUnit.MILLISECONDS
         );
     }
 
+    /**
+     * Sends the next packet and schedules itself again after the current delay of the queue, which adapts to how
+     * fast the bus responds.
+     */
     protected void doSendPacket() {
         if (getConnectionStatus() != ConnectionStatus.CONNECTED) {
             return;
@@ -283,13 +328,24 @@ public class VelbusNetwork {
         VelbusPacket packet;
 
         synchronized (messageQueue) {
-            packet = messageQueue.poll();
-        }
+            long now = System.currentTimeMillis();
+            long pauseMillis = messageQueue.getPauseMillis(now);
 
-        if (packet == null) {
-            queueProcessingTask.cancel(false);
-            queueProcessingTask = null;
-            return;
+            if (pauseMillis > 0) {
+                // Check again after the normal delay as the interface can signal it is ready before the pause ends
+                queueProcessingTask = getExecutorService().schedule(this::doSendPacket, Math.min(pauseMillis, messageQueue.getDelayMillis()), TimeUnit.MILLISECONDS);
+                return;
+            }
+
+            VelbusTransmitQueue.QueuedPacket queuedPacket = messageQueue.poll(now);
+
+            if (queuedPacket == null) {
+                queueProcessingTask = null;
+                return;
+            }
+
+            packet = queuedPacket.getPacket();
+            queueProcessingTask = getExecutorService().schedule(this::doSendPacket, messageQueue.getDelayMillis(now), TimeUnit.MILLISECONDS);
         }
 
         VelbusPacket.OutboundCommand command = VelbusPacket.OutboundCommand.fromCode(packet.getCommand());
@@ -311,6 +367,6 @@ public class VelbusNetwork {
     }
 
     protected void doTimeInjection() {
-        sendPackets(VelbusDevice.createTimeInjectionPackets());
+        sendPackets(TransmitClass.MAINTENANCE, VelbusDevice.createTimeInjectionPackets());
     }
 }
@@ -26,50 +26,64 @@ import io.netty.handler.codec.ByteToMessageDecoder;
 import java.util.List;
 
 import static org.openremote.agent.protocol.velbus.VelbusPacket.MAX_PACKET_SIZE;
+import static org.openremote.agent.protocol.velbus.VelbusPacket.MIN_PACKET_SIZE;
 
+/**
+ * Decodes {@link VelbusPacket}s from the stream; the frame is checked in the buffer so only valid packets are copied
+ * out, anything else is skipped a byte at a time until the next valid frame. Consumed bytes are left for
+ * {@link ByteToMessageDecoder} to discard in bulk rather than compacting the buffer after every packet.
+ */
 public final class VelbusPacketDecoder extends ByteToMessageDecoder {
 
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf buf, List<Object> messages) throws Exception {
-        int startIndex = buf.indexOf(0, buf.capacity() - 1, VelbusPacket.STX);
+        while (true) {
+            int startIndex = buf.indexOf(buf.readerIndex(), buf.writerIndex(), VelbusPacket.STX);
 
-        if (startIndex < 0) {
-            return;
-        }
+            if (startIndex < 0) {
+                buf.skipBytes(buf.readableBytes());
+                return;
+            }
 
-        if (startIndex > 0) {
             buf.readerIndex(startIndex);
-            buf.discardReadBytes();
-        }
 
-        if (buf.readableBytes() < 4) {
-            return;
-        }
+            if (buf.readableBytes() < MIN_PACKET_SIZE) {
+                return;
+            }
 
-        int dataSize = buf.getByte(3);
+            int size = (buf.getByte(startIndex + 3) & 0x0F) + MIN_PACKET_SIZE;
 
-        if (buf.readableBytes() < 6 + dataSize) {
-            return;
-        }
+            if (size > MAX_PACKET_SIZE) {
+                buf.skipBytes(1);
+                continue;
+            }
 
-        // Find end of packet
-        int endIndex = buf.indexOf(4 + dataSize, MAX_PACKET_SIZE, VelbusPacket.ETX);
+            if (buf.readableBytes() < size) {
+                return;
+            }
 
-        if (endIndex < 0) {
-            if (buf.readableBytes() > MAX_PACKET_SIZE) {
-                buf.readerIndex(MAX_PACKET_SIZE);
-                buf.discardReadBytes();
+            if (!isValidFrame(buf, startIndex, size)) {
+                // Not the start of a packet so look for the next STX
+                buf.skipBytes(1);
+                continue;
             }
+
+            byte[] packetBytes = new byte[size];
+            buf.readBytes(packetBytes);
+            messages.add(new VelbusPacket(packetBytes));
             return;
         }
+    }
 
-        byte[] packetBytes = new byte[endIndex + 1];
-        buf.readBytes(packetBytes);
-        buf.discardReadBytes();
-        VelbusPacket packet = new VelbusPacket(packetBytes);
+    static boolean isValidFrame(ByteBuf buf, int startIndex, int size) {
+        if (buf.getByte(startIndex + size - 1) != VelbusPacket.ETX) {
+            return false;
+        }
 
-        if (packet.isValid()) {
-            messages.add(packet);
+        byte checksum = 0;
+        for (int i = startIndex; i < startIndex + size - 2; i++) {
+            checksum += buf.getByte(i);
         }
+        return (byte) -checksum == buf.getByte(startIndex + size - 2);
     }
 }
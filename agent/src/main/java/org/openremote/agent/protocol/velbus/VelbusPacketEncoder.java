@@ -23,14 +23,18 @@ import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
 
-import java.util.List;
-
-import static org.openremote.agent.protocol.velbus.VelbusPacket.MAX_PACKET_SIZE;
-
+/**
+ * Writes only the frame of the packet into a pooled buffer of exactly that size.
+ */
 public final class VelbusPacketEncoder extends MessageToByteEncoder<VelbusPacket> {
 
+    @Override
+    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, VelbusPacket message, boolean preferDirect) throws Exception {
+        return preferDirect ? ctx.alloc().ioBuffer(message.getSize()) : ctx.alloc().heapBuffer(message.getSize());
+    }
+
     @Override
     protected void encode(ChannelHandlerContext ctx, VelbusPacket message, ByteBuf buf) throws Exception {
-        buf.writeBytes(message.pack());
+        buf.writeBytes(message.pack(), 0, message.getSize());
     }
 }
@@ -0,0 +1,314 @@
+/*
+ * Copyright 2020, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.agent.protocol.velbus;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.openremote.container.metrics.MetricsService;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the packets waiting to be sent to a {@link VelbusNetwork} and decides which packet to send next and how long
+ * to wait before sending the one after it.
+ * <p>
+ * Packets are queued by {@link TransmitClass} and a packet is only sent when no packets of a higher class are waiting,
+ * so writes are never stuck behind the status reads of a (re)starting network. Status reads and maintenance packets
+ * that are identical to a packet that is still waiting are dropped.
+ * <p>
+ * The delay between packets starts at the configured delay and adapts to the bus: every status read that is
+ * acknowledged by a packet from the addressed device shortens the delay by {@link #DELAY_DECREASE_STEP_MILLISECONDS}
+ * down to {@link #MIN_DELAY_BETWEEN_PACKET_WRITES_MILLISECONDS}; when the interface reports its receive buffer is full
+ * the delay is doubled up to {@link #MAX_DELAY_BETWEEN_PACKET_WRITES_MILLISECONDS} and sending is paused until the
+ * interface is ready again. Sending is also paused whilst the interface reports the bus is off.
+ */
+public class VelbusTransmitQueue {
+
+    /**
+     * Packets of a class are sent before the packets of the classes that follow it.
+     */
+    public enum TransmitClass {
+        /**
+         * Writes requested by users and rules.
+         */
+        WRITE,
+        /**
+         * Requests for the type and status of devices.
+         */
+        STATUS_READ,
+        /**
+         * Periodic upkeep of the network such as time injection.
+         */
+        MAINTENANCE
+    }
+
+    public static class QueuedPacket {
+        protected final VelbusPacket packet;
+        protected final TransmitClass transmitClass;
+        protected final ByteBuffer key;
+        protected final long queuedNanos;
+
+        protected QueuedPacket(VelbusPacket packet, TransmitClass transmitClass) {
+            this.packet = packet;
+            this.transmitClass = transmitClass;
+            this.key = isCoalescing(transmitClass) ? ByteBuffer.wrap(Arrays.copyOf(packet.pack(), packet.getSize())) : null;
+            this.queuedNanos = System.nanoTime();
+        }
+
+        public VelbusPacket getPacket() {
+            return packet;
+        }
+
+        public TransmitClass getTransmitClass() {
+            return transmitClass;
+        }
+    }
+
+    public static int MIN_DELAY_BETWEEN_PACKET_WRITES_MILLISECONDS = 20;
+    public static int MAX_DELAY_BETWEEN_PACKET_WRITES_MILLISECONDS = 1000;
+    public static int DELAY_DECREASE_STEP_MILLISECONDS = 5;
+    // A status read that isn't acknowledged within this time is no longer awaited (the device may not exist)
+    public static int ACKNOWLEDGEMENT_TIMEOUT_MILLISECONDS = 1000;
+    public static int BUS_OFF_PAUSE_MILLISECONDS = 10000;
+    protected static final Counter[] SENT_COUNTERS = new Counter[TransmitClass.values().length];
+    protected static final Counter[] COALESCED_COUNTERS = new Counter[TransmitClass.values().length];
+    protected static final Timer[] QUEUE_TIMERS = new Timer[TransmitClass.values().length];
+
+    static {
+        for (TransmitClass transmitClass : TransmitClass.values()) {
+            SENT_COUNTERS[transmitClass.ordinal()] = MetricsService.counter("or.velbus.packets.sent", "Packets sent to a Velbus network", "class", transmitClass.name());
+            COALESCED_COUNTERS[transmitClass.ordinal()] = MetricsService.counter("or.velbus.packets.coalesced", "Packets dropped because an identical packet was waiting to be sent to a Velbus network", "class", transmitClass.name());
+            QUEUE_TIMERS[transmitClass.ordinal()] = MetricsService.timer("or.velbus.packets.queue", "Time a packet waited to be sent to a Velbus network", "class", transmitClass.name());
+        }
+    }
+
+    protected final int initialDelayMillis;
+    protected final Map<TransmitClass, Deque<QueuedPacket>> queues = new EnumMap<>(TransmitClass.class);
+    protected final Set<ByteBuffer> coalescingKeys = new HashSet<>();
+    protected final long[] sentCounts = new long[TransmitClass.values().length];
+    protected final long[] coalescedCounts = new long[TransmitClass.values().length];
+    protected final List<Gauge> gauges = new ArrayList<>();
+    protected int delayMillis;
+    protected int awaitedAddress = -1;
+    protected long awaitedSinceMillis;
+    protected long pausedUntilMillis;
+    protected long acknowledgedCount;
+    protected long unacknowledgedCount;
+    protected long receiveBufferFullCount;
+
+    public VelbusTransmitQueue(int initialDelayMillis) {
+        this.initialDelayMillis = initialDelayMillis;
+        this.delayMillis = initialDelayMillis;
+        for (TransmitClass transmitClass : TransmitClass.values()) {
+            queues.put(transmitClass, new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Publishes the depth of each class of this queue, the network is used as a tag to tell the queues apart.
+     */
+    public synchronized void bindMetrics(String network) {
+        unbindMetrics();
+        for (TransmitClass transmitClass : TransmitClass.values()) {
+            gauges.add(Gauge.builder("or.velbus.queue.depth", this, queue -> queue.getQueueDepth(transmitClass))
+                .description("Packets waiting to be sent to a Velbus network")
+                .tags("network", network, "class", transmitClass.name())
+                .register(Metrics.globalRegistry));
+        }
+    }
+
+    public synchronized void unbindMetrics() {
+        gauges.forEach(Metrics.globalRegistry::remove);
+        gauges.clear();
+    }
+
+    /**
+     * @return <code>false</code> if the packet was dropped because an identical packet is waiting to be sent.
+     */
+    public synchronized boolean add(TransmitClass transmitClass, VelbusPacket packet) {
+        QueuedPacket queuedPacket = new QueuedPacket(packet, transmitClass);
+
+        if (isCoalescing(transmitClass) && !coalescingKeys.add(queuedPacket.key)) {
+            coalescedCounts[transmitClass.ordinal()]++;
+            COALESCED_COUNTERS[transmitClass.ordinal()].increment();
+            return false;
+        }
+
+        queues.get(transmitClass).add(queuedPacket);
+        return true;
+    }
+
+    /**
+     * Removes the packet that should be sent now.
+     */
+    public synchronized QueuedPacket poll(long now) {
+        if (awaitedAddress >= 0 && now - awaitedSinceMillis > ACKNOWLEDGEMENT_TIMEOUT_MILLISECONDS) {
+            unacknowledgedCount++;
+            awaitedAddress = -1;
+        }
+
+        for (TransmitClass transmitClass : TransmitClass.values()) {
+            QueuedPacket queuedPacket = queues.get(transmitClass).poll();
+
+            if (queuedPacket != null) {
+                if (isCoalescing(transmitClass)) {
+                    coalescingKeys.remove(queuedPacket.key);
+                }
+                sentCounts[transmitClass.ordinal()]++;
+                SENT_COUNTERS[transmitClass.ordinal()].increment();
+                QUEUE_TIMERS[transmitClass.ordinal()].record(System.nanoTime() - queuedPacket.queuedNanos, TimeUnit.NANOSECONDS);
+
+                // Only one read is awaited at a time, that is enough to follow the responsiveness of the bus
+                int address = queuedPacket.packet.getAddress();
+                if (transmitClass == TransmitClass.STATUS_READ && awaitedAddress < 0 && address > 0) {
+                    awaitedAddress = address;
+                    awaitedSinceMillis = now;
+                }
+                return queuedPacket;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Called for every packet received from a device, the base address is the address of the device the packet
+     * belongs to when it was sent from one of its sub addresses.
+     */
+    public synchronized void onPacketReceived(int address, int baseAddress) {
+        if (awaitedAddress >= 0 && (address == awaitedAddress || baseAddress == awaitedAddress)) {
+            acknowledgedCount++;
+            awaitedAddress = -1;
+            delayMillis = Math.max(delayMillis - DELAY_DECREASE_STEP_MILLISECONDS, getMinDelayMillis());
+        }
+    }
+
+    public synchronized void onReceiveBufferFull(long now) {
+        receiveBufferFullCount++;
+        delayMillis = Math.min(delayMillis * 2, getMaxDelayMillis());
+        pausedUntilMillis = now + getMaxDelayMillis();
+    }
+
+    public synchronized void onBusOff(long now) {
+        pausedUntilMillis = now + BUS_OFF_PAUSE_MILLISECONDS;
+    }
+
+    /**
+     * Called when the interface reports it is ready to receive or that the bus is active again.
+     */
+    public synchronized void onReady() {
+        pausedUntilMillis = 0;
+    }
+
+    /**
+     * @return How long to wait before sending the next packet.
+     */
+    public synchronized long getDelayMillis(long now) {
+        return Math.max(delayMillis, pausedUntilMillis - now);
+    }
+
+    /**
+     * @return How long sending is paused for, packets can be sent when this is zero.
+     */
+    public synchronized long getPauseMillis(long now) {
+        return Math.max(pausedUntilMillis - now, 0);
+    }
+
+    /**
+     * Drops all waiting packets.
+     */
+    public synchronized void clear() {
+        queues.values().forEach(Collection::clear);
+        coalescingKeys.clear();
+    }
+
+    /**
+     * Drops all waiting packets and forgets what was learned about the bus, use when (re)connecting.
+     */
+    public synchronized void reset() {
+        clear();
+        delayMillis = initialDelayMillis;
+        awaitedAddress = -1;
+        pausedUntilMillis = 0;
+    }
+
+    public synchronized int size() {
+        return queues.values().stream().mapToInt(Collection::size).sum();
+    }
+
+    public synchronized int getQueueDepth(TransmitClass transmitClass) {
+        return queues.get(transmitClass).size();
+    }
+
+    public synchronized long getSentCount(TransmitClass transmitClass) {
+        return sentCounts[transmitClass.ordinal()];
+    }
+
+    public synchronized long getCoalescedCount(TransmitClass transmitClass) {
+        return coalescedCounts[transmitClass.ordinal()];
+    }
+
+    public synchronized long getAcknowledgedCount() {
+        return acknowledgedCount;
+    }
+
+    public synchronized long getUnacknowledgedCount() {
+        return unacknowledgedCount;
+    }
+
+    public synchronized long getReceiveBufferFullCount() {
+        return receiveBufferFullCount;
+    }
+
+    public synchronized int getDelayMillis() {
+        return delayMillis;
+    }
+
+    protected int getMinDelayMillis() {
+        return Math.min(MIN_DELAY_BETWEEN_PACKET_WRITES_MILLISECONDS, initialDelayMillis);
+    }
+
+    protected int getMaxDelayMillis() {
+        return Math.max(MAX_DELAY_BETWEEN_PACKET_WRITES_MILLISECONDS, initialDelayMillis);
+    }
+
+    protected static boolean isCoalescing(TransmitClass transmitClass) {
+        return transmitClass != TransmitClass.WRITE;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder queueDepths = new StringBuilder();
+        for (TransmitClass transmitClass : TransmitClass.values()) {
+            queueDepths.append(", ").append(transmitClass).append("=").append(getQueueDepth(transmitClass));
+        }
+        return getClass().getSimpleName() + "{" +
+            "delayMillis=" + delayMillis +
+            queueDepths +
+            ", acknowledgedCount=" + acknowledgedCount +
+            ", unacknowledgedCount=" + unacknowledgedCount +
+            ", receiveBufferFullCount=" + receiveBufferFullCount +
+            '}';
+    }
+}
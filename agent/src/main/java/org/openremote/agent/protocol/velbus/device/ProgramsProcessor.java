@@ -20,6 +20,7 @@
 package org.openremote.agent.protocol.velbus.device;
 
 import org.openremote.agent.protocol.velbus.VelbusPacket;
+import org.openremote.agent.protocol.velbus.VelbusTransmitQueue.TransmitClass;
 import org.openremote.model.attribute.AttributeValueType;
 import org.openremote.model.util.EnumUtil;
 import org.openremote.model.util.Pair;
@@ -283,7 +284,7 @@ public class ProgramsProcessor extends ChannelProcessor {
 
                     device.velbusNetwork.scheduleTask(() -> {
                         List<VelbusPacket> packets = getStatusRequestPackets(device);
-                        device.velbusNetwork.sendPackets(packets.toArray(new VelbusPacket[packets.size()]));
+                        device.velbusNetwork.sendPackets(TransmitClass.STATUS_READ, packets.toArray(new VelbusPacket[packets.size()]));
                     }, 500);
 
                     return Collections.singletonList(
@@ -2,6 +2,7 @@ package org.openremote.agent.protocol.velbus.device;
 
 import org.openremote.agent.protocol.velbus.VelbusNetwork;
 import org.openremote.agent.protocol.velbus.VelbusPacket;
+import org.openremote.agent.protocol.velbus.VelbusTransmitQueue.TransmitClass;
 import org.openremote.model.util.TextUtil;
 import org.openremote.model.value.Value;
 
@@ -122,7 +123,7 @@ public class VelbusDevice {
             initialisationAttempts++;
 
             // Send/Resend the packets needed to initialise the device
-            velbusNetwork.sendPackets(createModuleTypePacket(baseAddress));
+            velbusNetwork.sendPackets(TransmitClass.STATUS_READ, createModuleTypePacket(baseAddress));
         }
     }
 
@@ -152,7 +153,7 @@ public class VelbusDevice {
         if (isInitialisedAndValid() && featureProcessors != null) {
 
             LOG.fine("Sending module status request packets");
-            velbusNetwork.sendPackets(Arrays.stream(featureProcessors)
+            velbusNetwork.sendPackets(TransmitClass.STATUS_READ, Arrays.stream(featureProcessors)
                 .flatMap(processor -> processor.getStatusRequestPackets(this).stream())
                 .distinct().toArray(VelbusPacket[]::new));
         }
@@ -25,6 +25,7 @@ import org.jboss.resteasy.client.jaxrs.ResteasyClient;
 import org.jboss.resteasy.client.jaxrs.ResteasyWebTarget;
 import org.jboss.resteasy.util.BasicAuthHelper;
 import org.openremote.agent.protocol.Protocol;
+import org.openremote.agent.protocol.http.AsyncHttpClient;
 import org.openremote.agent.protocol.http.HttpClientProtocol;
 import org.openremote.container.web.OAuthGrant;
 import org.openremote.container.web.WebTargetBuilder;
@@ -51,6 +52,7 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -65,7 +67,9 @@ import static org.openremote.model.util.TextUtil.REGEXP_PATTERN_STRING_NON_EMPTY
 /**
  * This is a base class for websocket client protocols for communicating with Websocket servers; it uses the
  * {@link WebsocketIoClient} to handle the communication, but also uses the {@link WebTargetBuilder} factory to send
- * {@link WebsocketHttpSubscription}s when the connection is initially established.
+ * {@link WebsocketHttpSubscription}s when the connection is initially established; if
+ * {@link HttpClientProtocol#META_PROTOCOL_ASYNC_REQUESTS} is <code>true</code> these are sent by an
+ * {@link AsyncHttpClient} so a slow server doesn't block a protocol thread.
  * <p>
  * Implementations of this protocol must provide the required encoders and decoders via {@link #getEncoderDecoderProvider}.
  * <h1>Protocol Configurations</h1>
@@ -130,18 +134,39 @@ public abstract class AbstractWebsocketClientProtocol<T> extends AbstractIoClien
         META_PROTOCOL_USERNAME,
         META_PROTOCOL_PASSWORD,
         META_PROTOCOL_OAUTH_GRANT,
+        META_PROTOCOL_ASYNC_REQUESTS,
         META_SUBSCRIPTIONS);
 
     public static final int CONNECTED_SEND_DELAY_MILLIS = 2000;
     protected ResteasyClient client;
+    protected AsyncHttpClient asyncClient;
     protected final Map<AttributeRef, List<Runnable>> protocolConnectedTasks = new HashMap<>();
     protected final Map<AttributeRef, Map<AttributeRef, Runnable>> attributeConnectedTasks = new HashMap<>();
     protected Map<AttributeRef, MultivaluedMap<String, String>> clientHeaders = new HashMap<>();
+    protected final Set<AttributeRef> asyncRequestProtocols = new HashSet<>();
 
     @Override
     public void init(Container container) throws Exception {
         super.init(container);
-        client = createClient(executorService);
+        client = createClient(executorService, WebTargetBuilder.CONNECTION_POOL_SIZE, WebTargetBuilder.CONNECTION_TIMEOUT_MILLISECONDS, null, AsyncHttpClient.CapturingHttpEngine::new);
+    }
+
+    @Override
+    protected void doStop(Container container) throws Exception {
+        super.doStop(container);
+        synchronized (this) {
+            if (asyncClient != null) {
+                asyncClient.close();
+                asyncClient = null;
+            }
+        }
+    }
+
+    protected synchronized AsyncHttpClient getAsyncClient() {
+        if (asyncClient == null) {
+            asyncClient = new AsyncHttpClient(1);
+        }
+        return asyncClient;
     }
 
     @Override
@@ -149,6 +174,9 @@ public abstract class AbstractWebsocketClientProtocol<T> extends AbstractIoClien
         super.doUnlinkProtocolConfiguration(agent, protocolConfiguration);
         AttributeRef protocolRef = protocolConfiguration.getReferenceOrThrow();
         clientHeaders.remove(protocolRef);
+        synchronized (asyncRequestProtocols) {
+            asyncRequestProtocols.remove(protocolRef);
+        }
         synchronized (protocolConnectedTasks) {
             protocolConnectedTasks.remove(protocolRef);
         }
@@ -183,6 +211,12 @@ public abstract class AbstractWebsocketClientProtocol<T> extends AbstractIoClien
 
         Optional<WebsocketSubscription<T>[]> subscriptions = getSubscriptions(protocolConfiguration);
 
+        boolean asyncRequests = Values.getMetaItemValueOrThrow(
+            protocolConfiguration,
+            META_PROTOCOL_ASYNC_REQUESTS,
+            false,
+            true).flatMap(Values::getBoolean).orElse(false);
+
         if (!oAuthGrant.isPresent() && usernameAndPassword.isPresent()) {
             String authValue = BasicAuthHelper.createHeader(usernameAndPassword.get().key.getString(), usernameAndPassword.get().value.getString());
             if (headers == null) {
@@ -198,6 +232,13 @@ public abstract class AbstractWebsocketClientProtocol<T> extends AbstractIoClien
 
         MultivaluedMap<String, String> finalHeaders = headers;
         clientHeaders.put(protocolRef, headers);
+        synchronized (asyncRequestProtocols) {
+            if (asyncRequests) {
+                asyncRequestProtocols.add(protocolRef);
+            } else {
+                asyncRequestProtocols.remove(protocolRef);
+            }
+        }
         subscriptions.ifPresent(websocketSubscriptions ->
             addProtocolConnectedTask(protocolRef, () -> doSubscriptions(protocolRef, websocketClient, finalHeaders, websocketSubscriptions))
         );
@@ -303,19 +344,46 @@ public abstract class AbstractWebsocketClientProtocol<T> extends AbstractIoClien
             headers.add(HttpHeaders.AUTHORIZATION, websocketClient.authHeaderValue);
         }
 
+        boolean asyncRequests;
+        synchronized (asyncRequestProtocols) {
+            asyncRequests = asyncRequestProtocols.contains(protocolRef);
+        }
+
         MultivaluedMap<String, String> finalHeaders = headers;
-        Arrays.stream(subscriptions).forEach(
-            subscription -> doSubscription(websocketClient, finalHeaders, subscription)
-        );
+
+        if (!asyncRequests) {
+            Arrays.stream(subscriptions).forEach(
+                subscription -> doSubscription(websocketClient, finalHeaders, subscription, false)
+            );
+            return;
+        }
+
+        // Each subscription is executed once the previous one has completed to keep them in order
+        CompletableFuture<Void> subscriptionsFuture = CompletableFuture.completedFuture(null);
+        for (WebsocketSubscription<T> subscription : subscriptions) {
+            subscriptionsFuture = subscriptionsFuture.thenComposeAsync(
+                ignored -> doSubscription(websocketClient, finalHeaders, subscription, true),
+                executorService);
+        }
+        subscriptionsFuture.whenComplete((ignored, error) -> {
+            if (error != null) {
+                LOG.log(Level.WARNING, "Failed to execute subscriptions for websocket: " + websocketClient.getClientUri(), error);
+            }
+        });
     }
 
-    protected void doSubscription(WebsocketIoClient<T> websocketClient, MultivaluedMap<String, String> headers, WebsocketSubscription<T> subscription) {
+    /**
+     * Executes the subscription, the returned future completes when a {@link WebsocketHttpSubscription} has received
+     * its response; unless <code>asyncRequest</code> is set the request blocks and the returned future is already
+     * completed.
+     */
+    protected CompletableFuture<Void> doSubscription(WebsocketIoClient<T> websocketClient, MultivaluedMap<String, String> headers, WebsocketSubscription<T> subscription, boolean asyncRequest) {
         if (subscription instanceof WebsocketHttpSubscription) {
             WebsocketHttpSubscription httpSubscription = (WebsocketHttpSubscription)subscription;
 
             if (TextUtil.isNullOrEmpty(httpSubscription.uri)) {
                 LOG.warning("Websocket subscription missing or empty URI so skipping: " + subscription);
-                return;
+                return CompletableFuture.completedFuture(null);
             }
 
             URI uri;
@@ -324,7 +392,7 @@ public abstract class AbstractWebsocketClientProtocol<T> extends AbstractIoClien
                 uri = new URI(httpSubscription.uri);
             } catch (URISyntaxException e) {
                 LOG.warning("Websocket subscription invalid URI so skipping: " + subscription);
-                return;
+                return CompletableFuture.completedFuture(null);
             }
 
             if (httpSubscription.method == null) {
@@ -365,13 +433,30 @@ public abstract class AbstractWebsocketClientProtocol<T> extends AbstractIoClien
             } else {
                 invocation = target.request().build(httpSubscription.method.toString(), Entity.entity(httpSubscription.body, httpSubscription.contentType));
             }
-            Response response = invocation.invoke();
-            response.close();
-            if (response.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
-                LOG.warning("WebsocketHttpSubscription returned an un-successful response code: " + response.getStatus());
+
+            if (!asyncRequest) {
+                Response response = invocation.invoke();
+                response.close();
+                if (response.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
+                    LOG.warning("WebsocketHttpSubscription returned an un-successful response code: " + response.getStatus());
+                }
+                return CompletableFuture.completedFuture(null);
             }
+
+            return getAsyncClient().invoke(invocation, WebTargetBuilder.CONNECTION_TIMEOUT_MILLISECONDS).handle((response, error) -> {
+                if (error != null) {
+                    LOG.log(Level.WARNING, "WebsocketHttpSubscription failed: " + uri, error);
+                    return null;
+                }
+                response.close();
+                if (response.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
+                    LOG.warning("WebsocketHttpSubscription returned an un-successful response code: " + response.getStatus());
+                }
+                return null;
+            });
         } else {
             websocketClient.sendMessage(subscription.body);
+            return CompletableFuture.completedFuture(null);
         }
     }
 
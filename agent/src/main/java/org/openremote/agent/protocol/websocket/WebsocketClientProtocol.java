@@ -20,6 +20,7 @@
 package org.openremote.agent.protocol.websocket;
 
 import io.netty.channel.ChannelHandler;
+import org.openremote.agent.protocol.MessageDemultiplexer;
 import org.openremote.agent.protocol.Protocol;
 import org.openremote.model.ValidationFailure;
 import org.openremote.model.ValueHolder;
@@ -27,8 +28,8 @@ import org.openremote.model.asset.Asset;
 import org.openremote.model.asset.AssetAttribute;
 import org.openremote.model.asset.agent.ProtocolConfiguration;
 import org.openremote.model.attribute.*;
+import org.openremote.model.query.filter.StringPredicate;
 import org.openremote.model.syslog.SyslogCategory;
-import org.openremote.model.util.Pair;
 import org.openremote.model.value.Value;
 import org.openremote.model.value.Values;
 
@@ -57,7 +58,7 @@ public class WebsocketClientProtocol extends AbstractWebsocketClientProtocol<Str
     public static final String PROTOCOL_DISPLAY_NAME = "Websocket Client";
     public static final String PROTOCOL_VERSION = "1.0";
     private static final Logger LOG = SyslogCategory.getLogger(PROTOCOL, WebsocketClientProtocol.class);
-    protected final Map<AttributeRef, List<Pair<AttributeRef, Consumer<String>>>> protocolMessageConsumers = new HashMap<>();
+    protected final Map<AttributeRef, MessageDemultiplexer> protocolMessageConsumers = new HashMap<>();
 
     public static final List<MetaItemDescriptor> PROTOCOL_META_ITEM_DESCRIPTORS = joinCollections(
         AbstractWebsocketClientProtocol.PROTOCOL_META_ITEM_DESCRIPTORS,
@@ -134,17 +135,11 @@ public class WebsocketClientProtocol extends AbstractWebsocketClientProtocol<Str
         Consumer<String> messageConsumer = Protocol.createGenericAttributeMessageConsumer(attribute, assetService, this::updateLinkedAttribute);
 
         if (messageConsumer != null) {
+            StringPredicate matchPredicate = Protocol.getMatchPredicate(attribute);
             synchronized (protocolMessageConsumers) {
-                protocolMessageConsumers.compute(protocolRef, (ref, consumers) -> {
-                    if (consumers == null) {
-                        consumers = new ArrayList<>();
-                    }
-                    consumers.add(new Pair<>(
-                        attribute.getReferenceOrThrow(),
-                        messageConsumer
-                    ));
-                    return consumers;
-                });
+                protocolMessageConsumers
+                    .computeIfAbsent(protocolRef, ref -> new MessageDemultiplexer())
+                    .add(attribute.getReferenceOrThrow(), matchPredicate, messageConsumer);
             }
         }
     }
@@ -153,12 +148,10 @@ public class WebsocketClientProtocol extends AbstractWebsocketClientProtocol<Str
     protected void doUnlinkAttribute(AssetAttribute attribute, AssetAttribute protocolConfiguration) {
         AttributeRef attributeRef = attribute.getReferenceOrThrow();
         synchronized (protocolMessageConsumers) {
-            protocolMessageConsumers.compute(protocolConfiguration.getReferenceOrThrow(), (ref, consumers) -> {
-                if (consumers != null) {
-                    consumers.removeIf((attrRefConsumer) -> attrRefConsumer.key.equals(attributeRef));
-                }
-                return consumers;
-            });
+            MessageDemultiplexer consumers = protocolMessageConsumers.get(protocolConfiguration.getReferenceOrThrow());
+            if (consumers != null) {
+                consumers.remove(attributeRef);
+            }
         }
         super.doUnlinkAttribute(attribute, protocolConfiguration);
     }
@@ -170,18 +163,14 @@ public class WebsocketClientProtocol extends AbstractWebsocketClientProtocol<Str
 
     @Override
     protected void onMessageReceived(AttributeRef protocolRef, String message) {
-        List<Pair<AttributeRef, Consumer<String>>> consumers;
+        MessageDemultiplexer consumers;
 
         synchronized (protocolMessageConsumers) {
             consumers = protocolMessageConsumers.get(protocolRef);
+        }
 
-            if (consumers != null) {
-                consumers.forEach(c -> {
-                    if (c.value != null) {
-                        c.value.accept(message);
-                    }
-                });
-            }
+        if (consumers != null) {
+            consumers.accept(message);
         }
     }
 
@@ -26,7 +26,18 @@ public class SerialDataPacket {
     private final byte[] data;
 
     public SerialDataPacket(final byte[] data) {
-        this.data = Arrays.copyOf(data, data.length);
+        this(data, true);
+    }
+
+    protected SerialDataPacket(final byte[] data, boolean copy) {
+        this.data = copy ? Arrays.copyOf(data, data.length) : data;
+    }
+
+    /**
+     * Creates a packet that uses the array rather than a copy of it, the caller must not modify the array afterwards.
+     */
+    public static SerialDataPacket wrap(final byte[] data) {
+        return new SerialDataPacket(data, false);
     }
 
     public byte[] getData() {
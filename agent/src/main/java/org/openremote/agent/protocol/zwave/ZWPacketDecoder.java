@@ -20,11 +20,16 @@
 package org.openremote.agent.protocol.zwave;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageDecoder;
 
 import java.util.List;
 
+/**
+ * Passes on all available bytes as one packet; they are copied once, straight into the array of the packet, as the
+ * Z-Wave library works with byte arrays.
+ */
 public class ZWPacketDecoder extends ByteToMessageDecoder {
 
     @Override
@@ -32,14 +37,9 @@ public class ZWPacketDecoder extends ByteToMessageDecoder {
         int size = buf.readableBytes();
 
         if (size > 0) {
-            byte[] data = new byte[size];
-            for (int i = 0; i < size; i++) {
-                data[i] = buf.readByte();
-            }
-            buf.discardReadBytes();
-
-            SerialDataPacket packet = new SerialDataPacket(data);
-            messages.add(packet);
+            byte[] data = ByteBufUtil.getBytes(buf, buf.readerIndex(), size);
+            buf.skipBytes(size);
+            messages.add(SerialDataPacket.wrap(data));
         }
     }
 }
@@ -25,6 +25,12 @@ import io.netty.handler.codec.MessageToByteEncoder;
 
 public class ZWPacketEncoder extends MessageToByteEncoder<SerialDataPacket> {
 
+    @Override
+    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, SerialDataPacket message, boolean preferDirect) throws Exception {
+        int size = message.getData().length;
+        return preferDirect ? ctx.alloc().ioBuffer(size) : ctx.alloc().heapBuffer(size);
+    }
+
     @Override
     protected void encode(ChannelHandlerContext ctx, SerialDataPacket message, ByteBuf buf) throws Exception {
         buf.writeBytes(message.getData());
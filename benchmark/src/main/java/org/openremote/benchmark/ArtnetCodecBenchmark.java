@@ -0,0 +1,85 @@
+/*
+ * Copyright 2020, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openremote.agent.protocol.artnet.ArtnetLight;
+import org.openremote.agent.protocol.artnet.ArtnetLightState;
+import org.openremote.agent.protocol.artnet.ArtnetPacket;
+import org.openremote.agent.protocol.artnet.ArtnetPacketEncoder;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Packets per second of the Art-Net encoder for a full universe (510 channels), either as many RGB lights of one LED
+ * or as one RGB strip of many LEDs. Run with <code>-PjmhArgs="-prof gc"</code> for the allocation rate per packet.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ArtnetCodecBenchmark {
+
+    @Param({"lights", "strip"})
+    public String layout;
+
+    protected EmbeddedChannel encoderChannel;
+    protected List<ArtnetLight> lights;
+
+    @Setup
+    public void setup() {
+        encoderChannel = new EmbeddedChannel(new ArtnetPacketEncoder(null));
+        lights = new ArrayList<>();
+
+        int lightCount = "strip".equals(layout) ? 1 : 170;
+        int ledCount = "strip".equals(layout) ? 170 : 1;
+
+        for (int i = 0; i < lightCount; i++) {
+            Map<String, Integer> values = new LinkedHashMap<>();
+            values.put("r", i % 256);
+            values.put("g", 128);
+            values.put("b", 255);
+            ArtnetLightState state = new ArtnetLightState(i, values, 80, true);
+            lights.add(new ArtnetLight(i, 0, 0, ledCount, new String[]{"r", "g", "b"}, state, null));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        encoderChannel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public void encode(Blackhole blackhole) {
+        encoderChannel.writeOutbound(ArtnetPacket.newInstance(0, lights));
+        ByteBuf buf = encoderChannel.readOutbound();
+        blackhole.consume(buf.readableBytes());
+        buf.release();
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.benchmark;
+
+import org.openremote.container.timer.TimerService;
+import org.openremote.manager.rules.AssetQueryPredicate;
+import org.openremote.manager.rules.RulesFacts;
+import org.openremote.model.asset.Asset;
+import org.openremote.model.asset.AssetType;
+import org.openremote.model.query.AssetQuery;
+import org.openremote.model.query.filter.AttributePredicate;
+import org.openremote.model.query.filter.NumberPredicate;
+import org.openremote.model.query.filter.ParentPredicate;
+import org.openremote.model.query.filter.PathPredicate;
+import org.openremote.model.query.filter.StringPredicate;
+import org.openremote.model.rules.AssetState;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Matches the asset states of a generated asset tree against typical rule queries, both with a plain
+ * {@link AssetQueryPredicate} and through {@link RulesFacts} as the rules engines do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AssetQueryPredicateBenchmark {
+
+    @Param({"1", "10"})
+    public int buildings;
+
+    @Param({"type", "parent", "path", "attribute"})
+    public String query;
+
+    protected TimerService timerService;
+    protected List<AssetState> assetStates;
+    protected AssetQuery assetQuery;
+    protected AssetQueryPredicate predicate;
+    protected RulesFacts facts;
+
+    @Setup
+    public void setup() {
+        timerService = BenchmarkFixtures.createTimerService();
+        List<Asset> assets = BenchmarkFixtures.createAssetTree(buildings, 5, 20, BenchmarkFixtures.inMemoryStore());
+        assetStates = BenchmarkFixtures.createAssetStates(assets);
+        Asset room = assets.get(assets.size() - 1);
+
+        switch (query) {
+            case "type":
+                assetQuery = new AssetQuery().types(AssetType.ROOM);
+                break;
+            case "parent":
+                assetQuery = new AssetQuery().types(AssetType.ROOM).parents(new ParentPredicate(room.getParentId()));
+                break;
+            case "path":
+                assetQuery = new AssetQuery().paths(new PathPredicate(room.getPath()));
+                break;
+            default:
+                assetQuery = new AssetQuery()
+                    .types(AssetType.ROOM)
+                    .attributes(new AttributePredicate(
+                        new StringPredicate(BenchmarkFixtures.ATTRIBUTE_TEMPERATURE),
+                        new NumberPredicate(20, AssetQuery.Operator.GREATER_THAN)));
+        }
+
+        predicate = new AssetQueryPredicate(timerService, null, assetQuery);
+        facts = new RulesFacts(timerService, null, null, this, Logger.getLogger(AssetQueryPredicateBenchmark.class.getName()));
+        assetStates.forEach(facts::putAssetState);
+    }
+
+    @Benchmark
+    public long predicate() {
+        return assetStates.stream().filter(predicate).count();
+    }
+
+    @Benchmark
+    public long rulesFacts() {
+        return facts.matchAssetState(assetQuery).count();
+    }
+
+    @Benchmark
+    public RulesFacts putAssetState() {
+        return facts.putAssetState(assetStates.get(assetStates.size() - 1));
+    }
+}
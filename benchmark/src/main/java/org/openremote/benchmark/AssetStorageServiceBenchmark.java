@@ -0,0 +1,158 @@
+/*
+ * Copyright 2020, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.benchmark;
+
+import org.openremote.container.Container;
+import org.openremote.container.ContainerService;
+import org.openremote.container.persistence.PersistenceService;
+import org.openremote.manager.asset.AssetStorageService;
+import org.openremote.model.asset.Asset;
+import org.openremote.model.asset.AssetType;
+import org.openremote.model.query.AssetQuery;
+import org.openremote.model.query.filter.AttributePredicate;
+import org.openremote.model.query.filter.NumberPredicate;
+import org.openremote.model.query.filter.StringPredicate;
+import org.openremote.model.query.filter.TenantPredicate;
+import org.openremote.model.value.Values;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.openremote.container.persistence.PersistenceService.*;
+import static org.openremote.container.security.IdentityService.IDENTITY_PROVIDER;
+import static org.openremote.manager.setup.SetupTasks.*;
+
+/**
+ * Runs the common asset queries and attribute value updates against a generated asset tree stored in PostgreSQL. The
+ * database is wiped when the benchmark starts so it uses its own database, {@link #DATABASE_URL_DEFAULT} unless set
+ * with the <code>{@value #DATABASE_URL_PROPERTY}</code> system property, and never the database of the
+ * <code>DATABASE_*</code> environment variables (only the credentials are taken from these); the basic identity
+ * provider is used so Keycloak is not needed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AssetStorageServiceBenchmark {
+
+    public static final String DATABASE_URL_PROPERTY = "openremote.benchmark.databaseUrl";
+    public static final String DATABASE_URL_DEFAULT = "jdbc:postgresql://localhost:5432/openremote_benchmark";
+
+    @Param({"1", "10"})
+    public int buildings;
+
+    protected Container container;
+    protected PersistenceService persistenceService;
+    protected AssetStorageService assetStorageService;
+    protected String floorId;
+    protected String roomId;
+    protected int index;
+
+    @Setup
+    public void setup() throws Exception {
+        String databaseUrl = System.getProperty(DATABASE_URL_PROPERTY, DATABASE_URL_DEFAULT);
+        if (databaseUrl.equals(System.getenv(DATABASE_CONNECTION_URL)) || databaseUrl.equals(DATABASE_CONNECTION_URL_DEFAULT)) {
+            throw new IllegalStateException("Refusing to wipe the manager database, set " + DATABASE_URL_PROPERTY + " to a dedicated benchmark database: " + databaseUrl);
+        }
+
+        Map<String, String> config = new HashMap<>();
+        config.put(DATABASE_CONNECTION_URL, databaseUrl);
+        if (System.getenv(DATABASE_USERNAME) != null) {
+            config.put(DATABASE_USERNAME, System.getenv(DATABASE_USERNAME));
+        }
+        if (System.getenv(DATABASE_PASSWORD) != null) {
+            config.put(DATABASE_PASSWORD, System.getenv(DATABASE_PASSWORD));
+        }
+        config.put(IDENTITY_PROVIDER, "basic");
+        config.put(SETUP_WIPE_CLEAN_INSTALL, "true");
+        config.put(SETUP_IMPORT_DEMO_USERS, "false");
+        config.put(SETUP_IMPORT_DEMO_ASSETS, "false");
+        config.put(SETUP_IMPORT_DEMO_RULES, "false");
+        config.put(SETUP_IMPORT_DEMO_SCENES, "false");
+        config.put(SETUP_IMPORT_DEMO_AGENT, "false");
+
+        List<ContainerService> services = StreamSupport.stream(ServiceLoader.load(ContainerService.class).spliterator(), false)
+            .sorted(Comparator.comparingInt(ContainerService::getPriority))
+            .collect(Collectors.toList());
+
+        container = new Container(config, services);
+        container.start();
+        persistenceService = container.getService(PersistenceService.class);
+        assetStorageService = container.getService(AssetStorageService.class);
+
+        List<Asset> assets = BenchmarkFixtures.createAssetTree(buildings, 5, 20, assetStorageService::merge);
+        Asset room = assets.get(assets.size() - 1);
+        roomId = room.getId();
+        floorId = room.getParentId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (container != null) {
+            container.stop();
+        }
+    }
+
+    @Benchmark
+    public Asset findById() {
+        return assetStorageService.find(roomId, true);
+    }
+
+    @Benchmark
+    public List<Asset> findRoomsOfFloor() {
+        return assetStorageService.findAll(new AssetQuery().parents(floorId).types(AssetType.ROOM));
+    }
+
+    @Benchmark
+    public List<Asset> findByAttributeValue() {
+        return assetStorageService.findAll(new AssetQuery()
+            .types(AssetType.ROOM)
+            .attributes(new AttributePredicate(
+                new StringPredicate(BenchmarkFixtures.ATTRIBUTE_TEMPERATURE),
+                new NumberPredicate(24, AssetQuery.Operator.GREATER_THAN))));
+    }
+
+    @Benchmark
+    public List<Asset> findAllWithoutAttributes() {
+        return assetStorageService.findAll(new AssetQuery()
+            .tenant(new TenantPredicate(BenchmarkFixtures.REALM))
+            .select(AssetQuery.Select.selectExcludePathAndAttributes()));
+    }
+
+    @Benchmark
+    public boolean storeAttributeValue() {
+        index++;
+        return persistenceService.doReturningTransaction(em -> assetStorageService.storeAttributeValue(
+            em,
+            roomId,
+            BenchmarkFixtures.ATTRIBUTE_TEMPERATURE,
+            Values.create(15 + index % 100 / 10d),
+            Long.toString(System.currentTimeMillis())));
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2020, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.benchmark;
+
+import org.openremote.model.asset.Asset;
+import org.openremote.model.asset.AssetAttribute;
+import org.openremote.model.attribute.MetaItem;
+import org.openremote.model.value.Value;
+import org.openremote.model.value.Values;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.openremote.model.attribute.MetaItemType.*;
+
+/**
+ * The per event work the asset processor chain does on the attribute: the meta flag checks, copying the attribute with
+ * the new value, validating it and replacing it on the asset. Compares the copy-on-write update with the old deep copy;
+ * run with <code>-prof gc</code> to see the allocation per event.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AttributeUpdateBenchmark {
+
+    protected Asset room;
+    protected Value[] values;
+    protected int index;
+
+    @Setup
+    public void setup() {
+        List<Asset> assets = BenchmarkFixtures.createAssetTree(1, 1, 1, BenchmarkFixtures.inMemoryStore());
+        room = assets.get(assets.size() - 1);
+        new ArrayList<>(room.getAttributesList()).forEach(attribute -> {
+            attribute.addMeta(
+                new MetaItem(LABEL, Values.create(attribute.getNameOrThrow())),
+                new MetaItem(DESCRIPTION, Values.create("Generated attribute for benchmarking")),
+                new MetaItem(FORMAT, Values.create("%3.1f")),
+                new MetaItem(RULE_STATE, Values.create(true)),
+                new MetaItem(STORE_DATA_POINTS, Values.create(true)),
+                new MetaItem(SHOW_ON_DASHBOARD, Values.create(true)),
+                new MetaItem(RANGE_MIN, Values.create(0)),
+                new MetaItem(RANGE_MAX, Values.create(100))
+            );
+            room.replaceAttribute(attribute);
+        });
+
+        values = new Value[100];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Values.create(15 + i / 10d);
+        }
+    }
+
+    protected AssetAttribute temperatureAttribute() {
+        return room.getAttribute(BenchmarkFixtures.ATTRIBUTE_TEMPERATURE).orElseThrow(IllegalStateException::new);
+    }
+
+    protected Value nextValue() {
+        index = (index + 1) % values.length;
+        return values[index];
+    }
+
+    protected void checkMeta(AssetAttribute attribute, Blackhole blackhole) {
+        blackhole.consume(attribute.isReadOnly());
+        blackhole.consume(attribute.isExecutable());
+        blackhole.consume(attribute.isAccessRestrictedWrite());
+        blackhole.consume(attribute.isRuleState());
+        blackhole.consume(attribute.isRuleEvent());
+        blackhole.consume(attribute.isStoreDatapoints());
+        blackhole.consume(attribute.getMetaItem(AGENT_LINK));
+    }
+
+    @Benchmark
+    public void metaChecks(Blackhole blackhole) {
+        checkMeta(temperatureAttribute(), blackhole);
+    }
+
+    @Benchmark
+    public Asset deepCopyUpdate(Blackhole blackhole) {
+        AssetAttribute oldAttribute = temperatureAttribute();
+        checkMeta(oldAttribute, blackhole);
+        AssetAttribute updatedAttribute = oldAttribute.deepCopy();
+        updatedAttribute.setValue(nextValue(), System.currentTimeMillis());
+        blackhole.consume(updatedAttribute.getValidationFailures());
+        checkMeta(updatedAttribute, blackhole);
+        return room.replaceAttribute(updatedAttribute);
+    }
+
+    @Benchmark
+    public Asset copyOnWriteUpdate(Blackhole blackhole) {
+        AssetAttribute oldAttribute = temperatureAttribute();
+        checkMeta(oldAttribute, blackhole);
+        AssetAttribute updatedAttribute = oldAttribute.copyWithValue(nextValue(), System.currentTimeMillis());
+        blackhole.consume(updatedAttribute.getValidationFailures());
+        checkMeta(updatedAttribute, blackhole);
+        return room.replaceAttribute(updatedAttribute);
+    }
+}
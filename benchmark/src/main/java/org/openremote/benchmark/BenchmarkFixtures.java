@@ -0,0 +1,183 @@
+/*
+ * Copyright 2020, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.benchmark;
+
+import org.openremote.container.timer.TimerService;
+import org.openremote.container.util.UniqueIdentifierGenerator;
+import org.openremote.model.asset.Asset;
+import org.openremote.model.asset.AssetAttribute;
+import org.openremote.model.asset.AssetType;
+import org.openremote.model.attribute.AttributeEvent;
+import org.openremote.model.attribute.AttributeValueType;
+import org.openremote.model.query.AssetQuery;
+import org.openremote.model.query.LogicGroup;
+import org.openremote.model.query.filter.AttributePredicate;
+import org.openremote.model.query.filter.NumberPredicate;
+import org.openremote.model.query.filter.ParentPredicate;
+import org.openremote.model.query.filter.StringPredicate;
+import org.openremote.model.rules.AssetState;
+import org.openremote.model.rules.Ruleset;
+import org.openremote.model.rules.TenantRuleset;
+import org.openremote.model.rules.json.JsonRule;
+import org.openremote.model.rules.json.JsonRulesetDefinition;
+import org.openremote.model.rules.json.RuleAction;
+import org.openremote.model.rules.json.RuleActionTarget;
+import org.openremote.model.rules.json.RuleActionWriteAttribute;
+import org.openremote.model.rules.json.RuleCondition;
+import org.openremote.model.value.Values;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+import static org.openremote.container.Container.JSON;
+import static org.openremote.model.Constants.MASTER_REALM;
+
+/**
+ * Generates the asset trees and rule sets used by the benchmarks; everything is derived from a fixed seed so the
+ * same parameters always produce the same data and results of different runs can be compared.
+ */
+public final class BenchmarkFixtures {
+
+    public static final long SEED = 20200901L;
+    public static final String REALM = MASTER_REALM;
+    public static final String ATTRIBUTE_TEMPERATURE = "temperature";
+    public static final String ATTRIBUTE_TARGET_TEMPERATURE = "targetTemperature";
+    public static final String ATTRIBUTE_HUMIDITY = "humidity";
+    public static final String ATTRIBUTE_CO2_LEVEL = "co2Level";
+    public static final String ATTRIBUTE_PRESENCE = "presence";
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * A {@link TimerService} using the wall clock that doesn't need to be started in a container.
+     */
+    public static TimerService createTimerService() {
+        return new TimerService() {
+            {
+                clock = Clock.REAL;
+            }
+        };
+    }
+
+    /**
+     * Assigns identifiers and tree paths the way the database would, for benchmarks that don't need storage.
+     */
+    public static UnaryOperator<Asset> inMemoryStore() {
+        Map<String, String[]> paths = new HashMap<>();
+        return asset -> {
+            String id = UniqueIdentifierGenerator.generateId(asset.getName());
+            String[] parentPath = asset.getParentId() != null ? paths.get(asset.getParentId()) : new String[0];
+            String[] path = new String[parentPath.length + 1];
+            path[0] = id;
+            System.arraycopy(parentPath, 0, path, 1, parentPath.length);
+            asset.setId(id);
+            asset.setPath(path);
+            paths.put(id, path);
+            return asset;
+        };
+    }
+
+    /**
+     * Creates buildings with floors with rooms, each room having the usual sensor and setpoint attributes; the store
+     * function is called for every asset before its children are created and must return the asset with an identifier.
+     */
+    public static List<Asset> createAssetTree(int buildingCount, int floorCount, int roomCount, UnaryOperator<Asset> store) {
+        Random random = new Random(SEED);
+        List<Asset> assets = new ArrayList<>();
+        long timestamp = System.currentTimeMillis();
+
+        for (int b = 0; b < buildingCount; b++) {
+            Asset building = store.apply(new Asset("Building " + b, AssetType.BUILDING, null, REALM));
+            assets.add(building);
+
+            for (int f = 0; f < floorCount; f++) {
+                Asset floor = store.apply(new Asset(building.getName() + " Floor " + f, AssetType.FLOOR, building));
+                assets.add(floor);
+
+                for (int r = 0; r < roomCount; r++) {
+                    Asset room = new Asset(floor.getName() + " Room " + r, AssetType.ROOM, floor);
+                    room.addAttributes(
+                        new AssetAttribute(ATTRIBUTE_TEMPERATURE, AttributeValueType.TEMPERATURE, Values.create(15 + random.nextInt(100) / 10d), timestamp),
+                        new AssetAttribute(ATTRIBUTE_TARGET_TEMPERATURE, AttributeValueType.TEMPERATURE, Values.create(19 + random.nextInt(4)), timestamp),
+                        new AssetAttribute(ATTRIBUTE_HUMIDITY, AttributeValueType.PERCENTAGE, Values.create(30 + random.nextInt(40)), timestamp),
+                        new AssetAttribute(ATTRIBUTE_CO2_LEVEL, AttributeValueType.NUMBER, Values.create(400 + random.nextInt(800)), timestamp),
+                        new AssetAttribute(ATTRIBUTE_PRESENCE, AttributeValueType.BOOLEAN, Values.create(random.nextBoolean()), timestamp)
+                    );
+                    assets.add(store.apply(room));
+                }
+            }
+        }
+
+        return assets;
+    }
+
+    /**
+     * Creates one {@link AssetState} per attribute, as the rules engines see them.
+     */
+    public static List<AssetState> createAssetStates(List<Asset> assets) {
+        return assets.stream()
+            .flatMap(asset -> asset.getAttributesStream().map(attribute -> new AssetState(asset, attribute, AttributeEvent.Source.SENSOR)))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Creates a JSON ruleset where each rule matches rooms of one floor above a temperature threshold and writes
+     * the target temperature of the matched rooms.
+     */
+    public static Ruleset createJsonRuleset(List<Asset> assets, int ruleCount) throws Exception {
+        List<Asset> floors = assets.stream()
+            .filter(asset -> AssetType.FLOOR.getType().equals(asset.getType()))
+            .collect(Collectors.toList());
+        JsonRulesetDefinition definition = new JsonRulesetDefinition();
+        definition.rules = new JsonRule[ruleCount];
+
+        for (int i = 0; i < ruleCount; i++) {
+            Asset floor = floors.get(i % floors.size());
+            RuleCondition condition = new RuleCondition();
+            condition.assets = new AssetQuery()
+                .types(AssetType.ROOM)
+                .parents(new ParentPredicate(floor.getId()))
+                .attributes(new AttributePredicate(new StringPredicate(ATTRIBUTE_TEMPERATURE), new NumberPredicate(18 + i % 8, AssetQuery.Operator.GREATER_THAN)));
+
+            RuleActionWriteAttribute action = new RuleActionWriteAttribute();
+            action.target = new RuleActionTarget();
+            action.target.conditionAssets = "0";
+            action.attributeName = ATTRIBUTE_TARGET_TEMPERATURE;
+            action.value = Values.create(18);
+
+            JsonRule rule = new JsonRule();
+            rule.name = "Benchmark rule " + i;
+            rule.when = new LogicGroup<>(LogicGroup.Operator.OR, Collections.singletonList(condition), null);
+            rule.then = new RuleAction[]{action};
+            definition.rules[i] = rule;
+        }
+
+        Ruleset ruleset = new TenantRuleset(REALM, "Benchmark rules", Ruleset.Lang.JSON, JSON.writeValueAsString(definition));
+        ruleset.setId(1L);
+        return ruleset;
+    }
+}
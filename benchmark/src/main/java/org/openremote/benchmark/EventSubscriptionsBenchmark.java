@@ -0,0 +1,101 @@
+/*
+ * Copyright 2020, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.benchmark;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.impl.DefaultExchange;
+import org.openremote.manager.event.EventSubscriptions;
+import org.openremote.model.asset.Asset;
+import org.openremote.model.asset.AssetFilter;
+import org.openremote.model.asset.AssetType;
+import org.openremote.model.attribute.AttributeEvent;
+import org.openremote.model.event.shared.EventSubscription;
+import org.openremote.model.value.Values;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.openremote.manager.event.ClientEventService.HEADER_ACCESS_RESTRICTED;
+
+/**
+ * Splits attribute events for the sessions subscribed to them; every session watches the rooms of one floor and one
+ * individual room, as the asset tree and asset viewer do, so only a small share of sessions receives each event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EventSubscriptionsBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int sessions;
+
+    protected DefaultCamelContext camelContext;
+    protected EventSubscriptions eventSubscriptions;
+    protected Exchange[] exchanges;
+    protected int index;
+
+    @Setup
+    public void setup() {
+        List<Asset> assets = BenchmarkFixtures.createAssetTree(10, 5, 20, BenchmarkFixtures.inMemoryStore());
+        List<Asset> floors = assets.stream().filter(asset -> AssetType.FLOOR.getType().equals(asset.getType())).collect(Collectors.toList());
+        List<Asset> rooms = assets.stream().filter(asset -> AssetType.ROOM.getType().equals(asset.getType())).collect(Collectors.toList());
+
+        eventSubscriptions = new EventSubscriptions(BenchmarkFixtures.createTimerService());
+        for (int i = 0; i < sessions; i++) {
+            String sessionKey = "session" + i;
+            eventSubscriptions.createOrUpdate(sessionKey, false, new EventSubscription<>(
+                AttributeEvent.class,
+                new AssetFilter<AttributeEvent>().setParentIds(floors.get(i % floors.size()).getId()),
+                sessionKey + "-floor"));
+            eventSubscriptions.createOrUpdate(sessionKey, false, new EventSubscription<>(
+                AttributeEvent.class,
+                new AssetFilter<AttributeEvent>().setAssetIds(rooms.get((i * 7) % rooms.size()).getId()),
+                sessionKey + "-room"));
+        }
+
+        camelContext = new DefaultCamelContext();
+        exchanges = rooms.stream().map(room -> {
+            AttributeEvent event = new AttributeEvent(room.getId(), BenchmarkFixtures.ATTRIBUTE_TEMPERATURE, Values.create(21));
+            event.setRealm(room.getRealm()).setParentId(room.getParentId());
+            Exchange exchange = new DefaultExchange(camelContext);
+            exchange.getIn().setBody(event);
+            exchange.getIn().setHeader(HEADER_ACCESS_RESTRICTED, false);
+            return exchange;
+        }).toArray(Exchange[]::new);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        camelContext.stop();
+    }
+
+    @Benchmark
+    public List<Message> splitForSubscribers() {
+        index = (index + 1) % exchanges.length;
+        return eventSubscriptions.splitForSubscribers(exchanges[index]);
+    }
+}
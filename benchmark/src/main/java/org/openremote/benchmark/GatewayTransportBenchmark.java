@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openremote.manager.event.BinaryEventCodec;
+import org.openremote.manager.gateway.GatewayEventBatcher;
+import org.openremote.model.attribute.AttributeEvent;
+import org.openremote.model.event.shared.SharedEvent;
+import org.openremote.model.value.Values;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+import static org.openremote.container.Container.JSON;
+
+/**
+ * Encodes the attribute events a gateway sends to the central manager, one JSON frame per event (as before batching)
+ * or {@link GatewayEventBatcher#EVENT_BATCH_MAX_SIZE} events per frame as JSON or CBOR, optionally compressed the way
+ * permessage-deflate does (one deflate stream per connection, flushed after every frame). Each operation sends one
+ * batch worth of events, the <code>frames</code> and <code>bytes</code> counters are the frames and bytes on the wire
+ * per second of encoding on one core; divide by the operations per second for the values per batch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GatewayTransportBenchmark {
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class WireCounters {
+        public long frames;
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            frames = 0;
+            bytes = 0;
+        }
+    }
+
+    @Param({"single", "batched", "batched-cbor"})
+    public String encoding;
+
+    @Param({"false", "true"})
+    public boolean deflate;
+
+    protected AttributeEvent[] events;
+    protected Deflater deflater;
+    protected byte[] deflateBuffer = new byte[64 * 1024];
+
+    @Setup
+    public void setup() {
+        events = new AttributeEvent[GatewayEventBatcher.EVENT_BATCH_MAX_SIZE];
+        long timestamp = 1600000000000L;
+        for (int i = 0; i < events.length; i++) {
+            events[i] = new AttributeEvent("5yT4hMbZcbGrLoVpJeKkKu" + (i % 10), BenchmarkFixtures.ATTRIBUTE_TEMPERATURE, Values.create(20 + (i % 50) / 10d), timestamp + i);
+        }
+        deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        deflater.end();
+    }
+
+    @Benchmark
+    public long send(WireCounters counters) throws Exception {
+        long bytes = 0;
+
+        if ("single".equals(encoding)) {
+            for (AttributeEvent event : events) {
+                bytes += sendFrame(counters, (SharedEvent.MESSAGE_PREFIX + JSON.writeValueAsString(event)).getBytes(StandardCharsets.UTF_8));
+            }
+        } else if ("batched".equals(encoding)) {
+            bytes += sendFrame(counters, (SharedEvent.MESSAGE_PREFIX + JSON.writeValueAsString(events)).getBytes(StandardCharsets.UTF_8));
+        } else {
+            bytes += sendFrame(counters, BinaryEventCodec.encode(Arrays.copyOf(events, events.length, SharedEvent[].class)));
+        }
+
+        return bytes;
+    }
+
+    protected int sendFrame(WireCounters counters, byte[] frame) {
+        int length = frame.length;
+
+        if (deflate) {
+            deflater.setInput(frame);
+            length = 0;
+            int count;
+            do {
+                count = deflater.deflate(deflateBuffer, 0, deflateBuffer.length, Deflater.SYNC_FLUSH);
+                length += count;
+            } while (count == deflateBuffer.length);
+            // permessage-deflate strips the trailing empty block of the sync flush
+            length -= 4;
+        }
+
+        counters.frames++;
+        counters.bytes += length;
+        return length;
+    }
+}
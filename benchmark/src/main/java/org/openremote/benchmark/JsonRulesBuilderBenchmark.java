@@ -0,0 +1,103 @@
+/*
+ * Copyright 2020, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.benchmark;
+
+import org.jeasy.rules.api.Rule;
+import org.openremote.container.persistence.PersistenceEvent;
+import org.openremote.container.timer.TimerService;
+import org.openremote.manager.rules.JsonRulesBuilder;
+import org.openremote.manager.rules.RulesEngine;
+import org.openremote.manager.rules.RulesFacts;
+import org.openremote.model.asset.Asset;
+import org.openremote.model.rules.AssetState;
+import org.openremote.model.rules.Ruleset;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Builds a generated JSON ruleset and evaluates its rules after single attribute changes, as a rules engine does on
+ * every fire; the rule actions are never executed so no facades are needed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JsonRulesBuilderBenchmark {
+
+    @Param({"10", "100"})
+    public int rules;
+
+    protected TimerService timerService;
+    protected Ruleset ruleset;
+    protected RulesFacts facts;
+    protected JsonRulesBuilder rulesBuilder;
+    protected Rule[] builtRules;
+    protected AssetState[] temperatureStates;
+    protected int index;
+
+    @Setup
+    public void setup() throws Exception {
+        timerService = BenchmarkFixtures.createTimerService();
+        List<Asset> assets = BenchmarkFixtures.createAssetTree(10, 5, 20, BenchmarkFixtures.inMemoryStore());
+        List<AssetState> assetStates = BenchmarkFixtures.createAssetStates(assets);
+        temperatureStates = assetStates.stream()
+            .filter(assetState -> BenchmarkFixtures.ATTRIBUTE_TEMPERATURE.equals(assetState.getAttributeName()))
+            .toArray(AssetState[]::new);
+
+        ruleset = BenchmarkFixtures.createJsonRuleset(assets, rules);
+        facts = new RulesFacts(timerService, null, null, this, Logger.getLogger(JsonRulesBuilderBenchmark.class.getName()));
+        assetStates.forEach(facts::putAssetState);
+
+        rulesBuilder = createRulesBuilder();
+        rulesBuilder.start(facts);
+        builtRules = rulesBuilder.build();
+    }
+
+    protected JsonRulesBuilder createRulesBuilder() throws Exception {
+        return new JsonRulesBuilder(ruleset, timerService, null, null, null, null, null, null, null, null, null, (action, delay) -> {
+        });
+    }
+
+    @Benchmark
+    public JsonRulesBuilder build() throws Exception {
+        return createRulesBuilder();
+    }
+
+    @Benchmark
+    public int evaluate() {
+        index = (index + 1) % temperatureStates.length;
+        AssetState assetState = temperatureStates[index];
+        facts.putAssetState(assetState);
+        rulesBuilder.onAssetStatesChanged(facts, new RulesEngine.AssetStateChangeEvent(PersistenceEvent.Cause.UPDATE, assetState));
+
+        int matched = 0;
+        for (Rule rule : builtRules) {
+            if (rule.evaluate(facts)) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2020, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.benchmark;
+
+import org.openremote.model.asset.Asset;
+import org.openremote.model.value.Value;
+import org.openremote.model.value.ValueJsonCodec;
+import org.openremote.model.value.Values;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.openremote.container.Container.JSON;
+
+/**
+ * Compares the {@link Values} tokenizer with the streaming {@link ValueJsonCodec} for parsing and writing a single
+ * attribute value, a complete room asset and a building with all its floors and rooms.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ValuesBenchmark {
+
+    @Param({"attribute", "asset", "tree"})
+    public String payload;
+
+    protected String json;
+    protected Value value;
+
+    @Setup
+    public void setup() throws Exception {
+        List<Asset> assets = BenchmarkFixtures.createAssetTree(1, 5, 20, BenchmarkFixtures.inMemoryStore());
+        Asset room = assets.get(assets.size() - 1);
+
+        switch (payload) {
+            case "attribute":
+                json = room.getAttribute(BenchmarkFixtures.ATTRIBUTE_TEMPERATURE)
+                    .orElseThrow(IllegalStateException::new)
+                    .getObjectValue()
+                    .toJson();
+                break;
+            case "asset":
+                json = JSON.writeValueAsString(room);
+                break;
+            default:
+                json = JSON.writeValueAsString(assets);
+        }
+
+        value = Values.parse(json).orElseThrow(IllegalStateException::new);
+    }
+
+    @Benchmark
+    public Value parseTokenizer() {
+        return Values.parse(json).orElse(null);
+    }
+
+    @Benchmark
+    public Value parseStreaming() {
+        return ValueJsonCodec.read(json).orElse(null);
+    }
+
+    @Benchmark
+    public String writeTokenizer() {
+        return value.toJson();
+    }
+
+    @Benchmark
+    public String writeStreaming() {
+        return ValueJsonCodec.write(value);
+    }
+}
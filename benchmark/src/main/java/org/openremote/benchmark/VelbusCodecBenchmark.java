@@ -0,0 +1,101 @@
+/*
+ * Copyright 2020, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openremote.agent.protocol.velbus.VelbusPacket;
+import org.openremote.agent.protocol.velbus.VelbusPacketDecoder;
+import org.openremote.agent.protocol.velbus.VelbusPacketEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Frames per second of the Velbus codecs; decoding reads a burst of frames as it arrives from the interface, either in
+ * one read or in reads of {@link #readSize} bytes that split frames. Run with <code>-PjmhArgs="-prof gc"</code> for
+ * the allocation rate per frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class VelbusCodecBenchmark {
+
+    public static final int FRAMES = 64;
+
+    @Param({"0", "7"})
+    public int readSize;
+
+    protected EmbeddedChannel decoderChannel;
+    protected EmbeddedChannel encoderChannel;
+    protected ByteBuf frames;
+    protected VelbusPacket packet;
+
+    @Setup
+    public void setup() {
+        decoderChannel = new EmbeddedChannel(new VelbusPacketDecoder());
+        encoderChannel = new EmbeddedChannel(new VelbusPacketEncoder());
+        packet = new VelbusPacket(0x30, VelbusPacket.OutboundCommand.RELAY_ON.getCode(), (byte) 0x01);
+        VelbusPacket statusPacket = VelbusPacket.fromString("0F FB 30 08 FB 01 00 01 00 00 00 00 CB 04");
+        frames = PooledByteBufAllocator.DEFAULT.directBuffer();
+
+        for (int i = 0; i < FRAMES; i++) {
+            VelbusPacket framePacket = i % 2 == 0 ? packet : statusPacket;
+            frames.writeBytes(framePacket.pack(), 0, framePacket.getSize());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        frames.release();
+        decoderChannel.finishAndReleaseAll();
+        encoderChannel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public void decode(Blackhole blackhole) {
+        if (readSize <= 0) {
+            decoderChannel.writeInbound(frames.retainedDuplicate());
+        } else {
+            for (int i = 0; i < frames.readableBytes(); i += readSize) {
+                decoderChannel.writeInbound(frames.retainedSlice(i, Math.min(readSize, frames.readableBytes() - i)));
+            }
+        }
+
+        Object decoded;
+        while ((decoded = decoderChannel.readInbound()) != null) {
+            blackhole.consume(decoded);
+        }
+    }
+
+    @Benchmark
+    public void encode(Blackhole blackhole) {
+        encoderChannel.writeOutbound(packet);
+        ByteBuf buf = encoderChannel.readOutbound();
+        blackhole.consume(buf.readableBytes());
+        buf.release();
+    }
+}
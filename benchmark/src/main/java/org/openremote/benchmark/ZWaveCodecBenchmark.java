@@ -0,0 +1,81 @@
+/*
+ * Copyright 2020, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.benchmark;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openremote.agent.protocol.zwave.SerialDataPacket;
+import org.openremote.agent.protocol.zwave.ZWPacketDecoder;
+import org.openremote.agent.protocol.zwave.ZWPacketEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Frames per second of the Z-Wave serial codecs. Run with <code>-PjmhArgs="-prof gc"</code> for the allocation rate
+ * per frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ZWaveCodecBenchmark {
+
+    // A SendData request for a multilevel switch set
+    protected static final byte[] FRAME = {0x01, 0x0A, 0x00, 0x13, 0x05, 0x03, 0x26, 0x01, 0x63, 0x25, 0x01, (byte) 0x8F};
+
+    protected EmbeddedChannel decoderChannel;
+    protected EmbeddedChannel encoderChannel;
+    protected ByteBuf frame;
+    protected SerialDataPacket packet;
+
+    @Setup
+    public void setup() {
+        decoderChannel = new EmbeddedChannel(new ZWPacketDecoder());
+        encoderChannel = new EmbeddedChannel(new ZWPacketEncoder());
+        frame = PooledByteBufAllocator.DEFAULT.directBuffer(FRAME.length).writeBytes(FRAME);
+        packet = new SerialDataPacket(FRAME);
+    }
+
+    @TearDown
+    public void tearDown() {
+        frame.release();
+        decoderChannel.finishAndReleaseAll();
+        encoderChannel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public void decode(Blackhole blackhole) {
+        decoderChannel.writeInbound(frame.retainedDuplicate());
+        blackhole.consume(decoderChannel.<Object>readInbound());
+    }
+
+    @Benchmark
+    public void encode(Blackhole blackhole) {
+        encoderChannel.writeOutbound(packet);
+        ByteBuf buf = encoderChannel.readOutbound();
+        blackhole.consume(buf.readableBytes());
+        buf.release();
+    }
+}
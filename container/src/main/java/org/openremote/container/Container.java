@@ -26,10 +26,12 @@ import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
 import org.openremote.container.concurrent.ContainerThreads;
+import org.openremote.container.concurrent.VirtualThreads;
 import org.openremote.model.ModelModule;
 import org.openremote.container.util.LogUtil;
 
@@ -65,24 +67,40 @@ public class Container {
 
     public static final String DEV_MODE = "DEV_MODE";
     public static final boolean DEV_MODE_DEFAULT = true;
+    /**
+     * Run blocking work (message consumers, servlet requests and tasks submitted to the executor services) on virtual
+     * threads instead of pooled platform threads; ignored with a warning if the JDK doesn't support virtual threads.
+     */
+    public static final String VIRTUAL_THREADS = "VIRTUAL_THREADS";
+    public static final boolean VIRTUAL_THREADS_DEFAULT = false;
+
+    public static final ObjectMapper JSON = configureMapper(new ObjectMapper());
+
+    /**
+     * Same mapper configuration as {@link #JSON} but reads and writes CBOR (RFC 7049) binary data.
+     */
+    public static final ObjectMapper CBOR = configureMapper(new ObjectMapper(new CBORFactory()));
 
     @SuppressWarnings("deprecation")
-    public static final ObjectMapper JSON = new ObjectMapper()
-        .setSerializationInclusion(JsonInclude.Include.NON_NULL)
-        .configure(SerializationFeature.WRITE_NULL_MAP_VALUES, false)
-        .configure(SerializationFeature.WRITE_EMPTY_JSON_ARRAYS, false)
-        .configure(SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS, false)
-        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
-        .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
-        .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
-        .setVisibility(PropertyAccessor.CREATOR, JsonAutoDetect.Visibility.ANY)
-        .registerModule(new ModelModule())
-        .registerModule(new Jdk8Module())
-        .registerModule(new JavaTimeModule())
-        .registerModule(new ParameterNamesModule(JsonCreator.Mode.PROPERTIES));
+    protected static ObjectMapper configureMapper(ObjectMapper mapper) {
+        return mapper
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .configure(SerializationFeature.WRITE_NULL_MAP_VALUES, false)
+            .configure(SerializationFeature.WRITE_EMPTY_JSON_ARRAYS, false)
+            .configure(SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS, false)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+            .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
+            .setVisibility(PropertyAccessor.CREATOR, JsonAutoDetect.Visibility.ANY)
+            .registerModule(new ModelModule())
+            .registerModule(new Jdk8Module())
+            .registerModule(new JavaTimeModule())
+            .registerModule(new ParameterNamesModule(JsonCreator.Mode.PROPERTIES));
+    }
 
     protected final Map<String, String> config = new HashMap<>();
     protected final boolean devMode;
+    protected final boolean virtualThreads;
 
     protected Thread waitingThread;
     protected final Map<Class<? extends ContainerService>, ContainerService> services = new LinkedHashMap<>();
@@ -116,6 +134,13 @@ public class Container {
             JSON.enable(SerializationFeature.INDENT_OUTPUT);
         }
 
+        boolean virtualThreads = getBoolean(this.config, VIRTUAL_THREADS, VIRTUAL_THREADS_DEFAULT);
+        if (virtualThreads && !VirtualThreads.isSupported()) {
+            LOG.warning("Virtual threads are not supported by this JDK, using platform threads: " + System.getProperty("java.version"));
+            virtualThreads = false;
+        }
+        this.virtualThreads = virtualThreads;
+
         // Any log handlers of the root logger that are container services must be registered
         for (Handler handler : Logger.getLogger("").getHandlers()) {
             if (handler instanceof ContainerService) {
@@ -139,6 +164,10 @@ public class Container {
         return devMode;
     }
 
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
     public boolean isRunning() {
         return waitingThread != null;
     }
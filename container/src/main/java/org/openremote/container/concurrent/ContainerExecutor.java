@@ -42,8 +42,20 @@ public class ContainerExecutor extends ThreadPoolExecutor {
                              int maximumPoolSize,
                              long keepAliveSeconds,
                              int blockingQueueCapacity) {
+        this(name, corePoolSize, maximumPoolSize, keepAliveSeconds, blockingQueueCapacity, false);
+    }
+
+    /**
+     * @param virtualThreads Use virtual threads instead of platform threads, see {@link VirtualThreads}.
+     */
+    public ContainerExecutor(String name,
+                             int corePoolSize,
+                             int maximumPoolSize,
+                             long keepAliveSeconds,
+                             int blockingQueueCapacity,
+                             boolean virtualThreads) {
         this(
-            new ContainerThreadFactory(name),
+            virtualThreads ? VirtualThreads.newThreadFactory(name) : new ContainerThreadFactory(name),
             DEFAULT_REJECTED_EXECUTION_HANDLER,
             corePoolSize,
             maximumPoolSize,
@@ -61,6 +73,13 @@ public class ContainerExecutor extends ThreadPoolExecutor {
         super(corePoolSize, maximumPoolSize, keepAliveSeconds, TimeUnit.SECONDS, workQueue, threadFactory, rejectedHandler);
     }
 
+    /**
+     * Creates an executor that starts a new virtual thread for every task, virtual threads are not meant to be pooled.
+     */
+    public static ContainerExecutor newVirtualThreadPerTaskExecutor(String name) {
+        return new ContainerExecutor(name, 0, Integer.MAX_VALUE, 0L, -1, true);
+    }
+
     @Override
     protected void afterExecute(Runnable runnable, Throwable throwable) {
         super.afterExecute(runnable, throwable);
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.container.concurrent;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Creates virtual threads when the JDK supports them (JDK 21 or newer), these are cheap enough to have one for every
+ * blocking task so blocking I/O (JDBC, HTTP, SMTP) doesn't hold on to a scarce pooled platform thread. The container
+ * is compiled for older JDKs so the API is accessed reflectively.
+ * <p>
+ * A virtual thread that blocks whilst inside a <code>synchronized</code> block pins its carrier platform thread, use
+ * a {@link java.util.concurrent.locks.ReentrantLock} instead to guard code that does I/O.
+ */
+public final class VirtualThreads {
+
+    private static final Logger LOG = Logger.getLogger(VirtualThreads.class.getName());
+    private static final Method OF_VIRTUAL;
+    private static final Method BUILDER_NAME;
+    private static final Method BUILDER_FACTORY;
+
+    static {
+        Method ofVirtual = null;
+        Method builderName = null;
+        Method builderFactory = null;
+        try {
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builderName = builderClass.getMethod("name", String.class, long.class);
+            builderFactory = builderClass.getMethod("factory");
+            // Fails on JDKs where virtual threads are a preview feature that isn't enabled
+            ofVirtual.invoke(null);
+        } catch (Throwable t) {
+            LOG.log(Level.FINE, "Virtual threads are not supported by this JDK", t);
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = builderName;
+        BUILDER_FACTORY = builderFactory;
+    }
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * @return A factory for virtual threads named <code>name-N</code>.
+     * @throws UnsupportedOperationException if virtual threads are not {@link #isSupported}.
+     */
+    public static ThreadFactory newThreadFactory(String name) {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("Virtual threads are not supported by this JDK: " + System.getProperty("java.version"));
+        }
+        try {
+            Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), name + "-", 1L);
+            return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("Failed to create virtual thread factory", ex);
+        }
+    }
+}
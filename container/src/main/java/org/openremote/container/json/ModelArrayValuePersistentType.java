@@ -21,7 +21,7 @@ package org.openremote.container.json;
 
 import org.hibernate.HibernateException;
 import org.openremote.model.value.ArrayValue;
-import org.openremote.model.value.Values;
+import org.openremote.model.value.ValueJsonCodec;
 
 import java.io.Serializable;
 
@@ -29,12 +29,12 @@ public class ModelArrayValuePersistentType extends PostgreSQLJsonType {
 
     @Override
     public Serializable disassemble(Object value) throws HibernateException {
-        return value == null ? null : ((ArrayValue) value).toJson();
+        return value == null ? null : ValueJsonCodec.write((ArrayValue) value);
     }
 
     @Override
     public ArrayValue assemble(Serializable cached, Object owner) throws HibernateException {
-        return cached == null ? null : Values.<ArrayValue>parse(cached.toString()).orElseThrow(() -> new HibernateException("Empty JSON data"));
+        return cached == null ? null : ValueJsonCodec.<ArrayValue>read(cached.toString()).orElseThrow(() -> new HibernateException("Empty JSON data"));
     }
 
     @Override
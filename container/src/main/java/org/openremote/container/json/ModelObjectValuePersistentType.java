@@ -21,7 +21,7 @@ package org.openremote.container.json;
 
 import org.hibernate.HibernateException;
 import org.openremote.model.value.ObjectValue;
-import org.openremote.model.value.Values;
+import org.openremote.model.value.ValueJsonCodec;
 
 import java.io.Serializable;
 
@@ -29,12 +29,12 @@ public class ModelObjectValuePersistentType extends PostgreSQLJsonType {
 
     @Override
     public Serializable disassemble(Object value) throws HibernateException {
-        return value == null ? null : ((ObjectValue) value).toJson();
+        return value == null ? null : ValueJsonCodec.write((ObjectValue) value);
     }
 
     @Override
     public ObjectValue assemble(Serializable cached, Object owner) throws HibernateException {
-        return cached == null ? null : Values.<ObjectValue>parse(cached.toString()).orElseThrow(() -> new HibernateException("Empty JSON data"));
+        return cached == null ? null : ValueJsonCodec.<ObjectValue>read(cached.toString()).orElseThrow(() -> new HibernateException("Empty JSON data"));
     }
 
     @Override
@@ -19,14 +19,16 @@
  */
 package org.openremote.container.json;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import org.jboss.resteasy.plugins.providers.ProviderHelper;
 import org.openremote.model.util.TextUtil;
 import org.openremote.model.value.Value;
-import org.openremote.model.value.Values;
+import org.openremote.model.value.ValueJsonCodec;
 
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
 import javax.ws.rs.ext.MessageBodyReader;
 import javax.ws.rs.ext.MessageBodyWriter;
 import javax.ws.rs.ext.Provider;
@@ -46,8 +48,17 @@ public class ModelValueMessageBodyConverter implements MessageBodyReader<Value>,
 
     @Override
     public Value readFrom(Class<Value> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException, WebApplicationException {
-        String str = ProviderHelper.readString(entityStream, mediaType);
-        return TextUtil.isNullOrEmpty(str) ? null : Values.parse(str).orElseThrow(() -> new IOException("Empty JSON data"));
+        String charset = mediaType.getParameters().get("charset");
+        if (charset != null && !charset.equalsIgnoreCase("UTF-8")) {
+            String str = ProviderHelper.readString(entityStream, mediaType);
+            return TextUtil.isNullOrEmpty(str) ? null : ValueJsonCodec.read(str).orElseThrow(() -> new IOException("Empty JSON data"));
+        }
+        // Stream the UTF-8 entity straight into the value model
+        try {
+            return ValueJsonCodec.read(entityStream).orElse(null);
+        } catch (JsonProcessingException e) {
+            throw new WebApplicationException(e, Response.Status.BAD_REQUEST);
+        }
     }
 
     @Override
@@ -62,9 +73,11 @@ public class ModelValueMessageBodyConverter implements MessageBodyReader<Value>,
 
     @Override
     public void writeTo(Value value, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException, WebApplicationException {
-        String str = value.toJson();
         String charset = mediaType.getParameters().get("charset");
-        if (charset == null) entityStream.write(str.getBytes("UTF-8"));
-        else entityStream.write(str.getBytes(charset));
+        if (charset == null || charset.equalsIgnoreCase("UTF-8")) {
+            ValueJsonCodec.write(value, entityStream);
+        } else {
+            entityStream.write(ValueJsonCodec.write(value).getBytes(charset));
+        }
     }
 }
@@ -21,7 +21,7 @@ package org.openremote.container.json;
 
 import org.hibernate.HibernateException;
 import org.openremote.model.value.Value;
-import org.openremote.model.value.Values;
+import org.openremote.model.value.ValueJsonCodec;
 
 import java.io.Serializable;
 
@@ -29,12 +29,12 @@ public class ModelValuePersistentType extends PostgreSQLJsonType {
 
     @Override
     public Serializable disassemble(Object value) throws HibernateException {
-        return value == null ? null : ((Value) value).toJson();
+        return value == null ? null : ValueJsonCodec.write((Value) value);
     }
 
     @Override
     public Value assemble(Serializable cached, Object owner) throws HibernateException {
-        return cached == null ? null : Values.parse(cached.toString()).orElseThrow(() -> new HibernateException("Empty JSON data"));
+        return cached == null ? null : ValueJsonCodec.read(cached.toString()).orElseThrow(() -> new HibernateException("Empty JSON data"));
     }
 
     @Override
@@ -19,8 +19,10 @@
  */
 package org.openremote.container.message;
 
+import org.apache.camel.Endpoint;
 import org.apache.camel.Processor;
 import org.apache.camel.ProducerTemplate;
+import org.apache.camel.component.seda.SedaEndpoint;
 import org.apache.camel.impl.DefaultStreamCachingStrategy;
 import org.apache.camel.spi.*;
 import org.apache.camel.util.StringHelper;
@@ -35,17 +37,35 @@ import org.openremote.container.web.DefaultWebsocketComponent;
 import org.openremote.container.web.WebService;
 import org.openremote.container.web.socket.WebsocketComponent;
 
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.logging.Logger;
 
+import static org.openremote.container.util.MapAccess.getBoolean;
+import static org.openremote.container.util.MapAccess.getInteger;
 import static org.openremote.container.util.MapAccess.getString;
 
 public class MessageBrokerService implements ContainerService {
 
     public static final String MESSAGE_SESSION_ALLOWED_ORIGIN = "MESSAGE_SESSION_ALLOWED_ORIGIN";
     public static final String MESSAGE_SESSION_ALLOWED_ORIGIN_DEFAULT = null;
+    /**
+     * Accept the websocket permessage-deflate extension when offered by a client (e.g. edge gateways), this trades
+     * CPU for fewer bytes on the wire.
+     */
+    public static final String MESSAGE_SESSION_PER_MESSAGE_DEFLATE = "MESSAGE_SESSION_PER_MESSAGE_DEFLATE";
+    public static final boolean MESSAGE_SESSION_PER_MESSAGE_DEFLATE_DEFAULT = false;
+    /**
+     * When a {@link MessageQueue} is full, block the producer until capacity is available instead of rejecting the
+     * message immediately; the message is rejected when the timeout expires.
+     */
+    public static final String MESSAGE_QUEUE_BACKPRESSURE = "MESSAGE_QUEUE_BACKPRESSURE";
+    public static final boolean MESSAGE_QUEUE_BACKPRESSURE_DEFAULT = false;
+    public static final String MESSAGE_QUEUE_BACKPRESSURE_TIMEOUT_MILLIS = "MESSAGE_QUEUE_BACKPRESSURE_TIMEOUT_MILLIS";
+    public static final int MESSAGE_QUEUE_BACKPRESSURE_TIMEOUT_MILLIS_DEFAULT = 5000;
     private static final Logger LOG = Logger.getLogger(MessageBrokerService.class.getName());
     public static final int PRIORITY = ContainerService.HIGH_PRIORITY;
 
@@ -63,13 +83,15 @@ public class MessageBrokerService implements ContainerService {
 
         context = new MessageBrokerContext();
 
+        // Consumers may block on the database or remote services, scheduled tasks always use platform threads
+        final boolean virtualThreads = container.isVirtualThreads();
         final ExecutorServiceManager executorServiceManager = context.getExecutorServiceManager();
         executorServiceManager.setThreadNamePattern("#counter# #name#");
         executorServiceManager.setThreadPoolFactory(new ThreadPoolFactory() {
             @Override
             public ExecutorService newCachedThreadPool(ThreadFactory threadFactory) {
                 // This is an unlimited pool used probably only be multicast aggregation
-                return new ContainerExecutor(getExecutorName("MessagingPool", threadFactory), 1, Integer.MAX_VALUE, 10, -1);
+                return new ContainerExecutor(getExecutorName("MessagingPool", threadFactory), 1, Integer.MAX_VALUE, 10, -1, virtualThreads);
             }
 
             @Override
@@ -80,7 +102,8 @@ public class MessageBrokerService implements ContainerService {
                     profile.getPoolSize(),
                     profile.getMaxPoolSize(),
                     profile.getKeepAliveTime(),
-                    profile.getMaxQueueSize()
+                    profile.getMaxQueueSize(),
+                    virtualThreads
                 );
             }
 
@@ -132,11 +155,17 @@ public class MessageBrokerService implements ContainerService {
 
         context.getRegistry().put(Container.class.getName(), container);
 
+        boolean backpressure = getBoolean(container.getConfig(), MESSAGE_QUEUE_BACKPRESSURE, MESSAGE_QUEUE_BACKPRESSURE_DEFAULT);
+        int backpressureTimeout = getInteger(container.getConfig(), MESSAGE_QUEUE_BACKPRESSURE_TIMEOUT_MILLIS, MESSAGE_QUEUE_BACKPRESSURE_TIMEOUT_MILLIS_DEFAULT);
+        context.getRegistry().put(MessageQueueFactory.NAME, new MessageQueueFactory(backpressure ? backpressureTimeout : 0));
+
         String allowedOrigin = getString(container.getConfig(), MESSAGE_SESSION_ALLOWED_ORIGIN, MESSAGE_SESSION_ALLOWED_ORIGIN_DEFAULT);
+        boolean perMessageDeflate = getBoolean(container.getConfig(), MESSAGE_SESSION_PER_MESSAGE_DEFLATE, MESSAGE_SESSION_PER_MESSAGE_DEFLATE_DEFAULT);
         WebsocketComponent websocketComponent = new DefaultWebsocketComponent(
             container.getService(IdentityService.class),
             container.getService(WebService.class),
-            allowedOrigin
+            allowedOrigin,
+            perMessageDeflate
         );
 
         context.addComponent(WebsocketComponent.NAME, websocketComponent);
@@ -147,6 +176,7 @@ public class MessageBrokerService implements ContainerService {
         producerTemplate = context.createProducerTemplate();
         LOG.info("Starting Camel message broker");
         context.start();
+        getMessageQueues().forEach((name, queue) -> queue.setName(name));
     }
 
     @Override
@@ -164,6 +194,22 @@ public class MessageBrokerService implements ContainerService {
         return producerTemplate;
     }
 
+    /**
+     * @return The {@link MessageQueue}s of all SEDA endpoints, by queue name.
+     */
+    public Map<String, MessageQueue> getMessageQueues() {
+        Map<String, MessageQueue> queues = new TreeMap<>();
+        for (Endpoint endpoint : context.getEndpoints()) {
+            if (endpoint instanceof SedaEndpoint && ((SedaEndpoint) endpoint).getQueue() instanceof MessageQueue) {
+                String name = endpoint.getEndpointUri();
+                name = name.contains("://") ? StringHelper.after(name, "://") : StringHelper.after(name, ":");
+                name = name.contains("?") ? StringHelper.before(name, "?") : name;
+                queues.put(name, (MessageQueue) ((SedaEndpoint) endpoint).getQueue());
+            }
+        }
+        return queues;
+    }
+
     @Override
     public String toString() {
         return getClass().getSimpleName() + "{" +
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2020, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.container.message;
+
+import org.apache.camel.Exchange;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * A bounded SEDA queue that records its depth, how long producers waited for capacity, how long messages waited
+ * before they were consumed and how many messages were rejected. When created with an offer timeout, a producer
+ * finding the queue full is blocked until capacity is available, so a flood of messages slows down the protocol or
+ * client connection producing them instead of being rejected; a message is only rejected when the timeout expires,
+ * which also stops producers and consumers of connected queues from waiting on each other forever.
+ */
+public class MessageQueue extends LinkedBlockingQueue<Exchange> {
+
+    private static final Logger LOG = Logger.getLogger(MessageQueue.class.getName());
+    public static final String ENQUEUED_NANOS = MessageQueue.class.getName() + ".ENQUEUED_NANOS";
+    public static long REJECTION_LOG_INTERVAL_MILLIS = 10000;
+
+    protected final long offerTimeoutMillis;
+    protected volatile String name = "seda";
+    protected final LongAdder offeredCount = new LongAdder();
+    protected final LongAdder blockedCount = new LongAdder();
+    protected final LongAdder rejectedCount = new LongAdder();
+    protected final LongAdder consumedCount = new LongAdder();
+    protected final LongAdder offerWaitNanos = new LongAdder();
+    protected final LongAdder queueWaitNanos = new LongAdder();
+    protected volatile long lastRejectionLog;
+
+    public MessageQueue(int capacity, long offerTimeoutMillis) {
+        super(capacity);
+        this.offerTimeoutMillis = offerTimeoutMillis;
+    }
+
+    /**
+     * Called by the SEDA producer, waits up to the offer timeout for capacity when the queue is full.
+     */
+    @Override
+    public boolean offer(Exchange exchange) {
+        exchange.setProperty(ENQUEUED_NANOS, System.nanoTime());
+        if (super.offer(exchange)) {
+            offeredCount.increment();
+            return true;
+        }
+
+        if (offerTimeoutMillis > 0) {
+            blockedCount.increment();
+            long start = System.nanoTime();
+            try {
+                exchange.setProperty(ENQUEUED_NANOS, start);
+                if (super.offer(exchange, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                    offeredCount.increment();
+                    return true;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                offerWaitNanos.add(System.nanoTime() - start);
+            }
+        }
+
+        onRejected();
+        return false;
+    }
+
+    @Override
+    public void put(Exchange exchange) throws InterruptedException {
+        exchange.setProperty(ENQUEUED_NANOS, System.nanoTime());
+        super.put(exchange);
+        offeredCount.increment();
+    }
+
+    @Override
+    public Exchange poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return onConsumed(super.poll(timeout, unit));
+    }
+
+    @Override
+    public Exchange poll() {
+        return onConsumed(super.poll());
+    }
+
+    @Override
+    public Exchange take() throws InterruptedException {
+        return onConsumed(super.take());
+    }
+
+    protected Exchange onConsumed(Exchange exchange) {
+        if (exchange != null) {
+            Long enqueued = exchange.getProperty(ENQUEUED_NANOS, Long.class);
+            if (enqueued != null) {
+                queueWaitNanos.add(System.nanoTime() - enqueued);
+            }
+            consumedCount.increment();
+        }
+        return exchange;
+    }
+
+    protected void onRejected() {
+        rejectedCount.increment();
+        long now = System.currentTimeMillis();
+        if (now - lastRejectionLog >= REJECTION_LOG_INTERVAL_MILLIS) {
+            lastRejectionLog = now;
+            LOG.warning("Message queue is full, rejecting messages: " + this);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getOfferTimeoutMillis() {
+        return offerTimeoutMillis;
+    }
+
+    public long getOfferedCount() {
+        return offeredCount.sum();
+    }
+
+    /**
+     * @return How many times a producer found the queue full and had to wait for capacity.
+     */
+    public long getBlockedCount() {
+        return blockedCount.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public long getConsumedCount() {
+        return consumedCount.sum();
+    }
+
+    /**
+     * @return The total time producers waited for capacity.
+     */
+    public long getOfferWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(offerWaitNanos.sum());
+    }
+
+    /**
+     * @return The total time consumed messages spent in the queue.
+     */
+    public long getQueueWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(queueWaitNanos.sum());
+    }
+
+    /**
+     * Don't print the queued messages.
+     */
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+            "name='" + name + '\'' +
+            ", size=" + size() +
+            ", remainingCapacity=" + remainingCapacity() +
+            ", offerTimeoutMillis=" + offerTimeoutMillis +
+            ", offered=" + getOfferedCount() +
+            ", blocked=" + getBlockedCount() +
+            ", rejected=" + getRejectedCount() +
+            ", consumed=" + getConsumedCount() +
+            ", offerWaitMillis=" + getOfferWaitMillis() +
+            ", queueWaitMillis=" + getQueueWaitMillis() +
+            '}';
+    }
+}
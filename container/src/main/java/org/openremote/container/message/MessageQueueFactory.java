@@ -0,0 +1,58 @@
+/*
+ * Copyright 2020, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.container.message;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.component.seda.BlockingQueueFactory;
+
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Creates the {@link MessageQueue}s of SEDA endpoints that reference this factory with
+ * <code>queueFactory=#{@value #NAME}</code> in their URI.
+ */
+public class MessageQueueFactory implements BlockingQueueFactory<Exchange> {
+
+    public static final String NAME = "messageQueueFactory";
+    public static final int DEFAULT_CAPACITY = 1000; // Same as the SEDA default
+
+    protected final long offerTimeoutMillis;
+
+    public MessageQueueFactory(long offerTimeoutMillis) {
+        this.offerTimeoutMillis = offerTimeoutMillis;
+    }
+
+    @Override
+    public BlockingQueue<Exchange> create() {
+        return create(DEFAULT_CAPACITY);
+    }
+
+    @Override
+    public BlockingQueue<Exchange> create(int capacity) {
+        return new MessageQueue(capacity, offerTimeoutMillis);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+            "offerTimeoutMillis=" + offerTimeoutMillis +
+            '}';
+    }
+}
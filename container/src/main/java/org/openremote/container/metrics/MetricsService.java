@@ -0,0 +1,226 @@
+/*
+ * Copyright 2020, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.container.metrics;
+
+import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.binder.jvm.ClassLoaderMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmGcMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmMemoryMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmThreadMetrics;
+import io.micrometer.core.instrument.binder.system.ProcessorMetrics;
+import io.micrometer.core.instrument.binder.system.UptimeMetrics;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openremote.container.Container;
+import org.openremote.container.ContainerService;
+import org.openremote.container.message.MessageBrokerService;
+import org.openremote.container.message.MessageQueue;
+import org.openremote.model.system.HealthStatusProvider;
+import org.openremote.model.value.ObjectValue;
+import org.openremote.model.value.Value;
+import org.openremote.model.value.Values;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.openremote.container.util.MapAccess.getBoolean;
+
+/**
+ * Collects the metrics of the event pipeline stages and the health status providers in a Prometheus registry, see
+ * {@link #scrape}. Stages record their metrics with {@link #timer} and {@link #counter}, which register meters on the
+ * global {@link Metrics} registry; these meters are no-ops until this service adds its registry, so code that runs
+ * without this service (e.g. protocols in tests) doesn't need to check for it.
+ */
+public class MetricsService implements ContainerService {
+
+    private static final Logger LOG = Logger.getLogger(MetricsService.class.getName());
+    public static final int PRIORITY = ContainerService.DEFAULT_PRIORITY;
+    public static final String METRICS_ENABLED = "METRICS_ENABLED";
+    public static final boolean METRICS_ENABLED_DEFAULT = true;
+    public static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    protected PrometheusMeterRegistry registry;
+    protected final List<HealthStatusProvider> healthStatusProviders = new CopyOnWriteArrayList<>();
+    protected final Map<String, Double> healthStatusValues = new ConcurrentHashMap<>();
+
+    /**
+     * @return A timer recording a latency histogram, tags are key/value pairs.
+     */
+    public static Timer timer(String name, String description, String... tags) {
+        return Timer.builder(name)
+            .description(description)
+            .tags(tags)
+            .publishPercentileHistogram()
+            .minimumExpectedValue(Duration.ofNanos(100000))
+            .maximumExpectedValue(Duration.ofSeconds(30))
+            .register(Metrics.globalRegistry);
+    }
+
+    /**
+     * @return A counter, tags are key/value pairs.
+     */
+    public static Counter counter(String name, String description, String... tags) {
+        return Counter.builder(name)
+            .description(description)
+            .tags(tags)
+            .register(Metrics.globalRegistry);
+    }
+
+    @Override
+    public int getPriority() {
+        return PRIORITY;
+    }
+
+    @Override
+    public void init(Container container) throws Exception {
+        if (!getBoolean(container.getConfig(), METRICS_ENABLED, METRICS_ENABLED_DEFAULT)) {
+            LOG.info("Metrics are disabled");
+            return;
+        }
+
+        registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        new ClassLoaderMetrics().bindTo(registry);
+        new JvmMemoryMetrics().bindTo(registry);
+        new JvmGcMetrics().bindTo(registry);
+        new JvmThreadMetrics().bindTo(registry);
+        new ProcessorMetrics().bindTo(registry);
+        new UptimeMetrics().bindTo(registry);
+        Metrics.addRegistry(registry);
+    }
+
+    @Override
+    public void start(Container container) throws Exception {
+        if (registry == null || !container.hasService(MessageBrokerService.class)) {
+            return;
+        }
+
+        // The SEDA queues exist once the message broker has started
+        container.getService(MessageBrokerService.class).getMessageQueues().forEach(this::bindMessageQueue);
+    }
+
+    @Override
+    public void stop(Container container) throws Exception {
+        if (registry != null) {
+            Metrics.removeRegistry(registry);
+            registry.close();
+            registry = null;
+        }
+        healthStatusProviders.clear();
+        healthStatusValues.clear();
+    }
+
+    public boolean isEnabled() {
+        return registry != null;
+    }
+
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * The numeric and boolean values of the provider's health status are exported as gauges, they are refreshed when
+     * the metrics are scraped.
+     */
+    public void addHealthStatusProvider(HealthStatusProvider healthStatusProvider) {
+        healthStatusProviders.add(healthStatusProvider);
+    }
+
+    /**
+     * @return All metrics in the Prometheus text format, see {@link #PROMETHEUS_CONTENT_TYPE}.
+     */
+    public String scrape() {
+        if (registry == null) {
+            return "";
+        }
+        refreshHealthStatus();
+        return registry.scrape();
+    }
+
+    protected void bindMessageQueue(String name, MessageQueue queue) {
+        Tags tags = Tags.of("queue", name);
+        Gauge.builder("or.queue.size", queue, MessageQueue::size)
+            .description("Messages waiting in the queue").tags(tags).register(registry);
+        Gauge.builder("or.queue.remaining.capacity", queue, MessageQueue::remainingCapacity)
+            .description("Messages the queue can accept before it is full").tags(tags).register(registry);
+        FunctionCounter.builder("or.queue.offered", queue, MessageQueue::getOfferedCount)
+            .description("Messages added to the queue").tags(tags).register(registry);
+        FunctionCounter.builder("or.queue.rejected", queue, MessageQueue::getRejectedCount)
+            .description("Messages rejected because the queue was full").tags(tags).register(registry);
+        FunctionTimer.builder("or.queue.offer.wait", queue, MessageQueue::getBlockedCount, MessageQueue::getOfferWaitMillis, TimeUnit.MILLISECONDS)
+            .description("Time producers waited for capacity").tags(tags).register(registry);
+        FunctionTimer.builder("or.queue.wait", queue, MessageQueue::getConsumedCount, MessageQueue::getQueueWaitMillis, TimeUnit.MILLISECONDS)
+            .description("Time consumed messages spent in the queue").tags(tags).register(registry);
+    }
+
+    protected void refreshHealthStatus() {
+        for (HealthStatusProvider healthStatusProvider : healthStatusProviders) {
+            try {
+                refreshHealthStatus(healthStatusProvider.getHealthStatusName(), healthStatusProvider.getHealthStatus());
+            } catch (Exception e) {
+                LOG.log(Level.FINE, "Failed to get health status of: " + healthStatusProvider.getHealthStatusName(), e);
+            }
+        }
+    }
+
+    protected void refreshHealthStatus(String name, Value value) {
+        if (value == null) {
+            return;
+        }
+
+        Double number = null;
+        switch (value.getType()) {
+            case OBJECT:
+                ObjectValue objectValue = (ObjectValue) value;
+                for (String key : objectValue.keys()) {
+                    objectValue.get(key).ifPresent(v -> refreshHealthStatus(name + "." + key, v));
+                }
+                return;
+            case NUMBER:
+                number = Values.getNumber(value).orElse(null);
+                break;
+            case BOOLEAN:
+                number = Values.getBoolean(value).map(b -> b ? 1d : 0d).orElse(null);
+                break;
+        }
+
+        if (number == null) {
+            return;
+        }
+
+        if (healthStatusValues.put(name, number) == null) {
+            Gauge.builder("or.health." + name, healthStatusValues, values -> values.getOrDefault(name, Double.NaN))
+                .description("Health status value reported by a health status provider")
+                .register(registry);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+            "enabled=" + isEnabled() +
+            '}';
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2020, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.container.timer;
+
+import java.util.function.Consumer;
+
+/**
+ * A hashed timing wheel that holds items until their deadline. Adding and cancelling an item is O(1) and
+ * {@link #advance} only visits the slots of the ticks that have passed, so expiring items costs O(expired) plus the
+ * items that share those slots but are due in a later revolution of the wheel.
+ * <p>
+ * The wheel has no thread or clock of its own; the owner calls {@link #advance} with the current time of whatever
+ * clock the deadlines are based on, which allows the wheel to be used with the pseudo clock of the
+ * {@link TimerService}. If the time jumps by more than a revolution then every slot is visited once.
+ */
+public class TimingWheel<T> {
+
+    /**
+     * An item in the wheel, can be used to cancel it.
+     */
+    public class Timeout {
+        protected final T item;
+        protected final long deadline;
+        protected final long tick;
+        protected Timeout previous;
+        protected Timeout next;
+        protected boolean queued;
+
+        protected Timeout(T item, long deadline, long tick) {
+            this.item = item;
+            this.deadline = deadline;
+            this.tick = tick;
+        }
+
+        public T getItem() {
+            return item;
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+
+        /**
+         * @return <code>true</code> if the item was removed from the wheel before it expired.
+         */
+        public boolean cancel() {
+            synchronized (TimingWheel.this) {
+                if (!queued) {
+                    return false;
+                }
+                unlink(this);
+                return true;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return getClass().getSimpleName() + "{" +
+                "item=" + item +
+                ", deadline=" + deadline +
+                '}';
+        }
+    }
+
+    protected final long tickMillis;
+    protected final Timeout[] slots;
+    protected final int mask;
+    protected long currentTick;
+    protected int size;
+
+    /**
+     * @param tickMillis Resolution of the wheel, items expire on the first {@link #advance} at or after their
+     *                   deadline rounded up to a whole tick.
+     * @param slotCount  Number of slots, rounded up to a power of two; should cover the usual deadlines in one
+     *                   revolution.
+     * @param now        The current time.
+     */
+    public TimingWheel(long tickMillis, int slotCount, long now) {
+        if (tickMillis <= 0 || slotCount <= 0) {
+            throw new IllegalArgumentException("Tick duration and slot count must be positive");
+        }
+        int normalizedSlotCount = Integer.highestOneBit(slotCount);
+        if (normalizedSlotCount < slotCount) {
+            normalizedSlotCount <<= 1;
+        }
+        this.tickMillis = tickMillis;
+        @SuppressWarnings("unchecked")
+        Timeout[] slots = (Timeout[]) java.lang.reflect.Array.newInstance(Timeout.class, normalizedSlotCount);
+        this.slots = slots;
+        this.mask = normalizedSlotCount - 1;
+        this.currentTick = toTick(now);
+    }
+
+    /**
+     * Adds an item that expires at the deadline; a deadline that has already passed expires on the next
+     * {@link #advance}.
+     */
+    public synchronized Timeout add(T item, long deadline) {
+        long tick = Math.floorDiv(deadline, tickMillis) + (Math.floorMod(deadline, tickMillis) > 0 ? 1 : 0);
+        Timeout timeout = new Timeout(item, deadline, Math.max(tick, currentTick + 1));
+        int slot = (int) (timeout.tick & mask);
+        timeout.next = slots[slot];
+        if (timeout.next != null) {
+            timeout.next.previous = timeout;
+        }
+        slots[slot] = timeout;
+        timeout.queued = true;
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Removes all items whose deadline has passed (rounded up to a whole tick) and passes them to the consumer, in no
+     * particular order. The consumer is called whilst holding the lock of the wheel.
+     */
+    public synchronized void advance(long now, Consumer<Timeout> expiredConsumer) {
+        long tick = toTick(now);
+
+        if (tick <= currentTick) {
+            return;
+        }
+
+        long ticks = Math.min(tick - currentTick, slots.length);
+
+        for (long i = 1; i <= ticks; i++) {
+            Timeout timeout = slots[(int) ((currentTick + i) & mask)];
+
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.tick <= tick) {
+                    unlink(timeout);
+                    expiredConsumer.accept(timeout);
+                }
+                timeout = next;
+            }
+        }
+
+        currentTick = tick;
+    }
+
+    /**
+     * @return The earliest time at which {@link #advance} will expire an item (the deadline of the item rounded up to
+     * a whole tick) or {@link Long#MAX_VALUE} if the wheel is empty; use this to schedule the next call of
+     * {@link #advance}.
+     */
+    public synchronized long getNextExpiryTime() {
+        long nextTick = Long.MAX_VALUE;
+
+        if (size == 0) {
+            return nextTick;
+        }
+
+        for (int i = 1; i <= slots.length; i++) {
+            long tick = currentTick + i;
+
+            for (Timeout timeout = slots[(int) (tick & mask)]; timeout != null; timeout = timeout.next) {
+                nextTick = Math.min(nextTick, timeout.tick);
+            }
+
+            // Items in later slots are due after this tick
+            if (nextTick == tick) {
+                break;
+            }
+        }
+
+        return nextTick > Long.MAX_VALUE / tickMillis ? Long.MAX_VALUE : nextTick * tickMillis;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    protected long toTick(long time) {
+        return Math.floorDiv(time, tickMillis);
+    }
+
+    protected void unlink(Timeout timeout) {
+        if (timeout.previous != null) {
+            timeout.previous.next = timeout.next;
+        } else {
+            slots[(int) (timeout.tick & mask)] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.previous = timeout.previous;
+        }
+        timeout.previous = null;
+        timeout.next = null;
+        timeout.queued = false;
+        size--;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return getClass().getSimpleName() + "{" +
+            "tickMillis=" + tickMillis +
+            ", slots=" + slots.length +
+            ", size=" + size +
+            '}';
+    }
+}
@@ -27,6 +27,7 @@ import io.undertow.servlet.api.SecurityInfo;
 import io.undertow.servlet.api.WebResourceCollection;
 import io.undertow.websockets.jsr.DefaultContainerConfigurator;
 import io.undertow.websockets.jsr.UndertowContainerProvider;
+import io.undertow.websockets.extensions.PerMessageDeflateHandshake;
 import io.undertow.websockets.jsr.WebSocketDeploymentInfo;
 import org.keycloak.KeycloakPrincipal;
 import org.openremote.container.security.AuthContext;
@@ -62,13 +63,19 @@ public class DefaultWebsocketComponent extends WebsocketComponent {
     final protected IdentityService identityService;
     final protected WebService webService;
     final protected String allowedOrigin;
+    final protected boolean perMessageDeflate;
     protected DeploymentInfo deploymentInfo;
     protected WebService.RequestHandler websocketHttpHandler;
 
     public DefaultWebsocketComponent(IdentityService identityService, WebService webService, String allowedOrigin) {
+        this(identityService, webService, allowedOrigin, false);
+    }
+
+    public DefaultWebsocketComponent(IdentityService identityService, WebService webService, String allowedOrigin, boolean perMessageDeflate) {
         this.identityService = identityService;
         this.webService = webService;
         this.allowedOrigin = allowedOrigin;
+        this.perMessageDeflate = perMessageDeflate;
     }
 
     @Override
@@ -125,6 +132,12 @@ public class DefaultWebsocketComponent extends WebsocketComponent {
         // pool for websocket frame processing
         webSocketDeploymentInfo.setDispatchToWorkerThread(false);
 
+        // Only used when the client also offers the extension in its handshake
+        if (perMessageDeflate) {
+            LOG.info("Enabling websocket permessage-deflate extension");
+            webSocketDeploymentInfo.addExtension(new PerMessageDeflateHandshake(false));
+        }
+
         // Make the shit Undertow/Websocket JSR client bootstrap happy - this is the pool that would be used
         // when Undertow acts as a WebSocket client, which we don't do... and I'm not even sure it can do that...
         webSocketDeploymentInfo.setWorker(Xnio.getInstance().createWorker(
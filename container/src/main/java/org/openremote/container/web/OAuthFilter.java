@@ -32,6 +32,7 @@ import java.io.IOException;
 import java.net.SocketException;
 import java.time.LocalDateTime;
 import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 
 import static org.openremote.model.syslog.SyslogCategory.PROTOCOL;
@@ -46,6 +47,8 @@ public class OAuthFilter implements ClientRequestFilter {
     protected OAuthServerResponse authServerResponse;
     protected WebTarget authTarget;
     protected OAuthGrant oAuthGrant;
+    // Not synchronized as the token request would pin the carrier of a virtual thread
+    protected final ReentrantLock lock = new ReentrantLock();
 
     public OAuthFilter(WebTarget authTarget, OAuthGrant oAuthGrant) {
         Objects.requireNonNull(authTarget);
@@ -64,18 +67,26 @@ public class OAuthFilter implements ClientRequestFilter {
         return null;
     }
 
-    public synchronized String getAccessToken() throws SocketException {
-        LocalDateTime expiryDateTime = authServerResponse == null ? null : authServerResponse.getExpiryDateTime();
-        boolean updateRequired = expiryDateTime == null || expiryDateTime.minusSeconds(10).isBefore(LocalDateTime.now());
+    public String getAccessToken() throws SocketException {
+        lock.lock();
+        try {
+            LocalDateTime expiryDateTime = authServerResponse == null ? null : authServerResponse.getExpiryDateTime();
+            boolean updateRequired = expiryDateTime == null || expiryDateTime.minusSeconds(10).isBefore(LocalDateTime.now());
 
-        if (updateRequired) {
-            updateToken();
-        }
+            if (updateRequired) {
+                updateToken();
+            }
 
-        return authServerResponse != null ? authServerResponse.accessToken : null;
+            return authServerResponse != null ? authServerResponse.accessToken : null;
+        } finally {
+            lock.unlock();
+        }
     }
 
-    protected synchronized void updateToken() throws SocketException {
+    /**
+     * Must be called whilst holding the {@link #lock}.
+     */
+    protected void updateToken() throws SocketException {
         LOG.fine("Updating OAuth token");
         Response response = null;
 
@@ -31,6 +31,7 @@ import io.undertow.servlet.util.ImmediateInstanceHandle;
 import org.jboss.resteasy.spi.ResteasyDeployment;
 import org.openremote.container.Container;
 import org.openremote.container.ContainerService;
+import org.openremote.container.concurrent.ContainerExecutor;
 import org.openremote.container.json.JacksonConfig;
 import org.openremote.container.json.ModelValueMessageBodyConverter;
 import org.openremote.container.security.CORSFilter;
@@ -45,6 +46,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Predicate;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -99,6 +101,7 @@ public abstract class WebService implements ContainerService {
     protected List<RequestHandler> httpHandlers = new ArrayList<>();
     protected URI containerHostUri;
     protected FilterInfo corsFilterInfo;
+    protected ExecutorService servletExecutor;
 
     protected static String getLocalIpAddress() throws Exception {
         return Inet4Address.getLocalHost().getHostAddress();
@@ -119,6 +122,11 @@ public abstract class WebService implements ContainerService {
 
         createCorsFilter(container);
 
+        if (container.isVirtualThreads()) {
+            // Servlet requests may block on the database or identity provider, handle each on its own virtual thread
+            servletExecutor = ContainerExecutor.newVirtualThreadPerTaskExecutor("WebService");
+        }
+
         containerHostUri =
                 UriBuilder.fromPath("/")
                         .scheme("http")
@@ -150,6 +158,10 @@ public abstract class WebService implements ContainerService {
             undertow.stop();
             undertow = null;
         }
+        if (servletExecutor != null) {
+            servletExecutor.shutdownNow();
+            servletExecutor = null;
+        }
     }
 
     /**
@@ -174,6 +186,11 @@ public abstract class WebService implements ContainerService {
             // This will catch anything not handled by Resteasy/Servlets, such as IOExceptions "at the wrong time"
             deploymentInfo.setExceptionHandler(new WebServiceExceptions.ServletUndertowExceptionHandler(devMode));
 
+            if (servletExecutor != null) {
+                deploymentInfo.setExecutor(servletExecutor);
+                deploymentInfo.setAsyncExecutor(servletExecutor);
+            }
+
             // Add CORS filter that works for any servlet deployment
             if (corsFilterInfo != null) {
                 deploymentInfo.addFilter(corsFilterInfo);
@@ -24,6 +24,7 @@ import org.apache.http.client.config.CookieSpecs;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.jboss.resteasy.client.jaxrs.BasicAuthentication;
+import org.jboss.resteasy.client.jaxrs.ClientHttpEngine;
 import org.jboss.resteasy.client.jaxrs.ResteasyClient;
 import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
 import org.jboss.resteasy.client.jaxrs.ResteasyWebTarget;
@@ -180,6 +181,13 @@ public class WebTargetBuilder {
     }
 
     public static ResteasyClient createClient(ExecutorService executorService, int connectionPoolSize, long overrideSocketTimeout, UnaryOperator<ResteasyClientBuilder> builderConfigurator) {
+        return createClient(executorService, connectionPoolSize, overrideSocketTimeout, builderConfigurator, null);
+    }
+
+    /**
+     * @param engineConfigurator Can wrap or replace the {@link ClientHttpEngine} that sends the requests.
+     */
+    public static ResteasyClient createClient(ExecutorService executorService, int connectionPoolSize, long overrideSocketTimeout, UnaryOperator<ResteasyClientBuilder> builderConfigurator, UnaryOperator<ClientHttpEngine> engineConfigurator) {
         //Create all of this config code in order to deal with expires cookies in responses
         RequestConfig requestConfig = RequestConfig.custom()
             .setCookieSpec(CookieSpecs.STANDARD)
@@ -190,7 +198,11 @@ public class WebTargetBuilder {
         HttpClient apacheClient = HttpClientBuilder.create()
             .setDefaultRequestConfig(requestConfig)
             .build();
-        ApacheHttpClient43Engine engine = new ApacheHttpClient43Engine(apacheClient);
+        ClientHttpEngine engine = new ApacheHttpClient43Engine(apacheClient);
+
+        if (engineConfigurator != null) {
+            engine = engineConfigurator.apply(engine);
+        }
 
         ResteasyClientBuilder clientBuilder = new ResteasyClientBuilder()
             .httpEngine(engine)
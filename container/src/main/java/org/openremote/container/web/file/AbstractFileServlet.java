@@ -34,6 +34,8 @@ import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
 
+import io.undertow.servlet.spec.ServletOutputStreamImpl;
+
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 import javax.servlet.ServletOutputStream;
@@ -101,6 +103,7 @@ import javax.servlet.http.HttpServletResponse;
  * <li>{@link #handleFileNotFound(HttpServletRequest, HttpServletResponse)}
  * <li>{@link #getExpireTime(HttpServletRequest, File)}
  * <li>{@link #getContentType(HttpServletRequest, File)}
+ * <li>{@link #getEncodedResource(HttpServletRequest, Resource)}
  * </ul>
  *
  * <p><strong>See also</strong>:
@@ -122,6 +125,7 @@ public abstract class AbstractFileServlet extends HttpServlet {
 	private static final Long DEFAULT_EXPIRE_TIME_IN_SECONDS = TimeUnit.DAYS.toSeconds(30);
 	private static final long ONE_SECOND_IN_MILLIS = SECONDS.toMillis(1);
 	private static final String ETAG = "W/\"%s-%s\"";
+	private static final String ETAG_ENCODED = "W/\"%s-%s-%s\"";
 	private static final Pattern RANGE_PATTERN = Pattern.compile("^bytes=[0-9]*-[0-9]*(,[0-9]*-[0-9]*)*$");
 	private static final String MULTIPART_BOUNDARY = UUID.randomUUID().toString();
 
@@ -160,6 +164,18 @@ public abstract class AbstractFileServlet extends HttpServlet {
 			return;
 		}
 
+		if (request.getHeader("Range") == null) {
+			resource = getEncodedResource(request, resource);
+		}
+
+		try {
+			serveResource(request, response, resource, head);
+		} finally {
+			resource.release();
+		}
+	}
+
+	private void serveResource(HttpServletRequest request, HttpServletResponse response, Resource resource, boolean head) throws IOException {
 		if (preconditionFailed(request, resource)) {
 			response.sendError(HttpServletResponse.SC_PRECONDITION_FAILED);
 			return;
@@ -208,6 +224,19 @@ public abstract class AbstractFileServlet extends HttpServlet {
 	 */
 	protected abstract File getFile(HttpServletRequest request) throws IllegalArgumentException, RedirectException;
 
+	/**
+	 * Returns the resource to serve for the given request, e.g. a compressed variant of the given resource that the
+	 * client accepts. This is not called for range requests, ranges always apply to the identity content.
+	 * <p>
+	 * The default implementation returns the given resource.
+	 * @param request The involved HTTP servlet request.
+	 * @param resource The resource of the requested file.
+	 * @return The resource to serve.
+	 */
+	protected Resource getEncodedResource(HttpServletRequest request, Resource resource) {
+		return resource;
+	}
+
 	/**
 	 * Handles the case when the file is not found.
 	 * <p>
@@ -347,6 +376,10 @@ public abstract class AbstractFileServlet extends HttpServlet {
 		String contentType = getContentType(request, resource.file);
 		response.setHeader("Accept-Ranges", "bytes");
 
+		if (resource.encoding != null) {
+			response.setHeader("Content-Encoding", resource.encoding);
+		}
+
 		if (ranges.size() == 1) {
 			Range range = ranges.get(0);
 			response.setContentType(contentType);
@@ -371,7 +404,7 @@ public abstract class AbstractFileServlet extends HttpServlet {
 
 		if (ranges.size() == 1) {
 			Range range = ranges.get(0);
-			stream(resource.file, output, range.start, range.length);
+			stream(resource.content, output, range.start, range.length);
 		}
 		else {
 			for (Range range : ranges) {
@@ -379,7 +412,7 @@ public abstract class AbstractFileServlet extends HttpServlet {
 				output.println("--" + MULTIPART_BOUNDARY);
 				output.println("Content-Type: " + contentType);
 				output.println("Content-Range: bytes " + range.start + "-" + range.end + "/" + resource.length);
-				stream(resource.file, output, range.start, range.length);
+				stream(resource.content, output, range.start, range.length);
 			}
 
 			output.println();
@@ -433,25 +466,67 @@ public abstract class AbstractFileServlet extends HttpServlet {
 	 */
 	public static class Resource {
 		private final File file;
+		private final File content;
+		private final String encoding;
 		private final long length;
 		private final long lastModified;
 		private final String eTag;
+		private final Runnable releaseRunnable;
 
 		public Resource(File file) {
 			if (file != null && file.isFile()) {
 				this.file = file;
+				content = file;
 				length = file.length();
 				lastModified = file.lastModified();
 				eTag = format(ETAG, encodeURL(file.getName()), lastModified);
 			}
 			else {
 				this.file = null;
+				content = null;
 				length = 0;
 				lastModified = 0;
 				eTag = null;
 			}
+			encoding = null;
+			releaseRunnable = null;
+		}
+
+		/**
+		 * A variant of the given resource with its content encoded (e.g. compressed) in the given content file, the
+		 * variant has its own ETag as its content differs from the identity content.
+		 */
+		public Resource(Resource resource, File content, String encoding) {
+			this(resource, content, encoding, null);
+		}
+
+		/**
+		 * A variant as above whose content file must not be deleted until the request has been served, the given
+		 * runnable is called once it has been served.
+		 */
+		public Resource(Resource resource, File content, String encoding, Runnable releaseRunnable) {
+			file = resource.file;
+			this.content = content;
+			this.encoding = encoding;
+			this.releaseRunnable = releaseRunnable;
+			length = content.length();
+			lastModified = resource.lastModified;
+			eTag = format(ETAG_ENCODED, encodeURL(file.getName()), lastModified, encoding);
+		}
+
+		public File getFile() {
+			return file;
 		}
 
+		public String getEncoding() {
+			return encoding;
+		}
+
+		public void release() {
+			if (releaseRunnable != null) {
+				releaseRunnable.run();
+			}
+		}
 	}
 
 	/**
@@ -606,6 +681,16 @@ public abstract class AbstractFileServlet extends HttpServlet {
      */
     public static long stream(File file, OutputStream output, long start, long length) throws IOException {
         if (start == 0 && length >= file.length()) {
+            // Let Undertow transfer the whole file to the connection, this uses sendfile where available
+            if (output instanceof ServletOutputStreamImpl) {
+                try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                    long size = fileChannel.size();
+                    ((ServletOutputStreamImpl) output).transferFrom(fileChannel);
+                    return size;
+                } finally {
+                    output.close();
+                }
+            }
             return stream(new FileInputStream(file), output);
         }
 
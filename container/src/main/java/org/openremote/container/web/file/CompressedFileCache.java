@@ -0,0 +1,411 @@
+/*
+ * Copyright 2020, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.container.web.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Provides compressed variants of static files so they don't have to be compressed on every request. A variant is
+ * either a pre-compressed sibling produced by the build (e.g. <code>app.js.br</code> or <code>app.js.gz</code>, used
+ * when it is not older than the file itself) or a GZIP variant compressed on first access and kept in a directory
+ * that is bounded to {@link #maxSize} bytes, least recently used variants are deleted first. Variants are keyed on
+ * the file path, size and modification time so a redeployed file gets a new variant. A compressed variant is pinned
+ * whilst it is served so it is only deleted once released, even if it is evicted in the meantime.
+ */
+public class CompressedFileCache {
+
+    private static final Logger LOG = Logger.getLogger(CompressedFileCache.class.getName());
+    public static final String ENCODING_BROTLI = "br";
+    public static final String ENCODING_GZIP = "gzip";
+    public static int MIN_FILE_SIZE = 1024; // Smaller files don't gain enough to be worth a variant
+    protected static final String LOCK_FILE_NAME = ".lock";
+
+    /**
+     * A compressed variant of a file and its content encoding; must be released once it has been served.
+     */
+    public static class Variant {
+        public final File file;
+        public final String encoding;
+        protected Runnable releaseRunnable;
+
+        public Variant(File file, String encoding) {
+            this(file, encoding, null);
+        }
+
+        protected Variant(File file, String encoding, Runnable releaseRunnable) {
+            this.file = file;
+            this.encoding = encoding;
+            this.releaseRunnable = releaseRunnable;
+        }
+
+        /**
+         * Allows the variant to be deleted again, only the first call has an effect.
+         */
+        public void release() {
+            Runnable runnable = releaseRunnable;
+            releaseRunnable = null;
+            if (runnable != null) {
+                runnable.run();
+            }
+        }
+    }
+
+    protected static class Entry {
+        // Compression is file I/O, synchronized would pin the carrier of a virtual thread
+        protected final ReentrantLock lock = new ReentrantLock();
+        protected final File file;
+        protected boolean done;
+        protected boolean compressed;
+        protected long size;
+        // Guarded by the entries map
+        protected int pins;
+        protected boolean evicted;
+
+        protected Entry(File file) {
+            this.file = file;
+        }
+    }
+
+    protected final Path directory;
+    protected final long maxSize;
+    protected final Set<String> mimeTypes;
+    protected final Map<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    protected long size;
+    protected FileChannel lockChannel;
+
+    public CompressedFileCache(Path directory, long maxSize, String[] mimeTypes) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        this.mimeTypes = new HashSet<>(Arrays.asList(mimeTypes));
+    }
+
+    /**
+     * Creates a cache in a new temporary directory starting with the prefix; the directory is locked whilst the cache
+     * is open so directories with the same prefix that are left over from a process that didn't close its cache (e.g.
+     * it was killed) are deleted.
+     */
+    public static CompressedFileCache createTemporary(String prefix, long maxSize, String[] mimeTypes) throws IOException {
+        deleteStaleDirectories(Paths.get(System.getProperty("java.io.tmpdir")), prefix);
+        CompressedFileCache cache = new CompressedFileCache(Files.createTempDirectory(prefix), maxSize, mimeTypes);
+        cache.lockChannel = FileChannel.open(cache.directory.resolve(LOCK_FILE_NAME), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        cache.lockChannel.lock();
+        return cache;
+    }
+
+    /**
+     * @return The best compressed variant of the file accepted by the client, or <code>null</code> if the file should
+     * be served as is.
+     */
+    public Variant getVariant(File file, String contentType, String acceptEncoding) {
+        if (acceptEncoding == null || file.length() < MIN_FILE_SIZE) {
+            return null;
+        }
+
+        boolean acceptsBrotli = accepts(acceptEncoding, ENCODING_BROTLI);
+        boolean acceptsGzip = accepts(acceptEncoding, ENCODING_GZIP);
+
+        if (acceptsBrotli) {
+            File sibling = getPrecompressed(file, ".br");
+            if (sibling != null) {
+                return new Variant(sibling, ENCODING_BROTLI);
+            }
+        }
+
+        if (!acceptsGzip) {
+            return null;
+        }
+
+        File sibling = getPrecompressed(file, ".gz");
+        if (sibling != null) {
+            return new Variant(sibling, ENCODING_GZIP);
+        }
+
+        if (contentType == null || !mimeTypes.contains(contentType.split(";", 2)[0]) || file.length() > maxSize) {
+            return null;
+        }
+
+        try {
+            return getCompressed(file);
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Failed to compress file, serving it uncompressed: " + file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Deletes all variants compressed by this cache, variants that are being served are deleted once released;
+     * pre-compressed siblings are not touched.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.values().forEach(this::evictEntry);
+            entries.clear();
+            size = 0;
+        }
+    }
+
+    /**
+     * Clears the cache and deletes its directory if it was created with {@link #createTemporary}.
+     */
+    public void close() {
+        clear();
+
+        if (lockChannel == null) {
+            return;
+        }
+
+        try {
+            lockChannel.close();
+            lockChannel = null;
+            deleteDirectory(directory);
+        } catch (IOException e) {
+            LOG.log(Level.FINE, "Failed to delete compressed file cache directory: " + directory, e);
+        }
+    }
+
+    public long getSize() {
+        synchronized (entries) {
+            return size;
+        }
+    }
+
+    protected File getPrecompressed(File file, String extension) {
+        File sibling = new File(file.getPath() + extension);
+        return sibling.isFile() && sibling.lastModified() >= file.lastModified() ? sibling : null;
+    }
+
+    protected Variant getCompressed(File file) throws IOException {
+        String key = file.getAbsolutePath() + ":" + file.length() + ":" + file.lastModified();
+        Entry entry;
+
+        synchronized (entries) {
+            // Each entry has its own file so a pinned file of an evicted entry can't be replaced by a newer entry
+            entry = entries.computeIfAbsent(key, k -> new Entry(directory.resolve(UUID.randomUUID() + ".gz").toFile()));
+        }
+
+        // Only the first request for a file compresses it, concurrent requests for the same file wait for it
+        entry.lock.lock();
+        try {
+            if (!entry.done) {
+                compress(file, entry);
+                entry.done = true;
+
+                synchronized (entries) {
+                    if (entries.get(key) == entry) {
+                        size += entry.size;
+                        evict(entry);
+                    }
+                }
+            }
+        } finally {
+            entry.lock.unlock();
+        }
+
+        synchronized (entries) {
+            if (!entry.compressed || entry.evicted || !entry.file.isFile()) {
+                return null;
+            }
+            entry.pins++;
+        }
+
+        return new Variant(entry.file, ENCODING_GZIP, () -> release(entry));
+    }
+
+    protected void release(Entry entry) {
+        synchronized (entries) {
+            entry.pins--;
+            if (entry.evicted) {
+                if (entry.pins == 0) {
+                    deleteEntry(entry);
+                }
+            } else {
+                evict(null);
+            }
+        }
+    }
+
+    protected void compress(File file, Entry entry) throws IOException {
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, "compress", ".tmp");
+
+        try {
+            try (InputStream input = Files.newInputStream(file.toPath());
+                 OutputStream output = new GZIPOutputStream(Files.newOutputStream(temp), 8192) {{
+                     def.setLevel(Deflater.BEST_COMPRESSION);
+                 }}) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = input.read(buffer)) != -1) {
+                    output.write(buffer, 0, read);
+                }
+            }
+
+            long compressedSize = Files.size(temp);
+
+            // Remember files that don't compress well so they are served as is without trying again
+            if (compressedSize < file.length()) {
+                Files.move(temp, entry.file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                entry.compressed = true;
+                entry.size = compressedSize;
+                LOG.fine("Compressed file " + file + " from " + file.length() + " to " + compressedSize + " bytes");
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    protected void evict(Entry keep) {
+        Iterator<Entry> it = entries.values().iterator();
+        while (size > maxSize && it.hasNext()) {
+            Entry entry = it.next();
+            if (entry == keep || !entry.done) {
+                continue;
+            }
+            it.remove();
+            size -= entry.size;
+            evictEntry(entry);
+        }
+    }
+
+    /**
+     * Marks the entry as evicted and deletes its file unless it is being served.
+     */
+    protected void evictEntry(Entry entry) {
+        entry.evicted = true;
+        if (entry.pins == 0) {
+            deleteEntry(entry);
+        }
+    }
+
+    protected void deleteEntry(Entry entry) {
+        try {
+            Files.deleteIfExists(entry.file.toPath());
+        } catch (IOException e) {
+            LOG.log(Level.FINE, "Failed to delete compressed file: " + entry.file, e);
+        }
+    }
+
+    protected static void deleteStaleDirectories(Path parent, String prefix) {
+        try (Stream<Path> paths = Files.list(parent)) {
+            paths
+                .filter(path -> path.getFileName().toString().startsWith(prefix) && Files.isDirectory(path))
+                .filter(CompressedFileCache::isStale)
+                .forEach(path -> {
+                    LOG.info("Deleting stale compressed file cache directory: " + path);
+                    deleteDirectory(path);
+                });
+        } catch (IOException e) {
+            LOG.log(Level.FINE, "Failed to look for stale compressed file cache directories in: " + parent, e);
+        }
+    }
+
+    /**
+     * @return <code>true</code> if no open cache holds the lock of the directory.
+     */
+    protected static boolean isStale(Path directory) {
+        Path lockFile = directory.resolve(LOCK_FILE_NAME);
+
+        if (!Files.isRegularFile(lockFile)) {
+            return true;
+        }
+
+        try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.WRITE)) {
+            FileLock lock = channel.tryLock();
+            if (lock == null) {
+                return false;
+            }
+            lock.release();
+            return true;
+        } catch (OverlappingFileLockException e) {
+            // Locked by a cache of this process
+            return false;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    protected static void deleteDirectory(Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    LOG.log(Level.FINE, "Failed to delete: " + path, e);
+                }
+            });
+        } catch (IOException e) {
+            LOG.log(Level.FINE, "Failed to delete directory: " + directory, e);
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the encoding is listed, or matched by <code>*</code>, with a non-zero quality.
+     */
+    protected static boolean accepts(String acceptEncoding, String encoding) {
+        Boolean wildcard = null;
+        for (String value : acceptEncoding.split("\\s*,\\s*")) {
+            String[] parts = value.trim().split("\\s*;\\s*");
+            boolean accepted = true;
+            for (int i = 1; i < parts.length; i++) {
+                if (parts[i].startsWith("q=")) {
+                    try {
+                        accepted = Double.parseDouble(parts[i].substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        accepted = false;
+                    }
+                }
+            }
+            if (parts[0].equalsIgnoreCase(encoding)) {
+                return accepted;
+            }
+            if (parts[0].equals("*")) {
+                wildcard = accepted;
+            }
+        }
+        return wildcard != null && wildcard;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+            "directory=" + directory +
+            ", maxSize=" + maxSize +
+            ", size=" + getSize() +
+            '}';
+    }
+}
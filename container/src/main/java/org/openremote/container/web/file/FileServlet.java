@@ -45,8 +45,17 @@ public class FileServlet extends AbstractFileServlet {
     final protected Map<String, String> mimeTypes;
     final protected Map<String, Integer> mimeTypesExpireSeconds;
     final protected String[] alreadyZippedExtensions;
+    final protected CompressedFileCache compressedFileCache;
 
     public FileServlet(boolean devMode, File base, String[] requiredRoles, Map<String, String> mimeTypes, Map<String, Integer> mimeTypesExpireSeconds, String[] alreadyZippedExtensions) {
+        this(devMode, base, requiredRoles, mimeTypes, mimeTypesExpireSeconds, alreadyZippedExtensions, null);
+    }
+
+    /**
+     * @param compressedFileCache If not <code>null</code> the servlet negotiates the content encoding itself and
+     *                            serves compressed variants of files from this cache.
+     */
+    public FileServlet(boolean devMode, File base, String[] requiredRoles, Map<String, String> mimeTypes, Map<String, Integer> mimeTypesExpireSeconds, String[] alreadyZippedExtensions, CompressedFileCache compressedFileCache) {
         this.devMode = devMode;
         this.base = base;
         this.unsecuredIndex = new File(base, "index.html");
@@ -54,6 +63,7 @@ public class FileServlet extends AbstractFileServlet {
         this.mimeTypes = mimeTypes;
         this.mimeTypesExpireSeconds = mimeTypesExpireSeconds;
         this.alreadyZippedExtensions = alreadyZippedExtensions;
+        this.compressedFileCache = compressedFileCache;
     }
 
     public boolean isSecured() {
@@ -154,10 +164,30 @@ public class FileServlet extends AbstractFileServlet {
             mimeTypes.get(getExtension(file.getName()))), "application/octet-stream");
     }
 
+    @Override
+    protected Resource getEncodedResource(HttpServletRequest request, Resource resource) {
+        if (compressedFileCache == null) {
+            return resource;
+        }
+
+        CompressedFileCache.Variant variant = compressedFileCache.getVariant(
+            resource.getFile(),
+            getContentType(request, resource.getFile()),
+            request.getHeader("Accept-Encoding")
+        );
+
+        // The variant can't be deleted until it has been served
+        return variant != null ? new Resource(resource, variant.file, variant.encoding, variant::release) : resource;
+    }
+
     @Override
     protected String setContentHeaders(HttpServletRequest request, HttpServletResponse response, AbstractFileServlet.Resource resource, List<Range> ranges) {
         String result = super.setContentHeaders(request, response, resource, ranges);
 
+        if (compressedFileCache != null) {
+            response.setHeader("Vary", "Accept-Encoding");
+        }
+
         // If a file is already zipped, we need to set the header (yes, it's stupid, but
         // that's what happens when font experts mangle HTTP for their PBF format...)
         for (String alreadyZippedExtension : alreadyZippedExtensions) {
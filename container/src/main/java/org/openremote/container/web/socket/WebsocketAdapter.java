@@ -59,6 +59,13 @@ public class WebsocketAdapter extends Endpoint {
                 exchange.getIn().setHeader(ConnectionConstants.SESSION, session);
             });
         });
+        session.addMessageHandler(byte[].class, message -> {
+            if (LOG.isLoggable(Level.FINE))
+                LOG.fine("Websocket session " + session.getId() + " binary message received, size: " + message.length);
+            this.consumer.sendMessage(session.getId(), getHandshakeAuth(session), message, exchange -> {
+                exchange.getIn().setHeader(ConnectionConstants.SESSION, session);
+            });
+        });
     }
 
     @Override
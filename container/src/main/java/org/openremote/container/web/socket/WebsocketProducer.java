@@ -27,6 +27,7 @@ import org.openremote.container.web.ConnectionConstants;
 
 import javax.websocket.Session;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -99,6 +100,10 @@ public class WebsocketProducer extends DefaultProducer {
                 if (LOG.isLoggable(Level.FINE))
                     LOG.fine("Sending to session " + session.getId() + ": " + message);
                 session.getBasicRemote().sendText((String) message);
+            } else if (message instanceof byte[]) {
+                if (LOG.isLoggable(Level.FINE))
+                    LOG.fine("Sending binary message to session " + session.getId() + ", size: " + ((byte[]) message).length);
+                session.getBasicRemote().sendBinary(ByteBuffer.wrap((byte[]) message));
             }
         }
     }
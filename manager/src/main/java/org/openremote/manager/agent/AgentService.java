@@ -25,12 +25,14 @@ import com.jayway.jsonpath.Option;
 import com.jayway.jsonpath.ParseContext;
 import com.jayway.jsonpath.spi.json.JacksonJsonNodeJsonProvider;
 import com.jayway.jsonpath.spi.mapper.JacksonMappingProvider;
+import io.micrometer.core.instrument.Counter;
 import org.apache.camel.builder.RouteBuilder;
 import org.openremote.agent.protocol.Protocol;
 import org.openremote.agent.protocol.ProtocolAssetService;
 import org.openremote.container.Container;
 import org.openremote.container.ContainerService;
 import org.openremote.container.message.MessageBrokerService;
+import org.openremote.container.metrics.MetricsService;
 import org.openremote.container.persistence.PersistenceEvent;
 import org.openremote.container.timer.TimerService;
 import org.openremote.manager.asset.*;
@@ -54,6 +56,7 @@ import org.openremote.model.value.*;
 
 import javax.persistence.EntityManager;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.logging.Level;
@@ -98,6 +101,7 @@ public class AgentService extends RouteBuilder implements ContainerService, Asse
     protected GatewayService gatewayService;
     protected final Map<AttributeRef, Pair<AssetAttribute, ConnectionStatus>> protocolConfigurations = new HashMap<>();
     protected final Map<String, List<Consumer<PersistenceEvent<Asset>>>> childAssetSubscriptions = new HashMap<>();
+    protected final Map<String, Counter> sensorIngressCounters = new ConcurrentHashMap<>();
     protected final Map<String, Protocol> protocols = new HashMap<>();
     protected final Map<AttributeRef, List<AssetAttribute>> linkedAttributes = new HashMap<>();
     protected LocalAgentConnector localAgentConnector;
@@ -229,6 +233,12 @@ public class AgentService extends RouteBuilder implements ContainerService, Asse
         from(SENSOR_QUEUE)
             .routeId("FromSensorUpdates")
             .filter(body().isInstanceOf(AttributeEvent.class))
+            .process(exchange -> {
+                String protocolName = exchange.getIn().getHeader(Protocol.SENSOR_QUEUE_SOURCE_PROTOCOL, "unknown", String.class);
+                sensorIngressCounters.computeIfAbsent(protocolName, name ->
+                    MetricsService.counter("or.sensor.ingress", "Sensor updates received from protocols", "protocol", name)
+                ).increment();
+            })
             .setHeader(HEADER_SOURCE, () -> SENSOR)
             .to(ASSET_QUEUE);
     }
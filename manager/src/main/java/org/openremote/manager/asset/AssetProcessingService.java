@@ -19,13 +19,18 @@
  */
 package org.openremote.manager.asset;
 
+import io.micrometer.core.instrument.Timer;
 import org.apache.camel.Exchange;
 import org.apache.camel.Processor;
 import org.apache.camel.builder.RouteBuilder;
+import org.hibernate.Session;
 import org.openremote.agent.protocol.Protocol;
+import org.openremote.agent.protocol.ProtocolClientEventService;
 import org.openremote.container.Container;
 import org.openremote.container.ContainerService;
 import org.openremote.container.message.MessageBrokerService;
+import org.openremote.container.message.MessageQueueFactory;
+import org.openremote.container.metrics.MetricsService;
 import org.openremote.container.persistence.PersistenceService;
 import org.openremote.container.security.AuthContext;
 import org.openremote.container.timer.TimerService;
@@ -42,20 +47,27 @@ import org.openremote.model.asset.*;
 import org.openremote.model.attribute.AttributeEvent;
 import org.openremote.model.attribute.AttributeEvent.Source;
 import org.openremote.model.attribute.AttributeExecuteStatus;
+import org.openremote.model.attribute.AttributeWriteResult;
 import org.openremote.model.attribute.MetaItemType;
+import org.openremote.model.attribute.WriteAttributesRequestEvent;
+import org.openremote.model.attribute.WriteAttributesResponseEvent;
+import org.openremote.model.event.shared.EventRequestResponseWrapper;
+import org.openremote.model.query.AssetQuery;
 import org.openremote.model.security.ClientRole;
 import org.openremote.model.util.AssetModelUtil;
 import org.openremote.model.value.Value;
 import org.openremote.model.value.Values;
 
 import javax.persistence.EntityManager;
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.List;
-import java.util.Optional;
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import static org.apache.camel.builder.PredicateBuilder.or;
+import static org.openremote.agent.protocol.ProtocolClientEventService.HEADER_REQUEST_RESPONSE_MESSAGE_ID;
 import static org.openremote.container.concurrent.GlobalLock.withLock;
 import static org.openremote.manager.asset.AssetProcessingException.Reason.*;
 import static org.openremote.manager.event.ClientEventService.CLIENT_EVENT_TOPIC;
@@ -126,7 +138,9 @@ public class AssetProcessingService extends RouteBuilder implements ContainerSer
 
     // TODO: Some of these options should be configurable depending on expected load etc.
     // Message topic for communicating individual asset attribute changes
-    public static final String ASSET_QUEUE = "seda://AssetQueue?waitForTaskToComplete=IfReplyExpected&timeout=10000&purgeWhenStopping=true&discardIfNoConsumers=false&size=25000";
+    public static final String ASSET_QUEUE = "seda://AssetQueue?waitForTaskToComplete=IfReplyExpected&timeout=10000&purgeWhenStopping=true&discardIfNoConsumers=false&size=25000&queueFactory=#" + MessageQueueFactory.NAME;
+    // The maximum number of events in a single write request, larger requests are rejected
+    public static int WRITE_ATTRIBUTES_MAX_EVENTS = 10000;
 
     protected TimerService timerService;
     protected ManagerIdentityService identityService;
@@ -143,6 +157,8 @@ public class AssetProcessingService extends RouteBuilder implements ContainerSer
     protected long lastProcessedEventTimestamp = System.currentTimeMillis();
 
     final protected List<AssetUpdateProcessor> processors = new ArrayList<>();
+    final protected List<Timer> processorTimers = new ArrayList<>();
+    protected static final Timer ASSET_QUEUE_TIMER = MetricsService.timer("or.asset.queue.processing", "Time to process a message from the asset queue including waiting for the lock");
 
     @Override
     public int getPriority() {
@@ -176,6 +192,9 @@ public class AssetProcessingService extends RouteBuilder implements ContainerSer
         processors.add(rulesService);
         processors.add(assetDatapointService);
         processors.add(assetAttributeLinkingService);
+        processors.forEach(processor -> processorTimers.add(
+            MetricsService.timer("or.asset.processor", "Time an asset update processor took to process an attribute update", "processor", processor.getClass().getSimpleName())
+        ));
 
         container.getService(MessageBrokerService.class).getContext().addRoutes(this);
     }
@@ -200,6 +219,14 @@ public class AssetProcessingService extends RouteBuilder implements ContainerSer
             .setHeader(HEADER_SOURCE, () -> CLIENT)
             .to(ASSET_QUEUE);
 
+        // A client wants to write multiple attribute values through event bus, process these on the asset queue so
+        // they are processed in order with single attribute events
+        from(CLIENT_EVENT_TOPIC)
+            .routeId("FromClientWriteRequests")
+            .filter(body().isInstanceOf(WriteAttributesRequestEvent.class))
+            .setHeader(HEADER_SOURCE, () -> CLIENT)
+            .to(ASSET_QUEUE);
+
         // Process attribute events
         /* TODO This message consumer should be transactionally consistent with the database, this is currently not the case
 
@@ -218,171 +245,316 @@ public class AssetProcessingService extends RouteBuilder implements ContainerSer
         */
         from(ASSET_QUEUE)
             .routeId("AssetQueueProcessor")
-            .filter(body().isInstanceOf(AttributeEvent.class))
+            .filter(or(body().isInstanceOf(AttributeEvent.class), body().isInstanceOf(WriteAttributesRequestEvent.class)))
             .doTry()
-            // Lock the global context, we can only process attribute events when the
-            // context isn't locked. Agent- and RulesService lock the context while protocols
-            // or rulesets are modified.
-            .process(exchange -> withLock(getClass().getSimpleName() + "::processFromAssetQueue", () -> {
-
-                AttributeEvent event = exchange.getIn().getBody(AttributeEvent.class);
-                LOG.finest("Processing: " + event);
-                if (event.getEntityId() == null || event.getEntityId().isEmpty())
-                    return;
-                if (event.getAttributeName() == null || event.getAttributeName().isEmpty())
-                    return;
-                Source source = exchange.getIn().getHeader(HEADER_SOURCE, () -> null, Source.class);
-                if (source == null) {
-                    throw new AssetProcessingException(MISSING_SOURCE);
+            .process(exchange -> {
+                long startNanos = System.nanoTime();
+                try {
+                    processFromAssetQueue(exchange);
+                } finally {
+                    ASSET_QUEUE_TIMER.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
                 }
+            })
+            .endDoTry()
+            .doCatch(AssetProcessingException.class)
+            .process(handleAssetProcessingException(LOG));
+    }
 
-                // Process the asset update in a database transaction, this ensures that processors
-                // will see consistent database state and we only commit if no processor failed. This
-                // still won't make this procedure consistent with the message queue from which we consume!
-                persistenceService.doTransaction(em -> {
-                    Asset asset = assetStorageService.find(em, event.getEntityId(), true);
-                    if (asset == null)
-                        throw new AssetProcessingException(ASSET_NOT_FOUND);
-
-
-                    AssetAttribute oldAttribute = asset.getAttribute(event.getAttributeName()).orElse(null);
-                    if (oldAttribute == null)
-                        throw new AssetProcessingException(ATTRIBUTE_NOT_FOUND);
-
-                    switch (source) {
-                        case CLIENT:
+    protected void processFromAssetQueue(Exchange exchange) {
+        // Lock the global context, we can only process attribute events when the
+        // context isn't locked. Agent- and RulesService lock the context while protocols
+        // or rulesets are modified.
+        withLock(getClass().getSimpleName() + "::processFromAssetQueue", () -> {
 
-                            AuthContext authContext = exchange.getIn().getHeader(Constants.AUTH_CONTEXT, AuthContext.class);
-                            if (authContext == null) {
-                                // Check attribute has public write flag
-                                if (!oldAttribute.getMetaItem(MetaItemType.ACCESS_PUBLIC_WRITE).isPresent()) {
-                                    throw new AssetProcessingException(NO_AUTH_CONTEXT);
-                                }
-                                // Check read-only
-                                if (oldAttribute.isReadOnly()) {
-                                    throw new AssetProcessingException(INSUFFICIENT_ACCESS);
-                                }
-                            } else {
-                                // Check realm, must be accessible
-                                if (!identityService.getIdentityProvider().isTenantActiveAndAccessible(authContext,
-                                                                                                       asset.getRealm())) {
-                                    throw new AssetProcessingException(INSUFFICIENT_ACCESS);
-                                }
+            if (exchange.getIn().getBody() instanceof WriteAttributesRequestEvent) {
+                processWriteAttributesRequest(exchange);
+                return;
+            }
 
-                                // Check read-only
-                                if (oldAttribute.isReadOnly() && !authContext.isSuperUser()) {
-                                    throw new AssetProcessingException(INSUFFICIENT_ACCESS);
-                                }
+            AttributeEvent event = exchange.getIn().getBody(AttributeEvent.class);
+            LOG.finest("Processing: " + event);
+            if (event.getEntityId() == null || event.getEntityId().isEmpty())
+                return;
+            if (event.getAttributeName() == null || event.getAttributeName().isEmpty())
+                return;
+            Source source = exchange.getIn().getHeader(HEADER_SOURCE, () -> null, Source.class);
+            if (source == null) {
+                throw new AssetProcessingException(MISSING_SOURCE);
+            }
 
-                                // Regular user must have write attributes role
-                                if (!authContext.hasResourceRoleOrIsSuperUser(ClientRole.WRITE_ATTRIBUTES.getValue(),
-                                                                              Constants.KEYCLOAK_CLIENT_ID)) {
-                                    throw new AssetProcessingException(INSUFFICIENT_ACCESS);
-                                }
+            AuthContext authContext = exchange.getIn().getHeader(Constants.AUTH_CONTEXT, AuthContext.class);
 
-                                // Check restricted user
-                                if (identityService.getIdentityProvider().isRestrictedUser(authContext.getUserId())) {
-                                    // Must be asset linked to user
-                                    if (!assetStorageService.isUserAsset(authContext.getUserId(),
-                                                                         event.getEntityId())) {
-                                        throw new AssetProcessingException(INSUFFICIENT_ACCESS);
-                                    }
-                                    // Must be writable by restricted client
-                                    if (!oldAttribute.isAccessRestrictedWrite()) {
-                                        throw new AssetProcessingException(INSUFFICIENT_ACCESS);
-                                    }
-                                }
-                            }
-                            break;
+            // Process the asset update in a database transaction, this ensures that processors
+            // will see consistent database state and we only commit if no processor failed. This
+            // still won't make this procedure consistent with the message queue from which we consume!
+            persistenceService.doTransaction(em -> {
+                Asset asset = assetStorageService.find(em, event.getEntityId(), true);
+                if (asset == null)
+                    throw new AssetProcessingException(ASSET_NOT_FOUND);
 
-                        case SENSOR:
-                            Optional<AssetAttribute> protocolConfiguration =
-                                getAgentLink(oldAttribute).flatMap(agentService::getProtocolConfiguration);
+                processAttributeEvent(em, asset, event, source, authContext);
+            });
+        });
+    }
 
-                            // Sensor event must be for an attribute linked to a protocol configuration
-                            if (!protocolConfiguration.isPresent()) {
-                                throw new AssetProcessingException(INVALID_AGENT_LINK);
-                            }
-                            break;
+    /**
+     * Validates the event for the given asset and source and then pushes it through the processors, see
+     * {@link #processAssetUpdate}; must be called within a database transaction whilst holding the global lock.
+     *
+     * @return The updated attribute.
+     */
+    protected AssetAttribute processAttributeEvent(EntityManager em,
+                                                   Asset asset,
+                                                   AttributeEvent event,
+                                                   Source source,
+                                                   AuthContext authContext) throws AssetProcessingException {
+
+        AssetAttribute oldAttribute = asset.getAttribute(event.getAttributeName()).orElse(null);
+        if (oldAttribute == null)
+            throw new AssetProcessingException(ATTRIBUTE_NOT_FOUND);
+
+        switch (source) {
+            case CLIENT:
+                if (authContext == null) {
+                    // Check attribute has public write flag
+                    if (!oldAttribute.getMetaItem(MetaItemType.ACCESS_PUBLIC_WRITE).isPresent()) {
+                        throw new AssetProcessingException(NO_AUTH_CONTEXT);
+                    }
+                    // Check read-only
+                    if (oldAttribute.isReadOnly()) {
+                        throw new AssetProcessingException(INSUFFICIENT_ACCESS);
+                    }
+                } else {
+                    // Check realm, must be accessible
+                    if (!identityService.getIdentityProvider().isTenantActiveAndAccessible(authContext,
+                                                                                           asset.getRealm())) {
+                        throw new AssetProcessingException(INSUFFICIENT_ACCESS);
                     }
 
-                    // Agent attributes can't be updated with events
-                    if (asset.getWellKnownType() == AssetType.AGENT) {
-                        throw new AssetProcessingException(ILLEGAL_AGENT_UPDATE);
+                    // Check read-only
+                    if (oldAttribute.isReadOnly() && !authContext.isSuperUser()) {
+                        throw new AssetProcessingException(INSUFFICIENT_ACCESS);
                     }
 
-                    // For executable attributes, non-sensor sources can set a writable attribute execute status
-                    if (oldAttribute.isExecutable() && source != SENSOR) {
-                        Optional<AttributeExecuteStatus> status = event.getValue()
-                            .flatMap(Values::getString)
-                            .flatMap(AttributeExecuteStatus::fromString);
+                    // Regular user must have write attributes role
+                    if (!authContext.hasResourceRoleOrIsSuperUser(ClientRole.WRITE_ATTRIBUTES.getValue(),
+                                                                  Constants.KEYCLOAK_CLIENT_ID)) {
+                        throw new AssetProcessingException(INSUFFICIENT_ACCESS);
+                    }
 
-                        if (status.isPresent() && !status.get().isWrite()) {
-                            throw new AssetProcessingException(INVALID_ATTRIBUTE_EXECUTE_STATUS);
+                    // Check restricted user
+                    if (identityService.getIdentityProvider().isRestrictedUser(authContext.getUserId())) {
+                        // Must be asset linked to user
+                        if (!assetStorageService.isUserAsset(authContext.getUserId(),
+                                                             event.getEntityId())) {
+                            throw new AssetProcessingException(INSUFFICIENT_ACCESS);
+                        }
+                        // Must be writable by restricted client
+                        if (!oldAttribute.isAccessRestrictedWrite()) {
+                            throw new AssetProcessingException(INSUFFICIENT_ACCESS);
                         }
                     }
+                }
+                break;
 
-                    // Check if attribute is well known and the value is valid
-                    AssetModelUtil.getAttributeDescriptor(oldAttribute.name).ifPresent(wellKnownAttribute -> {
-                        // Check if the value is valid
-                        wellKnownAttribute.getValueDescriptor()
-                            .getValidator().flatMap(v -> v.apply(event.getValue().orElse(null)))
-                            .ifPresent(validationFailure -> {
-                                throw new AssetProcessingException(
-                                    INVALID_VALUE_FOR_WELL_KNOWN_ATTRIBUTE
-                                );
-                            });
-                    });
-
-                    // Either use the timestamp of the event or set event time to processing time
-                    long processingTime = timerService.getCurrentTimeMillis();
-                    long eventTime = event.getTimestamp() > 0 ? event.getTimestamp() : processingTime;
-
-                    // Ensure timestamp of event is not in the future as that would essentially block access to
-                    // the attribute until after that time (maybe that is desirable behaviour)
-                    if (eventTime - processingTime > 0) {
-                        // TODO: Decide how to handle update events in the future - ignore or change timestamp
-                        throw new AssetProcessingException(
-                            EVENT_IN_FUTURE,
-                            "current time: " + new Date(processingTime) + "/" + processingTime
-                                + ", event time: " + new Date(eventTime) + "/" + eventTime
-                        );
-                    }
+            case SENSOR:
+                Optional<AssetAttribute> protocolConfiguration =
+                    getAgentLink(oldAttribute).flatMap(agentService::getProtocolConfiguration);
 
-                    // Check the last update timestamp of the attribute, ignoring any event that is older than last update
-                    // TODO This means we drop out-of-sequence events but accept events with the same source timestamp
-                    // TODO Several attribute events can occur in the same millisecond, then order of application is undefined
-                    oldAttribute.getValueTimestamp().filter(t -> t >= 0 && eventTime < t).ifPresent(
-                        lastStateTime -> {
-                            throw new AssetProcessingException(
-                                EVENT_OUTDATED,
-                                "last asset state time: " + new Date(lastStateTime) + "/" + lastStateTime
-                                    + ", event time: " + new Date(eventTime) + "/" + eventTime);
-                        }
+                // Sensor event must be for an attribute linked to a protocol configuration
+                if (!protocolConfiguration.isPresent()) {
+                    throw new AssetProcessingException(INVALID_AGENT_LINK);
+                }
+                break;
+        }
+
+        // Agent attributes can't be updated with events
+        if (asset.getWellKnownType() == AssetType.AGENT) {
+            throw new AssetProcessingException(ILLEGAL_AGENT_UPDATE);
+        }
+
+        // For executable attributes, non-sensor sources can set a writable attribute execute status
+        if (oldAttribute.isExecutable() && source != SENSOR) {
+            Optional<AttributeExecuteStatus> status = event.getValue()
+                .flatMap(Values::getString)
+                .flatMap(AttributeExecuteStatus::fromString);
+
+            if (status.isPresent() && !status.get().isWrite()) {
+                throw new AssetProcessingException(INVALID_ATTRIBUTE_EXECUTE_STATUS);
+            }
+        }
+
+        // Check if attribute is well known and the value is valid
+        AssetModelUtil.getAttributeDescriptor(oldAttribute.name).ifPresent(wellKnownAttribute -> {
+            // Check if the value is valid
+            wellKnownAttribute.getValueDescriptor()
+                .getValidator().flatMap(v -> v.apply(event.getValue().orElse(null)))
+                .ifPresent(validationFailure -> {
+                    throw new AssetProcessingException(
+                        INVALID_VALUE_FOR_WELL_KNOWN_ATTRIBUTE
                     );
+                });
+        });
+
+        // Either use the timestamp of the event or set event time to processing time
+        long processingTime = timerService.getCurrentTimeMillis();
+        long eventTime = event.getTimestamp() > 0 ? event.getTimestamp() : processingTime;
+
+        // Ensure timestamp of event is not in the future as that would essentially block access to
+        // the attribute until after that time (maybe that is desirable behaviour)
+        if (eventTime - processingTime > 0) {
+            // TODO: Decide how to handle update events in the future - ignore or change timestamp
+            throw new AssetProcessingException(
+                EVENT_IN_FUTURE,
+                "current time: " + new Date(processingTime) + "/" + processingTime
+                    + ", event time: " + new Date(eventTime) + "/" + eventTime
+            );
+        }
+
+        // Check the last update timestamp of the attribute, ignoring any event that is older than last update
+        // TODO This means we drop out-of-sequence events but accept events with the same source timestamp
+        // TODO Several attribute events can occur in the same millisecond, then order of application is undefined
+        oldAttribute.getValueTimestamp().filter(t -> t >= 0 && eventTime < t).ifPresent(
+            lastStateTime -> {
+                throw new AssetProcessingException(
+                    EVENT_OUTDATED,
+                    "last asset state time: " + new Date(lastStateTime) + "/" + lastStateTime
+                        + ", event time: " + new Date(eventTime) + "/" + eventTime);
+            }
+        );
+
+        // Create a copy of the attribute with the new value and timestamp, the processors don't modify the meta so it
+        // can be shared with the old attribute
+        AssetAttribute updatedAttribute = oldAttribute.copyWithValue(event.getValue().orElse(null), eventTime);
+
+        // Validate constraints of attribute
+        List<ValidationFailure> validationFailures = updatedAttribute.getValidationFailures();
+        if (!validationFailures.isEmpty()) {
+            throw new AssetProcessingException(ATTRIBUTE_VALIDATION_FAILURE, validationFailures.toString());
+        }
+
+        // Push through all processors
+        boolean consumedCompletely = processAssetUpdate(em, asset, updatedAttribute, source);
+
+        // Publish a new event for clients if no processor consumed the update completely
+        if (!consumedCompletely) {
+            publishClientEvent(asset, updatedAttribute);
+        }
+
+        return updatedAttribute;
+    }
 
-                    // Create a copy of the attribute and set the new value and timestamp
-                    AssetAttribute updatedAttribute = oldAttribute.deepCopy();
-                    updatedAttribute.setValue(event.getValue().orElse(null), eventTime);
+    /**
+     * Processes the events in a single database transaction rather than one transaction per event, the asset of each
+     * event is only loaded once. Each event is processed within its own savepoint, an event that fails is rolled back
+     * to its savepoint and doesn't affect the other events. If the transaction itself fails to commit then none of the
+     * events are stored. Must not be used for events from a {@link Source#SENSOR} as these are expected on the
+     * {@link Protocol#SENSOR_QUEUE}.
+     *
+     * @return The result of each event, in the same order as the events.
+     */
+    public AttributeWriteResult[] processAttributeEvents(List<AttributeEvent> events, Source source, AuthContext authContext) {
+        AttributeWriteResult[] results = new AttributeWriteResult[events.size()];
+
+        if (events.isEmpty()) {
+            return results;
+        }
+
+        withLock(getClass().getSimpleName() + "::processAttributeEvents", () -> {
+            Map<String, Integer> rejectedReasons = new TreeMap<>();
 
-                    // Validate constraints of attribute
-                    List<ValidationFailure> validationFailures = updatedAttribute.getValidationFailures();
-                    if (!validationFailures.isEmpty()) {
-                        throw new AssetProcessingException(ATTRIBUTE_VALIDATION_FAILURE, validationFailures.toString());
+            try {
+                persistenceService.doTransaction(em -> {
+                    Session session = em.unwrap(Session.class);
+                    String[] assetIds = events.stream()
+                        .map(AttributeEvent::getEntityId)
+                        .filter(id -> id != null && !id.isEmpty())
+                        .distinct()
+                        .toArray(String[]::new);
+
+                    // Load all assets of the batch with a single query
+                    Map<String, Asset> assets = new HashMap<>(assetIds.length);
+                    if (assetIds.length > 0) {
+                        assetStorageService.findAll(em, new AssetQuery().ids(assetIds)).forEach(asset -> assets.put(asset.getId(), asset));
                     }
 
-                    // Push through all processors
-                    boolean consumedCompletely = processAssetUpdate(em, asset, updatedAttribute, source);
+                    for (int i = 0; i < events.size(); i++) {
+                        AttributeEvent event = events.get(i);
+                        String failure = null;
+
+                        if (event.getTimestamp() <= 0) {
+                            event.setTimestamp(timerService.getCurrentTimeMillis());
+                        }
+                        Asset asset = event.getEntityId() != null ? assets.get(event.getEntityId()) : null;
+
+                        if (asset == null) {
+                            failure = ASSET_NOT_FOUND.name();
+                            LOG.fine("Error processing from " + source + " - " + ASSET_NOT_FOUND + ": " + event);
+                        } else {
+                            Savepoint savepoint = session.doReturningWork(Connection::setSavepoint);
+                            try {
+                                AssetAttribute updatedAttribute = processAttributeEvent(em, asset, event, source, authContext);
+                                em.flush();
+                                session.doWork(connection -> connection.releaseSavepoint(savepoint));
+                                // Following events for the same attribute must see the updated value and timestamp
+                                asset.replaceAttribute(updatedAttribute);
+                            } catch (Exception ex) {
+                                // Discard any unflushed changes of the event, the changes of earlier events are flushed
+                                em.clear();
+                                session.doWork(connection -> connection.rollback(savepoint));
+                                if (ex instanceof AssetProcessingException) {
+                                    failure = ((AssetProcessingException) ex).getReason().name();
+                                    LOG.fine("Error processing from " + source + " - " + ex.getMessage() + ": " + event);
+                                } else {
+                                    failure = STATE_STORAGE_FAILED.name();
+                                    LOG.log(Level.FINE, "Error storing from " + source + ": " + event, ex);
+                                }
+                            }
+                        }
 
-                    // Publish a new event for clients if no processor consumed the update completely
-                    if (!consumedCompletely) {
-                        publishClientEvent(asset, updatedAttribute);
+                        if (failure != null) {
+                            rejectedReasons.merge(failure, 1, Integer::sum);
+                        }
+                        results[i] = new AttributeWriteResult(event.getAttributeRef(), failure);
                     }
                 });
-            }))
-            .endDoTry()
-            .doCatch(AssetProcessingException.class)
-            .process(handleAssetProcessingException(LOG));
+            } catch (Exception ex) {
+                LOG.log(Level.WARNING, "Error processing attribute event batch, none of the events were stored: size=" + events.size(), ex);
+                for (int i = 0; i < events.size(); i++) {
+                    results[i] = new AttributeWriteResult(events.get(i).getAttributeRef(), STATE_STORAGE_FAILED.name());
+                }
+                return;
+            }
+
+            if (!rejectedReasons.isEmpty()) {
+                LOG.info("Rejected attribute events of batch from " + source + ": size=" + events.size() + ", rejected=" + rejectedReasons);
+            }
+        });
+
+        return results;
+    }
+
+    protected void processWriteAttributesRequest(Exchange exchange) {
+        WriteAttributesRequestEvent request = exchange.getIn().getBody(WriteAttributesRequestEvent.class);
+        Source source = exchange.getIn().getHeader(HEADER_SOURCE, () -> null, Source.class);
+        AuthContext authContext = exchange.getIn().getHeader(Constants.AUTH_CONTEXT, AuthContext.class);
+        AttributeEvent[] events = request.getEvents() != null ? request.getEvents() : new AttributeEvent[0];
+
+        if (source == null || events.length > WRITE_ATTRIBUTES_MAX_EVENTS) {
+            LOG.warning("Ignoring invalid write attributes request from " + source + ": " + request);
+            return;
+        }
+
+        AttributeWriteResult[] results = processAttributeEvents(Arrays.asList(events), source, authContext);
+
+        // Only reply if the client asked for a response
+        String messageId = exchange.getIn().getHeader(HEADER_REQUEST_RESPONSE_MESSAGE_ID, String.class);
+        String sessionKey = ProtocolClientEventService.getSessionKey(exchange);
+        if (messageId != null && sessionKey != null) {
+            clientEventService.sendToSession(
+                sessionKey,
+                new EventRequestResponseWrapper<>(messageId, new WriteAttributesResponseEvent(results)));
+        }
     }
 
     /**
@@ -420,8 +592,10 @@ public class AssetProcessingService extends RouteBuilder implements ContainerSer
         lastProcessedEventTimestamp = System.currentTimeMillis();
 
         boolean complete = false;
-        for (AssetUpdateProcessor processor : processors) {
+        for (int i = 0; i < processors.size(); i++) {
+            AssetUpdateProcessor processor = processors.get(i);
             LOG.finest("==> Processor " + processor + " accepts: " + attributeStr);
+            long startNanos = System.nanoTime();
             try {
                 complete = processor.processAssetUpdate(em, asset, attribute, source);
             } catch (AssetProcessingException ex) {
@@ -432,6 +606,8 @@ public class AssetProcessingService extends RouteBuilder implements ContainerSer
                     "processor '" + processor + "' threw an exception",
                     t
                 );
+            } finally {
+                processorTimers.get(i).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
             }
             if (complete) {
                 LOG.fine("<== Processor " + processor + " completely consumed: " + attributeStr);
@@ -64,14 +64,17 @@ public class AssetResourceImpl extends ManagerWebResource implements AssetResour
     protected final static Asset[] EMPTY_ASSETS = new Asset[0];
     protected final AssetStorageService assetStorageService;
     protected final MessageBrokerService messageBrokerService;
+    protected final AssetProcessingService assetProcessingService;
 
     public AssetResourceImpl(TimerService timerService,
                              ManagerIdentityService identityService,
                              AssetStorageService assetStorageService,
-                             MessageBrokerService messageBrokerService) {
+                             MessageBrokerService messageBrokerService,
+                             AssetProcessingService assetProcessingService) {
         super(timerService, identityService);
         this.assetStorageService = assetStorageService;
         this.messageBrokerService = messageBrokerService;
+        this.assetProcessingService = assetProcessingService;
     }
 
     @Override
@@ -437,6 +440,25 @@ public class AssetResourceImpl extends ManagerWebResource implements AssetResour
         }
     }
 
+    @Override
+    public AttributeWriteResult[] writeAttributeEvents(RequestParams requestParams, AttributeEvent[] events) {
+        if (events == null || events.length == 0) {
+            return new AttributeWriteResult[0];
+        }
+
+        if (events.length > AssetProcessingService.WRITE_ATTRIBUTES_MAX_EVENTS) {
+            throw new WebApplicationException(BAD_REQUEST);
+        }
+
+        LOG.fine("Write attribute values request: size=" + events.length);
+
+        return assetProcessingService.processAttributeEvents(
+            Arrays.asList(events),
+            CLIENT,
+            isAuthenticated() ? getAuthContext() : null
+        );
+    }
+
     @Override
     public Asset create(RequestParams requestParams, Asset asset) {
         try {
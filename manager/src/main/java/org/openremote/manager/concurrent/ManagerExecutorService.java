@@ -22,6 +22,7 @@ package org.openremote.manager.concurrent;
 import org.openremote.agent.protocol.ProtocolExecutorService;
 import org.openremote.container.Container;
 import org.openremote.container.ContainerService;
+import org.openremote.container.concurrent.ContainerExecutor;
 import org.openremote.container.concurrent.ContainerScheduledExecutor;
 
 import java.util.Collection;
@@ -41,6 +42,11 @@ public class ManagerExecutorService implements ProtocolExecutorService {
     public static final int SCHEDULED_TASKS_THREADS_MAX_DEFAULT = Math.max(Runtime.getRuntime().availableProcessors(), 2);
     public static final int PRIORITY = ContainerService.HIGH_PRIORITY + 200;
     protected ScheduledExecutorService scheduledTasksExecutor;
+    /**
+     * Runs tasks that are submitted for immediate execution on virtual threads when the container uses them,
+     * otherwise these also run on the {@link #scheduledTasksExecutor}.
+     */
+    protected ExecutorService tasksExecutor;
 
     @Override
     public int getPriority() {
@@ -52,6 +58,9 @@ public class ManagerExecutorService implements ProtocolExecutorService {
         int scheduledTasksThreadsMax =
             getInteger(container.getConfig(), SCHEDULED_TASKS_THREADS_MAX, SCHEDULED_TASKS_THREADS_MAX_DEFAULT);
         scheduledTasksExecutor = new ContainerScheduledExecutor("Scheduled task", scheduledTasksThreadsMax);
+        tasksExecutor = container.isVirtualThreads()
+            ? ContainerExecutor.newVirtualThreadPerTaskExecutor("Task")
+            : scheduledTasksExecutor;
     }
 
     @Override
@@ -61,6 +70,7 @@ public class ManagerExecutorService implements ProtocolExecutorService {
     @Override
     public void stop(Container container) throws Exception {
         scheduledTasksExecutor.shutdownNow();
+        tasksExecutor.shutdownNow();
     }
 
     @Override
@@ -127,42 +137,42 @@ public class ManagerExecutorService implements ProtocolExecutorService {
 
     @Override
     public <T> Future<T> submit(Callable<T> task) {
-        return scheduledTasksExecutor.submit(task);
+        return tasksExecutor.submit(task);
     }
 
     @Override
     public <T> Future<T> submit(Runnable task, T result) {
-        return scheduledTasksExecutor.submit(task, result);
+        return tasksExecutor.submit(task, result);
     }
 
     @Override
     public Future<?> submit(Runnable task) {
-        return scheduledTasksExecutor.submit(task);
+        return tasksExecutor.submit(task);
     }
 
     @Override
     public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException {
-        return scheduledTasksExecutor.invokeAll(tasks);
+        return tasksExecutor.invokeAll(tasks);
     }
 
     @Override
     public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit) throws InterruptedException {
-        return scheduledTasksExecutor.invokeAll(tasks, timeout, unit);
+        return tasksExecutor.invokeAll(tasks, timeout, unit);
     }
 
     @Override
     public <T> T invokeAny(Collection<? extends Callable<T>> tasks) throws InterruptedException, ExecutionException {
-        return scheduledTasksExecutor.invokeAny(tasks);
+        return tasksExecutor.invokeAny(tasks);
     }
 
     @Override
     public <T> T invokeAny(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
-        return scheduledTasksExecutor.invokeAny(tasks, timeout, unit);
+        return tasksExecutor.invokeAny(tasks, timeout, unit);
     }
 
     @Override
     public void execute(Runnable command) {
-        scheduledTasksExecutor.execute(command);
+        tasksExecutor.execute(command);
     }
 
     @Override
@@ -1,10 +1,13 @@
 package org.openremote.manager.datapoint;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
 import org.hibernate.Session;
 import org.hibernate.exception.ConstraintViolationException;
 import org.hibernate.jdbc.AbstractReturningWork;
 import org.openremote.container.Container;
 import org.openremote.container.ContainerService;
+import org.openremote.container.metrics.MetricsService;
 import org.openremote.container.persistence.PersistenceService;
 import org.openremote.container.timer.TimerService;
 import org.openremote.container.util.MapAccess;
@@ -17,6 +20,7 @@ import org.openremote.manager.security.ManagerIdentityService;
 import org.openremote.manager.web.ManagerWebService;
 import org.openremote.model.asset.Asset;
 import org.openremote.model.asset.AssetAttribute;
+import org.openremote.model.attribute.AttributeEvent;
 import org.openremote.model.attribute.AttributeEvent.Source;
 import org.openremote.model.attribute.AttributeRef;
 import org.openremote.model.attribute.MetaItemType;
@@ -26,6 +30,7 @@ import org.openremote.model.datapoint.ValueDatapoint;
 import org.openremote.model.query.AssetQuery;
 import org.openremote.model.query.filter.MetaPredicate;
 import org.openremote.model.value.Value;
+import org.openremote.model.value.ValueJsonCodec;
 import org.openremote.model.value.ValueType;
 import org.openremote.model.value.Values;
 import org.postgresql.util.PGInterval;
@@ -42,6 +47,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -63,6 +70,13 @@ public class AssetDatapointService implements ContainerService, AssetUpdateProce
     public static final int DATA_POINTS_MAX_AGE_DAYS_DEFAULT = 31;
     private static final Logger LOG = Logger.getLogger(AssetDatapointService.class.getName());
     public static final int PRIORITY = AssetStorageService.PRIORITY + 100;
+    protected static final String UPSERT_DATAPOINT_SQL = "INSERT INTO asset_datapoint (entity_id, attribute_name, value, timestamp) \n" +
+        "VALUES (?, ?, ?, ?)\n" +
+        "ON CONFLICT (entity_id, attribute_name, timestamp) DO UPDATE \n" +
+        "  SET value = excluded.value";
+    protected static final Timer DATAPOINT_INSERT_TIMER = MetricsService.timer("or.datapoint.insert", "Time to insert or update an asset datapoint");
+    protected static final Timer DATAPOINT_BATCH_INSERT_TIMER = MetricsService.timer("or.datapoint.insert.batch", "Time to insert or update a batch of asset datapoints");
+    protected static final Counter DATAPOINT_BATCH_INSERT_COUNTER = MetricsService.counter("or.datapoint.insert.batch.datapoints", "Asset datapoints inserted or updated in batches");
     protected PersistenceService persistenceService;
     protected AssetStorageService assetStorageService;
     protected TimerService timerService;
@@ -132,16 +146,14 @@ public class AssetDatapointService implements ContainerService, AssetUpdateProce
             PGobject pgJsonValue = new PGobject();
             pgJsonValue.setType("jsonb");
             try {
-                pgJsonValue.setValue(attribute.getValue().map(Value::toJson).orElse(null));
+                pgJsonValue.setValue(attribute.getValue().map(ValueJsonCodec::write).orElse(null));
             } catch (SQLException e) {
                 throw new AssetProcessingException(AssetProcessingException.Reason.STATE_STORAGE_FAILED, "Failed to insert or update asset data point for attribute: " + attribute);
             }
 
+            long startNanos = System.nanoTime();
             em.unwrap(Session.class).doWork(connection -> {
-                PreparedStatement st = connection.prepareStatement("INSERT INTO asset_datapoint (entity_id, attribute_name, value, timestamp) \n" +
-                    "VALUES (?, ?, ?, ?)\n" +
-                    "ON CONFLICT (entity_id, attribute_name, timestamp) DO UPDATE \n" +
-                    "  SET value = excluded.value");
+                PreparedStatement st = connection.prepareStatement(UPSERT_DATAPOINT_SQL);
 
                 st.setString(1, asset.getId());
                 st.setString(2, attribute.name);
@@ -149,10 +161,48 @@ public class AssetDatapointService implements ContainerService, AssetUpdateProce
                 st.setTimestamp(4, attribute.getValueTimestamp().map(java.sql.Timestamp::new).orElse(null));
                 st.executeUpdate();
             });
+            DATAPOINT_INSERT_TIMER.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
         }
         return false;
     }
 
+    /**
+     * Stores historical attribute values as datapoints without touching the current attribute state (e.g. values an
+     * edge gateway recorded whilst it was disconnected); the caller must check that the attributes store datapoints.
+     */
+    public void storeDatapoints(List<AttributeEvent> attributeEvents) {
+        if (attributeEvents.isEmpty()) {
+            return;
+        }
+
+        long startNanos = System.nanoTime();
+        AtomicInteger count = new AtomicInteger();
+
+        persistenceService.doTransaction(em -> em.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement st = connection.prepareStatement(UPSERT_DATAPOINT_SQL)) {
+                for (AttributeEvent attributeEvent : attributeEvents) {
+                    if (!attributeEvent.getValue().isPresent()) {
+                        continue;
+                    }
+                    PGobject pgJsonValue = new PGobject();
+                    pgJsonValue.setType("jsonb");
+                    pgJsonValue.setValue(ValueJsonCodec.write(attributeEvent.getValue().get()));
+                    st.setString(1, attributeEvent.getEntityId());
+                    st.setString(2, attributeEvent.getAttributeName());
+                    st.setObject(3, pgJsonValue);
+                    st.setTimestamp(4, new java.sql.Timestamp(attributeEvent.getTimestamp()));
+                    st.addBatch();
+                    count.incrementAndGet();
+                }
+                st.executeBatch();
+            }
+        }));
+
+        // The batch is timed including its transaction, the counter gives the number of datapoints per batch
+        DATAPOINT_BATCH_INSERT_TIMER.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        DATAPOINT_BATCH_INSERT_COUNTER.increment(count.get());
+    }
+
     public List<AssetDatapoint> getDatapoints(AttributeRef attributeRef) {
         return persistenceService.doReturningTransaction(entityManager ->
                 entityManager.createQuery(
@@ -322,7 +372,8 @@ public class AssetDatapointService implements ContainerService, AssetUpdateProce
                             try (ResultSet rs = st.executeQuery()) {
                                 List<ValueDatapoint<?>> result = new ArrayList<>();
                                 while (rs.next()) {
-                                    Value value = rs.getObject(2) != null ? Values.parseOrNull(rs.getString(2)) : null;
+                                    String json = rs.getString(2);
+                                    Value value = json != null ? ValueJsonCodec.readOrNull(json) : null;
                                     result.add(new ValueDatapoint<>(rs.getTimestamp(1).getTime(), value));
                                 }
                                 return result.toArray(new ValueDatapoint[result.size()]);
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2020, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.manager.event;
+
+import org.openremote.container.Container;
+import org.openremote.model.event.TriggeredEventSubscription;
+import org.openremote.model.event.shared.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.openremote.model.event.shared.EventSubscription.SUBSCRIBED_MESSAGE_PREFIX;
+import static org.openremote.model.event.shared.EventSubscription.SUBSCRIBE_MESSAGE_PREFIX;
+
+/**
+ * Encodes and decodes the messages of the client event websocket as binary frames for sessions that requested
+ * {@link ClientEventService#WEBSOCKET_ENCODING_CBOR}: a frame is the same ASCII message prefix as the text protocol
+ * (e.g. <code>EVENT:</code>) followed by the CBOR encoding of the same object model, which saves formatting and
+ * parsing JSON text on both ends for high rate event streams.
+ */
+public class BinaryEventCodec {
+
+    protected static final int CBOR_MAJOR_TYPE_MASK = 0xE0;
+    protected static final int CBOR_MAJOR_TYPE_ARRAY = 0x80;
+
+    protected BinaryEventCodec() {
+    }
+
+    /**
+     * @return The binary frame or <code>null</code> if the object is not a message of the client event protocol.
+     */
+    public static byte[] encode(Object data) throws IOException {
+        String prefix;
+        if (data instanceof SharedEvent || data instanceof SharedEvent[]) {
+            prefix = SharedEvent.MESSAGE_PREFIX;
+        } else if (data instanceof TriggeredEventSubscription) {
+            prefix = TriggeredEventSubscription.MESSAGE_PREFIX;
+        } else if (data instanceof EventSubscription) {
+            prefix = ((EventSubscription<?>) data).isSubscribed() ? SUBSCRIBED_MESSAGE_PREFIX : SUBSCRIBE_MESSAGE_PREFIX;
+        } else if (data instanceof UnauthorizedEventSubscription) {
+            prefix = UnauthorizedEventSubscription.MESSAGE_PREFIX;
+        } else if (data instanceof EventRequestResponseWrapper) {
+            prefix = EventRequestResponseWrapper.MESSAGE_PREFIX;
+        } else {
+            return null;
+        }
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(256);
+        outputStream.write(prefix.getBytes(StandardCharsets.US_ASCII));
+        Container.CBOR.writeValue(outputStream, data);
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * @return The decoded message; a {@link SharedEvent}, an array of {@link SharedEvent}s, an
+     * {@link EventSubscription}, a {@link CancelEventSubscription} or an {@link EventRequestResponseWrapper}.
+     */
+    public static Object decode(byte[] frame) throws IOException {
+        if (startsWith(frame, SharedEvent.MESSAGE_PREFIX)) {
+            int offset = SharedEvent.MESSAGE_PREFIX.length();
+            boolean isArray = frame.length > offset && (frame[offset] & CBOR_MAJOR_TYPE_MASK) == CBOR_MAJOR_TYPE_ARRAY;
+            return read(frame, offset, isArray ? SharedEvent[].class : SharedEvent.class);
+        }
+        if (startsWith(frame, SUBSCRIBE_MESSAGE_PREFIX)) {
+            return read(frame, SUBSCRIBE_MESSAGE_PREFIX.length(), EventSubscription.class);
+        }
+        if (startsWith(frame, CancelEventSubscription.MESSAGE_PREFIX)) {
+            return read(frame, CancelEventSubscription.MESSAGE_PREFIX.length(), CancelEventSubscription.class);
+        }
+        if (startsWith(frame, EventRequestResponseWrapper.MESSAGE_PREFIX)) {
+            return read(frame, EventRequestResponseWrapper.MESSAGE_PREFIX.length(), EventRequestResponseWrapper.class);
+        }
+        throw new IOException("Unsupported binary message, unknown prefix");
+    }
+
+    protected static <T> T read(byte[] frame, int offset, Class<T> type) throws IOException {
+        return Container.CBOR.readValue(frame, offset, frame.length - offset, type);
+    }
+
+    protected static boolean startsWith(byte[] frame, String prefix) {
+        if (frame.length < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (frame[i] != (byte) prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -19,12 +19,15 @@
  */
 package org.openremote.manager.event;
 
+import io.micrometer.core.instrument.Timer;
 import org.apache.camel.Exchange;
 import org.apache.camel.builder.RouteBuilder;
 import org.keycloak.representations.idm.ClientRepresentation;
 import org.openremote.agent.protocol.ProtocolClientEventService;
 import org.openremote.container.Container;
 import org.openremote.container.message.MessageBrokerService;
+import org.openremote.container.message.MessageQueueFactory;
+import org.openremote.container.metrics.MetricsService;
 import org.openremote.container.security.AuthContext;
 import org.openremote.container.timer.TimerService;
 import org.openremote.container.web.ConnectionConstants;
@@ -42,8 +45,10 @@ import org.openremote.model.util.TextUtil;
 
 import javax.websocket.CloseReason;
 import javax.websocket.Session;
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -82,6 +87,11 @@ import static org.openremote.model.Constants.KEYCLOAK_CLIENT_ID;
  * The payload is a serialized representation of a subtype of {@link SharedEvent}. If the server
  * does not recognize the event, it is silently ignored.
  * </p></dd>
+ * <dt><code>EVENT:[...]</code></dt>
+ * <dd><p>
+ * The payload is an array of {@link SharedEvent}s, each is processed as if it was sent in its own
+ * <code>EVENT:{...}</code> message.
+ * </p></dd>
  * </dl>
  * <p>
  * The following messages can be published/returned by the server:
@@ -99,12 +109,17 @@ import static org.openremote.model.Constants.KEYCLOAK_CLIENT_ID;
  * The payload is an array of {@link SharedEvent}s.
  * </p></dd>
  * </dl>
+ * <p>
+ * A websocket client can open the session with the <code>encoding=cbor</code> request parameter, the server then
+ * sends all messages as binary frames of the same message discriminator followed by a CBOR instead of a JSON
+ * payload and the client may send binary frames in the same format (see {@link BinaryEventCodec}).
  */
 public class ClientEventService implements ProtocolClientEventService {
 
     protected static class SessionInfo {
         String connectionType;
         Runnable closeRunnable;
+        boolean binary;
 
         public SessionInfo(String connectionType, Runnable closeRunnable) {
             this.connectionType = connectionType;
@@ -114,13 +129,20 @@ public class ClientEventService implements ProtocolClientEventService {
 
     public static final int PRIORITY = ManagerWebService.PRIORITY - 200;
     private static final Logger LOG = Logger.getLogger(ClientEventService.class.getName());
+    protected static final Timer WEBSOCKET_SEND_TIMER = MetricsService.timer("or.websocket.send", "Time to encode and send a message to a websocket session");
     public static final String WEBSOCKET_EVENTS = "events";
     protected static final String INTERNAL_SESSION_KEY = "ClientEventServiceInternal";
+    protected static final String EVENT_ARRAY_MESSAGE_PREFIX = SharedEvent.MESSAGE_PREFIX + "[";
+    public static final String WEBSOCKET_ENCODING_REQUEST_PARAMETER = "encoding";
+    public static final String WEBSOCKET_ENCODING_CBOR = "cbor";
 
     // TODO: Some of these options should be configurable depending on expected load etc.
     public static final String CLIENT_EVENT_TOPIC = "seda://ClientEventTopic?multipleConsumers=true&concurrentConsumers=1&waitForTaskToComplete=NEVER&purgeWhenStopping=true&discardIfNoConsumers=true&limitConcurrentConsumers=false&size=1000";
 
-    public static final String CLIENT_EVENT_QUEUE = "seda://ClientEventQueue?multipleConsumers=false&waitForTaskToComplete=NEVER&purgeWhenStopping=true&discardIfNoConsumers=true&size=25000";
+    public static final String CLIENT_EVENT_QUEUE = "seda://ClientEventQueue?multipleConsumers=false&waitForTaskToComplete=NEVER&purgeWhenStopping=true&discardIfNoConsumers=true&size=25000&queueFactory=#" + MessageQueueFactory.NAME;
+
+    // Processes a single message of the client event queue, batches are split before
+    protected static final String CLIENT_EVENT_PROCESSING = "direct://ClientEventProcessing";
 
     final protected Collection<EventSubscriptionAuthorizer> eventSubscriptionAuthorizers = new CopyOnWriteArraySet<>();
     final protected Collection<Consumer<Exchange>> exchangeInterceptors = new CopyOnWriteArraySet<>();
@@ -186,6 +208,18 @@ public class ClientEventService implements ProtocolClientEventService {
                         })
                         .stop()
                     .end()
+                    .choice()
+                    .when(method(ClientEventService.this, "isEventBatch"))
+                        // Batched events are processed one at a time and in order
+                        .split(method(ClientEventService.this, "splitEventBatch"))
+                            .to(CLIENT_EVENT_PROCESSING)
+                        .endChoice()
+                    .otherwise()
+                        .to(CLIENT_EVENT_PROCESSING)
+                    .end();
+
+                from(CLIENT_EVENT_PROCESSING)
+                    .routeId("ClientEventProcessing")
                     .process(exchange -> {
 
                         // Do basic formatting of exchange
@@ -275,6 +309,47 @@ public class ClientEventService implements ProtocolClientEventService {
         pendingInternalSubscriptions = null;
     }
 
+    /**
+     * Returns <code>true</code> if the message may carry more than one event and must be split; single text messages
+     * aren't split so they don't pay for the splitter.
+     */
+    public boolean isEventBatch(Exchange exchange) {
+        Object body = exchange.getIn().getBody();
+        return body instanceof SharedEvent[]
+            || body instanceof byte[]
+            || (body instanceof String && ((String) body).startsWith(EVENT_ARRAY_MESSAGE_PREFIX));
+    }
+
+    /**
+     * Returns the events of a batched (event array) message, or otherwise the message body itself, so that the client
+     * event route can split the message. Binary frames are decoded first; a message that can't be decoded is logged
+     * and dropped (an empty list) so it doesn't fail the exchange of the session.
+     */
+    public List<Object> splitEventBatch(Exchange exchange) {
+        Object body = exchange.getIn().getBody();
+
+        try {
+            // Binary frames carry the decoded message object
+            if (body instanceof byte[]) {
+                body = BinaryEventCodec.decode((byte[]) body);
+            }
+
+            if (body instanceof SharedEvent[]) {
+                return Arrays.asList((Object[]) body);
+            }
+
+            if (body instanceof String && ((String) body).startsWith(EVENT_ARRAY_MESSAGE_PREFIX)) {
+                String bodyStr = (String) body;
+                return Arrays.asList((Object[]) Container.JSON.readValue(bodyStr.substring(SharedEvent.MESSAGE_PREFIX.length()), SharedEvent[].class));
+            }
+        } catch (IOException e) {
+            LOG.log(Level.INFO, "Dropping client event message that can't be decoded: Session=" + getSessionKey(exchange), e);
+            return Collections.emptyList();
+        }
+
+        return Collections.singletonList(body);
+    }
+
     /**
      * Make an internal subscription to {@link SharedEvent}s sent on the client event bus
      */
@@ -413,12 +488,25 @@ public class ClientEventService implements ProtocolClientEventService {
                 LOG.info("Cannot send to requested session it doesn't exist or is disconnected");
                 return;
             }
+            long startNanos = System.nanoTime();
             if (sessionInfo.connectionType.equals(HEADER_CONNECTION_TYPE_WEBSOCKET)) {
+                if (sessionInfo.binary) {
+                    try {
+                        byte[] frame = BinaryEventCodec.encode(data);
+                        if (frame != null) {
+                            data = frame;
+                        }
+                    } catch (Exception e) {
+                        LOG.log(Level.WARNING, "Failed to encode binary message for session '" + sessionKey + "': " + data, e);
+                        return;
+                    }
+                }
                 messageBrokerService.getProducerTemplate().sendBodyAndHeader(
                         "websocket://" + WEBSOCKET_EVENTS,
                         data,
                         ConnectionConstants.SESSION_KEY, sessionKey
                 );
+                WEBSOCKET_SEND_TIMER.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
             } else if (sessionInfo.connectionType.equals(HEADER_CONNECTION_TYPE_MQTT)) {
                 messageBrokerService.getProducerTemplate().sendBodyAndHeader(
                         MqttBrokerService.MQTT_CLIENT_QUEUE,
@@ -473,6 +561,16 @@ public class ClientEventService implements ProtocolClientEventService {
                     LOG.log(Level.INFO, "Failed to close client session: " + sessionKey);
                 }
             };
+
+            SessionInfo sessionInfo = new SessionInfo(connectionType, closeRunnable);
+            List<String> encoding = session != null && session.getRequestParameterMap() != null
+                ? session.getRequestParameterMap().get(WEBSOCKET_ENCODING_REQUEST_PARAMETER)
+                : null;
+            sessionInfo.binary = encoding != null && encoding.contains(WEBSOCKET_ENCODING_CBOR);
+            if (sessionInfo.binary) {
+                LOG.fine("Client session uses binary encoding: " + sessionKey);
+            }
+            return sessionInfo;
         }
 
         return new SessionInfo(connectionType, closeRunnable);
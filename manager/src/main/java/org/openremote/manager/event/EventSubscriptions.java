@@ -19,9 +19,12 @@
  */
 package org.openremote.manager.event;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
 import org.apache.camel.Exchange;
 import org.apache.camel.Message;
 import org.apache.camel.impl.DefaultMessage;
+import org.openremote.container.metrics.MetricsService;
 import org.openremote.container.timer.TimerService;
 import org.openremote.container.web.ConnectionConstants;
 import org.openremote.model.event.TriggeredEventSubscription;
@@ -31,6 +34,7 @@ import org.openremote.model.event.shared.SharedEvent;
 import org.openremote.model.util.TextUtil;
 
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 import static org.openremote.manager.event.ClientEventService.HEADER_ACCESS_RESTRICTED;
@@ -41,6 +45,8 @@ import static org.openremote.manager.event.ClientEventService.HEADER_ACCESS_REST
 public class EventSubscriptions {
 
     private static final Logger LOG = Logger.getLogger(EventSubscriptions.class.getName());
+    protected static final Timer FANOUT_TIMER = MetricsService.timer("or.subscription.fanout", "Time to match an event against all session subscriptions");
+    protected static final Counter FANOUT_MESSAGES_COUNTER = MetricsService.counter("or.subscription.fanout.messages", "Messages created for subscribed sessions");
 
     final protected TimerService timerService;
     final protected Map<String, SessionSubscriptions> sessionSubscriptionIdMap = new HashMap<>();
@@ -172,6 +178,7 @@ public class EventSubscriptions {
         if (event == null)
             return messageList;
 
+        long startNanos = System.nanoTime();
         boolean accessibleForRestrictedUsers = exchange.getIn().getHeader(HEADER_ACCESS_RESTRICTED, false, Boolean.class);
 
         Set<Map.Entry<String, SessionSubscriptions>> sessionSubscriptionsSet;
@@ -209,6 +216,8 @@ public class EventSubscriptions {
                 }
             }
         }
+        FANOUT_TIMER.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        FANOUT_MESSAGES_COUNTER.increment(messageList.size());
         return messageList;
     }
 }
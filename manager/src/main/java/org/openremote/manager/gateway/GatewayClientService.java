@@ -31,6 +31,7 @@ import org.openremote.container.message.MessageBrokerService;
 import org.openremote.container.persistence.PersistenceEvent;
 import org.openremote.container.persistence.PersistenceService;
 import org.openremote.container.timer.TimerService;
+import org.openremote.container.util.MapAccess;
 import org.openremote.manager.asset.AssetProcessingService;
 import org.openremote.manager.asset.AssetStorageService;
 import org.openremote.manager.concurrent.ManagerExecutorService;
@@ -44,14 +45,20 @@ import org.openremote.model.event.shared.EventRequestResponseWrapper;
 import org.openremote.model.event.shared.EventSubscription;
 import org.openremote.model.event.shared.SharedEvent;
 import org.openremote.model.event.shared.TenantFilter;
+import org.openremote.model.gateway.GatewayCapabilitiesEvent;
 import org.openremote.model.gateway.GatewayConnection;
 import org.openremote.model.gateway.GatewayConnectionStatusEvent;
 import org.openremote.model.gateway.GatewayDisconnectEvent;
+import org.openremote.model.gateway.GatewayReplayEvent;
 import org.openremote.model.query.AssetQuery;
 import org.openremote.model.query.filter.TenantPredicate;
 import org.openremote.model.syslog.SyslogCategory;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -61,13 +68,26 @@ import static org.openremote.container.persistence.PersistenceEvent.isPersistenc
 import static org.openremote.model.syslog.SyslogCategory.GATEWAY;
 
 /**
- * Handles outbound connections to central managers
+ * Handles outbound connections to central managers.
+ * <p>
+ * Whilst a connection is not available the {@link AttributeEvent}s of its realm are recorded in a
+ * {@link GatewayEventJournal} in {@link #GATEWAY_JOURNAL_PATH}; once reconnected, and if the central manager supports
+ * it, these are replayed in order at {@link #GATEWAY_JOURNAL_REPLAY_RATE} events per second as
+ * {@link GatewayReplayEvent}s so the central manager can fill in the historical datapoints.
  */
 public class GatewayClientService extends RouteBuilder implements ContainerService {
 
     public static final int PRIORITY = ManagerWebService.PRIORITY - 300;
     private static final Logger LOG = SyslogCategory.getLogger(GATEWAY, GatewayClientService.class.getName());
     public static final String CLIENT_EVENT_SESSION_PREFIX = GatewayClientService.class.getSimpleName() + ":";
+    public static final String GATEWAY_JOURNAL_PATH = "GATEWAY_JOURNAL_PATH";
+    public static final String GATEWAY_JOURNAL_PATH_DEFAULT = "deployment/build/gateway/journal";
+    public static final String GATEWAY_JOURNAL_MAX_SIZE_MB = "GATEWAY_JOURNAL_MAX_SIZE_MB";
+    public static final int GATEWAY_JOURNAL_MAX_SIZE_MB_DEFAULT = 64; // 0 disables the journal
+    public static final String GATEWAY_JOURNAL_RETENTION_HOURS = "GATEWAY_JOURNAL_RETENTION_HOURS";
+    public static final int GATEWAY_JOURNAL_RETENTION_HOURS_DEFAULT = 72;
+    public static final String GATEWAY_JOURNAL_REPLAY_RATE = "GATEWAY_JOURNAL_REPLAY_RATE";
+    public static final int GATEWAY_JOURNAL_REPLAY_RATE_DEFAULT = 500; // Events per second
     protected AssetStorageService assetStorageService;
     protected AssetProcessingService assetProcessingService;
     protected PersistenceService persistenceService;
@@ -77,6 +97,13 @@ public class GatewayClientService extends RouteBuilder implements ContainerServi
     protected ManagerIdentityService identityService;
     protected final Map<String, GatewayConnection> connectionRealmMap = new HashMap<>();
     protected final Map<String, WebsocketIoClient<String>> clientRealmMap = new HashMap<>();
+    protected final Map<String, GatewayEventBatcher> eventBatcherRealmMap = new HashMap<>();
+    protected final Map<String, GatewayEventJournal> journalRealmMap = new HashMap<>();
+    protected final Map<String, ScheduledFuture<?>> journalReplayRealmMap = new HashMap<>();
+    protected Path journalPath;
+    protected int journalMaxSizeMb;
+    protected long journalRetentionMillis;
+    protected int journalReplayRate;
 
     @Override
     public int getPriority() {
@@ -93,6 +120,11 @@ public class GatewayClientService extends RouteBuilder implements ContainerServi
         executorService = container.getService(ManagerExecutorService.class);
         identityService = container.getService(ManagerIdentityService.class);
 
+        journalPath = Paths.get(MapAccess.getString(container.getConfig(), GATEWAY_JOURNAL_PATH, GATEWAY_JOURNAL_PATH_DEFAULT));
+        journalMaxSizeMb = MapAccess.getInteger(container.getConfig(), GATEWAY_JOURNAL_MAX_SIZE_MB, GATEWAY_JOURNAL_MAX_SIZE_MB_DEFAULT);
+        journalRetentionMillis = TimeUnit.HOURS.toMillis(MapAccess.getInteger(container.getConfig(), GATEWAY_JOURNAL_RETENTION_HOURS, GATEWAY_JOURNAL_RETENTION_HOURS_DEFAULT));
+        journalReplayRate = Math.max(1, MapAccess.getInteger(container.getConfig(), GATEWAY_JOURNAL_REPLAY_RATE, GATEWAY_JOURNAL_REPLAY_RATE_DEFAULT));
+
         container.getService(ManagerWebService.class).getApiSingletons().add(
             new GatewayClientResourceImpl(timerService, identityService, this)
         );
@@ -141,6 +173,11 @@ public class GatewayClientService extends RouteBuilder implements ContainerServi
         });
         clientRealmMap.clear();
         connectionRealmMap.clear();
+
+        synchronized (clientRealmMap) {
+            journalRealmMap.values().forEach(GatewayEventJournal::flush);
+            journalRealmMap.clear();
+        }
     }
 
     @Override
@@ -202,7 +239,9 @@ public class GatewayClientService extends RouteBuilder implements ContainerServi
                     .setHost(connection.getHost())
                     .setPort(connection.getPort() == null ? -1 : connection.getPort())
                 .setPath("websocket/events")
-                .setParameter("Auth-Realm", connection.getRealm()).build(),
+                .setParameter("Auth-Realm", connection.getRealm())
+                .setParameter(GatewayService.EVENT_BATCHING_REQUEST_PARAMETER, "true")
+                .setParameter(GatewayService.EVENT_REPLAY_REQUEST_PARAMETER, "true").build(),
                 null,
                 new OAuthClientCredentialsGrant(
                     new URIBuilder()
@@ -226,20 +265,22 @@ public class GatewayClientService extends RouteBuilder implements ContainerServi
 
             client.addMessageConsumer(message -> onCentralManagerMessage(connection, message));
 
+            createJournal(connection.getLocalRealm());
+
             // Subscribe to Asset and attribute events of local realm and pass through to connected manager
             clientEventService.addInternalSubscription(
                 getClientSessionKey(connection)+"Asset",
                 AssetEvent.class,
                 new AssetFilter<AssetEvent>().setRealm(connection.getLocalRealm()),
                 assetEvent ->
-                    sendCentralManagerMessage(connection.getLocalRealm(), messageToString(SharedEvent.MESSAGE_PREFIX, assetEvent)));
+                    sendCentralManagerEvent(connection.getLocalRealm(), assetEvent));
 
             clientEventService.addInternalSubscription(
                 getClientSessionKey(connection)+"Attribute",
                 AttributeEvent.class,
                 new AssetFilter<AttributeEvent>().setRealm(connection.getLocalRealm()),
                 attributeEvent ->
-                    sendCentralManagerMessage(connection.getLocalRealm(), messageToString(SharedEvent.MESSAGE_PREFIX, attributeEvent)));
+                    sendCentralManagerEvent(connection.getLocalRealm(), attributeEvent));
 
             client.connect();
             return client;
@@ -258,6 +299,10 @@ public class GatewayClientService extends RouteBuilder implements ContainerServi
             return;
         }
         LOG.info("Destroying gateway IO client: " + connection);
+        if (connection != null) {
+            stopEventBatcher(connection.getLocalRealm());
+            stopJournalReplay(connection.getLocalRealm());
+        }
         try {
             client.disconnect();
             client.removeAllConnectionStatusConsumers();
@@ -274,6 +319,11 @@ public class GatewayClientService extends RouteBuilder implements ContainerServi
 
     protected void onGatewayClientConnectionStatusChanged(GatewayConnection connection, ConnectionStatus connectionStatus) {
         LOG.info("Connection status change for gateway IO client '" + connectionStatus + "': " + connection);
+        if (connectionStatus != ConnectionStatus.CONNECTED) {
+            // Batching must be agreed again with the central manager on every new connection
+            stopEventBatcher(connection.getLocalRealm());
+            stopJournalReplay(connection.getLocalRealm());
+        }
         clientEventService.publishEvent(new GatewayConnectionStatusEvent(timerService.getCurrentTimeMillis(), connection.getLocalRealm(), connectionStatus));
     }
 
@@ -281,6 +331,14 @@ public class GatewayClientService extends RouteBuilder implements ContainerServi
         String messageId = null;
         SharedEvent event = null;
 
+        if (message.startsWith(SharedEvent.MESSAGE_PREFIX + "[")) {
+            SharedEvent[] events = messageFromString(message, SharedEvent.MESSAGE_PREFIX, SharedEvent[].class);
+            for (SharedEvent batchedEvent : events) {
+                onCentralManagerEvent(connection, null, batchedEvent);
+            }
+            return;
+        }
+
         if (message.startsWith(EventRequestResponseWrapper.MESSAGE_PREFIX)) {
             EventRequestResponseWrapper<?> wrapper = messageFromString(
                 message,
@@ -295,74 +353,256 @@ public class GatewayClientService extends RouteBuilder implements ContainerServi
         }
 
         if (event != null) {
-            if (event instanceof GatewayDisconnectEvent) {
-                if (((GatewayDisconnectEvent)event).getReason() == GatewayDisconnectEvent.Reason.PERMANENT_ERROR) {
-                    LOG.info("Central manager requested disconnect due to permanent error (likely this version of the edge gateway software is not compatible with that manager version)");
-                    destroyGatewayClient(connection, clientRealmMap.get(connection.getLocalRealm()));
-                    clientRealmMap.put(connection.getLocalRealm(), null);
-                }
-            } else if (event instanceof AttributeEvent) {
-                assetProcessingService.sendAttributeEvent((AttributeEvent)event, AttributeEvent.Source.INTERNAL);
-            } else if (event instanceof AssetEvent) {
-                AssetEvent assetEvent = (AssetEvent)event;
-                if (assetEvent.getCause() == AssetEvent.Cause.CREATE || assetEvent.getCause() == AssetEvent.Cause.UPDATE) {
-                    Asset asset = assetEvent.getAsset();
-                    asset.setRealm(connection.getLocalRealm());
-                    LOG.fine("Request from central manager to create/update an asset: Realm=" + connection.getLocalRealm() + ", Asset ID=" + asset.getId());
-                    try {
-                        asset = assetStorageService.merge(asset, true);
-                    } catch (Exception e) {
-                        LOG.log(Level.INFO, "Request from central manager to create/update an asset failed: Realm=" + connection.getLocalRealm() + ", Asset ID=" + asset.getId(), e);
-                    }
+            onCentralManagerEvent(connection, messageId, event);
+        }
+    }
+
+    protected void onCentralManagerEvent(GatewayConnection connection, String messageId, SharedEvent event) {
+        if (event instanceof GatewayCapabilitiesEvent) {
+            if (((GatewayCapabilitiesEvent)event).isEventReplay()) {
+                startJournalReplay(connection.getLocalRealm());
+            }
+            if (((GatewayCapabilitiesEvent)event).isEventBatching()) {
+                LOG.fine("Central manager agreed to event batching: Realm=" + connection.getLocalRealm());
+                synchronized (clientRealmMap) {
+                    eventBatcherRealmMap.computeIfAbsent(
+                        connection.getLocalRealm(),
+                        realm -> new GatewayEventBatcher(
+                            executorService,
+                            events -> sendCentralManagerEventBatch(realm, events)));
                 }
-            } else if (event instanceof DeleteAssetsRequestEvent) {
-                DeleteAssetsRequestEvent deleteRequest = (DeleteAssetsRequestEvent)event;
-                LOG.fine("Request from central manager to delete asset(s): Realm=" + connection.getLocalRealm() + ", Asset IDs=" + Arrays.toString(deleteRequest.getAssetIds().toArray()));
-                boolean success = false;
+            }
+        } else if (event instanceof GatewayDisconnectEvent) {
+            if (((GatewayDisconnectEvent)event).getReason() == GatewayDisconnectEvent.Reason.PERMANENT_ERROR) {
+                LOG.info("Central manager requested disconnect due to permanent error (likely this version of the edge gateway software is not compatible with that manager version)");
+                destroyGatewayClient(connection, clientRealmMap.get(connection.getLocalRealm()));
+                clientRealmMap.put(connection.getLocalRealm(), null);
+            }
+        } else if (event instanceof AttributeEvent) {
+            assetProcessingService.sendAttributeEvent((AttributeEvent)event, AttributeEvent.Source.INTERNAL);
+        } else if (event instanceof AssetEvent) {
+            AssetEvent assetEvent = (AssetEvent)event;
+            if (assetEvent.getCause() == AssetEvent.Cause.CREATE || assetEvent.getCause() == AssetEvent.Cause.UPDATE) {
+                Asset asset = assetEvent.getAsset();
+                asset.setRealm(connection.getLocalRealm());
+                LOG.fine("Request from central manager to create/update an asset: Realm=" + connection.getLocalRealm() + ", Asset ID=" + asset.getId());
                 try {
-                    success = assetStorageService.delete(deleteRequest.getAssetIds());
+                    asset = assetStorageService.merge(asset, true);
                 } catch (Exception e) {
-                    LOG.log(Level.INFO, "Request from central manager to create/update an asset failed: Realm=" + connection.getLocalRealm() + ", Asset IDs=" + Arrays.toString(deleteRequest.getAssetIds().toArray()), e);
-                } finally {
-                    sendCentralManagerMessage(
-                        connection.getLocalRealm(),
-                        messageToString(
-                            EventRequestResponseWrapper.MESSAGE_PREFIX,
-                            new EventRequestResponseWrapper<>(
-                                messageId,
-                                new DeleteAssetsResponseEvent(success, deleteRequest.getAssetIds())
-                            )
-                    ));
+                    LOG.log(Level.INFO, "Request from central manager to create/update an asset failed: Realm=" + connection.getLocalRealm() + ", Asset ID=" + asset.getId(), e);
                 }
-            } else if (event instanceof ReadAssetsEvent) {
-                ReadAssetsEvent readAssets = (ReadAssetsEvent)event;
-                AssetQuery query = readAssets.getAssetQuery();
-                // Force realm to be the one that this client is associated with
-                query.tenant(new TenantPredicate(connection.getLocalRealm()));
-                List<Asset> assets = assetStorageService.findAll(readAssets.getAssetQuery());
-
+            }
+        } else if (event instanceof DeleteAssetsRequestEvent) {
+            DeleteAssetsRequestEvent deleteRequest = (DeleteAssetsRequestEvent)event;
+            LOG.fine("Request from central manager to delete asset(s): Realm=" + connection.getLocalRealm() + ", Asset IDs=" + Arrays.toString(deleteRequest.getAssetIds().toArray()));
+            boolean success = false;
+            try {
+                success = assetStorageService.delete(deleteRequest.getAssetIds());
+            } catch (Exception e) {
+                LOG.log(Level.INFO, "Request from central manager to create/update an asset failed: Realm=" + connection.getLocalRealm() + ", Asset IDs=" + Arrays.toString(deleteRequest.getAssetIds().toArray()), e);
+            } finally {
                 sendCentralManagerMessage(
                     connection.getLocalRealm(),
                     messageToString(
                         EventRequestResponseWrapper.MESSAGE_PREFIX,
                         new EventRequestResponseWrapper<>(
                             messageId,
-                            new AssetsEvent(assets)
-                        )));
+                            new DeleteAssetsResponseEvent(success, deleteRequest.getAssetIds())
+                        )
+                ));
+            }
+        } else if (event instanceof ReadAssetsEvent) {
+            ReadAssetsEvent readAssets = (ReadAssetsEvent)event;
+            AssetQuery query = readAssets.getAssetQuery();
+            // Force realm to be the one that this client is associated with
+            query.tenant(new TenantPredicate(connection.getLocalRealm()));
+            List<Asset> assets = assetStorageService.findAll(readAssets.getAssetQuery());
+
+            sendCentralManagerMessage(
+                connection.getLocalRealm(),
+                messageToString(
+                    EventRequestResponseWrapper.MESSAGE_PREFIX,
+                    new EventRequestResponseWrapper<>(
+                        messageId,
+                        new AssetsEvent(assets)
+                    )));
+        }
+    }
+
+    /**
+     * Sends the event to the central manager; attribute events are batched if this has been agreed with the central
+     * manager, any other event flushes pending attribute events first so the order of events is preserved.
+     */
+    protected void sendCentralManagerEvent(String realm, SharedEvent event) {
+        GatewayEventBatcher eventBatcher;
+        WebsocketIoClient<String> client;
+        GatewayEventJournal journal;
+
+        synchronized (clientRealmMap) {
+            eventBatcher = eventBatcherRealmMap.get(realm);
+            client = clientRealmMap.get(realm);
+            journal = journalRealmMap.get(realm);
+        }
+
+        if (event instanceof AttributeEvent && client != null && journal != null && client.getConnectionStatus() != ConnectionStatus.CONNECTED) {
+            journal.append(((AttributeEvent) event).getTimestamp(), messageToString("", event));
+            return;
+        }
+
+        if (eventBatcher != null) {
+            if (event instanceof AttributeEvent) {
+                eventBatcher.add(event);
+                return;
+            }
+            eventBatcher.flush();
+        }
+
+        sendCentralManagerMessage(realm, messageToString(SharedEvent.MESSAGE_PREFIX, event));
+    }
+
+    /**
+     * Sends a batch of attribute events to the central manager; if the connection has dropped in the meantime the
+     * events are recorded in the journal (if any) so they are replayed once reconnected.
+     */
+    protected void sendCentralManagerEventBatch(String realm, SharedEvent[] events) {
+        if (sendCentralManagerMessage(realm, messageToString(SharedEvent.MESSAGE_PREFIX, events))) {
+            return;
+        }
+
+        GatewayEventJournal journal;
+
+        synchronized (clientRealmMap) {
+            journal = journalRealmMap.get(realm);
+        }
+
+        if (journal == null) {
+            LOG.info("Central manager connection lost so dropping gateway event batch: Realm=" + realm + ", Size=" + events.length);
+            return;
+        }
+
+        LOG.fine("Central manager connection lost so recording gateway event batch in journal: Realm=" + realm + ", Size=" + events.length);
+        for (SharedEvent event : events) {
+            if (event instanceof AttributeEvent) {
+                journal.append(((AttributeEvent) event).getTimestamp(), messageToString("", event));
+            }
+        }
+    }
+
+    /**
+     * Stops the batcher of the realm; pending events are still passed to {@link #sendCentralManagerEventBatch} so they
+     * end up in the journal if the connection has already dropped.
+     */
+    protected void stopEventBatcher(String realm) {
+        GatewayEventBatcher eventBatcher;
+
+        synchronized (clientRealmMap) {
+            eventBatcher = eventBatcherRealmMap.remove(realm);
+        }
+
+        if (eventBatcher != null) {
+            eventBatcher.stop();
+        }
+    }
+
+    protected void createJournal(String realm) {
+        if (journalMaxSizeMb <= 0) {
+            return;
+        }
+
+        synchronized (clientRealmMap) {
+            if (journalRealmMap.containsKey(realm)) {
+                return;
+            }
+            try {
+                journalRealmMap.put(realm, new GatewayEventJournal(journalPath.resolve(realm), journalMaxSizeMb * 1024L * 1024L));
+            } catch (Exception e) {
+                LOG.log(Level.WARNING, "Failed to create gateway event journal so events will not be recorded whilst disconnected: Realm=" + realm, e);
             }
         }
     }
 
-    protected void sendCentralManagerMessage(String realm, String message) {
+    protected void startJournalReplay(String realm) {
+        GatewayEventJournal journal;
+
+        synchronized (clientRealmMap) {
+            journal = journalRealmMap.get(realm);
+            if (journal == null || journalReplayRealmMap.containsKey(realm)) {
+                return;
+            }
+            if (journal.isEmpty()) {
+                return;
+            }
+
+            LOG.info("Replaying gateway event journal to central manager: Realm=" + realm + ", Rate=" + journalReplayRate + "/s");
+            long startMillis = timerService.getCurrentTimeMillis();
+            long startCount = journal.getReadCount();
+            // Replay a second's worth of events at a time, in batches that fit into a single message
+            journalReplayRealmMap.put(realm, executorService.scheduleWithFixedDelay(() -> {
+                List<String> messages = journal.peek(journalReplayRate, timerService.getCurrentTimeMillis() - journalRetentionMillis);
+
+                List<AttributeEvent> events = new ArrayList<>(messages.size());
+                for (String message : messages) {
+                    try {
+                        events.add(messageFromString(message, "", AttributeEvent.class));
+                    } catch (IllegalArgumentException e) {
+                        LOG.warning("Skipping unreadable gateway event journal record: Realm=" + realm);
+                    }
+                }
+
+                for (int i = 0; i < events.size(); i += GatewayEventBatcher.EVENT_BATCH_MAX_SIZE) {
+                    List<AttributeEvent> batch = events.subList(i, Math.min(events.size(), i + GatewayEventBatcher.EVENT_BATCH_MAX_SIZE));
+                    boolean sent = sendCentralManagerMessage(
+                        realm,
+                        messageToString(SharedEvent.MESSAGE_PREFIX, new GatewayReplayEvent(batch.toArray(new AttributeEvent[0]))));
+
+                    if (!sent) {
+                        // Leave the records in the journal, the replay starts again once reconnected; batches already
+                        // sent are replayed again but storing a datapoint is idempotent
+                        LOG.info("Central manager connection lost so pausing gateway event journal replay: Realm=" + realm);
+                        stopJournalReplay(realm);
+                        return;
+                    }
+                }
+
+                journal.commit();
+
+                if (messages.size() < journalReplayRate) {
+                    long replayed = journal.getReadCount() - startCount;
+                    long durationMillis = Math.max(1, timerService.getCurrentTimeMillis() - startMillis);
+                    LOG.info("Finished replaying gateway event journal: Realm=" + realm + ", Replayed=" + replayed
+                        + ", Duration=" + durationMillis + "ms, Throughput=" + (replayed * 1000 / durationMillis) + "/s, Journal=" + journal);
+                    stopJournalReplay(realm);
+                }
+            }, 0, 1000));
+        }
+    }
+
+    protected void stopJournalReplay(String realm) {
+        synchronized (clientRealmMap) {
+            ScheduledFuture<?> replayFuture = journalReplayRealmMap.remove(realm);
+            if (replayFuture != null) {
+                replayFuture.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Sends the message to the central manager; returns <code>false</code> if the client isn't connected so the
+     * message could not be sent.
+     */
+    protected boolean sendCentralManagerMessage(String realm, String message) {
         WebsocketIoClient<String> client;
 
         synchronized (clientRealmMap) {
             client = clientRealmMap.get(realm);
         }
 
-        if (client != null) {
-            client.sendMessage(message);
+        if (client == null || client.getConnectionStatus() != ConnectionStatus.CONNECTED) {
+            return false;
         }
+
+        client.sendMessage(message);
+        return client.getConnectionStatus() == ConnectionStatus.CONNECTED;
     }
 
     protected String getClientSessionKey(GatewayConnection connection) {
@@ -23,18 +23,23 @@ import org.openremote.container.util.UniqueIdentifierGenerator;
 import org.openremote.manager.asset.AssetProcessingService;
 import org.openremote.manager.asset.AssetStorageService;
 import org.openremote.manager.concurrent.ManagerExecutorService;
+import org.openremote.manager.datapoint.AssetDatapointService;
+import org.openremote.model.AbstractValueTimestampHolder;
 import org.openremote.model.asset.*;
 import org.openremote.model.asset.agent.ConnectionStatus;
 import org.openremote.model.attribute.AttributeEvent;
 import org.openremote.model.event.shared.EventRequestResponseWrapper;
 import org.openremote.model.event.shared.SharedEvent;
 import org.openremote.model.gateway.GatewayDisconnectEvent;
+import org.openremote.model.gateway.GatewayReplayEvent;
 import org.openremote.model.query.AssetQuery;
 import org.openremote.model.syslog.SyslogCategory;
 import org.openremote.model.util.Pair;
+import org.openremote.model.value.ObjectValue;
 import org.openremote.model.value.Values;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
@@ -68,16 +73,25 @@ public class GatewayConnector {
     protected final AssetStorageService assetStorageService;
     protected final ManagerExecutorService executorService;
     protected final AssetProcessingService assetProcessingService;
+    protected final AssetDatapointService assetDatapointService;
     protected final Map<String, Asset> pendingAssetMerges = new HashMap<>();
     protected final AtomicReference<EventRequestResponseWrapper<DeleteAssetsRequestEvent>> pendingAssetDelete = new AtomicReference<>();
+    /**
+     * Sync fingerprint (see {@link #getAssetSyncFingerprint}) of each gateway asset (original gateway asset ID) as
+     * it was last stored locally; this outlives a disconnect so that a reconnect only has to re-read changed assets.
+     * It is updated by the sync and by gateway events which run on different threads.
+     */
+    protected final Map<String, Long> syncedAssetFingerprints = new ConcurrentHashMap<>();
     protected List<AssetEvent> cachedAssetEvents;
     protected List<AttributeEvent> cachedAttributeEvents;
+    protected List<GatewayReplayEvent> cachedReplayEvents;
     protected Consumer<Object> gatewayMessageConsumer;
     protected Runnable disconnectRunnable;
     protected boolean disabled;
     protected boolean initialSyncInProgress;
     protected ScheduledFuture<?> syncProcessorFuture;
     List<String> syncAssetIds;
+    List<String> syncRequiredAssetIds;
     int syncIndex;
     int syncErrors;
     Asset gateway;
@@ -124,11 +138,13 @@ public class GatewayConnector {
     public GatewayConnector(
         AssetStorageService assetStorageService,
         AssetProcessingService assetProcessingService,
+        AssetDatapointService assetDatapointService,
         ManagerExecutorService executorService,
         Asset gateway) {
 
         this.assetStorageService = assetStorageService;
         this.assetProcessingService = assetProcessingService;
+        this.assetDatapointService = assetDatapointService;
         this.executorService = executorService;
         boolean disabled = gateway.getAttribute("disabled").flatMap(AssetAttribute::getValueAsBoolean).orElse(false);
         this.realm = gateway.getRealm();
@@ -165,7 +181,9 @@ public class GatewayConnector {
         syncProcessorFuture = null;
         cachedAssetEvents = new ArrayList<>();
         cachedAttributeEvents = new ArrayList<>();
+        cachedReplayEvents = new ArrayList<>();
         syncAssetIds = null;
+        syncRequiredAssetIds = null;
         syncIndex = 0;
         syncErrors = 0;
 
@@ -228,6 +246,8 @@ public class GatewayConnector {
             if (isConnected()) {
                 disconnect();
             }
+            // The assets may be changed or removed locally whilst disabled so do a full sync when enabled again
+            syncedAssetFingerprints.clear();
             LOG.info("Gateway connector disabled: Gateway ID=" + gatewayId);
             assetProcessingService.sendAttributeEvent(new AttributeEvent(gatewayId, "status", Values.create(ConnectionStatus.DISABLED.name())), AttributeEvent.Source.GATEWAY);
         } else {
@@ -248,6 +268,9 @@ public class GatewayConnector {
                 cachedAttributeEvents.add((AttributeEvent) e);
             } else if (e instanceof AssetEvent) {
                 cachedAssetEvents.add((AssetEvent) e);
+            } else if (e instanceof GatewayReplayEvent) {
+                // Replayed values can only be stored once the assets they belong to have been synced
+                cachedReplayEvents.add((GatewayReplayEvent) e);
             }
         } else {
             if (e instanceof AssetEvent) {
@@ -256,12 +279,15 @@ public class GatewayConnector {
                 onAttributeEvent((AttributeEvent) e);
             } else if (e instanceof DeleteAssetsResponseEvent) {
                 onAssetDeleteResponseEvent(messageId, (DeleteAssetsResponseEvent) e);
+            } else if (e instanceof GatewayReplayEvent) {
+                onReplayEvent((GatewayReplayEvent) e);
             }
         }
     }
 
     /**
-     * Get list of gateway assets (get basic details and then batch load them to minimise load)
+     * Get list of gateway assets (get basic details and then batch load them to minimise load); the basic details
+     * include the asset version and attribute timestamps so that only changed assets need to be loaded.
      */
     synchronized protected void startSync() {
 
@@ -272,7 +298,16 @@ public class GatewayConnector {
         expectedSyncResponseName = ASSET_READ_EVENT_NAME_INITIAL;
         sendMessageToGateway(new EventRequestResponseWrapper<>(
             ASSET_READ_EVENT_NAME_INITIAL,
-            new ReadAssetsEvent(new AssetQuery().select(selectExcludeAll()).recursive(true))));
+            new ReadAssetsEvent(
+                new AssetQuery()
+                    .select(
+                        new AssetQuery.Select()
+                            .excludeAttributeMeta(true)
+                            .excludeAttributeType(true)
+                            .excludeAttributeValue(true)
+                            .excludePath(true)
+                            .excludeParentInfo(true))
+                    .recursive(true))));
         syncProcessorFuture = executorService.schedule(this::onSyncAssetsTimeout, SYNC_TIMEOUT_MILLIS);
     }
 
@@ -319,10 +354,10 @@ public class GatewayConnector {
             return;
         }
 
-        String[] requestAssetIds = syncAssetIds.stream().skip(syncIndex).limit(SYNC_ASSET_BATCH_SIZE).toArray(String[]::new);
+        String[] requestAssetIds = syncRequiredAssetIds.stream().skip(syncIndex).limit(SYNC_ASSET_BATCH_SIZE).toArray(String[]::new);
         expectedSyncResponseName = ASSET_READ_EVENT_NAME_BATCH + syncIndex;
 
-        LOG.fine("Synchronising gateway assets " + syncIndex+1 + "-" + syncIndex + requestAssetIds.length + " of " + syncAssetIds.size());
+        LOG.fine("Synchronising gateway assets " + (syncIndex+1) + "-" + (syncIndex + requestAssetIds.length) + " of " + syncRequiredAssetIds.size());
 
         sendMessageToGateway(
             new EventRequestResponseWrapper<>(
@@ -367,13 +402,30 @@ public class GatewayConnector {
                 return level;
             };
 
-            syncAssetIds = e.getAssets()
+            List<Asset> gatewayAssets = e.getAssets()
                 .stream()
                 .sorted(Comparator.comparingInt(assetLevelExtractor))
+                .collect(Collectors.toList());
+
+            syncAssetIds = gatewayAssets.stream().map(Asset::getId).collect(Collectors.toList());
+
+            // Only assets that are missing locally or have changed since they were last synced need to be loaded
+            Set<String> localAssetIds = getLocalAssetIds();
+            syncRequiredAssetIds = gatewayAssets.stream()
+                .filter(asset -> {
+                    Long syncedFingerprint = syncedAssetFingerprints.get(asset.getId());
+                    return syncedFingerprint == null
+                        || syncedFingerprint != getAssetSyncFingerprint(asset)
+                        || !localAssetIds.contains(mapAssetId(gatewayId, asset.getId(), false));
+                })
                 .map(Asset::getId)
                 .collect(Collectors.toList());
 
-            if (syncAssetIds.isEmpty()) {
+            syncedAssetFingerprints.keySet().retainAll(new HashSet<>(syncAssetIds));
+
+            LOG.info("Gateway sync requires " + syncRequiredAssetIds.size() + " of " + syncAssetIds.size() + " asset(s) to be loaded: Gateway ID=" + gatewayId);
+
+            if (syncRequiredAssetIds.isEmpty()) {
                 deleteObsoleteLocalAssets();
                 onInitialSyncComplete();
                 return;
@@ -383,7 +435,7 @@ public class GatewayConnector {
 
         } else {
 
-            List<String> requestedAssetIds = syncAssetIds.stream().skip(syncIndex).limit(SYNC_ASSET_BATCH_SIZE).collect(Collectors.toList());
+            List<String> requestedAssetIds = syncRequiredAssetIds.stream().skip(syncIndex).limit(SYNC_ASSET_BATCH_SIZE).collect(Collectors.toList());
             List<Asset> returnedAssets = e.getAssets();
 
             // Remove any assets that have been deleted since requested
@@ -392,6 +444,7 @@ public class GatewayConnector {
                     boolean remove = requestedAssetIds.stream().anyMatch(id -> id.equals(assetEvent.getEntityId()) && assetEvent.getCause() == AssetEvent.Cause.DELETE);
                     if (remove) {
                         syncAssetIds.remove(assetEvent.getEntityId());
+                        syncRequiredAssetIds.remove(assetEvent.getEntityId());
                         requestedAssetIds.remove(assetEvent.getEntityId());
                     }
                     return remove;
@@ -406,7 +459,7 @@ public class GatewayConnector {
 
             // Returned asset order may not match request order so re-order
             returnedAssets = returnedAssets.stream()
-                .sorted(Comparator.comparingInt(a -> syncAssetIds.indexOf(a.getId())))
+                .sorted(Comparator.comparingInt(a -> syncRequiredAssetIds.indexOf(a.getId())))
                 .collect(Collectors.toList());
 
             // Merge returned assets ensuring the latest version of each is merged
@@ -427,7 +480,7 @@ public class GatewayConnector {
 
             // Request next batch or move on
             syncIndex += requestedAssetIds.size();
-            if (syncIndex >= syncAssetIds.size()) {
+            if (syncIndex >= syncRequiredAssetIds.size()) {
                 LOG.info("All requested gateway assets retrieved");
 
                 Set<String> refreshAssets = new HashSet<>();
@@ -469,20 +522,22 @@ public class GatewayConnector {
         }
     }
 
-    protected void deleteObsoleteLocalAssets() {
-
-        // Find obsolete local assets
-        List<Asset> localAssets = assetStorageService.findAll(
+    protected Set<String> getLocalAssetIds() {
+        return assetStorageService.findAll(
             new AssetQuery()
                 .select(selectExcludeAll())
                 .recursive(true)
                 .parents(gatewayId)
-        );
+        ).stream().map(Asset::getId).collect(Collectors.toSet());
+    }
 
-        // Delete obsolete assets
-        List<String> obsoleteLocalAssetIds = localAssets.stream()
-            .filter(localAsset -> !syncAssetIds.contains(mapAssetId(gatewayId, localAsset.getId(), true)))
-            .map(Asset::getId).collect(Collectors.toList());
+    protected void deleteObsoleteLocalAssets() {
+
+        // Find obsolete local assets
+        Set<String> gatewayAssetIds = new HashSet<>(syncAssetIds);
+        List<String> obsoleteLocalAssetIds = getLocalAssetIds().stream()
+            .filter(localAssetId -> !gatewayAssetIds.contains(mapAssetId(gatewayId, localAssetId, true)))
+            .collect(Collectors.toList());
 
         if (!obsoleteLocalAssetIds.isEmpty()) {
             boolean deleted = deleteAssetsLocally(obsoleteLocalAssetIds);
@@ -497,6 +552,8 @@ public class GatewayConnector {
         cachedAssetEvents.clear();
         cachedAttributeEvents.clear();
         assetProcessingService.sendAttributeEvent(new AttributeEvent(gatewayId, "status", Values.create(ConnectionStatus.CONNECTED.name())), AttributeEvent.Source.GATEWAY);
+        cachedReplayEvents.forEach(this::onReplayEvent);
+        cachedReplayEvents.clear();
     }
 
     protected Asset mergeGatewayAsset(Asset asset, boolean isUpdate) {
@@ -652,6 +709,7 @@ public class GatewayConnector {
                 }
                 break;
             case DELETE:
+                syncedAssetFingerprints.remove(e.getEntityId());
                 try {
                     deleteAssetsLocally(Collections.singletonList(mapAssetId(gatewayId, e.getEntityId(), false)));
                 } catch (Exception ex) {
@@ -662,6 +720,9 @@ public class GatewayConnector {
     }
 
     protected void onAttributeEvent(AttributeEvent e) {
+        // The synced state of this asset is now unknown so it will be re-read on next sync
+        syncedAssetFingerprints.remove(e.getEntityId());
+
         // Just push the event through the processing chain
         assetProcessingService.sendAttributeEvent(
             new AttributeEvent(mapAssetId(gatewayId, e.getEntityId(), false), e.getAttributeName(), e.getValue().orElse(null), e.getTimestamp()),
@@ -669,13 +730,73 @@ public class GatewayConnector {
         );
     }
 
+    /**
+     * Stores the values that the gateway recorded whilst it was disconnected as datapoints of the attributes that
+     * store datapoints; the current attribute values are not changed as they have been synced already.
+     */
+    protected void onReplayEvent(GatewayReplayEvent e) {
+        if (e.getEvents() == null || e.getEvents().length == 0) {
+            return;
+        }
+
+        Map<String, List<AttributeEvent>> assetEvents = new HashMap<>();
+        for (AttributeEvent attributeEvent : e.getEvents()) {
+            assetEvents.computeIfAbsent(mapAssetId(gatewayId, attributeEvent.getEntityId(), false), id -> new ArrayList<>()).add(attributeEvent);
+        }
+
+        List<AttributeEvent> datapointEvents = new ArrayList<>(e.getEvents().length);
+        assetStorageService.findAll(new AssetQuery().ids(assetEvents.keySet().toArray(new String[0]))).forEach(asset ->
+            assetEvents.get(asset.getId()).forEach(attributeEvent -> {
+                boolean storeDatapoints = asset.getAttribute(attributeEvent.getAttributeName())
+                    .map(AssetAttribute::isStoreDatapoints)
+                    .orElse(false);
+                if (storeDatapoints) {
+                    datapointEvents.add(new AttributeEvent(asset.getId(), attributeEvent.getAttributeName(), attributeEvent.getValue().orElse(null), attributeEvent.getTimestamp()));
+                }
+            }));
+
+        LOG.fine("Storing replayed gateway attribute values as datapoints: Gateway ID=" + gatewayId + ", Events=" + e.getEvents().length + ", Datapoints=" + datapointEvents.size());
+
+        try {
+            assetDatapointService.storeDatapoints(datapointEvents);
+        } catch (Exception ex) {
+            LOG.log(Level.WARNING, "Failed to store replayed gateway attribute values: Gateway ID=" + gatewayId, ex);
+        }
+    }
+
     protected Asset saveAssetLocally(Asset asset) {
         String assetId = asset.getId();
+        long fingerprint = getAssetSyncFingerprint(asset);
         asset.setId(mapAssetId(gatewayId, assetId, false));
         asset.setParentId(asset.getParentId() != null ? mapAssetId(gatewayId, asset.getParentId(), false) : gatewayId);
         asset.setRealm(realm);
         LOG.fine("Creating/updating gateway asset: Gateway ID=" + gatewayId + ", Asset ID=" + assetId + ", Asset ID Mapped=" + asset.getId());
-        return assetStorageService.merge(asset, true, true, null);
+        Asset mergedAsset = assetStorageService.merge(asset, true, true, null);
+        syncedAssetFingerprints.put(assetId, fingerprint);
+        return mergedAsset;
+    }
+
+    /**
+     * Calculates a fingerprint of the gateway asset from its version (which changes on any structural change) and
+     * its attribute value timestamps (which change on every attribute value update); attribute values and meta are
+     * not needed so this can be calculated from the lightweight sync summary.
+     */
+    protected static long getAssetSyncFingerprint(Asset asset) {
+        long attributesHash = 0;
+        ObjectValue attributes = asset.getAttributes();
+
+        if (attributes != null) {
+            for (String name : attributes.keys()) {
+                // Summing the hashes makes the result independent of attribute order
+                long timestamp = attributes.getObject(name)
+                    .flatMap(attribute -> attribute.getNumber(AbstractValueTimestampHolder.VALUE_TIMESTAMP_FIELD_NAME))
+                    .map(Double::longValue)
+                    .orElse(0L);
+                attributesHash += 31L * name.hashCode() + Long.hashCode(timestamp);
+            }
+        }
+
+        return 31L * asset.getVersion() + attributesHash;
     }
 
     protected boolean deleteAssetsLocally(List<String> assetIds) {
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2020, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.manager.gateway;
+
+import org.openremote.manager.concurrent.ManagerExecutorService;
+import org.openremote.model.event.shared.SharedEvent;
+import org.openremote.model.syslog.SyslogCategory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.openremote.model.syslog.SyslogCategory.GATEWAY;
+
+/**
+ * Collects {@link SharedEvent}s destined for the other side of a gateway connection and passes them on as a single
+ * batch once {@link #EVENT_BATCH_LINGER_MILLIS} have passed since the first event was added or once
+ * {@link #EVENT_BATCH_MAX_SIZE} events are pending, whichever comes first. Events are always passed on in the order
+ * they were added; call {@link #flush} before sending anything else over the same connection to keep that order.
+ */
+public class GatewayEventBatcher {
+
+    private static final Logger LOG = SyslogCategory.getLogger(GATEWAY, GatewayEventBatcher.class.getName());
+    public static long EVENT_BATCH_LINGER_MILLIS = 50; // How long the first event of a batch can wait for others
+    public static int EVENT_BATCH_MAX_SIZE = 100; // Keeps the batch message well below typical websocket frame limits
+    protected final ManagerExecutorService executorService;
+    protected final Consumer<SharedEvent[]> batchConsumer;
+    protected List<SharedEvent> pendingEvents = new ArrayList<>();
+    protected ScheduledFuture<?> flushFuture;
+    // Batches are sent whilst holding the lock to keep their order, synchronized would pin the carrier of a virtual thread
+    protected final ReentrantLock lock = new ReentrantLock();
+    protected boolean stopped;
+    protected long eventCount;
+    protected long batchCount;
+
+    public GatewayEventBatcher(ManagerExecutorService executorService, Consumer<SharedEvent[]> batchConsumer) {
+        this.executorService = executorService;
+        this.batchConsumer = batchConsumer;
+    }
+
+    public void add(SharedEvent event) {
+        lock.lock();
+        try {
+            if (stopped) {
+                return;
+            }
+
+            pendingEvents.add(event);
+
+            if (pendingEvents.size() >= EVENT_BATCH_MAX_SIZE) {
+                flush();
+            } else if (flushFuture == null) {
+                flushFuture = executorService.schedule(this::flush, EVENT_BATCH_LINGER_MILLIS);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void flush() {
+        lock.lock();
+        try {
+            if (flushFuture != null) {
+                flushFuture.cancel(false);
+                flushFuture = null;
+            }
+
+            if (pendingEvents.isEmpty()) {
+                return;
+            }
+
+            SharedEvent[] events = pendingEvents.toArray(new SharedEvent[0]);
+            pendingEvents = new ArrayList<>();
+            eventCount += events.length;
+            batchCount++;
+
+            try {
+                batchConsumer.accept(events);
+            } catch (Exception e) {
+                LOG.log(Level.WARNING, "Failed to send gateway event batch of size: " + events.length, e);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sends any pending events and prevents any further events from being batched
+     */
+    public void stop() {
+        lock.lock();
+        try {
+            flush();
+            stopped = true;
+            LOG.fine("Gateway event batcher stopped: " + this);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getEventCount() {
+        lock.lock();
+        try {
+            return eventCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getBatchCount() {
+        lock.lock();
+        try {
+            return batchCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+            "eventCount=" + eventCount +
+            ", batchCount=" + batchCount +
+            ", pendingEvents=" + pendingEvents.size() +
+            '}';
+    }
+}
@@ -0,0 +1,337 @@
+/*
+ * Copyright 2020, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.manager.gateway;
+
+import org.openremote.model.syslog.SyslogCategory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.openremote.model.syslog.SyslogCategory.GATEWAY;
+
+/**
+ * A bounded, disk backed FIFO journal of messages made up of memory mapped segment files of
+ * {@link #SEGMENT_SIZE_BYTES} each; when the maximum number of segments is reached the oldest segment is discarded.
+ * Each record is stored as <code>[int length][long timestamp][UTF-8 message]</code>, the length is written last so a
+ * partially written record is never read. Records are read with {@link #peek} and only removed by {@link #commit}
+ * once they have been delivered and segments are only deleted once all their records have been removed, so records
+ * that were read but not yet removed before a failure or restart are read again (at least once delivery).
+ */
+public class GatewayEventJournal {
+
+    protected static class Segment {
+        protected final Path path;
+        protected final MappedByteBuffer buffer;
+        protected final boolean writable;
+        protected int readPosition;
+
+        protected Segment(Path path, MappedByteBuffer buffer, boolean writable) {
+            this.path = path;
+            this.buffer = buffer;
+            this.writable = writable;
+        }
+
+        /**
+         * The end of the written records; segments from a previous run are read until the first empty record.
+         */
+        protected int getLimit() {
+            return writable ? buffer.position() : buffer.capacity();
+        }
+    }
+
+    private static final Logger LOG = SyslogCategory.getLogger(GATEWAY, GatewayEventJournal.class.getName());
+    public static int SEGMENT_SIZE_BYTES = 4 * 1024 * 1024;
+    public static final String SEGMENT_FILE_SUFFIX = ".segment";
+    protected static final int RECORD_HEADER_BYTES = Integer.BYTES + Long.BYTES;
+    protected final Path directory;
+    protected final int maxSegments;
+    protected final Deque<Segment> segments = new ArrayDeque<>();
+    protected long nextSegmentSequence;
+    protected long appendedCount;
+    protected long readCount;
+    protected long expiredCount;
+    protected long droppedCount;
+    protected int peekedCount;
+    protected int peekedExpiredCount;
+
+    public GatewayEventJournal(Path directory, long maxSizeBytes) throws IOException {
+        this.directory = directory;
+        this.maxSegments = (int) Math.max(2, maxSizeBytes / SEGMENT_SIZE_BYTES);
+
+        Files.createDirectories(directory);
+
+        List<Path> existingSegments;
+        try (Stream<Path> files = Files.list(directory)) {
+            existingSegments = files
+                .filter(path -> path.getFileName().toString().endsWith(SEGMENT_FILE_SUFFIX))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+
+        for (Path path : existingSegments) {
+            segments.add(new Segment(path, map(path, Files.size(path)), false));
+            nextSegmentSequence = Math.max(nextSegmentSequence, getSegmentSequence(path) + 1);
+        }
+
+        if (!segments.isEmpty()) {
+            LOG.info("Gateway event journal opened with existing segment(s): Directory=" + directory + ", Segments=" + segments.size());
+        }
+    }
+
+    /**
+     * Appends a record to the journal; returns <code>false</code> if the message could not be stored.
+     */
+    synchronized public boolean append(long timestamp, String message) {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        int recordSize = RECORD_HEADER_BYTES + bytes.length;
+
+        if (recordSize > SEGMENT_SIZE_BYTES) {
+            droppedCount++;
+            LOG.warning("Gateway event journal record is larger than the segment size so dropping it: Size=" + recordSize);
+            return false;
+        }
+
+        Segment segment = segments.peekLast();
+
+        try {
+            if (segment == null || !segment.writable || segment.buffer.remaining() < recordSize) {
+                segment = addSegment();
+            }
+        } catch (IOException e) {
+            droppedCount++;
+            LOG.log(Level.WARNING, "Failed to create gateway event journal segment in: " + directory, e);
+            return false;
+        }
+
+        MappedByteBuffer buffer = segment.buffer;
+        int position = buffer.position();
+        buffer.position(position + Integer.BYTES);
+        buffer.putLong(timestamp);
+        buffer.put(bytes);
+        buffer.putInt(position, bytes.length);
+        appendedCount++;
+        return true;
+    }
+
+    /**
+     * Removes and returns up to <code>maxRecords</code> messages in the order they were appended, any record with a
+     * timestamp older than <code>minTimestamp</code> is skipped.
+     */
+    synchronized public List<String> poll(int maxRecords, long minTimestamp) {
+        List<String> messages = peek(maxRecords, minTimestamp);
+        commit();
+        return messages;
+    }
+
+    /**
+     * Returns up to <code>maxRecords</code> messages in the order they were appended without removing them, any
+     * record with a timestamp older than <code>minTimestamp</code> is skipped; the records are only removed by a
+     * subsequent call to {@link #commit}, so another peek returns the same records again.
+     */
+    synchronized public List<String> peek(int maxRecords, long minTimestamp) {
+        List<String> messages = new ArrayList<>(Math.min(maxRecords, 1000));
+        peekedCount = 0;
+        peekedExpiredCount = 0;
+
+        for (Segment segment : segments) {
+            int position = segment.readPosition;
+            int length;
+
+            while (messages.size() < maxRecords && (length = getRecordLength(segment, position)) > 0) {
+                ByteBuffer buffer = segment.buffer.duplicate();
+                buffer.position(position + Integer.BYTES);
+                long timestamp = buffer.getLong();
+                byte[] bytes = new byte[length];
+                buffer.get(bytes);
+                position += RECORD_HEADER_BYTES + length;
+                peekedCount++;
+
+                if (timestamp < minTimestamp) {
+                    peekedExpiredCount++;
+                    continue;
+                }
+
+                messages.add(new String(bytes, StandardCharsets.UTF_8));
+            }
+
+            if (messages.size() >= maxRecords) {
+                break;
+            }
+        }
+
+        return messages;
+    }
+
+    /**
+     * Removes the records returned by the last {@link #peek}, segments are deleted once all their records have been
+     * removed.
+     */
+    synchronized public void commit() {
+        expiredCount += peekedExpiredCount;
+        readCount += peekedCount - peekedExpiredCount;
+
+        while (!segments.isEmpty()) {
+            Segment segment = segments.peekFirst();
+            int length = getRecordLength(segment);
+
+            if (length <= 0) {
+                // Segment fully read
+                removeSegment(segments.pollFirst());
+                continue;
+            }
+
+            if (peekedCount == 0) {
+                break;
+            }
+
+            segment.readPosition += RECORD_HEADER_BYTES + length;
+            peekedCount--;
+        }
+
+        peekedCount = 0;
+        peekedExpiredCount = 0;
+    }
+
+    synchronized public boolean isEmpty() {
+        return segments.stream().allMatch(segment -> getRecordLength(segment) <= 0);
+    }
+
+    /**
+     * Flushes the written records to disk; the journal can still be used afterwards.
+     */
+    synchronized public void flush() {
+        Segment segment = segments.peekLast();
+        if (segment != null && segment.writable) {
+            segment.buffer.force();
+        }
+    }
+
+    synchronized public long getAppendedCount() {
+        return appendedCount;
+    }
+
+    synchronized public long getReadCount() {
+        return readCount;
+    }
+
+    synchronized public long getExpiredCount() {
+        return expiredCount;
+    }
+
+    synchronized public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * Returns the length of the next unread record of the segment or 0 if there isn't one.
+     */
+    protected int getRecordLength(Segment segment) {
+        return getRecordLength(segment, segment.readPosition);
+    }
+
+    /**
+     * Returns the length of the record at the position of the segment or 0 if there isn't one.
+     */
+    protected int getRecordLength(Segment segment, int position) {
+        int limit = segment.getLimit();
+        if (limit - position < RECORD_HEADER_BYTES) {
+            return 0;
+        }
+        int length = segment.buffer.getInt(position);
+        return length > 0 && position + RECORD_HEADER_BYTES + length <= limit ? length : 0;
+    }
+
+    protected Segment addSegment() throws IOException {
+        Segment current = segments.peekLast();
+        if (current != null && current.writable) {
+            current.buffer.force();
+        }
+
+        while (segments.size() >= maxSegments) {
+            Segment oldest = segments.pollFirst();
+            // Records peeked from the discarded segment are gone so don't remove any from the following segments
+            peekedCount = 0;
+            peekedExpiredCount = 0;
+            long discarded = 0;
+            while (getRecordLength(oldest) > 0) {
+                oldest.readPosition += RECORD_HEADER_BYTES + getRecordLength(oldest);
+                discarded++;
+            }
+            droppedCount += discarded;
+            LOG.warning("Gateway event journal is full so discarding oldest segment: Directory=" + directory + ", Discarded records=" + discarded);
+            removeSegment(oldest);
+        }
+
+        Path path = directory.resolve(String.format("%019d", nextSegmentSequence++) + SEGMENT_FILE_SUFFIX);
+        Segment segment = new Segment(path, map(path, SEGMENT_SIZE_BYTES), true);
+        segments.add(segment);
+        return segment;
+    }
+
+    protected void removeSegment(Segment segment) {
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Failed to delete gateway event journal segment: " + segment.path, e);
+        }
+    }
+
+    protected static MappedByteBuffer map(Path path, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping remains valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    protected static long getSegmentSequence(Path path) {
+        String name = path.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SEGMENT_FILE_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+            "directory=" + directory +
+            ", segments=" + segments.size() +
+            ", appendedCount=" + appendedCount +
+            ", readCount=" + readCount +
+            ", expiredCount=" + expiredCount +
+            ", droppedCount=" + droppedCount +
+            '}';
+    }
+}
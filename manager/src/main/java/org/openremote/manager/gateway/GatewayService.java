@@ -32,6 +32,7 @@ import org.openremote.manager.asset.AssetProcessingService;
 import org.openremote.manager.asset.AssetStorageService;
 import org.openremote.manager.asset.AssetUpdateProcessor;
 import org.openremote.manager.concurrent.ManagerExecutorService;
+import org.openremote.manager.datapoint.AssetDatapointService;
 import org.openremote.manager.event.ClientEventService;
 import org.openremote.manager.security.ManagerIdentityService;
 import org.openremote.manager.security.ManagerKeycloakIdentityProvider;
@@ -42,6 +43,7 @@ import org.openremote.model.asset.AssetAttribute;
 import org.openremote.model.asset.AssetType;
 import org.openremote.model.attribute.AttributeEvent;
 import org.openremote.model.event.shared.SharedEvent;
+import org.openremote.model.gateway.GatewayCapabilitiesEvent;
 import org.openremote.model.gateway.GatewayDisconnectEvent;
 import org.openremote.model.query.AssetQuery;
 import org.openremote.model.syslog.SyslogCategory;
@@ -71,9 +73,20 @@ public class GatewayService extends RouteBuilder implements ContainerService, As
 
     public static final int PRIORITY = HIGH_PRIORITY + 100;
     public static final String GATEWAY_CLIENT_ID_PREFIX = "gateway-";
+    /**
+     * Websocket request parameter a gateway uses to request that events can be batched (see
+     * {@link GatewayCapabilitiesEvent}).
+     */
+    public static final String EVENT_BATCHING_REQUEST_PARAMETER = "Gateway-Event-Batching";
+    /**
+     * Websocket request parameter a gateway uses to request that it can replay events it recorded whilst
+     * disconnected (see {@link GatewayCapabilitiesEvent}).
+     */
+    public static final String EVENT_REPLAY_REQUEST_PARAMETER = "Gateway-Event-Replay";
     private static final Logger LOG = SyslogCategory.getLogger(GATEWAY, GatewayService.class.getName());
     protected AssetStorageService assetStorageService;
     protected AssetProcessingService assetProcessingService;
+    protected AssetDatapointService assetDatapointService;
     protected ManagerIdentityService identityService;
     protected ManagerKeycloakIdentityProvider identityProvider;
     protected ClientEventService clientEventService;
@@ -99,6 +112,7 @@ public class GatewayService extends RouteBuilder implements ContainerService, As
     public void init(Container container) throws Exception {
         assetStorageService = container.getService(AssetStorageService.class);
         assetProcessingService = container.getService(AssetProcessingService.class);
+        assetDatapointService = container.getService(AssetDatapointService.class);
         identityService = container.getService(ManagerIdentityService.class);
         clientEventService = container.getService(ClientEventService.class);
         executorService = container.getService(ManagerExecutorService.class);
@@ -142,7 +156,7 @@ public class GatewayService extends RouteBuilder implements ContainerService, As
                 }
 
                 // Create connector
-                GatewayConnector connector = new GatewayConnector(assetStorageService, assetProcessingService, executorService, gateway);
+                GatewayConnector connector = new GatewayConnector(assetStorageService, assetProcessingService, assetDatapointService, executorService, gateway);
                 gatewayConnectorMap.put(gateway.getId(), connector);
 
                 // Get IDs of all assets under this gateway
@@ -403,7 +417,34 @@ public class GatewayService extends RouteBuilder implements ContainerService, As
             return;
         }
 
-        connector.connect(createConnectorMessageConsumer(sessionId), () -> clientEventService.closeSession(sessionId));
+        boolean eventBatching = isRequestParameterSet(session, EVENT_BATCHING_REQUEST_PARAMETER);
+        boolean eventReplay = isRequestParameterSet(session, EVENT_REPLAY_REQUEST_PARAMETER);
+        GatewayEventBatcher eventBatcher = null;
+
+        if (eventBatching || eventReplay) {
+            LOG.fine("Gateway requested capabilities: Gateway ID=" + gatewayId + ", Event batching=" + eventBatching + ", Event replay=" + eventReplay);
+            clientEventService.sendToSession(sessionId, new GatewayCapabilitiesEvent(eventBatching, eventReplay));
+        }
+
+        if (eventBatching) {
+            eventBatcher = new GatewayEventBatcher(executorService, events -> clientEventService.sendToSession(sessionId, events));
+        }
+
+        GatewayEventBatcher finalEventBatcher = eventBatcher;
+        connector.connect(createConnectorMessageConsumer(sessionId, eventBatcher), () -> {
+            if (finalEventBatcher != null) {
+                finalEventBatcher.stop();
+            }
+            clientEventService.closeSession(sessionId);
+        });
+    }
+
+    protected static boolean isRequestParameterSet(Session session, String parameter) {
+        if (session == null || session.getRequestParameterMap() == null) {
+            return false;
+        }
+        List<String> values = session.getRequestParameterMap().get(parameter);
+        return values != null && values.stream().anyMatch(Boolean::parseBoolean);
     }
 
     protected void processGatewayDisconnected(String gatewayClientId) {
@@ -429,7 +470,7 @@ public class GatewayService extends RouteBuilder implements ContainerService, As
             case CREATE:
                 createGatewayClient(gateway);
                 synchronized (gatewayConnectorMap) {
-                    GatewayConnector connector = new GatewayConnector(assetStorageService, assetProcessingService, executorService, gateway);
+                    GatewayConnector connector = new GatewayConnector(assetStorageService, assetProcessingService, assetDatapointService, executorService, gateway);
                     gatewayConnectorMap.put(gateway.getId(), connector);
                 }
                 break;
@@ -555,8 +596,20 @@ public class GatewayService extends RouteBuilder implements ContainerService, As
         }
     }
 
-    protected Consumer<Object> createConnectorMessageConsumer(String sessionId) {
-        return msg -> clientEventService.sendToSession(sessionId, msg);
+    protected Consumer<Object> createConnectorMessageConsumer(String sessionId, GatewayEventBatcher eventBatcher) {
+        if (eventBatcher == null) {
+            return msg -> clientEventService.sendToSession(sessionId, msg);
+        }
+
+        return msg -> {
+            // Only attribute events are batched, anything else flushes the batch first to preserve message order
+            if (msg instanceof AttributeEvent) {
+                eventBatcher.add((AttributeEvent) msg);
+            } else {
+                eventBatcher.flush();
+                clientEventService.sendToSession(sessionId, msg);
+            }
+        };
     }
 
     protected void onGatewayClientEventReceived(String gatewayId, String messageId, SharedEvent event) {
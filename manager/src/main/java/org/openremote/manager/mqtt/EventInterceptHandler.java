@@ -35,6 +35,7 @@ import org.openremote.model.Constants;
 import org.openremote.model.asset.AssetFilter;
 import org.openremote.model.attribute.AttributeEvent;
 import org.openremote.model.attribute.AttributeRef;
+import org.openremote.model.attribute.WriteAttributesRequestEvent;
 import org.openremote.model.event.shared.CancelEventSubscription;
 import org.openremote.model.event.shared.EventSubscription;
 import org.openremote.model.util.TextUtil;
@@ -43,6 +44,7 @@ import org.openremote.model.value.Values;
 
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.logging.Level;
@@ -205,9 +207,21 @@ public class EventInterceptHandler extends AbstractInterceptHandler {
             if (attributeRef == null) {
                 String payloadContent = msg.getPayload().toString(Charset.defaultCharset());
                 Values.parse(payloadContent).flatMap(Values::getObject).ifPresent(objectValue -> {
+                    String[] attributeNames = objectValue.keys();
+                    if (attributeNames.length == 0) {
+                        return;
+                    }
                     Map<String, Object> headers = prepareHeaders(connection);
-                    AttributeEvent attributeEvent = new AttributeEvent(assetId, objectValue.keys()[0], objectValue.get(objectValue.keys()[0]).orElse(null));
-                    messageBrokerService.getProducerTemplate().sendBodyAndHeaders(ClientEventService.CLIENT_EVENT_QUEUE, attributeEvent, headers);
+                    if (attributeNames.length == 1) {
+                        AttributeEvent attributeEvent = new AttributeEvent(assetId, attributeNames[0], objectValue.get(attributeNames[0]).orElse(null));
+                        messageBrokerService.getProducerTemplate().sendBodyAndHeaders(ClientEventService.CLIENT_EVENT_QUEUE, attributeEvent, headers);
+                    } else {
+                        // Write all attribute values of the payload in a single transaction
+                        AttributeEvent[] attributeEvents = Arrays.stream(attributeNames)
+                            .map(attributeName -> new AttributeEvent(assetId, attributeName, objectValue.get(attributeName).orElse(null)))
+                            .toArray(AttributeEvent[]::new);
+                        messageBrokerService.getProducerTemplate().sendBodyAndHeaders(ClientEventService.CLIENT_EVENT_QUEUE, new WriteAttributesRequestEvent(attributeEvents), headers);
+                    }
                 });
             } else {
                 String payloadContent = msg.getPayload().toString(Charset.defaultCharset());
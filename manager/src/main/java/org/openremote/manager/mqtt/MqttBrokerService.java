@@ -20,6 +20,7 @@
 package org.openremote.manager.mqtt;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import io.micrometer.core.instrument.Timer;
 import io.moquette.BrokerConstants;
 import io.moquette.broker.Server;
 import io.moquette.broker.config.MemoryConfig;
@@ -31,6 +32,7 @@ import org.apache.camel.builder.RouteBuilder;
 import org.openremote.container.Container;
 import org.openremote.container.ContainerService;
 import org.openremote.container.message.MessageBrokerService;
+import org.openremote.container.metrics.MetricsService;
 import org.openremote.manager.asset.AssetStorageService;
 import org.openremote.manager.event.ClientEventService;
 import org.openremote.manager.security.ManagerIdentityService;
@@ -42,6 +44,7 @@ import org.openremote.model.value.Value;
 
 import java.nio.charset.Charset;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -53,6 +56,7 @@ public class MqttBrokerService implements ContainerService {
 
     public static final int PRIORITY = ManagerWebService.PRIORITY - 100;
     private static final Logger LOG = Logger.getLogger(MqttBrokerService.class.getName());
+    protected static final Timer MQTT_PUBLISH_TIMER = MetricsService.timer("or.mqtt.publish", "Time to publish a message to an MQTT client");
 
     public static final String MQTT_CLIENT_QUEUE = "seda://MqttClientQueue?waitForTaskToComplete=IfReplyExpected&timeout=10000&purgeWhenStopping=true&discardIfNoConsumers=false&size=25000";
 
@@ -160,7 +164,9 @@ public class MqttBrokerService implements ContainerService {
                     .payload(payload)
                     .build();
 
+            long startNanos = System.nanoTime();
             mqttBroker.internalPublish(publishMessage, clientId);
+            MQTT_PUBLISH_TIMER.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
         } catch (JsonProcessingException e) {
             LOG.log(Level.WARNING, "Couldn't send AttributeEvent to MQTT client", e);
         }
@@ -175,6 +181,8 @@ public class MqttBrokerService implements ContainerService {
                 .payload(payload)
                 .build();
 
+        long startNanos = System.nanoTime();
         mqttBroker.internalPublish(publishMessage, clientId);
+        MQTT_PUBLISH_TIMER.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
     }
 }
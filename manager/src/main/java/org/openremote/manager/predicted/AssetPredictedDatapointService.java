@@ -34,8 +34,8 @@ import org.openremote.model.attribute.AttributeRef;
 import org.openremote.model.datapoint.DatapointInterval;
 import org.openremote.model.datapoint.ValueDatapoint;
 import org.openremote.model.value.Value;
+import org.openremote.model.value.ValueJsonCodec;
 import org.openremote.model.value.ValueType;
-import org.openremote.model.value.Values;
 import org.postgresql.util.PGInterval;
 
 import javax.persistence.EntityManager;
@@ -201,7 +201,8 @@ public class AssetPredictedDatapointService implements ContainerService, Protoco
                         try (ResultSet rs = st.executeQuery()) {
                             List<ValueDatapoint<?>> result = new ArrayList<>();
                             while (rs.next()) {
-                                Value value = rs.getObject(2) != null ? Values.parseOrNull(rs.getString(2)) : null;
+                                String json = rs.getString(2);
+                                Value value = json != null ? ValueJsonCodec.readOrNull(json) : null;
                                 result.add(new ValueDatapoint<>(rs.getTimestamp(1).getTime(), value));
                             }
                             return result.toArray(new ValueDatapoint[result.size()]);
@@ -20,6 +20,7 @@
 package org.openremote.manager.rules;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import org.openremote.agent.protocol.timer.CronScheduler;
 import org.openremote.container.persistence.PersistenceEvent;
 import org.openremote.container.timer.TimerService;
 import org.openremote.manager.asset.AssetStorageService;
@@ -84,6 +85,7 @@ public class JsonRulesBuilder extends RulesBuilder {
         Set<AssetState> previouslyMatchedAssetStates = new HashSet<>();
         Set<AssetState> previouslyUnmatchedAssetStates;
         Predicate<Long> timePredicate;
+        CronExpression cronExpression;
         RuleConditionEvaluationResult lastEvaluationResult;
 
         public RuleConditionState(RuleCondition ruleCondition, boolean trackUnmatched, TimerService timerService) throws Exception {
@@ -116,12 +118,14 @@ public class JsonRulesBuilder extends RulesBuilder {
                     if (CronExpression.isValidExpression(ruleCondition.timer)) {
 
                         CronExpression timerExpression = new CronExpression(ruleCondition.timer);
-                        AtomicLong nextExecuteMillis = new AtomicLong(timerExpression.getNextValidTimeAfter(new Date(timerService.getCurrentTimeMillis())).getTime());
+                        cronExpression = timerExpression;
+                        AtomicLong nextExecuteMillis = new AtomicLong(getNextValidTimeMillis(timerExpression, timerService.getCurrentTimeMillis()));
 
                         timePredicate = (time) -> {
                             long nextExecute = nextExecuteMillis.get();
                             if (time >= nextExecute) {
-                                nextExecuteMillis.set(timerExpression.getNextInvalidTimeAfter(timerExpression.getNextInvalidTimeAfter(new Date(nextExecute))).getTime());
+                                // Any triggers that were missed since the last evaluation are coalesced into this one
+                                nextExecuteMillis.set(getNextValidTimeMillis(timerExpression, Math.max(time, nextExecute)));
                                 return true;
                             }
                             return false;
@@ -477,6 +481,10 @@ public class JsonRulesBuilder extends RulesBuilder {
     final static String LOG_PREFIX = "JSON Rules: ";
     final protected AssetStorageService assetStorageService;
     final protected TimerService timerService;
+    final protected CronScheduler cronScheduler;
+    final protected Runnable cronTrigger;
+    final protected Ruleset ruleset;
+    final protected List<String> cronJobIds = new ArrayList<>();
     final protected Assets assetsFacade;
     final protected Users usersFacade;
     final protected Notifications notificationsFacade;
@@ -487,12 +495,20 @@ public class JsonRulesBuilder extends RulesBuilder {
     final protected Map<String, RuleState> ruleStateMap = new HashMap<>();
     final protected JsonRule[] jsonRules;
 
-    public JsonRulesBuilder(Ruleset ruleset, TimerService timerService,
+    /**
+     * @param cronScheduler Optional, when provided the <code>cronTrigger</code> is run at the times of the cron
+     *                      expression timer conditions of the rules so they are evaluated even when nothing else causes
+     *                      the rules engine to fire.
+     */
+    public JsonRulesBuilder(Ruleset ruleset, TimerService timerService, CronScheduler cronScheduler, Runnable cronTrigger,
                             AssetStorageService assetStorageService, ManagerExecutorService executorService,
                             Assets assetsFacade, Users usersFacade, Notifications notificationsFacade,
                             HistoricDatapoints historicDatapoints, PredictedDatapoints predictedDatapoints,
                             BiConsumer<Runnable, Long> scheduledActionConsumer) throws Exception {
         this.timerService = timerService;
+        this.cronScheduler = cronScheduler;
+        this.cronTrigger = cronTrigger;
+        this.ruleset = ruleset;
         this.assetStorageService = assetStorageService;
         this.executorService = executorService;
         this.assetsFacade = assetsFacade;
@@ -520,6 +536,11 @@ public class JsonRulesBuilder extends RulesBuilder {
     }
 
     public void stop(RulesFacts facts) {
+        if (cronScheduler != null) {
+            cronJobIds.forEach(cronScheduler::removeJob);
+        }
+        cronJobIds.clear();
+
         Arrays.stream(jsonRules).forEach(jsonRule ->
             executeRuleActions(jsonRule, jsonRule.onStop, "onStop", false, facts, null, assetsFacade, usersFacade, notificationsFacade, predictedDatapointsFacade, this.scheduledActionConsumer));
     }
@@ -530,6 +551,16 @@ public class JsonRulesBuilder extends RulesBuilder {
 
         // Initialise asset states
         onAssetStatesChanged(facts, null);
+
+        if (cronScheduler != null && cronTrigger != null) {
+            ruleStateMap.forEach((ruleName, ruleState) -> ruleState.conditionStateMap.forEach((tag, ruleConditionState) -> {
+                if (ruleConditionState.cronExpression != null) {
+                    String jobId = "Ruleset:" + ruleset.getId() + ":" + ruleset.getVersion() + ":" + ruleName + ":" + tag;
+                    cronScheduler.addOrReplaceJob(jobId, ruleConditionState.cronExpression, cronTrigger);
+                    cronJobIds.add(jobId);
+                }
+            }));
+        }
     }
 
     public void onAssetStatesChanged(RulesFacts facts, RulesEngine.AssetStateChangeEvent event) {
@@ -1063,6 +1094,11 @@ public class JsonRulesBuilder extends RulesBuilder {
         return target != null && target.users != null;
     }
 
+    protected static long getNextValidTimeMillis(CronExpression cronExpression, long afterMillis) {
+        Date nextValidTime = cronExpression.getNextValidTimeAfter(new Date(afterMillis));
+        return nextValidTime != null ? nextValidTime.getTime() : Long.MAX_VALUE;
+    }
+
     protected static void log(Level level, String message) {
         RulesEngine.RULES_LOG.log(level, LOG_PREFIX + message);
     }
@@ -19,8 +19,11 @@
  */
 package org.openremote.manager.rules;
 
+import io.micrometer.core.instrument.Timer;
 import org.jeasy.rules.core.InferenceRulesEngine;
 import org.jeasy.rules.core.RulesEngineParameters;
+import org.openremote.agent.protocol.timer.CronScheduler;
+import org.openremote.container.metrics.MetricsService;
 import org.openremote.container.persistence.PersistenceEvent;
 import org.openremote.container.timer.TimerService;
 import org.openremote.manager.asset.AssetProcessingService;
@@ -100,11 +103,14 @@ public class RulesEngine<T extends Ruleset> {
     // Separate logger for periodic stats printer
     public static final Logger STATS_LOG = Logger.getLogger("org.openremote.rules.RulesEngineStats");
 
+    protected static final Timer RULES_FIRE_TIMER = MetricsService.timer("or.rules.fire", "Time to fire the rules of a ruleset deployment");
+
     // Here to facilitate testing
     protected static BiConsumer<RulesEngine<?>, RulesetDeployment> PAUSE_SCHEDULER = RulesEngine::schedulePause;
     protected static BiConsumer<RulesEngine<?>, RulesetDeployment> UNPAUSE_SCHEDULER = RulesEngine::scheduleUnpause;
 
     final protected TimerService timerService;
+    final protected CronScheduler cronScheduler;
     final protected ManagerExecutorService executorService;
     final protected AssetStorageService assetStorageService;
     final protected ClientEventService clientEventService;
@@ -125,6 +131,7 @@ public class RulesEngine<T extends Ruleset> {
     protected long lastFireTimestamp;
     protected boolean trackLocationPredicates;
     protected ScheduledFuture<?> fireTimer;
+    protected ScheduledFuture<?> temporaryFactExpiryTimer;
     protected ScheduledFuture<?> statsTimer;
     protected Map<Long, ScheduledFuture<?>> pauseTimers = new HashMap<>();
     protected Map<Long, ScheduledFuture<?>> unpauseTimers = new HashMap<>();
@@ -136,6 +143,7 @@ public class RulesEngine<T extends Ruleset> {
     protected boolean disableTemporaryFactExpiration = false;
 
     public RulesEngine(TimerService timerService,
+                       CronScheduler cronScheduler,
                        ManagerIdentityService identityService,
                        ManagerExecutorService executorService,
                        AssetStorageService assetStorageService,
@@ -147,6 +155,7 @@ public class RulesEngine<T extends Ruleset> {
                        RulesEngineId<T> id,
                        AssetLocationPredicateProcessor assetLocationPredicatesConsumer) {
         this.timerService = timerService;
+        this.cronScheduler = cronScheduler;
         this.executorService = executorService;
         this.assetStorageService = assetStorageService;
         this.clientEventService = clientEventService;
@@ -240,7 +249,7 @@ public class RulesEngine<T extends Ruleset> {
             removeRuleset(deployment.ruleset);
         }
 
-        deployment = new RulesetDeployment(ruleset, timerService, assetStorageService, executorService, assetsFacade, usersFacade, notificationFacade, historicFacade, predictedFacade);
+        deployment = new RulesetDeployment(ruleset, timerService, cronScheduler, this::scheduleFire, assetStorageService, executorService, assetsFacade, usersFacade, notificationFacade, historicFacade, predictedFacade);
         boolean compiled;
 
         if (TextUtil.isNullOrEmpty(ruleset.getRules())) {
@@ -370,6 +379,10 @@ public class RulesEngine<T extends Ruleset> {
             fireTimer.cancel(true);
             fireTimer = null;
         }
+        if (temporaryFactExpiryTimer != null) {
+            temporaryFactExpiryTimer.cancel(true);
+            temporaryFactExpiryTimer = null;
+        }
         if (statsTimer != null) {
             statsTimer.cancel(true);
             statsTimer = null;
@@ -445,21 +458,12 @@ public class RulesEngine<T extends Ruleset> {
 
                         fireTimer = null;
 
-                        // Are temporary facts present before rules are fired?
-                        boolean hadTemporaryFactsBefore = facts.hasTemporaryFacts();
-
                         // Process rules for all deployments
                         fireAllDeployments();
 
-                        // If there are temporary facts, or if there were some before and
-                        // now they are gone, schedule a new firing to guarantee processing
-                        // of expired and removed temporary facts
-                        if ((facts.hasTemporaryFacts() || (hadTemporaryFactsBefore && !facts.hasTemporaryFacts()))
-                            && !disableTemporaryFactExpiration) {
-                            LOG.fine("Temporary facts require firing rules on: " + this);
-                            executorService.schedule(this::scheduleFire, 0);
-                        } else if (!disableTemporaryFactExpiration) {
-                            LOG.fine("No temporary facts present/changed when firing rules on: " + this);
+                        // Schedule a new firing to guarantee processing of the next expired temporary fact
+                        if (!disableTemporaryFactExpiration) {
+                            scheduleTemporaryFactExpiry();
                         }
 
                     }),
@@ -469,6 +473,35 @@ public class RulesEngine<T extends Ruleset> {
         });
     }
 
+    /**
+     * Schedules a firing for when the next temporary fact expires. With the pseudo clock the time can be advanced at
+     * any moment, so whilst there are temporary facts the rules are then fired within the guaranteed expiration time
+     * instead.
+     */
+    protected void scheduleTemporaryFactExpiry() {
+        if (temporaryFactExpiryTimer != null) {
+            temporaryFactExpiryTimer.cancel(false);
+            temporaryFactExpiryTimer = null;
+        }
+
+        long nextExpiryTime = facts.getNextTemporaryFactExpiryTime();
+
+        if (nextExpiryTime == Long.MAX_VALUE) {
+            LOG.fine("No temporary facts present when firing rules on: " + this);
+            return;
+        }
+
+        long delay = 0;
+
+        if (timerService.getClock() == TimerService.Clock.REAL) {
+            // The firing itself is delayed by the guaranteed expiration time
+            delay = Math.max(nextExpiryTime - timerService.getCurrentTimeMillis() - TemporaryFact.GUARANTEED_MIN_EXPIRATION_MILLIS, 0);
+        }
+
+        LOG.fine("Temporary facts require firing rules in " + delay + "ms on: " + this);
+        temporaryFactExpiryTimer = executorService.schedule(this::scheduleFire, delay);
+    }
+
     private void fireDeployments(Collection<RulesetDeployment> deploymentList) {
         if (!running) {
             return;
@@ -502,8 +535,13 @@ public class RulesEngine<T extends Ruleset> {
                     facts.reset();
 
                     long startTimestamp = System.currentTimeMillis();
+                    long startNanos = System.nanoTime();
                     lastFireTimestamp = startTimestamp;
-                    engine.fire(deployment.getRules(), facts);
+                    try {
+                        engine.fire(deployment.getRules(), facts);
+                    } finally {
+                        RULES_FIRE_TIMER.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                    }
                     RULES_LOG.fine("Rules executed in: " + (System.currentTimeMillis() - startTimestamp) + "ms");
                 }
 
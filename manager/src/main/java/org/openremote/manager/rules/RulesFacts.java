@@ -23,6 +23,7 @@ import org.jeasy.rules.api.Facts;
 import org.jeasy.rules.api.Rule;
 import org.jeasy.rules.api.RuleListener;
 import org.openremote.container.timer.TimerService;
+import org.openremote.container.timer.TimingWheel;
 import org.openremote.manager.asset.AssetStorageService;
 import org.openremote.model.attribute.AttributeEvent;
 import org.openremote.model.attribute.AttributeExecuteStatus;
@@ -61,6 +62,12 @@ public class RulesFacts extends Facts implements RuleListener {
     public static final String EXECUTION_VARS = "INTERNAL_EXECUTION_VAR";
     public static final String ANONYMOUS_FACTS = "ANONYMOUS_FACTS";
 
+    /**
+     * Temporary facts are removed on the first firing at least this long after they expired.
+     */
+    public static long TEMPORARY_FACT_EXPIRY_TICK_MILLIS = 100;
+    public static int TEMPORARY_FACT_EXPIRY_WHEEL_SLOTS = 1024;
+
     final protected TimerService timerService;
     final protected AssetStorageService assetStorageService;
     final protected Assets assetsFacade;
@@ -72,6 +79,10 @@ public class RulesFacts extends Facts implements RuleListener {
     protected int triggerCount;
     protected boolean trackLocationRules;
     protected Map<String, Set<GeofencePredicate>> assetStateLocationPredicateMap = null;
+    // Expiry of all temporary facts, keyed by the name of the fact or the collection that holds it, so expired facts
+    // can be removed without scanning all facts
+    protected TimingWheel<Map.Entry<String, TemporaryFact<?>>> temporaryFactExpiryWheel;
+    final protected Map<TemporaryFact<?>, TimingWheel<Map.Entry<String, TemporaryFact<?>>>.Timeout> temporaryFactExpiries = new IdentityHashMap<>();
 
     public RulesFacts(TimerService timerService, AssetStorageService assetStorageService, Assets assetsFacade, Object loggingContext, Logger logger) {
         this.timerService = timerService;
@@ -81,7 +92,8 @@ public class RulesFacts extends Facts implements RuleListener {
         this.LOG = logger;
 
         asMap().put(ASSET_STATES, new ArrayDeque(INITIAL_CAPACITY));
-        asMap().put(ASSET_EVENTS, new ArrayDeque(INITIAL_CAPACITY));
+        // Asset events are only equal to themselves so a set can be used for constant time removal on expiry
+        asMap().put(ASSET_EVENTS, new LinkedHashSet());
         asMap().put(EXECUTION_VARS, new HashMap());
         asMap().put(ANONYMOUS_FACTS, new ArrayDeque(INITIAL_CAPACITY));
     }
@@ -194,7 +206,11 @@ public class RulesFacts extends Facts implements RuleListener {
         if (LOG.isLoggable(Level.FINEST)) {
             LOG.finest("Fact change (UPDATE): " + name + " => " + fact + " - on: " + loggingContext);
         }
+        cancelTemporaryFactExpiry(asMap().get(name));
         super.put(name, fact);
+        if (fact instanceof TemporaryFact) {
+            scheduleTemporaryFactExpiry(name, (TemporaryFact<?>) fact);
+        }
         return this;
     }
 
@@ -202,8 +218,20 @@ public class RulesFacts extends Facts implements RuleListener {
         if (LOG.isLoggable(Level.FINEST)) {
             LOG.finest("Fact change (UPDATE): " + o + " - on: " + loggingContext);
         }
-        getAnonymousFacts().remove(o);
+        // The replaced fact may be a different temporary fact instance so its expiry must be cancelled
+        Iterator<Object> anonymousFactIterator = getAnonymousFacts().iterator();
+        while (anonymousFactIterator.hasNext()) {
+            Object anonymousFact = anonymousFactIterator.next();
+            if (Objects.equals(o, anonymousFact)) {
+                cancelTemporaryFactExpiry(anonymousFact);
+                anonymousFactIterator.remove();
+                break;
+            }
+        }
         getAnonymousFacts().add(o);
+        if (o instanceof TemporaryFact) {
+            scheduleTemporaryFactExpiry(ANONYMOUS_FACTS, (TemporaryFact<?>) o);
+        }
         return this;
     }
 
@@ -258,6 +286,7 @@ public class RulesFacts extends Facts implements RuleListener {
             LOG.finest("Fact change (INSERT): " + fact + " - on: " + loggingContext);
         }
         getAssetEvents().add(fact);
+        scheduleTemporaryFactExpiry(ASSET_EVENTS, fact);
         return this;
     }
 
@@ -274,7 +303,9 @@ public class RulesFacts extends Facts implements RuleListener {
     }
 
     public RulesFacts putTemporary(long expires, Object value) {
-        getAnonymousFacts().add(new TemporaryFact<>((long) getClock().getTimestamp(), expires, value));
+        TemporaryFact<Object> fact = new TemporaryFact<>((long) getClock().getTimestamp(), expires, value);
+        getAnonymousFacts().add(fact);
+        scheduleTemporaryFactExpiry(ANONYMOUS_FACTS, fact);
         return this;
     }
 
@@ -292,7 +323,15 @@ public class RulesFacts extends Facts implements RuleListener {
     }
 
     public boolean hasTemporaryFacts() {
-        return getTemporaryFacts().count() > 0;
+        return !temporaryFactExpiries.isEmpty();
+    }
+
+    /**
+     * @return The clock time at which the next temporary fact will be removed by {@link #removeExpiredTemporaryFacts}
+     * or {@link Long#MAX_VALUE} if there are no temporary facts.
+     */
+    public long getNextTemporaryFactExpiryTime() {
+        return temporaryFactExpiryWheel != null ? temporaryFactExpiryWheel.getNextExpiryTime() : Long.MAX_VALUE;
     }
 
     public Stream<TemporaryFact> getTemporaryFacts() {
@@ -307,16 +346,19 @@ public class RulesFacts extends Facts implements RuleListener {
 
     @Override
     public RulesFacts remove(String name) {
+        cancelTemporaryFactExpiry(asMap().get(name));
         super.remove(name);
         return this;
     }
 
     public RulesFacts remove(Object fact) {
         getAnonymousFacts().removeIf(anonFact -> {
-            if (anonFact instanceof TemporaryFact) {
-                anonFact = ((TemporaryFact) anonFact).getFact();
+            Object value = anonFact instanceof TemporaryFact ? ((TemporaryFact) anonFact).getFact() : anonFact;
+            if (value.equals(fact)) {
+                cancelTemporaryFactExpiry(anonFact);
+                return true;
             }
-            return anonFact.equals(fact);
+            return false;
         });
         return this;
     }
@@ -483,40 +525,73 @@ public class RulesFacts extends Facts implements RuleListener {
     }
 
     public void removeExpiredTemporaryFacts() {
-        long currentTimestamp = (long) getClock().getTimestamp();
-        getAssetEvents().removeIf(fact -> {
-            boolean result = fact.isExpired(currentTimestamp);
-            if (result && LOG.isLoggable(Level.FINEST)) {
+        if (temporaryFactExpiryWheel == null) {
+            return;
+        }
+
+        List<Map.Entry<String, TemporaryFact<?>>> expiredFacts = new ArrayList<>();
+        temporaryFactExpiryWheel.advance(getCurrentTimestamp(), timeout -> expiredFacts.add(timeout.getItem()));
+
+        if (expiredFacts.isEmpty()) {
+            return;
+        }
+
+        Set<Object> expiredAnonymousFacts = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for (Map.Entry<String, TemporaryFact<?>> expiredFact : expiredFacts) {
+            TemporaryFact<?> fact = expiredFact.getValue();
+            temporaryFactExpiries.remove(fact);
+
+            if (LOG.isLoggable(Level.FINEST)) {
                 LOG.finest("Fact change (DELETE EXPIRED): " + fact + " - on: " + loggingContext);
             }
-            return result;
-        });
-        asMap().entrySet().removeIf(entry -> {
-            if (entry.getKey().equals(CLOCK)
-                    || entry.getKey().equals(ASSET_STATES)
-                    || entry.getKey().equals(ASSET_EVENTS)
-                    || entry.getKey().equals(EXECUTION_VARS)
-                    || entry.getKey().equals(ANONYMOUS_FACTS)
-                    || !(entry.getValue() instanceof TemporaryFact)) {
-                return false;
-            }
-            boolean result = ((TemporaryFact) entry.getValue()).isExpired(currentTimestamp);
-            if (result && LOG.isLoggable(Level.FINEST)) {
-                LOG.finest("Fact change (DELETE EXPIRED): " + entry.getValue() + " - on: " + loggingContext);
-            }
-            return result;
-        });
-        getAnonymousFacts().removeIf(fact -> {
-            boolean result = false;
-            if (fact instanceof TemporaryFact) {
-                TemporaryFact temporaryFact = (TemporaryFact) fact;
-                result = temporaryFact.isExpired((long) getClock().getTimestamp());
-            }
-            if (result && LOG.isLoggable(Level.FINEST)) {
-                LOG.finest("Fact change (DELETE EXPIRED): " + fact + " - on: " + loggingContext);
+
+            switch (expiredFact.getKey()) {
+                case ASSET_EVENTS:
+                    getAssetEvents().remove(fact);
+                    break;
+                case ANONYMOUS_FACTS:
+                    expiredAnonymousFacts.add(fact);
+                    break;
+                default:
+                    asMap().remove(expiredFact.getKey(), fact);
             }
-            return result;
-        });
+        }
+
+        // Anonymous facts use their own equality so they can't be held in a set, remove them all in one pass
+        if (!expiredAnonymousFacts.isEmpty()) {
+            getAnonymousFacts().removeIf(expiredAnonymousFacts::contains);
+        }
+    }
+
+    /**
+     * @param location The name of the fact or the reserved name of the collection that holds it.
+     */
+    protected void scheduleTemporaryFactExpiry(String location, TemporaryFact<?> fact) {
+        if (temporaryFactExpiryWheel == null) {
+            temporaryFactExpiryWheel = new TimingWheel<>(TEMPORARY_FACT_EXPIRY_TICK_MILLIS, TEMPORARY_FACT_EXPIRY_WHEEL_SLOTS, getCurrentTimestamp());
+        }
+
+        // A fact has expired once the current time is past its expiration time
+        long expirationTime = fact.getTimestamp() + fact.getExpirationMilliseconds();
+        long deadline = expirationTime < fact.getTimestamp() || expirationTime == Long.MAX_VALUE ? Long.MAX_VALUE : expirationTime + 1;
+        cancelTemporaryFactExpiry(fact);
+        temporaryFactExpiries.put(fact, temporaryFactExpiryWheel.add(new AbstractMap.SimpleImmutableEntry<>(location, fact), deadline));
+    }
+
+    protected void cancelTemporaryFactExpiry(Object fact) {
+        if (!(fact instanceof TemporaryFact)) {
+            return;
+        }
+
+        TimingWheel<Map.Entry<String, TemporaryFact<?>>>.Timeout timeout = temporaryFactExpiries.remove(fact);
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    protected long getCurrentTimestamp() {
+        return getClock() != null ? (long) getClock().getTimestamp() : timerService.getCurrentTimeMillis();
     }
 
     public boolean logFacts(Logger logger) {
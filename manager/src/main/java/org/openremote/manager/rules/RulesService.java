@@ -20,6 +20,7 @@
 package org.openremote.manager.rules;
 
 import org.apache.camel.builder.RouteBuilder;
+import org.openremote.agent.protocol.timer.CronScheduler;
 import org.openremote.container.Container;
 import org.openremote.container.ContainerService;
 import org.openremote.container.message.MessageBrokerService;
@@ -105,6 +106,7 @@ public class RulesService extends RouteBuilder implements ContainerService, Asse
     protected final Map<String, RulesEngine<TenantRuleset>> tenantEngines = new HashMap<>();
     protected final Map<String, RulesEngine<AssetRuleset>> assetEngines = new HashMap<>();
     protected TimerService timerService;
+    protected CronScheduler cronScheduler;
     protected ManagerExecutorService executorService;
     protected PersistenceService persistenceService;
     protected RulesetStorageService rulesetStorageService;
@@ -135,6 +137,7 @@ public class RulesService extends RouteBuilder implements ContainerService, Asse
     @Override
     public void init(Container container) throws Exception {
         timerService = container.getService(TimerService.class);
+        cronScheduler = container.getService(CronScheduler.class);
         executorService = container.getService(ManagerExecutorService.class);
         persistenceService = container.getService(PersistenceService.class);
         rulesetStorageService = container.getService(RulesetStorageService.class);
@@ -572,6 +575,7 @@ public class RulesService extends RouteBuilder implements ContainerService, Asse
             if (globalEngine == null) {
                 globalEngine = new RulesEngine<>(
                     timerService,
+                    cronScheduler,
                     identityService,
                     executorService,
                     assetStorageService,
@@ -613,6 +617,7 @@ public class RulesService extends RouteBuilder implements ContainerService, Asse
                 .computeIfAbsent(ruleset.getRealm(), (realm) ->
                     new RulesEngine<>(
                         timerService,
+                        cronScheduler,
                         identityService,
                         executorService,
                         assetStorageService,
@@ -688,6 +693,7 @@ public class RulesService extends RouteBuilder implements ContainerService, Asse
                 .computeIfAbsent(ruleset.getAssetId(), (assetId) ->
                     new RulesEngine<>(
                         timerService,
+                        cronScheduler,
                         identityService,
                         executorService,
                         assetStorageService,
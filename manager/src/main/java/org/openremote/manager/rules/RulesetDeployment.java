@@ -31,8 +31,10 @@ import org.jeasy.rules.api.Rules;
 import org.jeasy.rules.core.RuleBuilder;
 import org.kohsuke.groovy.sandbox.GroovyValueFilter;
 import org.kohsuke.groovy.sandbox.SandboxTransformer;
+import org.openremote.agent.protocol.timer.CronScheduler;
 import org.openremote.container.Container;
 import org.openremote.container.timer.TimerService;
+import org.openremote.container.timer.TimingWheel;
 import org.openremote.manager.asset.AssetStorageService;
 import org.openremote.manager.concurrent.ManagerExecutorService;
 import org.openremote.model.calendar.CalendarEvent;
@@ -45,7 +47,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
-import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledFuture;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -92,6 +93,11 @@ public class RulesetDeployment {
     }
 
     public static final int DEFAULT_RULE_PRIORITY = 1000;
+    /**
+     * Delayed rule actions are run at most this long after they are due.
+     */
+    public static long RULE_ACTION_TICK_MILLIS = 100;
+    public static int RULE_ACTION_WHEEL_SLOTS = 512;
     // Share one JS script engine manager, it's thread-safe
     static final protected ScriptEngineManager scriptEngineManager;
 
@@ -124,13 +130,18 @@ public class RulesetDeployment {
     final protected Rules rules = new Rules();
     final protected AssetStorageService assetStorageService;
     final protected TimerService timerService;
+    final protected CronScheduler cronScheduler;
+    final protected Runnable cronTrigger;
     final protected ManagerExecutorService executorService;
     final protected Assets assetsFacade;
     final protected Users usersFacade;
     final protected Notifications notificationsFacade;
     final protected HistoricDatapoints historicDatapointsFacade;
     final protected PredictedDatapoints predictedDatapointsFacade;
-    final protected List<ScheduledFuture<?>> scheduledRuleActions = new ArrayList<>();
+    // Delayed rule actions share a single timer that is scheduled for the next action that is due
+    protected TimingWheel<Runnable> scheduledRuleActions = new TimingWheel<>(RULE_ACTION_TICK_MILLIS, RULE_ACTION_WHEEL_SLOTS, System.currentTimeMillis());
+    protected ScheduledFuture<?> scheduledRuleActionsTimer;
+    protected long scheduledRuleActionsTime = Long.MAX_VALUE;
     protected RulesetStatus status = RulesetStatus.READY;
     protected Throwable error;
     protected JsonRulesBuilder jsonRulesBuilder;
@@ -138,12 +149,14 @@ public class RulesetDeployment {
     protected CalendarEvent validity;
     protected Pair<Long, Long> nextValidity;
 
-    public RulesetDeployment(Ruleset ruleset, TimerService timerService,
+    public RulesetDeployment(Ruleset ruleset, TimerService timerService, CronScheduler cronScheduler, Runnable cronTrigger,
                              AssetStorageService assetStorageService, ManagerExecutorService executorService,
                              Assets assetsFacade, Users usersFacade, Notifications notificationsFacade,
                              HistoricDatapoints historicDatapointsFacade, PredictedDatapoints predictedDatapointsFacade) {
         this.ruleset = ruleset;
         this.timerService = timerService;
+        this.cronScheduler = cronScheduler;
+        this.cronTrigger = cronTrigger;
         this.assetStorageService = assetStorageService;
         this.executorService = executorService;
         this.assetsFacade = assetsFacade;
@@ -237,10 +250,12 @@ public class RulesetDeployment {
      * during execution
      */
     public void stop(RulesFacts facts) {
-        scheduledRuleActions.removeIf(scheduledFuture -> {
-            scheduledFuture.cancel(true);
-            return true;
-        });
+        if (scheduledRuleActionsTimer != null) {
+            scheduledRuleActionsTimer.cancel(true);
+            scheduledRuleActionsTimer = null;
+        }
+        scheduledRuleActionsTime = Long.MAX_VALUE;
+        scheduledRuleActions = new TimingWheel<>(RULE_ACTION_TICK_MILLIS, RULE_ACTION_WHEEL_SLOTS, System.currentTimeMillis());
 
         if (jsonRulesBuilder != null) {
             jsonRulesBuilder.stop(facts);
@@ -255,19 +270,55 @@ public class RulesetDeployment {
 
     protected void scheduleRuleAction(Runnable action, long delayMillis) {
         withLock(toString() + "::scheduleRuleAction", () -> {
-            ScheduledFuture<?> future = executorService.schedule(() ->
-                    withLock(toString() + "::scheduledRuleActionFire", () -> {
-                        scheduledRuleActions.removeIf(Future::isDone);
-                        action.run();
-                    }), delayMillis);
-            scheduledRuleActions.add(future);
+            long now = System.currentTimeMillis();
+            scheduledRuleActions.add(action, now + delayMillis);
+            scheduleRuleActionsTimer(now);
+        });
+    }
+
+    /**
+     * Makes sure the timer is scheduled for the next rule action that is due, must be called whilst holding the lock.
+     */
+    protected void scheduleRuleActionsTimer(long now) {
+        long nextExpiryTime = scheduledRuleActions.getNextExpiryTime();
+
+        if (scheduledRuleActionsTimer != null) {
+            if (scheduledRuleActionsTime <= nextExpiryTime) {
+                return;
+            }
+            scheduledRuleActionsTimer.cancel(false);
+            scheduledRuleActionsTimer = null;
+        }
+
+        scheduledRuleActionsTime = nextExpiryTime;
+
+        if (nextExpiryTime != Long.MAX_VALUE) {
+            scheduledRuleActionsTimer = executorService.schedule(this::runScheduledRuleActions, Math.max(nextExpiryTime - now, 0));
+        }
+    }
+
+    protected void runScheduledRuleActions() {
+        withLock(toString() + "::scheduledRuleActionFire", () -> {
+            long now = System.currentTimeMillis();
+            List<Runnable> actions = new ArrayList<>();
+            scheduledRuleActions.advance(now, timeout -> actions.add(timeout.getItem()));
+            scheduledRuleActionsTimer = null;
+            scheduleRuleActionsTimer(now);
+
+            for (Runnable action : actions) {
+                try {
+                    action.run();
+                } catch (Exception e) {
+                    RulesEngine.LOG.log(Level.WARNING, "Delayed rule action threw an exception: " + this, e);
+                }
+            }
         });
     }
 
     protected boolean compileRulesJson(Ruleset ruleset) {
 
         try {
-            jsonRulesBuilder = new JsonRulesBuilder(ruleset, timerService, assetStorageService, executorService, assetsFacade, usersFacade, notificationsFacade, historicDatapointsFacade, predictedDatapointsFacade, this::scheduleRuleAction);
+            jsonRulesBuilder = new JsonRulesBuilder(ruleset, timerService, cronScheduler, cronTrigger, assetStorageService, executorService, assetsFacade, usersFacade, notificationsFacade, historicDatapointsFacade, predictedDatapointsFacade, this::scheduleRuleAction);
 
             for (Rule rule : jsonRulesBuilder.build()) {
                 RulesEngine.LOG.fine("Registering JSON rule: " + rule.getName());
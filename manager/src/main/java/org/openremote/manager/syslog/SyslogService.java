@@ -19,9 +19,11 @@
  */
 package org.openremote.manager.syslog;
 
+import org.hibernate.Session;
 import org.openremote.container.Container;
 import org.openremote.container.ContainerService;
 import org.openremote.container.persistence.PersistenceService;
+import org.openremote.container.util.MapAccess;
 import org.openremote.manager.concurrent.ManagerExecutorService;
 import org.openremote.manager.event.ClientEventService;
 import org.openremote.manager.web.ManagerWebService;
@@ -32,12 +34,15 @@ import org.openremote.model.syslog.SyslogEvent;
 import org.openremote.model.syslog.SyslogLevel;
 import org.openremote.model.util.Pair;
 
-import javax.persistence.Query;
 import javax.persistence.TypedQuery;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Handler;
 import java.util.logging.Level;
@@ -49,10 +54,20 @@ import static org.openremote.model.syslog.SyslogConfig.DEFAULT_LIMIT;
 /**
  * Act as a JUL handler, publishes (some) log messages on the client event bus, stores
  * (some, depending on {@link SyslogConfig}) log messages in the database.
+ * <p>
+ * The handler only adds log messages to a bounded buffer of {@link #SYSLOG_BUFFER_SIZE} messages so logging never
+ * waits for the database or the client event bus; messages are dropped (and counted) whilst the buffer is full. The
+ * buffer is drained every {@link #DRAIN_INTERVAL_MILLIS}, publishing the messages to subscribers and storing them in
+ * the database with a single batch insert.
  */
 public class SyslogService extends Handler implements ContainerService {
 
     private static final Logger LOG = Logger.getLogger(SyslogService.class.getName());
+    public static final String SYSLOG_BUFFER_SIZE = "SYSLOG_BUFFER_SIZE";
+    public static final int SYSLOG_BUFFER_SIZE_DEFAULT = 10000;
+    public static long DRAIN_INTERVAL_MILLIS = 500;
+    protected static final String INSERT_SQL = "INSERT INTO SYSLOG_EVENT (ID, TIMESTAMP, CATEGORY, LEVEL, MESSAGE, SUBCATEGORY) " +
+        "VALUES (nextval('OPENREMOTE_SEQUENCE'), ?, ?, ?, ?, ?)";
 
     protected ManagerExecutorService executorService;
     protected PersistenceService persistenceService;
@@ -60,8 +75,17 @@ public class SyslogService extends Handler implements ContainerService {
 
     protected SyslogConfig config;
 
+    final protected Object lock = new Object();
+    final protected Queue<SyslogEvent> buffer = new ConcurrentLinkedQueue<>();
+    final protected AtomicInteger bufferCount = new AtomicInteger();
+    final protected AtomicLong droppedCount = new AtomicLong();
+    protected int bufferSize = SYSLOG_BUFFER_SIZE_DEFAULT;
+    // Only accessed whilst draining the buffer
     final protected List<SyslogEvent> batch = new ArrayList<>();
-    protected ScheduledFuture flushBatchFuture;
+    protected long storeStartMillis;
+    protected long reportedDroppedCount;
+    protected long publishFailedCount;
+    protected ScheduledFuture drainFuture;
     protected ScheduledFuture deleteOldFuture;
 
     @Override
@@ -72,6 +96,7 @@ public class SyslogService extends Handler implements ContainerService {
     @Override
     public void init(Container container) throws Exception {
         executorService = container.getService(ManagerExecutorService.class);
+        bufferSize = Math.max(1, MapAccess.getInteger(container.getConfig(), SYSLOG_BUFFER_SIZE, SYSLOG_BUFFER_SIZE_DEFAULT));
 
         if (container.hasService(ClientEventService.class) && container.hasService(PersistenceService.class)) {
             LOG.info("Syslog service enabled");
@@ -102,17 +127,18 @@ public class SyslogService extends Handler implements ContainerService {
 
     @Override
     public void start(Container container) throws Exception {
-        if (persistenceService != null) {
-            // Flush batch every 3 seconds (wait 10 seconds for database (schema) to be ready in dev mode)
-            flushBatchFuture = executorService.scheduleAtFixedRate(this::flushBatch, 10 * 1000, 3 * 1000);
+        // Wait 10 seconds for database (schema) to be ready in dev mode before storing anything
+        storeStartMillis = System.currentTimeMillis() + 10 * 1000;
+        drainFuture = executorService.scheduleWithFixedDelay(this::drainBuffer, DRAIN_INTERVAL_MILLIS, DRAIN_INTERVAL_MILLIS);
 
+        if (persistenceService != null) {
             // Clear outdated events every minute
             deleteOldFuture = executorService.scheduleAtFixedRate(() -> {
                 // Not ready on startup
                 if (persistenceService.getEntityManagerFactory() == null)
                     return;
                 final int maxAgeMinutes;
-                synchronized (batch) {
+                synchronized (lock) {
                     maxAgeMinutes = config.getStoredMaxAgeMinutes();
                 }
                 persistenceService.doTransaction(em -> {
@@ -127,9 +153,12 @@ public class SyslogService extends Handler implements ContainerService {
 
     @Override
     public void stop(Container container) throws Exception {
-        if (flushBatchFuture != null) {
-            flushBatchFuture.cancel(true);
-            flushBatchFuture = null;
+        if (drainFuture != null) {
+            // Don't interrupt a running drain, it may be writing to the database
+            drainFuture.cancel(false);
+            drainFuture = null;
+            // Publish and store what is still buffered
+            drainBuffer();
         }
         if (deleteOldFuture != null) {
             deleteOldFuture.cancel(true);
@@ -148,30 +177,36 @@ public class SyslogService extends Handler implements ContainerService {
     @Override
     public void publish(LogRecord record) {
         SyslogEvent syslogEvent = SyslogCategory.mapSyslogEvent(record);
-        if (syslogEvent != null) {
-            try {
-                store(syslogEvent);
-            } catch (Exception e) {
-                LOG.log(Level.SEVERE, "Failed to store syslog event", e);
-            }
-            try {
-                if (clientEventService != null)
-                    clientEventService.publishEvent(syslogEvent);
-            } catch (Exception e) {
-                LOG.log(Level.SEVERE, "Failed to send syslog event to subscribed clients", e);
-            }
+        if (syslogEvent == null) {
+            return;
         }
+
+        // Reserve a slot first so the buffer never exceeds its size, if there is none the new event is dropped
+        if (bufferCount.incrementAndGet() > bufferSize) {
+            bufferCount.decrementAndGet();
+            droppedCount.incrementAndGet();
+            return;
+        }
+        buffer.offer(syslogEvent);
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    synchronized public long getPublishFailedCount() {
+        return publishFailedCount;
     }
 
     public void setConfig(SyslogConfig config) {
-        synchronized (batch) {
+        synchronized (lock) {
             LOG.info("Using: " + config);
             this.config = config;
         }
     }
 
     public SyslogConfig getConfig() {
-        synchronized (batch) {
+        synchronized (lock) {
             return config;
         }
     }
@@ -179,9 +214,7 @@ public class SyslogService extends Handler implements ContainerService {
     public void clearStoredEvents() {
         if (persistenceService == null)
             return;
-        synchronized (batch) {
-            persistenceService.doTransaction(em -> em.createQuery("delete from SyslogEvent e").executeUpdate());
-        }
+        persistenceService.doTransaction(em -> em.createQuery("delete from SyslogEvent e").executeUpdate());
     }
 
     public Pair<Long, List<SyslogEvent>> getEvents(SyslogLevel level, int perPage, int page, Instant from, Instant to, List<SyslogCategory> categories, List<String> subCategories) {
@@ -254,51 +287,98 @@ public class SyslogService extends Handler implements ContainerService {
         return new Pair<>(count.get(), events);
     }
 
-    protected void store(SyslogEvent syslogEvent) {
-        if (persistenceService == null)
-            return;
+    /**
+     * Publishes and stores the buffered messages; synchronized as the final drain on stop may overlap a running drain.
+     */
+    synchronized protected void drainBuffer() {
+        List<SyslogEvent> events = new ArrayList<>(Math.min(bufferCount.get(), bufferSize));
+        SyslogEvent syslogEvent;
+        while ((syslogEvent = buffer.poll()) != null) {
+            bufferCount.decrementAndGet();
+            events.add(syslogEvent);
+        }
+
+        long dropped = droppedCount.get();
+        if (dropped > reportedDroppedCount) {
+            // This message is buffered like any other, so it is only published and stored on the next drain
+            LOG.warning("Syslog buffer was full, dropped log messages: " + (dropped - reportedDroppedCount) + " (total " + dropped + ")");
+            reportedDroppedCount = dropped;
+        }
 
-        // If we are not ready (on startup), ignore
-        if (persistenceService.getEntityManagerFactory() == null) {
+        if (events.isEmpty() && batch.isEmpty()) {
             return;
         }
-        boolean isLoggable =
-            config.getStoredLevel().isLoggable(syslogEvent)
-                && Arrays.asList(config.getStoredCategories()).contains(syslogEvent.getCategory());
-        if (isLoggable) {
-            synchronized (batch) {
-                batch.add(syslogEvent);
+
+        if (clientEventService != null) {
+            int failed = 0;
+            Exception failure = null;
+            for (SyslogEvent event : events) {
+                try {
+                    clientEventService.publishEvent(event);
+                } catch (Exception e) {
+                    // Keep publishing the rest, one failed event shouldn't hide the others from subscribers
+                    failed++;
+                    failure = e;
+                }
+            }
+            if (failed > 0) {
+                publishFailedCount += failed;
+                LOG.log(Level.SEVERE, "Failed to send syslog events to subscribed clients: " + failed + " of " + events.size() + " (total " + publishFailedCount + ")", failure);
             }
         }
+
+        try {
+            store(events);
+        } catch (Exception e) {
+            LOG.log(Level.SEVERE, "Failed to store syslog events", e);
+        }
     }
 
-    protected void flushBatch() {
+    protected void store(List<SyslogEvent> syslogEvents) {
         if (persistenceService == null)
             return;
-        synchronized (batch) {
-            final List<SyslogEvent> transientEvents = new ArrayList<>(batch);
-            batch.clear();
-            if (transientEvents.size() == 0)
-                return;
-            LOG.fine("Flushing syslog batch: " + transientEvents.size());
-            try {
-                persistenceService.doTransaction(em -> {
-                    try {
-                        for (SyslogEvent e : transientEvents) {
-                            em.persist(e);
-                        }
-                    } catch (RuntimeException ex) {
-                        // This is not a big problem, it may happen on shutdown of database connections during tests, just inform the user
-                        // TODO Or is it a serious problem and we need to escalate? In any case, just throwing the ex is not good
-                        LOG.info("Error flushing syslog to database, some events are lost: " + ex);
-                    } finally {
-                        em.flush();
-                    }
-                });
-            } catch (Exception e) {
-                LOG.log(Level.SEVERE, "Exception occurred whilst flushing the syslog", e);
+
+        SyslogConfig config = getConfig();
+        List<SyslogCategory> storedCategories = Arrays.asList(config.getStoredCategories());
+        for (SyslogEvent syslogEvent : syslogEvents) {
+            if (config.getStoredLevel().isLoggable(syslogEvent) && storedCategories.contains(syslogEvent.getCategory())) {
+                batch.add(syslogEvent);
             }
         }
+
+        // Keep at most one buffer's worth of events whilst the database isn't ready
+        if (batch.size() > bufferSize) {
+            int overflow = batch.size() - bufferSize;
+            batch.subList(0, overflow).clear();
+            droppedCount.addAndGet(overflow);
+        }
+
+        // If we are not ready (on startup), wait
+        if (batch.isEmpty() || System.currentTimeMillis() < storeStartMillis || persistenceService.getEntityManagerFactory() == null) {
+            return;
+        }
+
+        final List<SyslogEvent> transientEvents = new ArrayList<>(batch);
+        batch.clear();
+        LOG.finest("Flushing syslog batch: " + transientEvents.size());
+        try {
+            persistenceService.doTransaction(em -> em.unwrap(Session.class).doWork(connection -> {
+                try (PreparedStatement st = connection.prepareStatement(INSERT_SQL)) {
+                    for (SyslogEvent e : transientEvents) {
+                        st.setTimestamp(1, new Timestamp(e.getTimestamp()));
+                        st.setString(2, e.getCategory().name());
+                        st.setInt(3, e.getLevel().ordinal());
+                        st.setString(4, e.getMessage());
+                        st.setString(5, e.getSubCategoryOptional().orElse(null));
+                        st.addBatch();
+                    }
+                    st.executeBatch();
+                }
+            }));
+        } catch (RuntimeException ex) {
+            // This is not a big problem, it may happen on shutdown of database connections during tests, just inform the user
+            LOG.info("Error flushing syslog to database, some events are lost: " + ex);
+        }
     }
 
     @Override
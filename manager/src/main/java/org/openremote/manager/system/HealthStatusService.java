@@ -21,6 +21,7 @@ package org.openremote.manager.system;
 
 import org.openremote.container.Container;
 import org.openremote.container.ContainerService;
+import org.openremote.container.metrics.MetricsService;
 import org.openremote.manager.web.ManagerWebService;
 import org.openremote.model.system.HealthStatusProvider;
 import org.openremote.model.system.StatusResource;
@@ -35,6 +36,7 @@ import java.util.ServiceLoader;
 public class HealthStatusService implements ContainerService {
 
     protected List<HealthStatusProvider> healthStatusProviderList = new ArrayList<>();
+    protected MetricsService metricsService;
 
     @Override
     public int getPriority() {
@@ -52,8 +54,12 @@ public class HealthStatusService implements ContainerService {
             }
         }
 
+        if (container.hasService(MetricsService.class)) {
+            metricsService = container.getService(MetricsService.class);
+        }
+
         container.getService(ManagerWebService.class).getApiSingletons().add(
-                new StatusResourceImpl(healthStatusProviderList)
+                new StatusResourceImpl(healthStatusProviderList, metricsService)
         );
     }
 
@@ -63,6 +69,9 @@ public class HealthStatusService implements ContainerService {
             if (healthStatusProvider instanceof ContainerService) {
                 ((ContainerService) healthStatusProvider).start(container);
             }
+            if (metricsService != null) {
+                metricsService.addHealthStatusProvider(healthStatusProvider);
+            }
         }
     }
 
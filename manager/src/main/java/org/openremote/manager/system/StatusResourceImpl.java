@@ -19,6 +19,7 @@
  */
 package org.openremote.manager.system;
 
+import org.openremote.container.metrics.MetricsService;
 import org.openremote.model.system.HealthStatusProvider;
 import org.openremote.model.system.StatusResource;
 import org.openremote.model.value.ObjectValue;
@@ -35,10 +36,12 @@ public class StatusResourceImpl implements StatusResource {
 
     private static final Logger LOG = Logger.getLogger(StatusResourceImpl.class.getName());
     protected List<HealthStatusProvider> healthStatusProviderList;
+    protected MetricsService metricsService;
     protected Properties versionProps = new Properties();
 
-    public StatusResourceImpl(List<HealthStatusProvider> healthStatusProviderList) {
+    public StatusResourceImpl(List<HealthStatusProvider> healthStatusProviderList, MetricsService metricsService) {
         this.healthStatusProviderList = healthStatusProviderList;
+        this.metricsService = metricsService;
 
         try(InputStream resourceStream = StatusResourceImpl.class.getClassLoader().getResourceAsStream("system.properties")) {
             versionProps.load(resourceStream);
@@ -70,4 +73,9 @@ public class StatusResourceImpl implements StatusResource {
         objectValue.put("version", version);
         return objectValue;
     }
+
+    @Override
+    public String getMetrics() {
+        return metricsService != null ? metricsService.scrape() : "";
+    }
 }
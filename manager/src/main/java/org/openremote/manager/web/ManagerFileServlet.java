@@ -26,6 +26,7 @@ import io.undertow.servlet.api.FilterInfo;
 import io.undertow.servlet.api.ServletInfo;
 import io.undertow.servlet.util.ImmediateInstanceHandle;
 import org.openremote.container.Container;
+import org.openremote.container.web.file.CompressedFileCache;
 import org.openremote.container.web.file.FileServlet;
 import org.openremote.container.web.file.GzipResponseFilter;
 
@@ -90,28 +91,48 @@ public class ManagerFileServlet extends FileServlet {
     public ManagerFileServlet(boolean devMode,
                               File base,
                               String[] requiredRoles) {
-        super(devMode, base, requiredRoles, MIME_TYPES, MIME_TYPES_EXPIRE_SECONDS, FILE_EXTENSIONS_ALREADY_ZIPPED);
+        this(devMode, base, requiredRoles, null);
+    }
+
+    public ManagerFileServlet(boolean devMode,
+                              File base,
+                              String[] requiredRoles,
+                              CompressedFileCache compressedFileCache) {
+        super(devMode, base, requiredRoles, MIME_TYPES, MIME_TYPES_EXPIRE_SECONDS, FILE_EXTENSIONS_ALREADY_ZIPPED, compressedFileCache);
     }
 
     public static DeploymentInfo createDeploymentInfo(boolean devMode, String contextPath, Path docRoot, String[] requiredRoles) {
+        return createDeploymentInfo(devMode, contextPath, docRoot, requiredRoles, null);
+    }
+
+    /**
+     * Files are compressed on each request by the {@link GzipResponseFilter}, unless a {@link CompressedFileCache} is
+     * given which then serves (pre-)compressed variants of files instead.
+     */
+    public static DeploymentInfo createDeploymentInfo(boolean devMode, String contextPath, Path docRoot, String[] requiredRoles, CompressedFileCache compressedFileCache) {
         if (!Files.isDirectory(docRoot)) {
             throw new IllegalArgumentException("Document root does not exist: " + docRoot.toAbsolutePath());
         }
 
-        ManagerFileServlet fileServlet = new ManagerFileServlet(devMode, docRoot.toFile(), requiredRoles);
+        ManagerFileServlet fileServlet = new ManagerFileServlet(devMode, docRoot.toFile(), requiredRoles, compressedFileCache);
         ServletInfo servletInfo = Servlets.servlet("Manager File Servlet", FileServlet.class, () -> new ImmediateInstanceHandle<>(fileServlet));
         servletInfo.addMapping("/*");
 
-        Filter gzipFilter = new GzipResponseFilter(MIME_TYPES_TO_ZIP);
-        FilterInfo gzipFilterInfo = Servlets.filter("Gzip Filter", GzipResponseFilter.class, () -> new ImmediateInstanceHandle<>(gzipFilter));
-
-        return new DeploymentInfo()
+        DeploymentInfo deploymentInfo = new DeploymentInfo()
             .setDeploymentName(contextPath + " File Servlet Deployment")
             .setContextPath(contextPath)
             .addServlet(servletInfo)
-            .addFilter(gzipFilterInfo)
-            .addFilterUrlMapping(gzipFilterInfo.getName(), "/*", DispatcherType.REQUEST)
             .setClassLoader(Container.class.getClassLoader());
+
+        if (compressedFileCache == null) {
+            Filter gzipFilter = new GzipResponseFilter(MIME_TYPES_TO_ZIP);
+            FilterInfo gzipFilterInfo = Servlets.filter("Gzip Filter", GzipResponseFilter.class, () -> new ImmediateInstanceHandle<>(gzipFilter));
+            deploymentInfo
+                .addFilter(gzipFilterInfo)
+                .addFilterUrlMapping(gzipFilterInfo.getName(), "/*", DispatcherType.REQUEST);
+        }
+
+        return deploymentInfo;
     }
 
     /**
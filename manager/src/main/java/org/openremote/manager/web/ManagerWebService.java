@@ -33,6 +33,7 @@ import org.jboss.resteasy.spi.ResteasyDeployment;
 import org.openremote.container.Container;
 import org.openremote.container.security.IdentityService;
 import org.openremote.container.web.WebService;
+import org.openremote.container.web.file.CompressedFileCache;
 import org.openremote.container.web.jsapi.JSAPIServlet;
 import org.openremote.manager.asset.AssetStorageService;
 
@@ -53,6 +54,7 @@ import static io.undertow.util.RedirectBuilder.redirect;
 import static javax.ws.rs.core.Response.Status.NOT_FOUND;
 import static javax.ws.rs.core.UriBuilder.fromUri;
 import static org.openremote.container.util.MapAccess.getBoolean;
+import static org.openremote.container.util.MapAccess.getInteger;
 import static org.openremote.container.util.MapAccess.getString;
 import static org.openremote.model.Constants.REQUEST_HEADER_REALM;
 
@@ -65,6 +67,8 @@ public class ManagerWebService extends WebService {
     public static final String SHARED_DOCROOT_DEFAULT = "deployment/manager/shared";
     public static final String CONSOLE_USE_STATIC_BOWER_COMPONENTS = "CONSOLE_USE_STATIC_BOWER_COMPONENTS";
     public static final boolean CONSOLE_USE_STATIC_BOWER_COMPONENTS_DEFAULT = true;
+    public static final String WEBSERVER_FILE_CACHE_MAX_SIZE_MB = "WEBSERVER_FILE_CACHE_MAX_SIZE_MB";
+    public static final int WEBSERVER_FILE_CACHE_MAX_SIZE_MB_DEFAULT = 256; // Set to 0 to compress files on every request instead
     public static final String APP_DEFAULT = "APP_DEFAULT";
     public static final String APP_DEFAULT_DEFAULT = "main";
     public static final String API_PATH = "/api";
@@ -78,6 +82,7 @@ public class ManagerWebService extends WebService {
 
     protected Path appDocRoot;
     protected Path sharedDocRoot;
+    protected CompressedFileCache compressedFileCache;
     protected Collection<Class<?>> apiClasses = new HashSet<>();
     protected Collection<Object> apiSingletons = new HashSet<>();
 
@@ -137,6 +142,16 @@ public class ManagerWebService extends WebService {
             };
         }
 
+        // Compressed variants of static files are shared by all file deployments
+        int fileCacheMaxSizeMb = getInteger(container.getConfig(), WEBSERVER_FILE_CACHE_MAX_SIZE_MB, WEBSERVER_FILE_CACHE_MAX_SIZE_MB_DEFAULT);
+        if (fileCacheMaxSizeMb > 0) {
+            compressedFileCache = CompressedFileCache.createTemporary(
+                "or-file-cache",
+                fileCacheMaxSizeMb * 1024L * 1024L,
+                ManagerFileServlet.MIME_TYPES_TO_ZIP
+            );
+        }
+
         // Serve deployment files unsecured (explicitly map deployment folders to request paths)
         appDocRoot = Paths.get(getString(container.getConfig(), APP_DOCROOT, APP_DOCROOT_DEFAULT));
         sharedDocRoot = Paths.get(getString(container.getConfig(), SHARED_DOCROOT, SHARED_DOCROOT_DEFAULT));
@@ -241,6 +256,14 @@ public class ManagerWebService extends WebService {
         );
     }
 
+    @Override
+    public void stop(Container container) throws Exception {
+        super.stop(container);
+        if (compressedFileCache != null) {
+            compressedFileCache.close();
+        }
+    }
+
     /**
      * Add resource/provider/etc. classes to enable REST API
      */
@@ -315,7 +338,7 @@ public class ManagerWebService extends WebService {
     // TODO: Switch to use PathResourceManager
     public HttpHandler createFileHandler(boolean devMode, IdentityService identityService, Path filePath, String[] requiredRoles) {
         requiredRoles = requiredRoles == null ? new String[0] : requiredRoles;
-        DeploymentInfo deploymentInfo = ManagerFileServlet.createDeploymentInfo(devMode, "", filePath, requiredRoles);
+        DeploymentInfo deploymentInfo = ManagerFileServlet.createDeploymentInfo(devMode, "", filePath, requiredRoles, compressedFileCache);
         return new CanonicalPathHandler(addServletDeployment(identityService, deploymentInfo, requiredRoles.length != 0));
     }
 
@@ -47,12 +47,11 @@ public class ModelModule extends SimpleModule {
         @SuppressWarnings("unchecked")
         @Override
         public T deserialize(JsonParser jsonParser, DeserializationContext context) throws IOException {
-            try {
-                return (T) Values.instance().parse(jsonParser.getCodec().readTree(jsonParser).toString()).
-                    orElseThrow(() -> new IOException("Empty JSON data"));
-            } catch (ValueException ex) {
-                throw new IOException(ex);
+            T value = ValueJsonCodec.read(jsonParser);
+            if (value == null) {
+                throw new IOException("Empty JSON data");
             }
+            return value;
         }
     }
 
@@ -60,11 +59,7 @@ public class ModelModule extends SimpleModule {
         @Override
         public void serialize(Value value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
             if (value != null) {
-                try {
-                    gen.writeRawValue(value.toJson());
-                } catch (ValueException ex) {
-                    throw new IOException(ex);
-                }
+                ValueJsonCodec.write(value, gen);
             }
         }
     }
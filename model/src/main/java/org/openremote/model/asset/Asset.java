@@ -366,9 +366,30 @@ public class Asset implements IdentifiableEntity {
             throw new IllegalArgumentException("Attribute cannot be null and must have a name and type");
 
         attribute.assetId = getId();
-        List<AssetAttribute> attributeList = getAttributesList();
-        attributeList.removeIf(attr -> attr.getName().orElse("").equals(attribute.getName().orElse("")));
-        attributeList.add(attribute);
+        String name = attribute.getName().get();
+        ObservableList<AssetAttribute> attributeList = (ObservableList<AssetAttribute>) getAttributesList();
+
+        // Update the list and the JSON in place, notifying the list would serialise all attributes again
+        int index = 0;
+        while (index < attributeList.size() && !attributeList.get(index).getName().orElse("").equals(name)) {
+            index++;
+        }
+        if (index < attributeList.size()) {
+            attributeList.set(index, attribute, false);
+            // Remove any other attributes with the same name
+            for (int i = attributeList.size() - 1; i > index; i--) {
+                if (attributeList.get(i).getName().orElse("").equals(name)) {
+                    attributeList.remove(i, false);
+                }
+            }
+        } else {
+            attributeList.add(attribute, false);
+        }
+
+        if (attributes == null) {
+            attributes = Values.createObject();
+        }
+        attributes.put(name, attribute.getObjectValue());
 
         return this;
     }
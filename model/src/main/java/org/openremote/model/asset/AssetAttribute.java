@@ -221,13 +221,11 @@ public class AssetAttribute extends Attribute {
     }
 
     public boolean hasLabel() {
-        return getMetaStream().anyMatch(isMetaNameEqualTo(LABEL));
+        return hasMetaItem(LABEL);
     }
 
     public Optional<String> getLabel() {
-        return Optional.ofNullable(getMetaStream()
-            .filter(isMetaNameEqualTo(LABEL))
-            .findFirst()
+        return Optional.ofNullable(getMetaItem(LABEL)
             .flatMap(AbstractValueHolder::getValueAsString)
             .orElseGet(() -> getName().orElse(null)));
     }
@@ -246,11 +244,7 @@ public class AssetAttribute extends Attribute {
 
     @JsonIgnore
     public boolean isExecutable() {
-        return getMetaStream()
-            .filter(isMetaNameEqualTo(EXECUTABLE))
-            .findFirst()
-            .map(metaItem -> metaItem.getValueAsBoolean().orElse(false))
-            .orElse(false);
+        return getMetaIndex().isTrue(EXECUTABLE);
     }
 
     public void setExecutable(boolean executable) {
@@ -263,25 +257,17 @@ public class AssetAttribute extends Attribute {
 
     @JsonIgnore
     public boolean hasAgentLink() {
-        return getMetaStream().anyMatch(isMetaNameEqualTo(AGENT_LINK));
+        return hasMetaItem(AGENT_LINK);
     }
 
     @JsonIgnore
     public boolean isProtocolConfiguration() {
-        return getMetaStream()
-            .filter(isMetaNameEqualTo(PROTOCOL_CONFIGURATION))
-            .findFirst()
-            .map(metaItem -> metaItem.getValueAsBoolean().orElse(false))
-            .orElse(false);
+        return getMetaIndex().isTrue(PROTOCOL_CONFIGURATION);
     }
 
     @JsonIgnore
     public boolean isShowOnDashboard() {
-        return getMetaStream()
-            .filter(isMetaNameEqualTo(SHOW_ON_DASHBOARD))
-            .findFirst()
-            .map(metaItem -> metaItem.getValueAsBoolean().orElse(false))
-            .orElse(false);
+        return getMetaIndex().isTrue(SHOW_ON_DASHBOARD);
     }
 
     public void setShowOnDashboard(boolean show) {
@@ -294,13 +280,11 @@ public class AssetAttribute extends Attribute {
 
     @JsonIgnore
     public boolean hasFormat() {
-        return getMetaStream().anyMatch(isMetaNameEqualTo(FORMAT));
+        return hasMetaItem(FORMAT);
     }
 
     public Optional<String> getFormat() {
-        return getMetaStream()
-            .filter(isMetaNameEqualTo(FORMAT))
-            .findFirst()
+        return getMetaItem(FORMAT)
             .flatMap(AbstractValueHolder::getValueAsString);
     }
 
@@ -313,13 +297,11 @@ public class AssetAttribute extends Attribute {
     }
 
     public boolean hasDescription() {
-        return getMetaStream().anyMatch(isMetaNameEqualTo(DESCRIPTION));
+        return hasMetaItem(DESCRIPTION);
     }
 
     public Optional<String> getDescription() {
-        return getMetaStream()
-            .filter(isMetaNameEqualTo(DESCRIPTION))
-            .findFirst()
+        return getMetaItem(DESCRIPTION)
             .flatMap(AbstractValueHolder::getValueAsString);
     }
 
@@ -335,11 +317,7 @@ public class AssetAttribute extends Attribute {
      * Defaults to <code>true</code> if there is no {@link MetaItemType#DISABLED} item.
      */
     public boolean isEnabled() {
-        return getMetaStream()
-            .filter(isMetaNameEqualTo(DISABLED))
-            .findFirst()
-            .map(metaItem -> !metaItem.getValueAsBoolean().orElse(false))
-            .orElse(true);
+        return !getMetaIndex().isTrue(DISABLED);
     }
 
     public void setDisabled(boolean disabled) {
@@ -351,35 +329,19 @@ public class AssetAttribute extends Attribute {
     }
 
     public boolean isAccessRestrictedRead() {
-        return getMetaStream()
-            .filter(isMetaNameEqualTo(MetaItemType.ACCESS_RESTRICTED_READ))
-            .findFirst()
-            .map(metaItem -> metaItem.getValueAsBoolean().orElse(false))
-            .orElse(false);
+        return getMetaIndex().isTrue(MetaItemType.ACCESS_RESTRICTED_READ);
     }
 
     public boolean isAccessRestrictedWrite() {
-        return getMetaStream()
-            .filter(isMetaNameEqualTo(MetaItemType.ACCESS_RESTRICTED_WRITE))
-            .findFirst()
-            .map(metaItem -> metaItem.getValueAsBoolean().orElse(false))
-            .orElse(false);
+        return getMetaIndex().isTrue(MetaItemType.ACCESS_RESTRICTED_WRITE);
     }
 
     public boolean isAccessPublicRead() {
-        return getMetaStream()
-            .filter(isMetaNameEqualTo(MetaItemType.ACCESS_PUBLIC_READ))
-            .findFirst()
-            .map(metaItem -> metaItem.getValueAsBoolean().orElse(false))
-            .orElse(false);
+        return getMetaIndex().isTrue(MetaItemType.ACCESS_PUBLIC_READ);
     }
 
     public boolean isReadOnly() {
-        return getMetaStream()
-            .filter(isMetaNameEqualTo(READ_ONLY))
-            .findFirst()
-            .map(metaItem -> metaItem.getValueAsBoolean().orElse(false))
-            .orElse(false);
+        return getMetaIndex().isTrue(READ_ONLY);
     }
 
     public void setReadOnly(boolean readOnly) {
@@ -391,11 +353,7 @@ public class AssetAttribute extends Attribute {
     }
 
     public boolean isStoreDatapoints() {
-        return getMetaStream()
-            .filter(isMetaNameEqualTo(STORE_DATA_POINTS))
-            .findFirst()
-            .map(metaItem -> metaItem.getValueAsBoolean().orElse(false))
-            .orElse(false);
+        return getMetaIndex().isTrue(STORE_DATA_POINTS);
     }
 
     public void setStoreDatapoints(boolean storeDatapoints) {
@@ -407,11 +365,7 @@ public class AssetAttribute extends Attribute {
     }
 
     public boolean isRuleState() {
-        return getMetaStream()
-            .filter(isMetaNameEqualTo(RULE_STATE))
-            .findFirst()
-            .map(metaItem -> metaItem.getValueAsBoolean().orElse(false))
-            .orElse(false);
+        return getMetaIndex().isTrue(RULE_STATE);
     }
 
     public void setRuleState(boolean ruleState) {
@@ -423,11 +377,7 @@ public class AssetAttribute extends Attribute {
     }
 
     public boolean isRuleEvent() {
-        return getMetaStream()
-            .filter(isMetaNameEqualTo(RULE_EVENT))
-            .findFirst()
-            .map(metaItem -> metaItem.getValueAsBoolean().orElse(false))
-            .orElse(false);
+        return getMetaIndex().isTrue(RULE_EVENT);
     }
 
     public void setRuleEvent(boolean ruleEvent) {
@@ -439,9 +389,7 @@ public class AssetAttribute extends Attribute {
     }
 
     public Optional<String> getRuleEventExpires() {
-        return getMetaStream()
-            .filter(isMetaNameEqualTo(RULE_EVENT_EXPIRES))
-            .findFirst()
+        return getMetaItem(RULE_EVENT_EXPIRES)
             .flatMap(AbstractValueHolder::getValueAsString);
     }
 
@@ -460,6 +408,26 @@ public class AssetAttribute extends Attribute {
         return copy;
     }
 
+    /**
+     * Copy-on-write update of the value, only the top level of the attribute is copied and the type and meta items
+     * are shared with this attribute; this is a lot cheaper than {@link #deepCopy} followed by
+     * {@link #setValue(Value, long)}. Use {@link #deepCopy} instead if the meta items of either attribute will be
+     * modified afterwards.
+     */
+    public AssetAttribute copyWithValue(Value value, long timestamp) {
+        ObjectValue objectValue = Values.createObject();
+        for (String key : getObjectValue().keys()) {
+            objectValue.put(key, getObjectValue().get(key).orElse(null));
+        }
+        AssetAttribute copy = new AssetAttribute(objectValue);
+        copy.name = name;
+        copy.assetId = assetId;
+        // The meta array is shared so the index stays valid
+        copy.metaIndex = metaIndex;
+        copy.setValue(value, timestamp);
+        return copy;
+    }
+
     public void setUnitType(String  unitType) {
         if (!isNullOrEmpty(unitType)) {
             replaceMetaByName(getMeta(), UNIT_TYPE, Values.create(unitType));
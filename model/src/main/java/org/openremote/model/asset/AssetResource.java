@@ -21,7 +21,9 @@ package org.openremote.model.asset;
 
 import jsinterop.annotations.JsType;
 import org.openremote.model.Constants;
+import org.openremote.model.attribute.AttributeEvent;
 import org.openremote.model.attribute.AttributeRef;
+import org.openremote.model.attribute.AttributeWriteResult;
 import org.openremote.model.attribute.MetaItemType;
 import org.openremote.model.http.RequestParams;
 import org.openremote.model.http.SuccessStatusCode;
@@ -216,6 +218,25 @@ public interface AssetResource {
     @SuppressWarnings("unusable-by-js")
     void writeAttributeValue(@BeanParam RequestParams requestParams, @PathParam("assetId") String assetId, @PathParam("attributeName") String attributeName, String rawJson);
 
+    /**
+     * Writes multiple attribute values, possibly of different assets, with the same access rules as
+     * {@link #writeAttributeValue}. Events without a timestamp get the current time as timestamp. An event older than
+     * the current value of its attribute fails as outdated (<code>EVENT_OUTDATED</code>), so this can't be used to
+     * upload historical values; events for the same attribute must be in timestamp order. All events are processed in
+     * a single database transaction and the result of each event is returned in the same order as the events, a failed
+     * event does not affect the other events. A 400 status is returned if the request contains too many events.
+     * <p>
+     * Unlike {@link #writeAttributeValue} this operation is synchronous, the values have been processed when it
+     * returns.
+     */
+    @PUT
+    @Path("attributes")
+    @Consumes(APPLICATION_JSON)
+    @Produces(APPLICATION_JSON)
+    @SuccessStatusCode(200)
+    @SuppressWarnings("unusable-by-js")
+    AttributeWriteResult[] writeAttributeEvents(@BeanParam RequestParams requestParams, AttributeEvent[] events);
+
     /**
      * Creates an asset. The identifier value of the asset can be provided, it should be a globally unique string value,
      * and must be 22 characters long. If no identifier value is provided, a unique value will be generated by
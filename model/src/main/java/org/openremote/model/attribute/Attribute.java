@@ -35,7 +35,6 @@ import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 import static org.openremote.model.attribute.Attribute.AttributeFailureReason.*;
-import static org.openremote.model.attribute.MetaItem.isMetaNameEqualTo;
 import static org.openremote.model.util.TextUtil.requireNonNullAndNonEmpty;
 
 /**
@@ -66,6 +65,9 @@ public abstract class Attribute extends AbstractValueTimestampHolder {
     @JsonIgnore
     protected Meta meta;
 
+    @JsonIgnore
+    protected MetaIndex metaIndex;
+
     protected Attribute(ObjectValue objectValue) {
         super(objectValue);
     }
@@ -168,18 +170,29 @@ public abstract class Attribute extends AbstractValueTimestampHolder {
         return getMeta().stream();
     }
 
+    /**
+     * @return The index of the current meta items, it is only rebuilt after meta items have been added, removed or
+     * replaced.
+     */
+    @JsonIgnore
+    public MetaIndex getMetaIndex() {
+        ArrayValue arrayValue = getObjectValue().getArray(META_FIELD_NAME).orElse(null);
+        if (metaIndex == null || !metaIndex.isIndexOf(arrayValue)) {
+            metaIndex = arrayValue != null ? new MetaIndex(arrayValue) : MetaIndex.EMPTY;
+        }
+        return metaIndex;
+    }
+
     public boolean hasMetaItem(String metaName) {
-        return getMetaStream().anyMatch(isMetaNameEqualTo(metaName));
+        return getMetaIndex().hasMetaItem(metaName);
     }
 
     public boolean hasMetaItem(HasUniqueResourceName metaName) {
-        return getMetaStream().anyMatch(isMetaNameEqualTo(metaName));
+        return getMetaIndex().hasMetaItem(metaName.getUrn());
     }
 
     public Optional<MetaItem> getMetaItem(String metaName) {
-        return getMetaStream()
-            .filter(metaItem -> metaItem.getName().filter(s -> s.equals(metaName)).isPresent())
-            .findFirst();
+        return getMetaIndex().getMetaItem(metaName);
     }
 
     public MetaItem[] getMetaItems(String metaName) {
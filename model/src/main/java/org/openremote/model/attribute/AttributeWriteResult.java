@@ -0,0 +1,60 @@
+/*
+ * Copyright 2020, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.model.attribute;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * The outcome of writing a single {@link AttributeEvent} as part of a batch; {@link #failure} is <code>null</code>
+ * when the write was accepted, otherwise it is the name of the reason why processing of the event failed (e.g.
+ * <code>ATTRIBUTE_NOT_FOUND</code>, <code>INSUFFICIENT_ACCESS</code> or <code>EVENT_OUTDATED</code>).
+ */
+public class AttributeWriteResult {
+
+    protected AttributeRef ref;
+    protected String failure;
+
+    @JsonCreator
+    public AttributeWriteResult(@JsonProperty("ref") AttributeRef ref, @JsonProperty("failure") String failure) {
+        this.ref = ref;
+        this.failure = failure;
+    }
+
+    public AttributeRef getRef() {
+        return ref;
+    }
+
+    public String getFailure() {
+        return failure;
+    }
+
+    public boolean isSuccess() {
+        return failure == null;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+            "ref=" + ref +
+            ", failure='" + failure + '\'' +
+            '}';
+    }
+}
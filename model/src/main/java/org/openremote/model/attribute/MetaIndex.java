@@ -0,0 +1,121 @@
+/*
+ * Copyright 2020, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.model.attribute;
+
+import org.openremote.model.value.ArrayValue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * An immutable index of the {@link MetaItem}s of an {@link Attribute}, built with a single pass over the meta
+ * {@link ArrayValue}. It maps each meta item name to the position of the first item with that name and holds a bit
+ * per {@link MetaItemType} for the well known boolean items that are present with a <code>true</code> value, so
+ * checks like {@link org.openremote.model.asset.AssetAttribute#isStoreDatapoints} don't have to scan and compare
+ * every meta item name on each call.
+ * <p>
+ * The index is only valid for the array it was built from as long as no items are added, removed or replaced (see
+ * {@link ArrayValue#modificationCount}); changes made inside an existing item are not detected, replace the item
+ * instead.
+ */
+public class MetaIndex {
+
+    protected static final Map<String, MetaItemType> WELL_KNOWN_ITEMS = new HashMap<>();
+
+    static {
+        for (MetaItemType metaItemType : MetaItemType.values()) {
+            WELL_KNOWN_ITEMS.put(metaItemType.getUrn(), metaItemType);
+        }
+    }
+
+    public static final MetaIndex EMPTY = new MetaIndex(null);
+
+    final protected ArrayValue arrayValue;
+    final protected int modificationCount;
+    final protected Map<String, Integer> firstIndexes;
+    final protected long flags;
+
+    public MetaIndex(ArrayValue arrayValue) {
+        this.arrayValue = arrayValue;
+        this.modificationCount = arrayValue != null ? arrayValue.modificationCount() : 0;
+
+        int length = arrayValue != null ? arrayValue.length() : 0;
+        Map<String, Integer> firstIndexes = new HashMap<>(length * 2);
+        long flags = 0;
+
+        for (int i = 0; i < length; i++) {
+            MetaItem item = arrayValue.getObject(i).map(MetaItem::new).orElse(null);
+            String name = item != null ? item.getName().orElse(null) : null;
+            if (name == null || firstIndexes.containsKey(name)) {
+                continue;
+            }
+            firstIndexes.put(name, i);
+
+            MetaItemType metaItemType = WELL_KNOWN_ITEMS.get(name);
+            if (metaItemType != null
+                && metaItemType.ordinal() < Long.SIZE
+                && item.getValueAsBoolean().orElse(false)) {
+                flags |= 1L << metaItemType.ordinal();
+            }
+        }
+
+        this.firstIndexes = firstIndexes;
+        this.flags = flags;
+    }
+
+    /**
+     * @return <code>true</code> if this index still reflects the given meta array.
+     */
+    public boolean isIndexOf(ArrayValue arrayValue) {
+        return this.arrayValue == arrayValue
+            && (arrayValue == null || arrayValue.modificationCount() == modificationCount);
+    }
+
+    public boolean hasMetaItem(String name) {
+        return firstIndexes.containsKey(name);
+    }
+
+    /**
+     * @return The first item with the given name.
+     */
+    public Optional<MetaItem> getMetaItem(String name) {
+        Integer index = firstIndexes.get(name);
+        return index != null ? arrayValue.getObject(index).map(MetaItem::new) : Optional.empty();
+    }
+
+    /**
+     * @return <code>true</code> if the first item of the given type has a boolean <code>true</code> value.
+     */
+    public boolean isTrue(MetaItemType metaItemType) {
+        if (metaItemType.ordinal() >= Long.SIZE) {
+            return getMetaItem(metaItemType.getUrn()).flatMap(MetaItem::getValueAsBoolean).orElse(false);
+        }
+        return (flags & (1L << metaItemType.ordinal())) != 0;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+            "names=" + firstIndexes.keySet() +
+            ", flags=" + Long.toBinaryString(flags) +
+            '}';
+    }
+}
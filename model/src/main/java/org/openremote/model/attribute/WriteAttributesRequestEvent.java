@@ -0,0 +1,51 @@
+/*
+ * Copyright 2020, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.model.attribute;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.openremote.model.event.shared.SharedEvent;
+
+/**
+ * A client sends this event to the server to write multiple attribute values at once; the events are processed in a
+ * single database transaction. If sent with a message ID (see
+ * {@link org.openremote.model.event.shared.EventRequestResponseWrapper}) the server answers with a
+ * {@link WriteAttributesResponseEvent}.
+ */
+public class WriteAttributesRequestEvent extends SharedEvent {
+
+    protected AttributeEvent[] events;
+
+    @JsonCreator
+    public WriteAttributesRequestEvent(@JsonProperty("events") AttributeEvent[] events) {
+        this.events = events;
+    }
+
+    public AttributeEvent[] getEvents() {
+        return events;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+            "events=" + (events != null ? events.length : 0) +
+            '}';
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2020, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.model.attribute;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.openremote.model.event.shared.SharedEvent;
+
+/**
+ * The server sends this event in response to a {@link WriteAttributesRequestEvent} with a result for each event of
+ * the request, in the same order.
+ */
+public class WriteAttributesResponseEvent extends SharedEvent {
+
+    protected AttributeWriteResult[] results;
+
+    @JsonCreator
+    public WriteAttributesResponseEvent(@JsonProperty("results") AttributeWriteResult[] results) {
+        this.results = results;
+    }
+
+    public AttributeWriteResult[] getResults() {
+        return results;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+            "results=" + (results != null ? results.length : 0) +
+            '}';
+    }
+}
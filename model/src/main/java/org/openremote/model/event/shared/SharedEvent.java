@@ -24,9 +24,13 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import org.openremote.model.asset.*;
 import org.openremote.model.asset.agent.AgentStatusEvent;
 import org.openremote.model.attribute.AttributeEvent;
+import org.openremote.model.attribute.WriteAttributesRequestEvent;
+import org.openremote.model.attribute.WriteAttributesResponseEvent;
 import org.openremote.model.event.Event;
+import org.openremote.model.gateway.GatewayCapabilitiesEvent;
 import org.openremote.model.gateway.GatewayConnectionStatusEvent;
 import org.openremote.model.gateway.GatewayDisconnectEvent;
+import org.openremote.model.gateway.GatewayReplayEvent;
 import org.openremote.model.rules.RulesEngineStatusEvent;
 import org.openremote.model.rules.RulesetChangedEvent;
 import org.openremote.model.simulator.RequestSimulatorState;
@@ -53,8 +57,12 @@ import org.openremote.model.syslog.SyslogEvent;
     @JsonSubTypes.Type(value = RulesetChangedEvent.class, name = "ruleset-changed"),
     @JsonSubTypes.Type(value = GatewayDisconnectEvent.class, name = "gateway-disconnect"),
     @JsonSubTypes.Type(value = GatewayConnectionStatusEvent.class, name = "gateway-connection-status"),
+    @JsonSubTypes.Type(value = GatewayCapabilitiesEvent.class, name = "gateway-capabilities"),
+    @JsonSubTypes.Type(value = GatewayReplayEvent.class, name = "gateway-replay"),
     @JsonSubTypes.Type(value = DeleteAssetsRequestEvent.class, name = "delete-assets-request"),
-    @JsonSubTypes.Type(value = DeleteAssetsResponseEvent.class, name = "delete-assets-response")
+    @JsonSubTypes.Type(value = DeleteAssetsResponseEvent.class, name = "delete-assets-response"),
+    @JsonSubTypes.Type(value = WriteAttributesRequestEvent.class, name = "write-attributes-request"),
+    @JsonSubTypes.Type(value = WriteAttributesResponseEvent.class, name = "write-attributes-response")
 })
 @JsonTypeInfo(
     use = JsonTypeInfo.Id.NAME,
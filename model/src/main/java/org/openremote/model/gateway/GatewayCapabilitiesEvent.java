@@ -0,0 +1,60 @@
+/*
+ * Copyright 2020, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.model.gateway;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.openremote.model.event.shared.SharedEvent;
+
+/**
+ * Sent by the central manager to a connected gateway to indicate which optional protocol features have been agreed;
+ * it is only sent to gateways that requested these features when connecting so older gateways never receive it.
+ * When {@link #eventBatching} is <code>true</code> both sides may send multiple {@link SharedEvent}s in a single
+ * <code>EVENT:[...]</code> message; when {@link #eventReplay} is <code>true</code> the gateway may send
+ * {@link GatewayReplayEvent}s with attribute events it recorded whilst disconnected.
+ */
+public class GatewayCapabilitiesEvent extends SharedEvent {
+
+    protected boolean eventBatching;
+    protected boolean eventReplay;
+
+    @JsonCreator
+    public GatewayCapabilitiesEvent(@JsonProperty("eventBatching") boolean eventBatching,
+                                    @JsonProperty("eventReplay") boolean eventReplay) {
+        this.eventBatching = eventBatching;
+        this.eventReplay = eventReplay;
+    }
+
+    public boolean isEventBatching() {
+        return eventBatching;
+    }
+
+    public boolean isEventReplay() {
+        return eventReplay;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+            "eventBatching=" + eventBatching +
+            ", eventReplay=" + eventReplay +
+            '}';
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2020, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.model.gateway;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.openremote.model.attribute.AttributeEvent;
+import org.openremote.model.event.shared.SharedEvent;
+
+/**
+ * Sent by a gateway to the central manager with {@link AttributeEvent}s that the gateway recorded whilst it was
+ * disconnected; the central manager only stores these as historical datapoints, the current attribute state is
+ * taken from the asset synchronisation. Only sent if the central manager agreed to it (see
+ * {@link GatewayCapabilitiesEvent#isEventReplay}).
+ */
+public class GatewayReplayEvent extends SharedEvent {
+
+    protected AttributeEvent[] events;
+
+    @JsonCreator
+    public GatewayReplayEvent(@JsonProperty("events") AttributeEvent[] events) {
+        this.events = events;
+    }
+
+    public AttributeEvent[] getEvents() {
+        return events;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{" +
+            "events=" + (events != null ? events.length : 0) +
+            '}';
+    }
+}
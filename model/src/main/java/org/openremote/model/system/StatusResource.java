@@ -42,4 +42,13 @@ public interface StatusResource {
     @Produces(APPLICATION_JSON)
     @SuccessStatusCode(200)
     ObjectValue getInfo();
+
+    /**
+     * Metrics of the event pipeline stages and health status values in the Prometheus text format.
+     */
+    @Path("metrics")
+    @GET
+    @Produces("text/plain; version=0.0.4; charset=utf-8")
+    @SuccessStatusCode(200)
+    String getMetrics();
 }
@@ -55,6 +55,14 @@ public class ObservableList<T> extends ArrayList<T> {
         return result;
     }
 
+    public T set(int index, T element, boolean notify) {
+        T result = super.set(index, element);
+        if (notify) {
+            notifyModified();
+        }
+        return result;
+    }
+
     @Override
     public boolean add(T t) {
         boolean result = super.add(t);
@@ -62,6 +70,14 @@ public class ObservableList<T> extends ArrayList<T> {
         return result;
     }
 
+    public boolean add(T t, boolean notify) {
+        boolean result = super.add(t);
+        if (notify) {
+            notifyModified();
+        }
+        return result;
+    }
+
     @Override
     public void add(int index, T element) {
         super.add(index, element);
@@ -75,6 +91,14 @@ public class ObservableList<T> extends ArrayList<T> {
         return result;
     }
 
+    public T remove(int index, boolean notify) {
+        T result = super.remove(index);
+        if (notify) {
+            notifyModified();
+        }
+        return result;
+    }
+
     @Override
     public boolean remove(Object o) {
         boolean result = super.remove(o);
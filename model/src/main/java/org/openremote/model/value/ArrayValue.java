@@ -77,4 +77,10 @@ public interface ArrayValue extends Value {
     boolean contains(double number);
 
     int indexOf(String string);
+
+    /**
+     * @return A counter that changes whenever elements are added, removed or replaced; this can be used to detect
+     * if data derived from this array is stale. Changes made inside an element are not counted.
+     */
+    int modificationCount();
 }
@@ -23,4 +23,8 @@ public class ValueException extends RuntimeException {
     public ValueException(String s) {
         super(s);
     }
+
+    public ValueException(String s, Throwable cause) {
+        super(s, cause);
+    }
 }
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2020, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.model.value;
+
+import com.fasterxml.jackson.core.*;
+import com.google.gwt.core.shared.GwtIncompatible;
+
+import java.io.*;
+import java.util.Optional;
+
+import static org.openremote.model.value.Values.NULL_LITERAL;
+
+/**
+ * Server side JSON codec for the {@link Value} model that reads and writes with the Jackson streaming API, directly
+ * from and to bytes, streams and other Jackson parsers/generators, instead of the character by character
+ * {@link Values#parse} tokenizer and the string building {@link Value#toJson}. The produced {@link Value}s are the
+ * same as those of {@link Values#parse} and the written JSON is the same as {@link Value#toJson} except that some
+ * unusual characters may be escaped differently.
+ */
+@GwtIncompatible
+public class ValueJsonCodec {
+
+    protected static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    protected ValueJsonCodec() {
+    }
+
+    public static <T extends Value> Optional<T> read(String json) throws ValueException {
+        if (json == null || json.isEmpty() || NULL_LITERAL.equals(json)) {
+            return Optional.empty();
+        }
+        // Same leniency as the tokenizer, some clients send in (json) expecting an eval is required
+        if (json.startsWith("(") && json.endsWith(")")) {
+            json = json.substring(1, json.length() - 1);
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            return Optional.ofNullable(readRoot(parser));
+        } catch (IOException e) {
+            throw new ValueException("Failed to parse JSON: " + e.getMessage(), e);
+        }
+    }
+
+    public static <T extends Value> Optional<T> read(byte[] json) throws ValueException {
+        if (json == null || json.length == 0) {
+            return Optional.empty();
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            return Optional.ofNullable(readRoot(parser));
+        } catch (IOException e) {
+            throw new ValueException("Failed to parse JSON: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads a value from the stream, the encoding (UTF-8/16/32) is detected; the stream is not closed.
+     */
+    public static <T extends Value> Optional<T> read(InputStream inputStream) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(inputStream)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            return Optional.ofNullable(readRoot(parser));
+        }
+    }
+
+    /**
+     * Reads a value from the reader; the reader is not closed.
+     */
+    public static <T extends Value> Optional<T> read(Reader reader) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(reader)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            return Optional.ofNullable(readRoot(parser));
+        }
+    }
+
+    /**
+     * Like {@link Values#parseOrNull}, returns <code>null</code> if the JSON is empty or invalid.
+     */
+    public static Value readOrNull(String json) {
+        try {
+            return read(json).orElse(null);
+        } catch (Exception ignored) {
+        }
+        return null;
+    }
+
+    /**
+     * Reads the value the parser currently points at (or the next value if the parser hasn't been advanced yet), the
+     * parser is left at the last token of the value.
+     *
+     * @return <code>null</code> for a JSON <code>null</code> or if there are no more tokens.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Value> T read(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == null) {
+            token = parser.nextToken();
+        }
+        if (token == JsonToken.FIELD_NAME) {
+            // Jackson may already have consumed the start of the object (e.g. when buffering for type information)
+            return (T) readObject(parser, parser.getCurrentName());
+        }
+        return token == null ? null : (T) readValue(parser, token);
+    }
+
+    public static String write(Value value) throws ValueException {
+        if (value == null) {
+            return NULL_LITERAL;
+        }
+        if (value.getType() == ValueType.NUMBER) {
+            // Keep the top level number format of NumberValue#toJson
+            return value.toJson();
+        }
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(writer)) {
+            write(value, generator);
+        } catch (IOException e) {
+            throw new ValueException("Failed to write JSON: " + e.getMessage(), e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Writes the value as UTF-8 encoded JSON; the stream is flushed but not closed.
+     */
+    public static void write(Value value, OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(outputStream, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            if (value != null && value.getType() == ValueType.NUMBER) {
+                generator.writeRawValue(value.toJson());
+            } else {
+                write(value, generator);
+            }
+        }
+    }
+
+    public static void write(Value value, JsonGenerator generator) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+            return;
+        }
+
+        switch (value.getType()) {
+            case OBJECT:
+                ObjectValue objectValue = (ObjectValue) value;
+                generator.writeStartObject();
+                for (String key : objectValue.keys()) {
+                    // Same as the stringify visitor, skip empty and GWT runtime keys
+                    if (key.isEmpty() || "$H".equals(key) || "__gwt_ObjectId".equals(key)) {
+                        continue;
+                    }
+                    generator.writeFieldName(key);
+                    write(objectValue.get(key).orElse(null), generator);
+                }
+                generator.writeEndObject();
+                break;
+            case ARRAY:
+                ArrayValue arrayValue = (ArrayValue) value;
+                generator.writeStartArray();
+                for (int i = 0; i < arrayValue.length(); i++) {
+                    write(arrayValue.get(i).orElse(null), generator);
+                }
+                generator.writeEndArray();
+                break;
+            case STRING:
+                generator.writeString(((StringValue) value).getString());
+                break;
+            case NUMBER:
+                double number = ((NumberValue) value).getNumber();
+                if (Double.isInfinite(number) || Double.isNaN(number)) {
+                    generator.writeNull();
+                } else if (!generator.canWriteFormattedNumbers()) {
+                    // Binary formats (e.g. CBOR) would write the formatted number as a string
+                    generator.writeNumber(number);
+                } else {
+                    String encoded = String.valueOf(number);
+                    generator.writeNumber(encoded.endsWith(".0") ? encoded.substring(0, encoded.length() - 2) : encoded);
+                }
+                break;
+            case BOOLEAN:
+                generator.writeBoolean(((BooleanValue) value).getBoolean());
+                break;
+            default:
+                throw new ValueException("Unsupported value type: " + value.getType());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    protected static <T extends Value> T readRoot(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            return null;
+        }
+        Value value = readValue(parser, token);
+        if (parser.nextToken() != null) {
+            throw new JsonParseException(parser, "Unexpected content after JSON value");
+        }
+        return (T) value;
+    }
+
+    protected static Value readValue(JsonParser parser, JsonToken token) throws IOException {
+        if (token == null) {
+            throw new JsonParseException(parser, "Unexpected end of input");
+        }
+        switch (token) {
+            case START_OBJECT:
+                return readObject(parser, parser.nextFieldName());
+            case START_ARRAY:
+                ArrayValue arrayValue = Values.createArray();
+                JsonToken elementToken;
+                while ((elementToken = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    if (elementToken == null) {
+                        throw new JsonParseException(parser, "Unexpected end of array");
+                    }
+                    arrayValue.add(readValue(parser, elementToken));
+                }
+                return arrayValue;
+            case VALUE_STRING:
+                return Values.create(parser.getText());
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return Values.create(parser.getDoubleValue());
+            case VALUE_TRUE:
+                return Values.create(true);
+            case VALUE_FALSE:
+                return Values.create(false);
+            case VALUE_NULL:
+                return null;
+            default:
+                throw new JsonParseException(parser, "Unexpected token: " + token);
+        }
+    }
+
+    protected static ObjectValue readObject(JsonParser parser, String firstKey) throws IOException {
+        ObjectValue objectValue = Values.createObject();
+        String key = firstKey;
+        while (key != null) {
+            objectValue.put(key, readValue(parser, parser.nextToken()));
+            key = parser.nextFieldName();
+        }
+        if (parser.currentToken() != JsonToken.END_OBJECT) {
+            throw new JsonParseException(parser, "Expected end of object");
+        }
+        return objectValue;
+    }
+}
@@ -341,7 +341,7 @@ public class Values {
         }
 
         Value v;
-        v = parse(writer.writeValueAsString(object)).orElse(null);
+        v = ValueJsonCodec.read(writer.writeValueAsBytes(object)).orElse(null);
         return (T)v;
     }
 
@@ -363,7 +363,7 @@ public class Values {
             throw new IllegalArgumentException("Value, class and reader must be defined");
         }
 
-        String str = value.toJson();
+        String str = ValueJsonCodec.write(value);
         return reader.forType(clazz).readValue(str);
     }
 }
@@ -28,6 +28,7 @@ public class ArrayValueImpl extends ValueImpl implements ArrayValue {
 
     final private transient ValueFactory factory;
     private transient ArrayList<Value> values = new ArrayList<>();
+    private transient int modificationCount;
 
     public ArrayValueImpl(ValueFactory factory) {
         this.factory = factory;
@@ -101,6 +102,7 @@ public class ArrayValueImpl extends ValueImpl implements ArrayValue {
     @Override
     public ArrayValue remove(int index) {
         values.remove(index);
+        modificationCount++;
         return this;
     }
 
@@ -113,6 +115,7 @@ public class ArrayValueImpl extends ValueImpl implements ArrayValue {
         } else {
             values.set(index, value);
         }
+        modificationCount++;
         return this;
     }
 
@@ -137,6 +140,7 @@ public class ArrayValueImpl extends ValueImpl implements ArrayValue {
     @Override
     public ArrayValue add(Value value) {
         values.add(value);
+        modificationCount++;
         return this;
     }
 
@@ -158,6 +162,7 @@ public class ArrayValueImpl extends ValueImpl implements ArrayValue {
     @Override
     public ArrayValue add(int index, Value value) {
         values.add(index, value);
+        modificationCount++;
         return this;
     }
 
@@ -201,6 +206,11 @@ public class ArrayValueImpl extends ValueImpl implements ArrayValue {
         return this;
     }
 
+    @Override
+    public int modificationCount() {
+        return modificationCount;
+    }
+
     @Override
     public ArrayValue deepCopy() {
         return Values.<ArrayValue>parse(toJson()).orElseThrow(() -> new IllegalStateException("Error copying array value"));
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2017, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.test;
+
+import io.netty.channel.ChannelHandler;
+import org.openremote.agent.protocol.io.IoClient;
+import org.openremote.agent.protocol.velbus.VelbusPacket;
+import org.openremote.model.asset.agent.ConnectionStatus;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Simulates a Velbus interface and bus: written packets go into a receive buffer of limited capacity that is drained
+ * onto the bus at {@link #busMillisPerPacket}; every RTR (read) packet put on the bus is answered by the addressed
+ * device. Like a real interface it sends RECEIVE_BUFFER_FULL when the buffer is full and RECEIVE_READY once it has been
+ * drained to half its capacity, packets written whilst the buffer is full are lost.
+ */
+public class LoopbackVelbusClient implements IoClient<VelbusPacket> {
+
+    protected final List<Consumer<VelbusPacket>> messageConsumers = new ArrayList<>();
+    protected final List<Consumer<ConnectionStatus>> statusConsumers = new ArrayList<>();
+    protected final List<VelbusPacket> sentMessages = Collections.synchronizedList(new ArrayList<>());
+    protected final Queue<VelbusPacket> receiveBuffer = new ArrayDeque<>();
+    protected final ScheduledExecutorService busExecutor = Executors.newSingleThreadScheduledExecutor();
+    protected ConnectionStatus connectionStatus = ConnectionStatus.DISCONNECTED;
+    protected volatile int receiveBufferCapacity;
+    protected volatile int busMillisPerPacket;
+    protected boolean receiveBufferFull;
+    protected int lostCount;
+
+    public LoopbackVelbusClient(int receiveBufferCapacity, int busMillisPerPacket) {
+        this.receiveBufferCapacity = receiveBufferCapacity;
+        this.busMillisPerPacket = busMillisPerPacket;
+        busExecutor.schedule(this::drain, busMillisPerPacket, TimeUnit.MILLISECONDS);
+    }
+
+    public void setReceiveBufferCapacity(int receiveBufferCapacity) {
+        this.receiveBufferCapacity = receiveBufferCapacity;
+    }
+
+    public void setBusMillisPerPacket(int busMillisPerPacket) {
+        this.busMillisPerPacket = busMillisPerPacket;
+    }
+
+    public List<VelbusPacket> getSentMessages() {
+        return sentMessages;
+    }
+
+    public synchronized int getLostCount() {
+        return lostCount;
+    }
+
+    public void shutdown() {
+        busExecutor.shutdownNow();
+    }
+
+    @Override
+    public void sendMessage(VelbusPacket message) {
+        sentMessages.add(message);
+
+        synchronized (this) {
+            if (receiveBufferFull) {
+                lostCount++;
+                return;
+            }
+
+            receiveBuffer.add(message);
+
+            if (receiveBuffer.size() >= receiveBufferCapacity) {
+                receiveBufferFull = true;
+                busExecutor.execute(() -> onMessageReceived(new VelbusPacket(0, VelbusPacket.InboundCommand.RECEIVE_BUFFER_FULL.getCode())));
+            }
+        }
+    }
+
+    protected void drain() {
+        VelbusPacket packet;
+        boolean ready = false;
+
+        synchronized (this) {
+            packet = receiveBuffer.poll();
+
+            if (receiveBufferFull && receiveBuffer.size() <= receiveBufferCapacity / 2) {
+                receiveBufferFull = false;
+                ready = true;
+            }
+        }
+
+        if (packet != null && packet.getRtr()) {
+            onMessageReceived(new VelbusPacket(packet.getAddress(), VelbusPacket.InboundCommand.MODULE_TYPE.getCode(), (byte) 0x01));
+        }
+
+        if (ready) {
+            onMessageReceived(new VelbusPacket(0, VelbusPacket.InboundCommand.RECEIVE_READY.getCode()));
+        }
+
+        if (!busExecutor.isShutdown()) {
+            busExecutor.schedule(this::drain, busMillisPerPacket, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void onMessageReceived(VelbusPacket message) {
+        synchronized (messageConsumers) {
+            messageConsumers.forEach(consumer -> consumer.accept(message));
+        }
+    }
+
+    @Override
+    public void addMessageConsumer(Consumer<VelbusPacket> messageConsumer) {
+        synchronized (messageConsumers) {
+            messageConsumers.add(messageConsumer);
+        }
+    }
+
+    @Override
+    public void removeMessageConsumer(Consumer<VelbusPacket> messageConsumer) {
+        synchronized (messageConsumers) {
+            messageConsumers.remove(messageConsumer);
+        }
+    }
+
+    @Override
+    public void removeAllMessageConsumers() {
+        synchronized (messageConsumers) {
+            messageConsumers.clear();
+        }
+    }
+
+    @Override
+    public void addConnectionStatusConsumer(Consumer<ConnectionStatus> connectionStatusConsumer) {
+        statusConsumers.add(connectionStatusConsumer);
+    }
+
+    @Override
+    public void removeConnectionStatusConsumer(Consumer<ConnectionStatus> connectionStatusConsumer) {
+        statusConsumers.remove(connectionStatusConsumer);
+    }
+
+    @Override
+    public void removeAllConnectionStatusConsumers() {
+        statusConsumers.clear();
+    }
+
+    @Override
+    public ConnectionStatus getConnectionStatus() {
+        return connectionStatus;
+    }
+
+    @Override
+    public void connect() {
+        connectionStatus = ConnectionStatus.CONNECTED;
+        statusConsumers.forEach(consumer -> consumer.accept(connectionStatus));
+    }
+
+    @Override
+    public void disconnect() {
+        connectionStatus = ConnectionStatus.DISCONNECTED;
+        statusConsumers.forEach(consumer -> consumer.accept(connectionStatus));
+    }
+
+    @Override
+    public String getClientUri() {
+        return "velbus://loopback";
+    }
+
+    @Override
+    public void setEncoderDecoderProvider(Supplier<ChannelHandler[]> encoderDecoderProvider) throws UnsupportedOperationException {
+
+    }
+}
@@ -0,0 +1,79 @@
+package org.openremote.test.load
+
+/**
+ * Collects end-to-end latencies of one subscriber transport. The load generator sends the time of each sensor update
+ * as the attribute value (see {@link #currentMicros}), subscribers in the same JVM record the difference when the
+ * event arrives so no clock synchronisation is needed.
+ */
+class LatencyRecorder {
+
+    static final long EPOCH_NANOS = System.nanoTime()
+
+    final String name
+    protected long[] samples = new long[4096]
+    protected int count
+    protected long bytes
+    protected long errors
+
+    LatencyRecorder(String name) {
+        this.name = name
+    }
+
+    /**
+     * @return The value to send with a sensor update, microseconds since the recorder class was loaded.
+     */
+    static double currentMicros() {
+        return (System.nanoTime() - EPOCH_NANOS) / 1000d
+    }
+
+    synchronized void record(double sentMicros, int messageBytes) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, samples.length * 2)
+        }
+        samples[count++] = (long) (currentMicros() - sentMicros)
+        bytes += messageBytes
+    }
+
+    synchronized void error() {
+        errors++
+    }
+
+    synchronized void reset() {
+        count = 0
+        bytes = 0
+        errors = 0
+    }
+
+    synchronized int getCount() {
+        return count
+    }
+
+    /**
+     * @return Percentiles in milliseconds and counters for the samples recorded since the last {@link #reset}.
+     */
+    synchronized Map<String, Object> report(long expectedCount) {
+        long[] sorted = Arrays.copyOf(samples, count)
+        Arrays.sort(sorted)
+        return [
+            transport    : name,
+            received     : count,
+            expected     : expectedCount,
+            deliveryRatio: expectedCount > 0 ? count / (double) expectedCount : 1d,
+            errors       : errors,
+            bytesPerEvent: count > 0 ? bytes / (double) count : 0d,
+            p50Millis    : percentileMillis(sorted, 0.5),
+            p90Millis    : percentileMillis(sorted, 0.9),
+            p99Millis    : percentileMillis(sorted, 0.99),
+            p999Millis   : percentileMillis(sorted, 0.999),
+            maxMillis    : sorted.length > 0 ? sorted[sorted.length - 1] / 1000d : 0d
+        ] as Map<String, Object>
+    }
+
+    protected static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0d
+        }
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)
+        return sorted[Math.max(0, index)] / 1000d
+    }
+}
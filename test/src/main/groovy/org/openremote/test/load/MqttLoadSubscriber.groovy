@@ -0,0 +1,105 @@
+package org.openremote.test.load
+
+import io.netty.bootstrap.Bootstrap
+import io.netty.channel.Channel
+import io.netty.channel.ChannelHandlerContext
+import io.netty.channel.ChannelInitializer
+import io.netty.channel.EventLoopGroup
+import io.netty.channel.SimpleChannelInboundHandler
+import io.netty.channel.socket.SocketChannel
+import io.netty.channel.socket.nio.NioSocketChannel
+import io.netty.handler.codec.mqtt.*
+import org.openremote.model.attribute.AttributeEvent
+import org.openremote.model.value.Values
+
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+import static org.openremote.container.Container.JSON
+
+/**
+ * A minimal MQTT 3.1.1 client that connects to the manager broker, subscribes to the attribute events of the given
+ * assets and records the latency of every published event.
+ */
+class MqttLoadSubscriber {
+
+    static final int TOPICS_PER_SUBSCRIBE = 100 // Keeps the SUBSCRIBE message well below the decoder size limit
+
+    final LatencyRecorder recorder
+    protected CountDownLatch subscribed
+    protected Channel channel
+
+    MqttLoadSubscriber(LatencyRecorder recorder) {
+        this.recorder = recorder
+    }
+
+    void connect(EventLoopGroup eventLoopGroup, String host, int port, String clientId, String username, String password, List<String> assetIds) {
+        def topicBatches = assetIds.collect { "assets/" + it }.collate(TOPICS_PER_SUBSCRIBE)
+        subscribed = new CountDownLatch(topicBatches.size())
+
+        def handler = new SimpleChannelInboundHandler<MqttMessage>() {
+
+            @Override
+            void channelActive(ChannelHandlerContext ctx) {
+                ctx.writeAndFlush(MqttMessageBuilders.connect()
+                    .protocolVersion(MqttVersion.MQTT_3_1_1)
+                    .clientId(clientId)
+                    .username(username)
+                    .password(password.getBytes(StandardCharsets.UTF_8))
+                    .cleanSession(true)
+                    .keepAlive(0)
+                    .build())
+            }
+
+            @Override
+            protected void channelRead0(ChannelHandlerContext ctx, MqttMessage message) {
+                switch (message.fixedHeader().messageType()) {
+                    case MqttMessageType.CONNACK:
+                        topicBatches.eachWithIndex { topics, i ->
+                            def subscribe = MqttMessageBuilders.subscribe().messageId(i + 1)
+                            topics.each { subscribe.addSubscription(MqttQoS.AT_MOST_ONCE, it) }
+                            ctx.write(subscribe.build())
+                        }
+                        ctx.flush()
+                        break
+                    case MqttMessageType.SUBACK:
+                        subscribed.countDown()
+                        break
+                    case MqttMessageType.PUBLISH:
+                        def payload = ((MqttPublishMessage) message).payload()
+                        int messageBytes = payload.readableBytes()
+                        def event = JSON.readValue(payload.toString(StandardCharsets.UTF_8), AttributeEvent.class)
+                        def sentMicros = event.value.flatMap { Values.getNumber(it) }
+                        if (sentMicros.present) {
+                            recorder.record(sentMicros.get(), messageBytes)
+                        } else {
+                            recorder.error()
+                        }
+                        break
+                }
+            }
+        }
+
+        channel = new Bootstrap()
+            .group(eventLoopGroup)
+            .channel(NioSocketChannel.class)
+            .handler(new ChannelInitializer<SocketChannel>() {
+                @Override
+                void initChannel(SocketChannel ch) {
+                    ch.pipeline().addLast(new MqttDecoder(), MqttEncoder.INSTANCE, handler)
+                }
+            })
+            .connect(host, port)
+            .sync()
+            .channel()
+    }
+
+    boolean awaitSubscribed(long timeout, TimeUnit unit) {
+        return subscribed.await(timeout, unit)
+    }
+
+    void close() {
+        channel?.close()?.sync()
+    }
+}
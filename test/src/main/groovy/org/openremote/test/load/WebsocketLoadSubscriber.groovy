@@ -0,0 +1,109 @@
+package org.openremote.test.load
+
+import org.openremote.manager.event.BinaryEventCodec
+import org.openremote.model.attribute.AttributeEvent
+import org.openremote.model.event.TriggeredEventSubscription
+import org.openremote.model.event.shared.EventSubscription
+import org.openremote.model.value.Values
+
+import javax.websocket.Endpoint
+import javax.websocket.EndpointConfig
+import javax.websocket.MessageHandler
+import javax.websocket.Session
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+import static org.openremote.container.Container.CBOR
+import static org.openremote.container.Container.JSON
+
+/**
+ * A client event websocket session that subscribes to attribute events and records the latency of every event it
+ * receives, either with the JSON text protocol or the CBOR binary encoding.
+ */
+class WebsocketLoadSubscriber extends Endpoint {
+
+    final LatencyRecorder recorder
+    final EventSubscription<AttributeEvent> subscription
+    final boolean binary
+    final CountDownLatch subscribed = new CountDownLatch(1)
+    Session session
+
+    WebsocketLoadSubscriber(LatencyRecorder recorder, EventSubscription<AttributeEvent> subscription, boolean binary) {
+        this.recorder = recorder
+        this.subscription = subscription
+        this.binary = binary
+    }
+
+    @Override
+    void onOpen(Session session, EndpointConfig config) {
+        this.session = session
+
+        if (binary) {
+            session.addMessageHandler(byte[].class, new MessageHandler.Whole<byte[]>() {
+                @Override
+                void onMessage(byte[] message) {
+                    int offset = TriggeredEventSubscription.MESSAGE_PREFIX.length()
+                    if (startsWith(message, TriggeredEventSubscription.MESSAGE_PREFIX)) {
+                        onTriggered(CBOR.readValue(message, offset, message.length - offset, TriggeredEventSubscription.class), message.length)
+                    } else if (startsWith(message, EventSubscription.SUBSCRIBED_MESSAGE_PREFIX)) {
+                        subscribed.countDown()
+                    }
+                }
+            })
+            session.getBasicRemote().sendBinary(ByteBuffer.wrap(BinaryEventCodec.encode(subscription)))
+        } else {
+            session.addMessageHandler(String.class, new MessageHandler.Whole<String>() {
+                @Override
+                void onMessage(String message) {
+                    if (message.startsWith(TriggeredEventSubscription.MESSAGE_PREFIX)) {
+                        onTriggered(
+                            JSON.readValue(message.substring(TriggeredEventSubscription.MESSAGE_PREFIX.length()), TriggeredEventSubscription.class),
+                            message.getBytes(StandardCharsets.UTF_8).length
+                        )
+                    } else if (message.startsWith(EventSubscription.SUBSCRIBED_MESSAGE_PREFIX)) {
+                        subscribed.countDown()
+                    }
+                }
+            })
+            session.getBasicRemote().sendText(EventSubscription.SUBSCRIBE_MESSAGE_PREFIX + JSON.writeValueAsString(subscription))
+        }
+    }
+
+    protected void onTriggered(TriggeredEventSubscription triggered, int messageBytes) {
+        triggered.events?.each { event ->
+            if (event instanceof AttributeEvent) {
+                def sentMicros = ((AttributeEvent) event).value.flatMap { Values.getNumber(it) }
+                if (sentMicros.present) {
+                    recorder.record(sentMicros.get(), messageBytes)
+                } else {
+                    recorder.error()
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits until the manager has acknowledged the subscription, an unauthorized subscription is never acknowledged.
+     */
+    boolean awaitSubscribed(long timeout, TimeUnit unit) {
+        return subscribed.await(timeout, unit)
+    }
+
+    void close() {
+        session?.close()
+    }
+
+    protected static boolean startsWith(byte[] message, String prefix) {
+        if (message.length < prefix.length()) {
+            return false
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (message[i] != (byte) prefix.charAt(i)) {
+                return false
+            }
+        }
+        return true
+    }
+}
@@ -40,6 +40,43 @@ class AssetModelTest extends Specification {
         asset.getAttributesList()[1].getAssetId().get() == id
     }
 
+    def "Updating asset attribute values"() {
+
+        given: "an asset with attributes"
+        def readOnlyAttribute = new AssetAttribute("foo2", STRING, Values.create("foo222"))
+        readOnlyAttribute.setReadOnly(true)
+        Asset asset = new Asset("foo", THING).setAttributes(
+                new AssetAttribute("foo1", STRING, Values.create("foo111")),
+                readOnlyAttribute
+        )
+        def oldAttribute = asset.getAttribute("foo2").get()
+
+        when: "an attribute value is updated with a copy"
+        def timestamp = System.currentTimeMillis()
+        def updatedAttribute = oldAttribute.copyWithValue(Values.create("foo333"), timestamp)
+        asset.replaceAttribute(updatedAttribute)
+
+        then: "the old attribute should be unchanged and the copy should share its meta"
+        oldAttribute.getValueAsString().get() == "foo222"
+        updatedAttribute.getValueAsString().get() == "foo333"
+        updatedAttribute.getValueTimestamp().get() == timestamp
+        updatedAttribute.isReadOnly()
+        updatedAttribute.getObjectValue().getArray("meta").get().is(oldAttribute.getObjectValue().getArray("meta").get())
+
+        and: "the asset should have the new value in both the attribute list and the JSON"
+        asset.getAttributesList().size() == 2
+        asset.getAttributesList().find { it.name == "foo2" }.getValueAsString().get() == "foo333"
+        asset.getAttribute("foo2").get().getValueAsString().get() == "foo333"
+        asset.getAttribute("foo1").get().getValueAsString().get() == "foo111"
+
+        when: "a new attribute is added"
+        asset.replaceAttribute(new AssetAttribute("foo3", STRING, Values.create("foo444")))
+
+        then: "it should be present in the attribute list and the JSON"
+        asset.getAttributesList().size() == 3
+        asset.getAttribute("foo3").get().getValueAsString().get() == "foo444"
+    }
+
     def "Comparing asset attributes"() {
 
         when: "two attributes have different value timestamps"
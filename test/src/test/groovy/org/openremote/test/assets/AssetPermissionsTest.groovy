@@ -7,6 +7,7 @@ import org.openremote.model.Constants
 import org.openremote.model.asset.AssetResource
 import org.openremote.model.asset.Asset
 import org.openremote.model.asset.AssetAttribute
+import org.openremote.model.attribute.AttributeEvent
 import org.openremote.model.attribute.AttributeType
 import org.openremote.model.query.AssetQuery
 import org.openremote.model.asset.AssetType
@@ -382,6 +383,18 @@ class AssetPermissionsTest extends Specification implements ManagerContainerTrai
         then: "access should be forbidden"
         ex = thrown()
         ex.response.status == 403
+
+        when: "asset attributes in the authenticated and a foreign realm are written in one request"
+        def results = assetResource.writeAttributeEvents(null, [
+            new AttributeEvent(managerTestSetup.smartOfficeId, AttributeType.GEO_STREET.attributeName, Values.create("Teststreet 789")),
+            new AttributeEvent(managerTestSetup.smartBuildingId, AttributeType.GEO_STREET.attributeName, Values.create("Teststreet 789"))
+        ] as AttributeEvent[])
+
+        then: "only the attribute in the authenticated realm should be written"
+        results.length == 2
+        results[0].success
+        results[1].failure == "INSUFFICIENT_ACCESS"
+        assetResource.get(null, managerTestSetup.smartOfficeId).getAttribute(AttributeType.GEO_STREET).get().getValue().get().toJson() == Values.create("Teststreet 789").toJson()
     }
 
     def "Access assets as testuser2"() {
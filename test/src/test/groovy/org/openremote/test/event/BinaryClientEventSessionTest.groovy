@@ -0,0 +1,107 @@
+package org.openremote.test.event
+
+import org.openremote.manager.asset.AssetProcessingService
+import org.openremote.manager.event.BinaryEventCodec
+import org.openremote.manager.setup.SetupService
+import org.openremote.manager.setup.builtin.ManagerTestSetup
+import org.openremote.model.asset.AssetFilter
+import org.openremote.model.attribute.AttributeEvent
+import org.openremote.model.event.TriggeredEventSubscription
+import org.openremote.model.event.shared.EventSubscription
+import org.openremote.model.value.Values
+import org.openremote.test.ManagerContainerTrait
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import javax.websocket.Endpoint
+import javax.websocket.EndpointConfig
+import javax.websocket.MessageHandler
+import javax.websocket.Session
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.CopyOnWriteArrayList
+
+import static org.openremote.container.util.MapAccess.getString
+import static org.openremote.manager.event.ClientEventService.WEBSOCKET_ENCODING_CBOR
+import static org.openremote.manager.event.ClientEventService.WEBSOCKET_ENCODING_REQUEST_PARAMETER
+import static org.openremote.manager.event.ClientEventService.WEBSOCKET_EVENTS
+import static org.openremote.manager.security.ManagerIdentityProvider.SETUP_ADMIN_PASSWORD
+import static org.openremote.manager.security.ManagerIdentityProvider.SETUP_ADMIN_PASSWORD_DEFAULT
+import static org.openremote.model.Constants.KEYCLOAK_CLIENT_ID
+import static org.openremote.model.Constants.MASTER_REALM
+import static org.openremote.model.Constants.MASTER_REALM_ADMIN_USER
+
+class BinaryClientEventSessionTest extends Specification implements ManagerContainerTrait {
+
+    def "Drop binary frames that can't be decoded without affecting the session"() {
+
+        given: "expected conditions"
+        def conditions = new PollingConditions(timeout: 10, delay: 0.2)
+
+        and: "the container is started"
+        def container = startContainer(defaultConfig(), defaultServices())
+        def assetProcessingService = container.getService(AssetProcessingService.class)
+        def managerTestSetup = container.getService(SetupService.class).getTaskOfType(ManagerTestSetup.class)
+
+        and: "a websocket session using the CBOR encoding that records the binary frames it receives"
+        def accessToken = authenticate(
+            container,
+            MASTER_REALM,
+            KEYCLOAK_CLIENT_ID,
+            MASTER_REALM_ADMIN_USER,
+            getString(container.getConfig(), SETUP_ADMIN_PASSWORD, SETUP_ADMIN_PASSWORD_DEFAULT)
+        ).token
+        def receivedFrames = new CopyOnWriteArrayList<byte[]>()
+        def endpoint = new Endpoint() {
+            @Override
+            void onOpen(Session session, EndpointConfig config) {
+                session.addMessageHandler(byte[].class, new MessageHandler.Whole<byte[]>() {
+                    @Override
+                    void onMessage(byte[] message) {
+                        receivedFrames.add(message)
+                    }
+                })
+            }
+        }
+        def uri = serverUri(serverPort).queryParam(WEBSOCKET_ENCODING_REQUEST_PARAMETER, WEBSOCKET_ENCODING_CBOR)
+        def session = connect(createWebsocketClient(), endpoint, uri, WEBSOCKET_EVENTS, MASTER_REALM, accessToken)
+
+        and: "the system settles down"
+        noEventProcessedIn(assetProcessingService, 500)
+
+        when: "a frame with an unknown prefix and a frame with a valid prefix but garbage content are sent"
+        session.basicRemote.sendBinary(ByteBuffer.wrap("FOO:bar".getBytes(StandardCharsets.US_ASCII)))
+        session.basicRemote.sendBinary(ByteBuffer.wrap(("EVENT:".getBytes(StandardCharsets.US_ASCII).toList() + [(byte) 0xFF, (byte) 0x00, (byte) 0x13, (byte) 0x37]) as byte[]))
+
+        and: "the session then subscribes to attribute events"
+        def subscription = new EventSubscription<AttributeEvent>(
+            AttributeEvent.class,
+            new AssetFilter<AttributeEvent>().setAssetIds(managerTestSetup.apartment1LivingroomId),
+            "1")
+        session.basicRemote.sendBinary(ByteBuffer.wrap(BinaryEventCodec.encode(subscription)))
+
+        then: "the session should still be open and the subscription should be acknowledged"
+        conditions.eventually {
+            assert session.open
+            assert receivedFrames.size() == 1
+            assert startsWith(receivedFrames[0], EventSubscription.SUBSCRIBED_MESSAGE_PREFIX)
+        }
+
+        when: "an attribute of the subscribed asset changes"
+        assetProcessingService.sendAttributeEvent(new AttributeEvent(managerTestSetup.apartment1LivingroomId, "targetTemperature", Values.create(5)))
+
+        then: "the session should receive the event"
+        conditions.eventually {
+            assert receivedFrames.size() == 2
+            assert startsWith(receivedFrames[1], TriggeredEventSubscription.MESSAGE_PREFIX)
+            assert session.open
+        }
+
+        cleanup: "the session is closed"
+        session?.close()
+    }
+
+    protected static boolean startsWith(byte[] frame, String prefix) {
+        frame.length >= prefix.length() && new String(frame, 0, prefix.length(), StandardCharsets.US_ASCII) == prefix
+    }
+}
@@ -0,0 +1,57 @@
+package org.openremote.test.event
+
+import org.openremote.manager.event.BinaryEventCodec
+import org.openremote.model.attribute.AttributeEvent
+import org.openremote.model.event.shared.EventSubscription
+import org.openremote.model.event.shared.SharedEvent
+import org.openremote.model.value.Values
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+
+class BinaryEventCodecTest extends Specification {
+
+    def "Encode and decode binary client event messages"() {
+
+        when: "an attribute event is encoded"
+        def event = new AttributeEvent("asset1", "temperature", Values.create(21.5), 1234L)
+        def frame = BinaryEventCodec.encode(event)
+
+        then: "the frame starts with the text protocol prefix"
+        new String(frame, 0, SharedEvent.MESSAGE_PREFIX.length(), StandardCharsets.US_ASCII) == SharedEvent.MESSAGE_PREFIX
+
+        when: "the frame is decoded"
+        def decoded = BinaryEventCodec.decode(frame)
+
+        then: "the same event is returned"
+        decoded instanceof AttributeEvent
+        ((AttributeEvent) decoded).entityId == "asset1"
+        ((AttributeEvent) decoded).attributeName == "temperature"
+        ((AttributeEvent) decoded).value.flatMap { Values.getNumber(it) }.orElse(null) == 21.5d
+        ((AttributeEvent) decoded).timestamp == 1234L
+
+        when: "a batch of events is encoded and decoded"
+        SharedEvent[] events = [
+            new AttributeEvent("asset1", "temperature", Values.create(22)),
+            new AttributeEvent("asset2", "label", Values.create("Living room"))
+        ]
+        decoded = BinaryEventCodec.decode(BinaryEventCodec.encode(events))
+
+        then: "an array of events is returned"
+        decoded instanceof SharedEvent[]
+        ((SharedEvent[]) decoded).length == 2
+        ((AttributeEvent) ((SharedEvent[]) decoded)[1]).value.flatMap { Values.getString(it) }.orElse(null) == "Living room"
+
+        when: "a subscription is encoded and decoded"
+        def subscription = new EventSubscription(AttributeEvent.class, null, "subscription1")
+        decoded = BinaryEventCodec.decode(BinaryEventCodec.encode(subscription))
+
+        then: "the same subscription is returned"
+        decoded instanceof EventSubscription
+        ((EventSubscription) decoded).eventType == subscription.eventType
+        ((EventSubscription) decoded).subscriptionId == "subscription1"
+
+        expect: "objects that are not protocol messages are not encoded"
+        BinaryEventCodec.encode("foo") == null
+    }
+}
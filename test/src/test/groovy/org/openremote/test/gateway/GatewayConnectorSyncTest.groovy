@@ -0,0 +1,132 @@
+package org.openremote.test.gateway
+
+import org.openremote.container.util.UniqueIdentifierGenerator
+import org.openremote.manager.asset.AssetProcessingService
+import org.openremote.manager.asset.AssetStorageService
+import org.openremote.manager.concurrent.ManagerExecutorService
+import org.openremote.manager.datapoint.AssetDatapointService
+import org.openremote.manager.gateway.GatewayConnector
+import org.openremote.model.asset.Asset
+import org.openremote.model.asset.AssetAttribute
+import org.openremote.model.asset.AssetType
+import org.openremote.model.asset.AssetsEvent
+import org.openremote.model.asset.ReadAssetsEvent
+import org.openremote.model.attribute.AttributeValueType
+import org.openremote.model.event.shared.EventRequestResponseWrapper
+import org.openremote.model.value.Values
+import spock.lang.Specification
+
+import java.util.concurrent.ScheduledFuture
+
+import static org.openremote.manager.gateway.GatewayConnector.mapAssetId
+
+class GatewayConnectorSyncTest extends Specification {
+
+    static Asset createGatewayAsset(String id, String name, long version, long tempTimestamp) {
+        def asset = new Asset(name, AssetType.THING.type)
+        asset.id = id
+        asset.version = version
+        asset.addAttributes(new AssetAttribute("temp", AttributeValueType.NUMBER, Values.create(20), tempTimestamp))
+        return asset
+    }
+
+    static String[] getRequestedIds(Object message, String expectedMessageId) {
+        def request = message as EventRequestResponseWrapper
+        assert request.messageId == expectedMessageId
+        return (request.event as ReadAssetsEvent).assetQuery.ids
+    }
+
+    def "Only re-read gateway assets that changed when the gateway reconnects"() {
+
+        given: "a gateway connector whose local assets are held in memory"
+        def gateway = new Asset("Test gateway", AssetType.GATEWAY.type)
+        gateway.id = UniqueIdentifierGenerator.generateId("Test gateway")
+        gateway.realm = "master"
+        Map<String, Asset> localAssets = [:]
+        int mergeCount = 0
+        def assetStorageService = Mock(AssetStorageService) {
+            merge(_ as Asset, true, true, null) >> { Asset asset, boolean overrideVersion, boolean skipGatewayCheck, String userName ->
+                mergeCount++
+                localAssets.put(asset.id, asset)
+                asset
+            }
+            findAll(_) >> { localAssets.values().toList() }
+            delete(_, true) >> true
+        }
+        def executorService = Mock(ManagerExecutorService) {
+            schedule(_ as Runnable, _ as Long) >> Stub(ScheduledFuture)
+        }
+        def connector = new GatewayConnector(assetStorageService, Mock(AssetProcessingService), Mock(AssetDatapointService), executorService, gateway)
+        def gatewayMessages = []
+
+        and: "the gateway has two assets"
+        def asset1Id = UniqueIdentifierGenerator.generateId("Asset 1")
+        def asset2Id = UniqueIdentifierGenerator.generateId("Asset 2")
+
+        when: "the gateway connects and returns the summary and then the full assets"
+        connector.connect({ gatewayMessages.add(it) }, {})
+        connector.onGatewayEvent(GatewayConnector.ASSET_READ_EVENT_NAME_INITIAL, new AssetsEvent([
+            createGatewayAsset(asset1Id, "Asset 1", 1, 1000),
+            createGatewayAsset(asset2Id, "Asset 2", 1, 1000)
+        ]))
+        def requestedIds = getRequestedIds(gatewayMessages[1], GatewayConnector.ASSET_READ_EVENT_NAME_BATCH + "0")
+        connector.onGatewayEvent(GatewayConnector.ASSET_READ_EVENT_NAME_BATCH + "0", new AssetsEvent([
+            createGatewayAsset(asset1Id, "Asset 1", 1, 1000),
+            createGatewayAsset(asset2Id, "Asset 2", 1, 1000)
+        ]))
+
+        then: "both assets should have been read and stored locally"
+        requestedIds as Set == [asset1Id, asset2Id] as Set
+        !connector.initialSyncInProgress
+        mergeCount == 2
+        localAssets.containsKey(mapAssetId(gateway.id, asset1Id, false))
+        localAssets.containsKey(mapAssetId(gateway.id, asset2Id, false))
+
+        when: "the gateway reconnects with the first asset unchanged and a new value for the second asset"
+        connector.disconnect()
+        gatewayMessages.clear()
+        connector.connect({ gatewayMessages.add(it) }, {})
+        connector.onGatewayEvent(GatewayConnector.ASSET_READ_EVENT_NAME_INITIAL, new AssetsEvent([
+            createGatewayAsset(asset1Id, "Asset 1", 1, 1000),
+            createGatewayAsset(asset2Id, "Asset 2", 1, 2000)
+        ]))
+
+        then: "only the changed asset should be requested"
+        getRequestedIds(gatewayMessages[1], GatewayConnector.ASSET_READ_EVENT_NAME_BATCH + "0") == [asset2Id] as String[]
+
+        when: "the gateway returns the changed asset"
+        connector.onGatewayEvent(GatewayConnector.ASSET_READ_EVENT_NAME_BATCH + "0", new AssetsEvent([
+            createGatewayAsset(asset2Id, "Asset 2", 1, 2000)
+        ]))
+
+        then: "only the changed asset should have been stored again"
+        !connector.initialSyncInProgress
+        mergeCount == 3
+
+        when: "the gateway reconnects without any asset having changed"
+        connector.disconnect()
+        gatewayMessages.clear()
+        connector.connect({ gatewayMessages.add(it) }, {})
+        connector.onGatewayEvent(GatewayConnector.ASSET_READ_EVENT_NAME_INITIAL, new AssetsEvent([
+            createGatewayAsset(asset1Id, "Asset 1", 1, 1000),
+            createGatewayAsset(asset2Id, "Asset 2", 1, 2000)
+        ]))
+
+        then: "no assets should be requested and the sync should complete"
+        gatewayMessages.size() == 1
+        !connector.initialSyncInProgress
+        mergeCount == 3
+
+        when: "the gateway reconnects after the structure of the first asset changed"
+        connector.disconnect()
+        gatewayMessages.clear()
+        connector.connect({ gatewayMessages.add(it) }, {})
+        connector.onGatewayEvent(GatewayConnector.ASSET_READ_EVENT_NAME_INITIAL, new AssetsEvent([
+            createGatewayAsset(asset1Id, "Asset 1", 2, 1000),
+            createGatewayAsset(asset2Id, "Asset 2", 1, 2000)
+        ]))
+
+        then: "only that asset should be requested"
+        getRequestedIds(gatewayMessages[1], GatewayConnector.ASSET_READ_EVENT_NAME_BATCH + "0") == [asset1Id] as String[]
+    }
+}
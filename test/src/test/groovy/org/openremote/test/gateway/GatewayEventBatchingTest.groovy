@@ -0,0 +1,222 @@
+package org.openremote.test.gateway
+
+import org.apache.camel.impl.DefaultCamelContext
+import org.apache.camel.impl.DefaultExchange
+import org.openremote.agent.protocol.websocket.WebsocketIoClient
+import org.openremote.container.Container
+import org.openremote.manager.concurrent.ManagerExecutorService
+import org.openremote.manager.event.ClientEventService
+import org.openremote.manager.gateway.GatewayClientService
+import org.openremote.manager.gateway.GatewayEventBatcher
+import org.openremote.manager.gateway.GatewayService
+import org.openremote.model.asset.AssetEvent
+import org.openremote.model.asset.agent.ConnectionStatus
+import org.openremote.model.attribute.AttributeEvent
+import org.openremote.model.event.shared.EventSubscription
+import org.openremote.model.event.shared.SharedEvent
+import org.openremote.model.gateway.GatewayCapabilitiesEvent
+import org.openremote.model.gateway.GatewayConnection
+import org.openremote.model.gateway.GatewayDisconnectEvent
+import org.openremote.model.value.Values
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import javax.websocket.Session
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
+
+class GatewayEventBatchingTest extends Specification {
+
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor()
+
+    def cleanup() {
+        scheduler.shutdownNow()
+    }
+
+    ManagerExecutorService createExecutorService() {
+        Mock(ManagerExecutorService) {
+            schedule(_ as Runnable, _ as Long) >> { Runnable runnable, long delayMillis ->
+                scheduler.schedule(runnable, delayMillis, TimeUnit.MILLISECONDS)
+            }
+        }
+    }
+
+    static AttributeEvent createAttributeEvent(int value) {
+        new AttributeEvent("asset1", "temp", Values.create(value), value)
+    }
+
+    def "Batch events by linger time and batch size whilst keeping their order"() {
+
+        given: "a batcher that records the batches it passes on"
+        def conditions = new PollingConditions(timeout: 5, delay: 0.05)
+        def batches = new CopyOnWriteArrayList<SharedEvent[]>()
+        def batcher = new GatewayEventBatcher(createExecutorService(), { batches.add(it) })
+
+        when: "a few events are added"
+        (1..3).each { batcher.add(createAttributeEvent(it)) }
+
+        then: "they should be passed on as one batch once the linger time has passed"
+        batches.isEmpty()
+        conditions.eventually {
+            assert batches.size() == 1
+        }
+        batches[0].collect { (it as AttributeEvent).value.flatMap { Values.getIntegerCoerced(it) }.orElse(null) } == [1, 2, 3]
+
+        when: "more events are added than fit into a batch"
+        batches.clear()
+        (1..GatewayEventBatcher.EVENT_BATCH_MAX_SIZE + 5).each { batcher.add(createAttributeEvent(it)) }
+
+        then: "a full batch should be passed on immediately and the rest after the linger time"
+        batches.size() == 1
+        batches[0].length == GatewayEventBatcher.EVENT_BATCH_MAX_SIZE
+        conditions.eventually {
+            assert batches.size() == 2
+        }
+        batches[1].length == 5
+        batches.collectMany { it.toList() }.collect { it.timestamp } == (1L..GatewayEventBatcher.EVENT_BATCH_MAX_SIZE + 5L).toList()
+
+        when: "an event is added and the batcher is flushed"
+        batches.clear()
+        batcher.add(createAttributeEvent(1))
+        batcher.flush()
+
+        then: "the event should be passed on without waiting"
+        batches.size() == 1
+
+        when: "the batcher is stopped with a pending event"
+        batcher.add(createAttributeEvent(2))
+        batcher.stop()
+        batcher.add(createAttributeEvent(3))
+        Thread.sleep(GatewayEventBatcher.EVENT_BATCH_LINGER_MILLIS * 3)
+
+        then: "the pending event should be passed on and later events ignored"
+        batches.size() == 2
+        batches[1].length == 1
+        batcher.eventCount == GatewayEventBatcher.EVENT_BATCH_MAX_SIZE + 5 + 3 + 2
+    }
+
+    def "Only batch events for a gateway that requested it"() {
+
+        given: "a gateway service"
+        def sentMessages = new CopyOnWriteArrayList<Object>()
+        def gatewayService = new GatewayService()
+        gatewayService.clientEventService = Mock(ClientEventService) {
+            sendToSession("session1", _) >> { String sessionKey, Object data -> sentMessages.add(data) }
+        }
+
+        expect: "batching to only be agreed if the gateway requested it"
+        GatewayService.isRequestParameterSet(Mock(Session) {
+            getRequestParameterMap() >> [(GatewayService.EVENT_BATCHING_REQUEST_PARAMETER): ["true"]]
+        }, GatewayService.EVENT_BATCHING_REQUEST_PARAMETER)
+        !GatewayService.isRequestParameterSet(Mock(Session) {
+            getRequestParameterMap() >> [:]
+        }, GatewayService.EVENT_BATCHING_REQUEST_PARAMETER)
+        !GatewayService.isRequestParameterSet(null, GatewayService.EVENT_BATCHING_REQUEST_PARAMETER)
+
+        when: "messages are sent to a gateway without batching"
+        def consumer = gatewayService.createConnectorMessageConsumer("session1", null)
+        consumer.accept(createAttributeEvent(1))
+        consumer.accept(createAttributeEvent(2))
+
+        then: "each event should be sent on its own"
+        sentMessages.size() == 2
+        sentMessages.every { it instanceof AttributeEvent }
+
+        when: "attribute events and another message are sent to a gateway with batching"
+        sentMessages.clear()
+        def batcher = new GatewayEventBatcher(createExecutorService(), { gatewayService.clientEventService.sendToSession("session1", it) })
+        consumer = gatewayService.createConnectorMessageConsumer("session1", batcher)
+        consumer.accept(createAttributeEvent(1))
+        consumer.accept(createAttributeEvent(2))
+        consumer.accept(new GatewayDisconnectEvent(GatewayDisconnectEvent.Reason.DISABLED))
+
+        then: "the pending attribute events should be sent as a batch before the other message"
+        sentMessages.size() == 2
+        (sentMessages[0] as SharedEvent[]).length == 2
+        sentMessages[1] instanceof GatewayDisconnectEvent
+
+        cleanup:
+        batcher?.stop()
+    }
+
+    def "Only batch events to the central manager once it has agreed to batching"() {
+
+        given: "a gateway client service with a connected client"
+        def conditions = new PollingConditions(timeout: 5, delay: 0.05)
+        def sentMessages = new CopyOnWriteArrayList<String>()
+        def clientService = new GatewayClientService()
+        clientService.executorService = createExecutorService()
+        def connection = new GatewayConnection("master", "127.0.0.1", 8080, "building", "client", "secret", false, false)
+        clientService.clientRealmMap.put("master", Mock(WebsocketIoClient) {
+            getConnectionStatus() >> ConnectionStatus.CONNECTED
+            sendMessage(_) >> { sentMessages.add(it[0] as String) }
+        })
+
+        when: "attribute events are sent before batching has been agreed"
+        clientService.sendCentralManagerEvent("master", createAttributeEvent(1))
+        clientService.sendCentralManagerEvent("master", createAttributeEvent(2))
+
+        then: "each event should be sent on its own"
+        sentMessages.size() == 2
+        sentMessages.every { it.startsWith(SharedEvent.MESSAGE_PREFIX + "{") }
+
+        when: "the central manager agrees to batching and more events are sent"
+        sentMessages.clear()
+        clientService.onCentralManagerEvent(connection, null, new GatewayCapabilitiesEvent(true, false))
+        (1..3).each { clientService.sendCentralManagerEvent("master", createAttributeEvent(it)) }
+
+        then: "they should be sent as a single batch"
+        conditions.eventually {
+            assert sentMessages.size() == 1
+        }
+        def events = Container.JSON.readValue(sentMessages[0].substring(SharedEvent.MESSAGE_PREFIX.length()), SharedEvent[].class)
+        events.collect { it.timestamp } == [1L, 2L, 3L]
+
+        when: "an attribute event is followed by an asset event"
+        sentMessages.clear()
+        clientService.sendCentralManagerEvent("master", createAttributeEvent(4))
+        clientService.sendCentralManagerEvent("master", new AssetEvent(AssetEvent.Cause.DELETE, null, null))
+
+        then: "the attribute event should be sent first"
+        sentMessages.size() == 2
+        sentMessages[0].startsWith(SharedEvent.MESSAGE_PREFIX + "[")
+        sentMessages[1].startsWith(SharedEvent.MESSAGE_PREFIX + "{")
+
+        cleanup:
+        clientService.stopEventBatcher("master")
+    }
+
+    def "Split batched client events in order"() {
+
+        given: "a client event service"
+        def clientEventService = new ClientEventService()
+        def exchange = new DefaultExchange(new DefaultCamelContext())
+
+        when: "a batched message is split"
+        exchange.in.body = SharedEvent.MESSAGE_PREFIX + Container.JSON.writeValueAsString((1..5).collect { createAttributeEvent(it) })
+        def parts = clientEventService.splitEventBatch(exchange)
+
+        then: "the message should be recognised as a batch and every event should be returned in the order it was sent"
+        clientEventService.isEventBatch(exchange)
+        parts.size() == 5
+        parts.every { it instanceof AttributeEvent }
+        parts.collect { (it as AttributeEvent).timestamp } == (1L..5L).toList()
+
+        when: "a single event message is split"
+        def message = SharedEvent.MESSAGE_PREFIX + Container.JSON.writeValueAsString(createAttributeEvent(1))
+        exchange.in.body = message
+        parts = clientEventService.splitEventBatch(exchange)
+
+        then: "the message should not need splitting and be returned unchanged"
+        !clientEventService.isEventBatch(exchange)
+        parts == [message]
+
+        when: "a subscription message is checked"
+        exchange.in.body = EventSubscription.SUBSCRIBE_MESSAGE_PREFIX + "{}"
+
+        then: "it should not need splitting either"
+        !clientEventService.isEventBatch(exchange)
+    }
+}
@@ -0,0 +1,69 @@
+package org.openremote.test.gateway
+
+import org.openremote.manager.gateway.GatewayEventJournal
+import spock.lang.Specification
+
+import java.nio.file.Files
+
+class GatewayEventJournalTest extends Specification {
+
+    def "Record, bound and replay gateway events"() {
+
+        given: "small journal segments"
+        def segmentSize = GatewayEventJournal.SEGMENT_SIZE_BYTES
+        GatewayEventJournal.SEGMENT_SIZE_BYTES = 1024
+        def directory = Files.createTempDirectory("gateway-journal")
+
+        when: "records are appended to a new journal"
+        def journal = new GatewayEventJournal(directory, 4096)
+        (1..10).each { journal.append(it, "event" + it) }
+
+        then: "they are read back in order and removed"
+        journal.poll(5, 0) == (1..5).collect { "event" + it }
+        journal.poll(100, 0) == (6..10).collect { "event" + it }
+        journal.isEmpty()
+
+        when: "records are appended and the journal is reopened"
+        (11..20).each { journal.append(it, "event" + it) }
+        journal.flush()
+        journal = new GatewayEventJournal(directory, 4096)
+
+        then: "the records are still available and expired records are skipped"
+        !journal.isEmpty()
+        journal.poll(100, 16) == (16..20).collect { "event" + it }
+        journal.expiredCount == 5
+        journal.isEmpty()
+
+        when: "records are peeked without being committed"
+        (21..25).each { journal.append(it, "event" + it) }
+        def peeked = journal.peek(3, 0)
+
+        then: "the same records are returned again until they are committed"
+        peeked == (21..23).collect { "event" + it }
+        journal.peek(3, 0) == peeked
+        journal.readCount == 5
+
+        when: "the peeked records are committed"
+        journal.commit()
+
+        then: "only the remaining records are returned"
+        journal.readCount == 8
+        journal.peek(100, 0) == (24..25).collect { "event" + it }
+        journal.commit()
+        journal.isEmpty()
+
+        when: "more records are appended than fit in the journal"
+        (1..500).each { journal.append(it, "event" + it) }
+
+        then: "the oldest records are discarded and the rest are read in order"
+        journal.droppedCount > 0
+        def records = journal.poll(1000, 0)
+        records.size() == 500 - journal.droppedCount
+        records.last() == "event500"
+        records == records.sort(false) { Integer.parseInt(it.substring(5)) }
+
+        cleanup:
+        GatewayEventJournal.SEGMENT_SIZE_BYTES = segmentSize
+        directory?.toFile()?.deleteDir()
+    }
+}
@@ -0,0 +1,235 @@
+package org.openremote.test.gateway
+
+import org.openremote.agent.protocol.websocket.WebsocketIoClient
+import org.openremote.container.Container
+import org.openremote.container.timer.TimerService
+import org.openremote.container.util.UniqueIdentifierGenerator
+import org.openremote.manager.asset.AssetProcessingService
+import org.openremote.manager.asset.AssetStorageService
+import org.openremote.manager.concurrent.ManagerExecutorService
+import org.openremote.manager.datapoint.AssetDatapointService
+import org.openremote.manager.event.ClientEventService
+import org.openremote.manager.gateway.GatewayClientService
+import org.openremote.manager.gateway.GatewayConnector
+import org.openremote.model.asset.Asset
+import org.openremote.model.asset.AssetAttribute
+import org.openremote.model.asset.AssetType
+import org.openremote.model.asset.AssetsEvent
+import org.openremote.model.asset.agent.ConnectionStatus
+import org.openremote.model.attribute.AttributeEvent
+import org.openremote.model.attribute.AttributeValueType
+import org.openremote.model.event.shared.SharedEvent
+import org.openremote.model.gateway.GatewayCapabilitiesEvent
+import org.openremote.model.gateway.GatewayConnection
+import org.openremote.model.gateway.GatewayReplayEvent
+import org.openremote.model.value.Values
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.nio.file.Files
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.ScheduledFuture
+import java.util.concurrent.TimeUnit
+
+import static org.openremote.manager.gateway.GatewayConnector.mapAssetId
+
+class GatewayJournalReplayTest extends Specification {
+
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor()
+
+    def cleanup() {
+        scheduler.shutdownNow()
+    }
+
+    def "Replay events recorded whilst disconnected as datapoints once reconnected"() {
+
+        given: "a gateway asset with an attribute that stores datapoints"
+        def conditions = new PollingConditions(timeout: 15, delay: 0.2)
+        def assetId = UniqueIdentifierGenerator.generateId("Asset 1")
+        def gatewayAsset = new Asset("Asset 1", AssetType.THING.type)
+        gatewayAsset.id = assetId
+        gatewayAsset.version = 1
+        def temp = new AssetAttribute("temp", AttributeValueType.NUMBER, Values.create(20), 1000)
+        temp.setStoreDatapoints(true)
+        gatewayAsset.addAttributes(temp)
+
+        and: "a central manager gateway connector that stores assets and datapoints in memory"
+        def gateway = new Asset("Test gateway", AssetType.GATEWAY.type)
+        gateway.id = UniqueIdentifierGenerator.generateId("Test gateway")
+        gateway.realm = "master"
+        Map<String, Asset> localAssets = [:]
+        def datapoints = new CopyOnWriteArrayList<AttributeEvent>()
+        def assetStorageService = Mock(AssetStorageService) {
+            merge(_ as Asset, true, true, null) >> { Asset asset, boolean overrideVersion, boolean skipGatewayCheck, String userName ->
+                localAssets.put(asset.id, asset)
+                asset
+            }
+            findAll(_) >> { localAssets.values().toList() }
+        }
+        def assetDatapointService = Mock(AssetDatapointService) {
+            storeDatapoints(_) >> { List<AttributeEvent> events -> datapoints.addAll(events) }
+        }
+        def connector = new GatewayConnector(assetStorageService, Mock(AssetProcessingService), assetDatapointService, Mock(ManagerExecutorService) {
+            schedule(_ as Runnable, _ as Long) >> Stub(ScheduledFuture)
+        }, gateway)
+        def gatewayMessages = []
+        connector.connect({ gatewayMessages.add(it) }, {})
+        connector.onGatewayEvent(GatewayConnector.ASSET_READ_EVENT_NAME_INITIAL, new AssetsEvent([gatewayAsset]))
+        connector.onGatewayEvent(GatewayConnector.ASSET_READ_EVENT_NAME_BATCH + "0", new AssetsEvent([gatewayAsset]))
+        assert !connector.initialSyncInProgress
+
+        and: "a gateway client service with a journal whose client passes messages to the connector"
+        def journalDirectory = Files.createTempDirectory("gateway-journal")
+        def connectionStatus = ConnectionStatus.DISCONNECTED
+        int disconnectAfterMessages = -1
+        def replayMessageCount = 0
+        def clientService = new GatewayClientService()
+        clientService.journalPath = journalDirectory
+        clientService.journalMaxSizeMb = 1
+        clientService.journalRetentionMillis = TimeUnit.HOURS.toMillis(1)
+        clientService.journalReplayRate = 50
+        clientService.timerService = Mock(TimerService) {
+            getCurrentTimeMillis() >> { System.currentTimeMillis() }
+        }
+        clientService.executorService = Mock(ManagerExecutorService) {
+            scheduleWithFixedDelay(_ as Runnable, _ as Long, _ as Long) >> { Runnable runnable, long initialDelayMillis, long periodMillis ->
+                scheduler.scheduleWithFixedDelay(runnable, initialDelayMillis, periodMillis, TimeUnit.MILLISECONDS)
+            }
+        }
+        def connection = new GatewayConnection("master", "127.0.0.1", 8080, "building", "client", "secret", false, false)
+        clientService.clientRealmMap.put("master", Mock(WebsocketIoClient) {
+            getConnectionStatus() >> { connectionStatus }
+            sendMessage(_) >> { args ->
+                if (connectionStatus != ConnectionStatus.CONNECTED) {
+                    return
+                }
+                def event = Container.JSON.readValue((args[0] as String).substring(SharedEvent.MESSAGE_PREFIX.length()), SharedEvent.class)
+                if (event instanceof GatewayReplayEvent && ++replayMessageCount == disconnectAfterMessages) {
+                    // The connection drops whilst this message is being sent so it is lost
+                    connectionStatus = ConnectionStatus.DISCONNECTED
+                    return
+                }
+                connector.onGatewayEvent(null, event)
+            }
+        })
+        clientService.createJournal("master")
+        def journal = clientService.journalRealmMap.get("master")
+
+        when: "attribute events occur whilst the gateway is disconnected"
+        def startMillis = System.currentTimeMillis() - 60000
+        (1..120).each {
+            clientService.sendCentralManagerEvent("master", new AttributeEvent(assetId, "temp", Values.create(it), startMillis + it))
+        }
+
+        then: "they should be recorded in the journal"
+        journal.appendedCount == 120
+
+        when: "the gateway reconnects and the connection drops whilst the second replay message is sent"
+        disconnectAfterMessages = 2
+        connectionStatus = ConnectionStatus.CONNECTED
+        clientService.onCentralManagerEvent(connection, null, new GatewayCapabilitiesEvent(false, true))
+
+        then: "the replay should pause without removing the unsent events from the journal"
+        conditions.eventually {
+            assert connectionStatus == ConnectionStatus.DISCONNECTED
+            assert !clientService.journalReplayRealmMap.containsKey("master")
+        }
+        datapoints.size() == 50
+        journal.readCount == 50
+        !journal.isEmpty()
+
+        when: "the gateway reconnects again"
+        disconnectAfterMessages = -1
+        connectionStatus = ConnectionStatus.CONNECTED
+        clientService.onCentralManagerEvent(connection, null, new GatewayCapabilitiesEvent(false, true))
+
+        then: "every recorded event should arrive as a datapoint of the mapped asset and the journal should be empty"
+        conditions.eventually {
+            assert !clientService.journalReplayRealmMap.containsKey("master")
+            assert journal.isEmpty()
+        }
+        journal.readCount == 120
+        datapoints.size() == 120
+        datapoints.every { it.entityId == mapAssetId(gateway.id, assetId, false) && it.attributeName == "temp" }
+        datapoints.collect { it.timestamp } as Set == (1..120).collect { startMillis + it } as Set
+        datapoints.findAll { it.timestamp > startMillis + 50 }.collect { it.timestamp } == (51..120).collect { startMillis + it }
+
+        cleanup:
+        journalDirectory?.toFile()?.deleteDir()
+    }
+
+    def "Record batched events that are still pending when the connection drops in the journal"() {
+
+        given: "a gateway client service with a journal whose executor keeps the batch linger timers for the test to run"
+        def journalDirectory = Files.createTempDirectory("gateway-journal")
+        def connectionStatus = ConnectionStatus.CONNECTED
+        def sentMessages = []
+        def lingerTimers = []
+        def clientService = new GatewayClientService()
+        clientService.journalPath = journalDirectory
+        clientService.journalMaxSizeMb = 1
+        clientService.journalRetentionMillis = TimeUnit.HOURS.toMillis(1)
+        clientService.journalReplayRate = 50
+        clientService.clientEventService = Mock(ClientEventService)
+        clientService.timerService = Mock(TimerService) {
+            getCurrentTimeMillis() >> { System.currentTimeMillis() }
+        }
+        clientService.executorService = Mock(ManagerExecutorService) {
+            schedule(_ as Runnable, _ as Long) >> { Runnable runnable, long delayMillis ->
+                lingerTimers.add(runnable)
+                Stub(ScheduledFuture)
+            }
+        }
+        def connection = new GatewayConnection("master", "127.0.0.1", 8080, "building", "client", "secret", false, false)
+        clientService.clientRealmMap.put("master", Mock(WebsocketIoClient) {
+            getConnectionStatus() >> { connectionStatus }
+            sendMessage(_) >> { args ->
+                if (connectionStatus == ConnectionStatus.CONNECTED) {
+                    sentMessages.add(args[0])
+                }
+            }
+        })
+        clientService.createJournal("master")
+        def journal = clientService.journalRealmMap.get("master")
+
+        and: "the central manager has agreed to event batching"
+        clientService.onCentralManagerEvent(connection, null, new GatewayCapabilitiesEvent(true, false))
+        assert clientService.eventBatcherRealmMap.containsKey("master")
+
+        when: "attribute events are batched and the connection drops before the batch linger time has passed"
+        def startMillis = System.currentTimeMillis() - 60000
+        (1..5).each {
+            clientService.sendCentralManagerEvent("master", new AttributeEvent("asset1", "temp", Values.create(it), startMillis + it))
+        }
+        connectionStatus = ConnectionStatus.DISCONNECTED
+        lingerTimers.last().run()
+
+        then: "the batch should not be sent but recorded in the journal"
+        sentMessages.isEmpty()
+        journal.appendedCount == 5
+
+        when: "the connection is re-established with batching and attribute events are pending when it drops"
+        connectionStatus = ConnectionStatus.CONNECTED
+        clientService.onCentralManagerEvent(connection, null, new GatewayCapabilitiesEvent(true, false))
+        (6..8).each {
+            clientService.sendCentralManagerEvent("master", new AttributeEvent("asset1", "temp", Values.create(it), startMillis + it))
+        }
+        connectionStatus = ConnectionStatus.DISCONNECTED
+        clientService.onGatewayClientConnectionStatusChanged(connection, ConnectionStatus.DISCONNECTED)
+
+        then: "the batcher should be discarded and the pending events should be recorded in the journal"
+        !clientService.eventBatcherRealmMap.containsKey("master")
+        sentMessages.isEmpty()
+        journal.appendedCount == 8
+
+        and: "the journal should hold every event in order"
+        journal.poll(10, 0).collect {
+            Container.JSON.readValue(it, AttributeEvent.class).timestamp
+        } == (1..8).collect { startMillis + it }
+
+        cleanup:
+        journalDirectory?.toFile()?.deleteDir()
+    }
+}
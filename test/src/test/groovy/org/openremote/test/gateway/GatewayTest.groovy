@@ -139,7 +139,9 @@ class GatewayTest extends Specification implements ManagerContainerTrait {
             assert response.messageId == GatewayConnector.ASSET_READ_EVENT_NAME_INITIAL
             def readAssetsEvent = response.event as ReadAssetsEvent
             assert readAssetsEvent.assetQuery != null
-            assert readAssetsEvent.assetQuery.select.excludeAttributes
+            assert !readAssetsEvent.assetQuery.select.excludeAttributes
+            assert readAssetsEvent.assetQuery.select.excludeAttributeValue
+            assert readAssetsEvent.assetQuery.select.excludeAttributeMeta
             assert readAssetsEvent.assetQuery.select.excludePath
             assert readAssetsEvent.assetQuery.select.excludeParentInfo
             assert readAssetsEvent.assetQuery.recursive
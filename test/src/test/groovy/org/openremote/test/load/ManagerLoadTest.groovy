@@ -0,0 +1,247 @@
+package org.openremote.test.load
+
+import io.moquette.BrokerConstants
+import io.netty.channel.nio.NioEventLoopGroup
+import org.openremote.agent.protocol.simulator.SimulatorProtocol
+import org.openremote.container.util.UniqueIdentifierGenerator
+import org.openremote.manager.asset.AssetStorageService
+import org.openremote.manager.mqtt.MqttBrokerService
+import org.openremote.manager.setup.SetupService
+import org.openremote.manager.setup.builtin.ManagerTestSetup
+import org.openremote.model.asset.Asset
+import org.openremote.model.asset.AssetAttribute
+import org.openremote.model.asset.AssetFilter
+import org.openremote.model.asset.AssetType
+import org.openremote.model.attribute.AttributeEvent
+import org.openremote.model.attribute.AttributeRef
+import org.openremote.model.attribute.AttributeState
+import org.openremote.model.attribute.AttributeValueType
+import org.openremote.model.attribute.MetaItem
+import org.openremote.model.event.shared.EventSubscription
+import org.openremote.model.simulator.element.NumberSimulatorElement
+import org.openremote.model.value.Values
+import org.openremote.test.ManagerContainerTrait
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.lang.management.ManagementFactory
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+import java.util.logging.Level
+import java.util.logging.Logger
+
+import static org.openremote.container.Container.JSON
+import static org.openremote.container.Container.VIRTUAL_THREADS as VIRTUAL_THREADS_CONFIG
+import static org.openremote.container.util.MapAccess.getInteger
+import static org.openremote.container.util.MapAccess.getString
+import static org.openremote.manager.event.ClientEventService.*
+import static org.openremote.manager.mqtt.KeycloakAuthenticator.MQTT_CLIENT_ID_SEPARATOR
+import static org.openremote.manager.mqtt.MqttBrokerService.MQTT_SERVER_LISTEN_HOST
+import static org.openremote.manager.mqtt.MqttBrokerService.MQTT_SERVER_LISTEN_PORT
+import static org.openremote.manager.setup.SetupTasks.SETUP_IMPORT_DEMO_RULES
+import static org.openremote.model.Constants.KEYCLOAK_CLIENT_ID
+import static org.openremote.model.asset.agent.ProtocolConfiguration.initProtocolConfiguration
+import static org.openremote.model.attribute.MetaItemType.AGENT_LINK
+import static org.openremote.model.attribute.MetaItemType.STORE_DATA_POINTS
+
+/**
+ * Drives simulated sensor updates through a complete manager and measures the latency until they arrive at websocket
+ * (JSON and CBOR encoded) and MQTT subscribers, stepping through increasing update rates to find where latency
+ * explodes. Not part of the regular test run, use <code>./gradlew :test:loadTest</code> with these system properties:
+ * <ul>
+ * <li><code>load.assets</code> - Number of simulated assets (default 100)</li>
+ * <li><code>load.attributes</code> - Simulator linked attributes per asset (default 5)</li>
+ * <li><code>load.storeDatapoints</code> - Store datapoints of the linked attributes (default true)</li>
+ * <li><code>load.rates</code> - Comma separated sensor updates per second for each step (default 100,500,1000)</li>
+ * <li><code>load.stepSeconds</code> - Duration of each step, make it long for a soak test (default 30)</li>
+ * <li><code>load.websocketSubscribers</code> - JSON websocket sessions (default 10)</li>
+ * <li><code>load.binaryWebsocketSubscribers</code> - CBOR websocket sessions (default 10)</li>
+ * <li><code>load.mqttSubscribers</code> - MQTT connections (default 2)</li>
+ * <li><code>load.virtualThreads</code> - Run blocking work on virtual threads, requires JDK 21 (default false)</li>
+ * <li><code>load.maxP99Millis</code> - Fail when the 99th percentile latency of any step exceeds this</li>
+ * <li><code>load.resultsFile</code> - Where the JSON results are written</li>
+ * </ul>
+ * Each step also reports the live and peak JVM thread counts, run the test with and without virtual threads to compare
+ * the throughput and number of threads of both execution modes. The manager uses the PostgreSQL and Keycloak instances
+ * of the regular tests.
+ */
+class ManagerLoadTest extends Specification implements ManagerContainerTrait {
+
+    static final Logger LOG = Logger.getLogger(ManagerLoadTest.class.getName())
+    static final int ASSETS = Integer.getInteger("load.assets", 100)
+    static final int ATTRIBUTES = Integer.getInteger("load.attributes", 5)
+    static final boolean STORE_DATAPOINTS = Boolean.parseBoolean(System.getProperty("load.storeDatapoints", "true"))
+    static final List<Integer> RATES = System.getProperty("load.rates", "100,500,1000").split(",").collect { Integer.parseInt(it.trim()) }
+    static final int STEP_SECONDS = Integer.getInteger("load.stepSeconds", 30)
+    static final int WEBSOCKET_SUBSCRIBERS = Integer.getInteger("load.websocketSubscribers", 10)
+    static final int BINARY_WEBSOCKET_SUBSCRIBERS = Integer.getInteger("load.binaryWebsocketSubscribers", 10)
+    static final int MQTT_SUBSCRIBERS = Integer.getInteger("load.mqttSubscribers", 2)
+    static final boolean VIRTUAL_THREADS = Boolean.parseBoolean(System.getProperty("load.virtualThreads", "false"))
+    static final String MAX_P99_MILLIS = System.getProperty("load.maxP99Millis")
+    static final String RESULTS_FILE = System.getProperty("load.resultsFile", "build/reports/load/results.json")
+    static final long TICK_MILLIS = 10
+    static final long DRAIN_MILLIS = 5000
+
+    def "Sensor update latency to websocket and MQTT subscribers under increasing load"() {
+
+        given: "the container environment is started with the wall clock"
+        def conditions = new PollingConditions(timeout: 60, delay: 0.5)
+        def container = startContainerWithoutPseudoClock(defaultConfig() << [(SETUP_IMPORT_DEMO_RULES): "false", (VIRTUAL_THREADS_CONFIG): Boolean.toString(VIRTUAL_THREADS)], defaultServices())
+        def managerTestSetup = container.getService(SetupService.class).getTaskOfType(ManagerTestSetup.class)
+        def assetStorageService = container.getService(AssetStorageService.class)
+        def simulatorProtocol = container.getService(SimulatorProtocol.class)
+        def realm = managerTestSetup.realmBuildingTenant
+
+        and: "latency recorders for each subscriber transport"
+        def websocketRecorder = new LatencyRecorder("websocket-json")
+        def binaryWebsocketRecorder = new LatencyRecorder("websocket-cbor")
+        def mqttRecorder = new LatencyRecorder("mqtt")
+        def subscriberCounts = [(websocketRecorder): WEBSOCKET_SUBSCRIBERS, (binaryWebsocketRecorder): BINARY_WEBSOCKET_SUBSCRIBERS, (mqttRecorder): MQTT_SUBSCRIBERS]
+
+        when: "a simulator agent with the load test assets and linked attributes is created"
+        def agent = new Asset("Load Test Agent", AssetType.AGENT, null, realm)
+        agent.addAttributes(
+            initProtocolConfiguration(new AssetAttribute("loadSimulator"), SimulatorProtocol.PROTOCOL_NAME)
+                .addMeta(new MetaItem(SimulatorProtocol.CONFIG_MODE, Values.create(SimulatorProtocol.Mode.WRITE_THROUGH_IMMEDIATE.toString())))
+        )
+        agent = assetStorageService.merge(agent)
+        def agentLink = new AttributeRef(agent.id, "loadSimulator")
+        List<AttributeRef> attributeRefs = []
+        List<String> assetIds = []
+        ASSETS.times { i ->
+            def thing = new Asset("Load Test Thing " + i, AssetType.THING, agent)
+            ATTRIBUTES.times { j ->
+                def attribute = new AssetAttribute("sensor" + j, AttributeValueType.NUMBER).setMeta(
+                    new MetaItem(AGENT_LINK, agentLink.toArrayValue()),
+                    new MetaItem(SimulatorProtocol.SIMULATOR_ELEMENT, Values.create(NumberSimulatorElement.ELEMENT_NAME))
+                )
+                if (STORE_DATAPOINTS) {
+                    attribute.addMeta(new MetaItem(STORE_DATA_POINTS, Values.create(true)))
+                }
+                thing.addAttributes(attribute)
+            }
+            thing = assetStorageService.merge(thing)
+            assetIds << thing.id
+            ATTRIBUTES.times { j -> attributeRefs << new AttributeRef(thing.id, "sensor" + j) }
+        }
+
+        then: "all attributes should be linked to the simulator"
+        conditions.eventually {
+            assert simulatorProtocol.getLinkedElements(agentLink).size() == ASSETS * ATTRIBUTES
+        }
+
+        when: "the subscribers connect and subscribe to the attribute events of the load test assets"
+        def accessToken = authenticate(container, realm, KEYCLOAK_CLIENT_ID, "building", "building").token
+        def websocketClient = createWebsocketClient()
+        def subscription = { new EventSubscription<AttributeEvent>(AttributeEvent.class, new AssetFilter<AttributeEvent>().setParentIds(agent.id)) }
+        List<WebsocketLoadSubscriber> websocketSubscribers = []
+        WEBSOCKET_SUBSCRIBERS.times {
+            def subscriber = new WebsocketLoadSubscriber(websocketRecorder, subscription(), false)
+            connect(websocketClient, subscriber, serverUri(serverPort), WEBSOCKET_EVENTS, realm, accessToken)
+            websocketSubscribers << subscriber
+        }
+        BINARY_WEBSOCKET_SUBSCRIBERS.times {
+            def subscriber = new WebsocketLoadSubscriber(binaryWebsocketRecorder, subscription(), true)
+            def uri = serverUri(serverPort).queryParam(WEBSOCKET_ENCODING_REQUEST_PARAMETER, WEBSOCKET_ENCODING_CBOR)
+            connect(websocketClient, subscriber, uri, WEBSOCKET_EVENTS, realm, accessToken)
+            websocketSubscribers << subscriber
+        }
+
+        def mqttEventLoopGroup = new NioEventLoopGroup()
+        def mqttHost = getString(container.getConfig(), MQTT_SERVER_LISTEN_HOST, BrokerConstants.HOST)
+        def mqttPort = getInteger(container.getConfig(), MQTT_SERVER_LISTEN_PORT, BrokerConstants.PORT)
+        List<MqttLoadSubscriber> mqttSubscribers = []
+        MQTT_SUBSCRIBERS.times {
+            def subscriber = new MqttLoadSubscriber(mqttRecorder)
+            subscriber.connect(
+                mqttEventLoopGroup,
+                mqttHost,
+                mqttPort,
+                realm + MQTT_CLIENT_ID_SEPARATOR + UniqueIdentifierGenerator.generateId(),
+                MqttBrokerService.MQTT_CLIENT_ID_PREFIX + UniqueIdentifierGenerator.generateId(realm),
+                UniqueIdentifierGenerator.generateId(realm),
+                assetIds
+            )
+            mqttSubscribers << subscriber
+        }
+
+        then: "all subscriptions should be active"
+        websocketSubscribers.size() == WEBSOCKET_SUBSCRIBERS + BINARY_WEBSOCKET_SUBSCRIBERS
+        websocketSubscribers.every { it.awaitSubscribed(30, TimeUnit.SECONDS) }
+        mqttSubscribers.every { it.awaitSubscribed(30, TimeUnit.SECONDS) }
+
+        when: "sensor updates are sent at each configured rate"
+        def executor = Executors.newSingleThreadScheduledExecutor()
+        def threadMXBean = ManagementFactory.getThreadMXBean()
+        def sent = new AtomicLong()
+        List<Map<String, Object>> steps = []
+        RATES.each { rate ->
+            subscriberCounts.keySet()*.reset()
+            sent.set(0)
+            threadMXBean.resetPeakThreadCount()
+            double updatesPerTick = rate * TICK_MILLIS / 1000d
+            double pendingUpdates = 0
+            long startNanos = System.nanoTime()
+
+            def future = executor.scheduleAtFixedRate({
+                try {
+                    pendingUpdates += updatesPerTick
+                    while (pendingUpdates >= 1) {
+                        pendingUpdates--
+                        def attributeRef = attributeRefs.get((int) (sent.getAndIncrement() % attributeRefs.size()))
+                        simulatorProtocol.putValue(new AttributeState(attributeRef, Values.create(LatencyRecorder.currentMicros())))
+                    }
+                } catch (Exception e) {
+                    LOG.log(Level.WARNING, "Failed to send simulated sensor update", e)
+                }
+            } as Runnable, 0, TICK_MILLIS, TimeUnit.MILLISECONDS)
+
+            Thread.sleep(STEP_SECONDS * 1000L)
+            future.cancel(false)
+            double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9d
+            int threads = threadMXBean.getThreadCount()
+            int peakThreads = threadMXBean.getPeakThreadCount()
+            Thread.sleep(DRAIN_MILLIS)
+
+            def step = [
+                targetRate  : rate,
+                achievedRate: sent.get() / elapsedSeconds,
+                sent        : sent.get(),
+                threads     : threads,
+                peakThreads : peakThreads,
+                transports  : subscriberCounts.findAll { it.value > 0 }.collect { recorder, subscribers -> recorder.report(sent.get() * subscribers) }
+            ] as Map<String, Object>
+            LOG.info("Load test step result: " + step)
+            steps << step
+        }
+
+        and: "the results are written"
+        def resultsFile = new File(RESULTS_FILE)
+        resultsFile.parentFile?.mkdirs()
+        JSON.writeValue(resultsFile, [
+            assets                     : ASSETS,
+            attributes                 : ATTRIBUTES,
+            storeDatapoints            : STORE_DATAPOINTS,
+            virtualThreads             : container.isVirtualThreads(),
+            stepSeconds                : STEP_SECONDS,
+            websocketSubscribers       : WEBSOCKET_SUBSCRIBERS,
+            binaryWebsocketSubscribers : BINARY_WEBSOCKET_SUBSCRIBERS,
+            mqttSubscribers            : MQTT_SUBSCRIBERS,
+            steps                      : steps
+        ])
+        LOG.info("Load test results written to: " + resultsFile.absolutePath)
+
+        then: "every subscriber transport should have received sensor updates in every step"
+        steps.every { step -> step.transports.every { it.received > 0 } }
+
+        and: "the latency should stay within the configured limit"
+        MAX_P99_MILLIS == null || steps.every { step -> step.transports.every { it.p99Millis <= Double.parseDouble(MAX_P99_MILLIS) } }
+
+        cleanup: "the subscribers are disconnected"
+        executor?.shutdownNow()
+        websocketSubscribers?.each { it.close() }
+        mqttSubscribers?.each { it.close() }
+        mqttEventLoopGroup?.shutdownGracefully()
+    }
+}
@@ -0,0 +1,59 @@
+package org.openremote.test.message
+
+import org.apache.camel.impl.DefaultCamelContext
+import org.apache.camel.impl.DefaultExchange
+import org.openremote.container.message.MessageQueue
+import spock.lang.Specification
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.TimeUnit
+
+class MessageQueueTest extends Specification {
+
+    def "Reject or block producers when a message queue is full"() {
+
+        given: "a camel context"
+        def context = new DefaultCamelContext()
+
+        when: "a full queue without backpressure is offered a message"
+        def queue = new MessageQueue(2, 0)
+        def offered = (1..3).collect { queue.offer(new DefaultExchange(context)) }
+
+        then: "the message is rejected immediately"
+        offered == [true, true, false]
+        queue.offeredCount == 2
+        queue.rejectedCount == 1
+        queue.blockedCount == 0
+
+        when: "a full queue with backpressure is offered a message"
+        queue = new MessageQueue(2, 5000)
+        2.times { queue.offer(new DefaultExchange(context)) }
+        def producer = CompletableFuture.supplyAsync { queue.offer(new DefaultExchange(context)) }
+        Thread.sleep(200)
+
+        then: "the producer is blocked"
+        !producer.isDone()
+
+        when: "a message is consumed"
+        def consumed = queue.poll(1, TimeUnit.SECONDS)
+
+        then: "the producer can add its message"
+        consumed != null
+        producer.get(5, TimeUnit.SECONDS)
+        queue.size() == 2
+        queue.blockedCount == 1
+        queue.offerWaitMillis > 0
+        queue.consumedCount == 1
+        queue.rejectedCount == 0
+
+        when: "the queue stays full until the timeout expires"
+        queue = new MessageQueue(1, 100)
+        queue.offer(new DefaultExchange(context))
+        def accepted = queue.offer(new DefaultExchange(context))
+
+        then: "the message is rejected"
+        !accepted
+        queue.blockedCount == 1
+        queue.rejectedCount == 1
+    }
+}
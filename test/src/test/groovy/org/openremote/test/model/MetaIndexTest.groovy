@@ -0,0 +1,60 @@
+package org.openremote.test.model
+
+import org.openremote.model.asset.AssetAttribute
+import org.openremote.model.attribute.AttributeValueType
+import org.openremote.model.attribute.MetaItem
+import org.openremote.model.value.Values
+import spock.lang.Specification
+
+import static org.openremote.model.attribute.MetaItemType.*
+
+class MetaIndexTest extends Specification {
+
+    def "Meta item flags follow meta changes"() {
+
+        given: "an attribute with meta items"
+        def attribute = new AssetAttribute("temperature", AttributeValueType.NUMBER)
+        attribute.addMeta(
+            new MetaItem(STORE_DATA_POINTS, Values.create(true)),
+            new MetaItem(RULE_STATE, Values.create(false)),
+            new MetaItem(LABEL, Values.create("Temperature"))
+        )
+
+        expect: "the flags and items to match the meta"
+        attribute.isStoreDatapoints()
+        !attribute.isRuleState()
+        !attribute.isReadOnly()
+        attribute.isEnabled()
+        attribute.getLabel().orElse(null) == "Temperature"
+        attribute.hasMetaItem(LABEL)
+        !attribute.hasMetaItem(FORMAT)
+
+        when: "meta items are replaced, added and removed"
+        def index = attribute.getMetaIndex()
+        attribute.setRuleState(true)
+        attribute.setReadOnly(true)
+        attribute.setStoreDatapoints(false)
+        attribute.setDisabled(true)
+        attribute.setLabel("Room temperature")
+
+        then: "the index should be rebuilt"
+        !index.isIndexOf(attribute.getObjectValue().getArray("meta").orElse(null))
+        !attribute.isStoreDatapoints()
+        attribute.isRuleState()
+        attribute.isReadOnly()
+        !attribute.isEnabled()
+        attribute.getLabel().orElse(null) == "Room temperature"
+
+        and: "the index should be reused as long as the meta doesn't change"
+        attribute.getMetaIndex().is(attribute.getMetaIndex())
+
+        when: "the meta is replaced"
+        attribute.setMeta(new MetaItem(RULE_EVENT, Values.create(true)))
+
+        then: "only the new meta should be indexed"
+        attribute.isRuleEvent()
+        !attribute.isRuleState()
+        !attribute.isReadOnly()
+        !attribute.hasMetaItem(LABEL)
+    }
+}
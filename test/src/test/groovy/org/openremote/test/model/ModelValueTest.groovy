@@ -3,6 +3,7 @@ package org.openremote.test.model
 import org.openremote.model.value.ArrayValue
 import org.openremote.model.value.ObjectValue
 import org.openremote.model.value.Value
+import org.openremote.model.value.ValueJsonCodec
 import org.openremote.model.value.Values
 import spock.lang.Specification
 
@@ -27,6 +28,32 @@ class ModelValueTest extends Specification {
         parsedValue == sampleArray1
     }
 
+    def "Streaming JSON codec"() {
+        given: "a JSON document"
+        def json = '{"name":"Living room","temperature":21.5,"count":3,"large":1.2345678E7,"enabled":true,"empty":null,' +
+            '"text":"quote \\" backslash \\\\ newline \\n tab \\t","list":[1,-2.5,"a",false,null,{"nested":[]}],"object":{}}'
+
+        expect: "the codec to read the same values as the tokenizer"
+        def value = ValueJsonCodec.read(json).get()
+        value == Values.parse(json).get()
+        ValueJsonCodec.read(json.getBytes("UTF-8")).get() == value
+        ValueJsonCodec.read(new ByteArrayInputStream(json.getBytes("UTF-8"))).get() == value
+
+        and: "to write the same JSON"
+        ValueJsonCodec.write(value) == value.toJson()
+        ValueJsonCodec.write(Values.create(5)) == Values.create(5).toJson()
+        ValueJsonCodec.write(Values.create("text")) == Values.create("text").toJson()
+        def out = new ByteArrayOutputStream()
+        ValueJsonCodec.write(value, out)
+        Values.parse(out.toString("UTF-8")).get() == value
+
+        and: "empty and invalid JSON to be handled like the tokenizer"
+        !ValueJsonCodec.read("").isPresent()
+        !ValueJsonCodec.read("null").isPresent()
+        ValueJsonCodec.readOrNull('{"foo":') == null
+        ValueJsonCodec.readOrNull('{"foo":1} bar') == null
+    }
+
     def "Null support"() {
         expect:
         def sampleObject = Values.createObject().put("prop", (Value)null)
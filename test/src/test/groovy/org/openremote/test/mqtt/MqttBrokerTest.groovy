@@ -250,6 +250,27 @@ class MqttBrokerTest extends Specification implements ManagerContainerTrait {
             assert mqttBrokerServiceAttributeEventCalls == 3
         }
 
+        when: "a mqtt client publishes to several asset attributes at once, one of which is readonly"
+        topic = "assets/" + managerTestSetup.apartment1HallwayId
+        payload = Values.createObject().put("lights", true).put("motionSensor", 80).toJson()
+        remainingLength = 2 + topic.size() + payload.length()
+
+        //PUBLISH
+        client.write(0x30) // MQTT Control Packet type(10) with QoS level 0
+                .write(remainingLength.byteValue()) // Remaining Length
+                .write(0x00, topic.size().byteValue()) // Topic Length
+                .write(topic) // Topic
+                .write(payload) // content
+                .flush()
+
+        then: "only the writable attribute should be updated and a publish event should be sent for it"
+        conditions.eventually {
+            def asset = assetStorageService.find(managerTestSetup.apartment1HallwayId)
+            assert asset.getAttribute("lights").get().valueAsBoolean.orElse(false)
+            assert asset.getAttribute("motionSensor").get().valueAsNumber.orElse(0) == 50d
+            assert mqttBrokerServiceAttributeEventCalls == 4
+        }
+
         when: "a mqtt client unsubscribes to an asset"
         topic = "assets/" + managerTestSetup.apartment1HallwayId
         remainingLength = 4 + topic.size()
@@ -277,7 +298,7 @@ class MqttBrokerTest extends Specification implements ManagerContainerTrait {
 
         then: "No publish event message should be sent"
         conditions.eventually {
-            assert mqttBrokerServiceAttributeEventCalls == 3
+            assert mqttBrokerServiceAttributeEventCalls == 4
         }
 
         when: "a mqtt client subscribes to an asset attribute"
@@ -310,7 +331,7 @@ class MqttBrokerTest extends Specification implements ManagerContainerTrait {
 
         then: "A publish event message should be sent"
         conditions.eventually {
-            assert mqttBrokerServiceAttributeEventCalls == 4
+            assert mqttBrokerServiceAttributeEventCalls == 5
         }
 
         when: "Another asset attribute changed without any subscriptions on that attribute"
@@ -319,7 +340,7 @@ class MqttBrokerTest extends Specification implements ManagerContainerTrait {
 
         then: "No publish event message should be sent"
         conditions.eventually {
-            assert mqttBrokerServiceAttributeEventCalls == 4
+            assert mqttBrokerServiceAttributeEventCalls == 5
         }
 
         when: "a mqtt client unsubscribes to an asset attribute"
@@ -0,0 +1,181 @@
+package org.openremote.test.protocol
+
+import org.openremote.agent.protocol.artnet.ArtnetClientProtocol
+import org.openremote.agent.protocol.artnet.ArtnetPacket
+import org.openremote.agent.protocol.artnet.ArtnetUniverseCompositor
+import org.openremote.manager.agent.AgentService
+import org.openremote.manager.asset.AssetProcessingService
+import org.openremote.manager.asset.AssetStorageService
+import org.openremote.model.Constants
+import org.openremote.model.asset.Asset
+import org.openremote.model.asset.AssetAttribute
+import org.openremote.model.asset.AssetType
+import org.openremote.model.asset.agent.ConnectionStatus
+import org.openremote.model.attribute.*
+import org.openremote.model.value.Values
+import org.openremote.test.ManagerContainerTrait
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.TimeUnit
+
+import static org.openremote.model.asset.agent.ProtocolConfiguration.initProtocolConfiguration
+
+class ArtnetClientProtocolTest extends Specification implements ManagerContainerTrait {
+
+    static Asset createLight(Asset agent, int lightId) {
+        def light = new Asset("Light " + lightId, AssetType.THING, agent)
+        light.setAttributes(
+            new AssetAttribute("Id", AttributeValueType.NUMBER, Values.create(lightId)),
+            new AssetAttribute("GroupId", AttributeValueType.NUMBER, Values.create(0)),
+            new AssetAttribute("Universe", AttributeValueType.NUMBER, Values.create(0)),
+            new AssetAttribute("AmountOfLeds", AttributeValueType.NUMBER, Values.create(1)),
+            new AssetAttribute("RequiredValues", AttributeValueType.STRING, Values.create("r,g,b")),
+            new AssetAttribute("Values", AttributeValueType.OBJECT)
+                .addMeta(
+                    new MetaItem(MetaItemType.AGENT_LINK, new AttributeRef(agent.id, "protocolConfig").toArrayValue())
+                )
+        )
+        return light
+    }
+
+    def "Send the light writes of a protocol configuration as at most one frame per refresh tick"() {
+
+        given: "expected conditions"
+        def conditions = new PollingConditions(timeout: 10, delay: 0.1)
+
+        and: "the container starts"
+        def container = startContainer(defaultConfig(), defaultServices())
+        def artnetClientProtocol = container.getService(ArtnetClientProtocol.class)
+        def assetStorageService = container.getService(AssetStorageService.class)
+        def assetProcessingService = container.getService(AssetProcessingService.class)
+        def agentService = container.getService(AgentService.class)
+
+        and: "an Art-Net node listening on the loopback interface that records the frames it receives"
+        def node = new DatagramSocket(0, InetAddress.getByName("127.0.0.1"))
+        node.soTimeout = 100
+        def receivedFrames = new CopyOnWriteArrayList<List>()
+        def nodeThread = Thread.start {
+            byte[] buffer = new byte[1024]
+            while (!node.closed) {
+                def datagram = new DatagramPacket(buffer, buffer.length)
+                try {
+                    node.receive(datagram)
+                    receivedFrames.add([System.nanoTime(), Arrays.copyOf(datagram.data, datagram.length)])
+                } catch (SocketTimeoutException ignored) {
+                } catch (SocketException ignored) {
+                }
+            }
+        }
+
+        expect: "the system settles down"
+        conditions.eventually {
+            assert noEventProcessedIn(assetProcessingService, 300)
+        }
+
+        when: "an agent with an Art-Net protocol configuration refreshing 10 times per second is created"
+        def agent = new Asset()
+        agent.setRealm(Constants.MASTER_REALM)
+        agent.setName("Test Agent")
+        agent.setType(AssetType.AGENT)
+        agent.setAttributes(
+            initProtocolConfiguration(new AssetAttribute("protocolConfig"), ArtnetClientProtocol.PROTOCOL_NAME)
+                .addMeta(
+                    new MetaItem(ArtnetClientProtocol.META_PROTOCOL_HOST, Values.create("127.0.0.1")),
+                    new MetaItem(ArtnetClientProtocol.META_PROTOCOL_PORT, Values.create(node.localPort)),
+                    new MetaItem(ArtnetClientProtocol.META_ARTNET_REFRESH_RATE, Values.create(10))
+                )
+        )
+        agent = assetStorageService.merge(agent)
+        def protocolRef = new AttributeRef(agent.id, "protocolConfig")
+
+        then: "the protocol should connect and create a compositor for the configuration with its refresh rate"
+        conditions.eventually {
+            assert agentService.getProtocolConnectionStatus(protocolRef) == ConnectionStatus.CONNECTED
+            assert artnetClientProtocol.compositors.size() == 1
+            assert artnetClientProtocol.compositors.get(protocolRef).periodMillis == 100
+        }
+        ArtnetUniverseCompositor compositor = artnetClientProtocol.compositors.get(protocolRef)
+
+        when: "five lights of the same universe are linked to the protocol configuration"
+        def lights = (1..5).collect { assetStorageService.merge(createLight(agent, it)) }
+
+        then: "the lights should be known to the protocol"
+        conditions.eventually {
+            assert artnetClientProtocol.lightMemory.size() == 5
+        }
+
+        when: "a scene writes new values to every light"
+        def startNanos = System.nanoTime()
+        lights.eachWithIndex { light, i ->
+            assetProcessingService.sendAttributeEvent(new AttributeEvent(light.id, "Values",
+                Values.createObject().put("r", (i + 1) * 10).put("g", (i + 1) * 20).put("b", (i + 1) * 30)))
+        }
+
+        then: "the node should receive the whole scene"
+        conditions.eventually {
+            assert compositor.updateCount == 5
+            assert !receivedFrames.isEmpty()
+            byte[] frame = receivedFrames.last()[1]
+            // The compositor pads the 15 channels of the lights to an even number
+            assert frame.length == ArtnetPacket.HEADER_LENGTH + 16
+            assert (0..<5).every {
+                (frame[ArtnetPacket.HEADER_LENGTH + it * 3] & 0xFF) == (it + 1) * 10 &&
+                    (frame[ArtnetPacket.HEADER_LENGTH + it * 3 + 1] & 0xFF) == (it + 1) * 20 &&
+                    (frame[ArtnetPacket.HEADER_LENGTH + it * 3 + 2] & 0xFF) == (it + 1) * 30
+            }
+        }
+
+        and: "at most one frame should have been sent per refresh tick"
+        Thread.sleep(300)
+        def sceneFrames = receivedFrames.size()
+        sceneFrames == compositor.frameCount
+        sceneFrames <= (receivedFrames.last()[0] - startNanos) / TimeUnit.MILLISECONDS.toNanos(100) + 1
+        (1..<sceneFrames).every { receivedFrames[it][0] - receivedFrames[it - 1][0] >= TimeUnit.MILLISECONDS.toNanos(50) }
+        compositor.mergedUpdateCount == 5 - sceneFrames
+
+        when: "the refresh rate of the protocol configuration is changed"
+        agent.getAttribute("protocolConfig").ifPresent {
+            it.meta.removeIf { it.name.orElse(null) == ArtnetClientProtocol.META_ARTNET_REFRESH_RATE.urn }
+            it.addMeta(new MetaItem(ArtnetClientProtocol.META_ARTNET_REFRESH_RATE, Values.create(20)))
+        }
+        agent = assetStorageService.merge(agent)
+
+        then: "the previous compositor should be stopped and replaced by one with the new refresh rate"
+        conditions.eventually {
+            assert artnetClientProtocol.compositors.size() == 1
+            assert artnetClientProtocol.compositors.get(protocolRef).periodMillis == 50
+            assert !compositor.started
+            assert artnetClientProtocol.lightMemory.size() == 5
+        }
+
+        when: "a light is written with the new compositor"
+        compositor = artnetClientProtocol.compositors.get(protocolRef)
+        assetProcessingService.sendAttributeEvent(new AttributeEvent(lights[0].id, "Values",
+            Values.createObject().put("r", 1).put("g", 2).put("b", 3)))
+
+        then: "the node should receive a frame with the new values"
+        conditions.eventually {
+            assert compositor.frameCount == 1
+            byte[] frame = receivedFrames.last()[1]
+            assert frame[ArtnetPacket.HEADER_LENGTH] == 1
+            assert frame[ArtnetPacket.HEADER_LENGTH + 1] == 2
+            assert frame[ArtnetPacket.HEADER_LENGTH + 2] == 3
+        }
+
+        when: "the protocol configuration is removed"
+        agent.removeAttribute("protocolConfig")
+        agent = assetStorageService.merge(agent)
+
+        then: "its compositor should be stopped and removed"
+        conditions.eventually {
+            assert artnetClientProtocol.compositors.isEmpty()
+            assert !compositor.started
+        }
+
+        cleanup:
+        node?.close()
+        nodeThread?.join(1000)
+    }
+}
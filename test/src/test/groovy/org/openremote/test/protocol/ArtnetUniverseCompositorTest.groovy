@@ -0,0 +1,128 @@
+package org.openremote.test.protocol
+
+import io.micrometer.core.instrument.Metrics
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import io.netty.buffer.ByteBufUtil
+import io.netty.buffer.Unpooled
+import org.openremote.agent.protocol.artnet.ArtnetLight
+import org.openremote.agent.protocol.artnet.ArtnetLightState
+import org.openremote.agent.protocol.artnet.ArtnetPacket
+import org.openremote.agent.protocol.artnet.ArtnetUniverseCompositor
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
+
+class ArtnetUniverseCompositorTest extends Specification {
+
+    ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1)
+
+    def cleanup() {
+        scheduler.shutdownNow()
+    }
+
+    static List<ArtnetLight> createLights(int universe, int count) {
+        (1..count).collect {
+            def state = new ArtnetLightState(it, [r: 0, g: 0, b: 0], 100, true)
+            new ArtnetLight(it, 0, universe, 1, ["r", "g", "b"] as String[], state, null)
+        }
+    }
+
+    static void setLight(ArtnetLight light, int r, int g, int b) {
+        light.lightState = new ArtnetLightState(light.lightId, [r: r, g: g, b: b], 100, true)
+    }
+
+    def "Merge the changes to a universe within a refresh tick into one ArtDmx packet"() {
+
+        given: "expected conditions"
+        def conditions = new PollingConditions(timeout: 10, delay: 0.05)
+
+        and: "a metrics registry"
+        def registry = new SimpleMeterRegistry()
+        Metrics.addRegistry(registry)
+
+        and: "a compositor sending 40 frames per second that records the encoded packets it sends"
+        def receivedPackets = new CopyOnWriteArrayList<List>()
+        def compositor = new ArtnetUniverseCompositor(scheduler, 40, { ArtnetPacket packet ->
+            def buf = Unpooled.buffer(packet.length)
+            try {
+                packet.toByteBuf(buf)
+                receivedPackets.add([System.nanoTime(), ByteBufUtil.getBytes(buf)])
+            } finally {
+                buf.release()
+                packet.release()
+            }
+        })
+        def periodNanos = TimeUnit.MILLISECONDS.toNanos(compositor.periodMillis)
+
+        when: "a scene changes all 120 lights of a universe one at a time"
+        def lights = createLights(1, 120)
+        def startNanos = System.nanoTime()
+        lights.eachWithIndex { light, i ->
+            setLight(light, i, 255 - i, 100)
+            compositor.update(ArtnetPacket.newInstance(1, new ArrayList<>(lights)))
+        }
+        def updatedNanos = System.nanoTime()
+
+        then: "the whole scene should be sent"
+        conditions.eventually {
+            assert !receivedPackets.isEmpty()
+            byte[] frame = receivedPackets.last()[1]
+            assert frame.length == ArtnetPacket.HEADER_LENGTH + 360
+            assert (0..<120).every { (frame[ArtnetPacket.HEADER_LENGTH + it * 3] & 0xFF) == it && (frame[ArtnetPacket.HEADER_LENGTH + it * 3 + 1] & 0xFF) == 255 - it }
+        }
+
+        and: "no more than one packet should have been sent per tick"
+        Thread.sleep(200)
+        def scenePackets = receivedPackets.size()
+        scenePackets <= (updatedNanos - startNanos) / periodNanos + 2
+        compositor.updateCount == 120
+        compositor.mergedUpdateCount >= 120 - scenePackets
+
+        and: "the first packet should arrive within a refresh period of the first change"
+        receivedPackets.first()[0] - startNanos < periodNanos + TimeUnit.MILLISECONDS.toNanos(100)
+        registry.find("or.artnet.frame.latency").timer().max(TimeUnit.NANOSECONDS) <= periodNanos + TimeUnit.MILLISECONDS.toNanos(100)
+
+        when: "the lights are updated with the values they already have"
+        compositor.update(ArtnetPacket.newInstance(1, new ArrayList<>(lights)))
+        Thread.sleep(200)
+
+        then: "no packet should be sent"
+        receivedPackets.size() == scenePackets
+
+        when: "lights in two universes change within the same tick"
+        def otherLights = createLights(2, 10)
+        setLight(lights[0], 1, 2, 3)
+        setLight(otherLights[9], 4, 5, 6)
+        compositor.update(ArtnetPacket.newInstance(1, new ArrayList<>(lights)))
+        compositor.update(ArtnetPacket.newInstance(2, new ArrayList<>(otherLights)))
+
+        then: "one packet should be sent for each universe"
+        conditions.eventually {
+            assert receivedPackets.size() == scenePackets + 2
+        }
+        def universePackets = receivedPackets.subList(scenePackets, scenePackets + 2).collect { it[1] as byte[] }.sort { it[15] }
+        universePackets[0][15] == 1
+        universePackets[0][ArtnetPacket.HEADER_LENGTH] == 1
+        universePackets[1][15] == 2
+        universePackets[1].length == ArtnetPacket.HEADER_LENGTH + 30
+        universePackets[1][ArtnetPacket.HEADER_LENGTH + 27] == 4
+
+        when: "the compositor is stopped"
+        def packetCount = receivedPackets.size()
+        compositor.stop()
+        setLight(lights[0], 9, 9, 9)
+        compositor.update(ArtnetPacket.newInstance(1, new ArrayList<>(lights)))
+        Thread.sleep(200)
+
+        then: "no more packets should be sent"
+        receivedPackets.size() == packetCount
+
+        cleanup:
+        compositor?.stop()
+        Metrics.removeRegistry(registry)
+    }
+}
@@ -0,0 +1,112 @@
+package org.openremote.test.protocol
+
+import io.netty.buffer.ByteBuf
+import io.netty.buffer.Unpooled
+import io.netty.channel.embedded.EmbeddedChannel
+import org.openremote.agent.protocol.artnet.ArtnetLight
+import org.openremote.agent.protocol.artnet.ArtnetLightState
+import org.openremote.agent.protocol.artnet.ArtnetPacket
+import org.openremote.agent.protocol.artnet.ArtnetPacketEncoder
+import org.openremote.agent.protocol.velbus.VelbusPacket
+import org.openremote.agent.protocol.velbus.VelbusPacketDecoder
+import org.openremote.agent.protocol.velbus.VelbusPacketEncoder
+import org.openremote.agent.protocol.zwave.SerialDataPacket
+import org.openremote.agent.protocol.zwave.ZWPacketDecoder
+import org.openremote.agent.protocol.zwave.ZWPacketEncoder
+import spock.lang.Specification
+
+class BinaryPacketCodecTest extends Specification {
+
+    static byte[] toBytes(ByteBuf buf) {
+        byte[] bytes = new byte[buf.readableBytes()]
+        buf.readBytes(bytes)
+        buf.release()
+        return bytes
+    }
+
+    def "Encode and decode Velbus packets split across reads and mixed with garbage"() {
+
+        given: "Velbus codecs"
+        def encoder = new EmbeddedChannel(new VelbusPacketEncoder())
+        def decoder = new EmbeddedChannel(new VelbusPacketDecoder())
+
+        when: "a packet is encoded"
+        def packet = new VelbusPacket(0x30, VelbusPacket.OutboundCommand.RELAY_ON.code, (byte) 0x01)
+        encoder.writeOutbound(packet)
+        byte[] frame = toBytes(encoder.readOutbound())
+
+        then: "only the bytes of the packet should be written"
+        frame.length == packet.size
+        frame == Arrays.copyOf(packet.pack(), packet.size)
+
+        when: "garbage containing a start byte is followed by the packet split over several reads"
+        byte[] stream = [0x01, VelbusPacket.STX, 0x7F, 0x03, 0x00] as byte[]
+        stream = stream + frame + frame
+        (0..<stream.length).step(3).each {
+            decoder.writeInbound(Unpooled.copiedBuffer(stream, it, Math.min(3, stream.length - it)))
+        }
+
+        then: "both packets should be decoded"
+        VelbusPacket decoded1 = decoder.readInbound()
+        VelbusPacket decoded2 = decoder.readInbound()
+        decoder.readInbound() == null
+        decoded1.address == 0x30
+        decoded1.command == VelbusPacket.OutboundCommand.RELAY_ON.code
+        decoded1.getByte(1) == (byte) 0x01
+        Arrays.copyOf(decoded2.pack(), decoded2.size) == frame
+
+        cleanup:
+        encoder?.finishAndReleaseAll()
+        decoder?.finishAndReleaseAll()
+    }
+
+    def "Encode and decode Z-Wave serial packets"() {
+
+        given: "Z-Wave codecs"
+        def encoder = new EmbeddedChannel(new ZWPacketEncoder())
+        def decoder = new EmbeddedChannel(new ZWPacketDecoder())
+        byte[] frame = [0x01, 0x0A, 0x00, 0x13, 0x05, 0x03, 0x26, 0x01, 0x63, 0x25, 0x01, 0x8F] as byte[]
+
+        when: "a packet is encoded and decoded"
+        encoder.writeOutbound(new SerialDataPacket(frame))
+        byte[] encoded = toBytes(encoder.readOutbound())
+        decoder.writeInbound(Unpooled.wrappedBuffer(encoded))
+        SerialDataPacket decoded = decoder.readInbound()
+
+        then: "the bytes should be unchanged"
+        encoded == frame
+        decoded.data == frame
+
+        cleanup:
+        encoder?.finishAndReleaseAll()
+        decoder?.finishAndReleaseAll()
+    }
+
+    def "Encode Art-Net packets"() {
+
+        given: "an Art-Net encoder"
+        def encoder = new EmbeddedChannel(new ArtnetPacketEncoder(null))
+
+        when: "a packet with a dimmed RGB light and a strip of 3 LEDs is encoded"
+        def light1 = new ArtnetLight(2, 0, 1, 1, ["r", "g", "b"] as String[], new ArtnetLightState(2, [r: 200, g: 100, b: 0], 50, true), null)
+        def light2 = new ArtnetLight(1, 0, 1, 3, ["r", "g", "b"] as String[], new ArtnetLightState(1, [r: 10, g: 20, b: 30], 100, true), null)
+        def packet = ArtnetPacket.newInstance(1, [light1, light2])
+        def length = packet.length
+        encoder.writeOutbound(packet)
+        byte[] encoded = toBytes(encoder.readOutbound())
+
+        then: "the ArtDmx header and the values of the lights ordered by light ID should be written"
+        length == ArtnetPacket.HEADER_LENGTH + 12
+        encoded.length == length
+        new String(encoded, 0, 7, "US-ASCII") == "Art-Net"
+        encoded[14] == 0 && encoded[15] == 1
+        encoded[16] == 0 && encoded[17] == 12
+        encoded[18..29] == [10, 20, 30, 10, 20, 30, 10, 20, 30, 100, 50, 0]
+
+        and: "the packet should have been released"
+        packet.refCnt() == 0
+
+        cleanup:
+        encoder?.finishAndReleaseAll()
+    }
+}
@@ -0,0 +1,129 @@
+package org.openremote.test.protocol
+
+import org.openremote.agent.protocol.timer.CronScheduler
+import org.openremote.container.timer.TimerService
+import org.openremote.container.timer.TimingWheel
+import org.quartz.CronExpression
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+class CronSchedulerTest extends Specification {
+
+    def "Run simultaneous cron triggers in parallel and coalesce overlapping triggers"() {
+
+        given: "a cron scheduler with four threads"
+        def conditions = new PollingConditions(timeout: 10, initialDelay: 0.5)
+        def scheduler = new CronScheduler()
+        scheduler.threads = 4
+        scheduler.timerService = Mock(TimerService) {
+            getCurrentTimeMillis() >> { System.currentTimeMillis() }
+        }
+        scheduler.wheel = new TimingWheel<>(CronScheduler.TICK_MILLIS, CronScheduler.WHEEL_SLOTS, System.currentTimeMillis())
+        scheduler.start(null)
+
+        when: "a burst of jobs is scheduled to run every second"
+        def jobThreads = ConcurrentHashMap.newKeySet()
+        def burstRuns = new AtomicInteger()
+        (1..200).each {
+            scheduler.addOrReplaceJob("burst" + it, new CronExpression("* * * ? * * *"), {
+                jobThreads.add(Thread.currentThread().name)
+                burstRuns.incrementAndGet()
+                Thread.sleep(5)
+            })
+        }
+
+        then: "every job runs, spread over all the threads and without falling behind"
+        conditions.eventually {
+            assert scheduler.isRunning()
+            assert burstRuns.get() >= 400
+            assert jobThreads.size() == 4
+            assert scheduler.maxLatenessMillis < 1000
+            assert scheduler.meanLatenessMillis < 500
+        }
+
+        when: "the burst jobs are removed"
+        (1..200).each { scheduler.removeJob("burst" + it) }
+        def runsAfterRemoval = burstRuns.get()
+        Thread.sleep(1500)
+
+        then: "they no longer run"
+        scheduler.jobIds.isEmpty()
+        scheduler.getJobExpression("burst1") == null
+        burstRuns.get() - runsAfterRemoval <= 200
+
+        when: "a job takes longer than the interval between its triggers"
+        def slowRuns = new AtomicInteger()
+        def concurrentSlowRuns = new AtomicInteger()
+        def maxConcurrentSlowRuns = new AtomicInteger()
+        scheduler.addOrReplaceJob("slow", new CronExpression("* * * ? * * *"), {
+            maxConcurrentSlowRuns.accumulateAndGet(concurrentSlowRuns.incrementAndGet(), { a, b -> Math.max(a, b) })
+            slowRuns.incrementAndGet()
+            Thread.sleep(2500)
+            concurrentSlowRuns.decrementAndGet()
+        })
+
+        then: "the triggers that are due whilst it is running are coalesced"
+        conditions.eventually {
+            assert slowRuns.get() >= 2
+            assert scheduler.coalescedCount > 0
+            assert maxConcurrentSlowRuns.get() == 1
+        }
+
+        cleanup:
+        scheduler?.stop(null)
+    }
+
+    def "Trigger cron jobs by the clock of the timer service"() {
+
+        given: "a cron scheduler whose timer service clock only moves when advanced"
+        def conditions = new PollingConditions(timeout: 5, delay: 0.1)
+        def clock = new AtomicLong(TimeUnit.SECONDS.toMillis(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis())))
+        def scheduler = new CronScheduler()
+        scheduler.threads = 1
+        scheduler.timerService = Mock(TimerService) {
+            getCurrentTimeMillis() >> { clock.get() }
+        }
+        scheduler.wheel = new TimingWheel<>(CronScheduler.TICK_MILLIS, CronScheduler.WHEEL_SLOTS, clock.get())
+        scheduler.start(null)
+
+        when: "a job is scheduled to run every minute and a job that throws an error every second"
+        def runs = new AtomicInteger()
+        def failingRuns = new AtomicInteger()
+        scheduler.addOrReplaceJob("minute", new CronExpression("0 * * ? * * *"), { runs.incrementAndGet() })
+        scheduler.addOrReplaceJob("failing", new CronExpression("* * * ? * * *"), {
+            failingRuns.incrementAndGet()
+            throw new AssertionError("Failing job")
+        })
+        Thread.sleep(1500)
+
+        then: "they should not run whilst the clock stands still"
+        runs.get() == 0
+        failingRuns.get() == 0
+
+        when: "the clock is advanced past the next minute"
+        clock.addAndGet(TimeUnit.SECONDS.toMillis(61))
+
+        then: "the job should run once with the missed triggers coalesced"
+        conditions.eventually {
+            assert runs.get() == 1
+            assert failingRuns.get() == 1
+        }
+
+        when: "the clock is advanced by a second"
+        clock.addAndGet(TimeUnit.SECONDS.toMillis(1))
+
+        then: "the job that threw an error should run again"
+        conditions.eventually {
+            assert failingRuns.get() == 2
+        }
+        runs.get() == 1
+
+        cleanup:
+        scheduler?.stop(null)
+    }
+}
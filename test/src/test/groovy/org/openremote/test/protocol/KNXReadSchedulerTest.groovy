@@ -0,0 +1,139 @@
+package org.openremote.test.protocol
+
+import io.micrometer.core.instrument.Metrics
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.openremote.agent.protocol.knx.KNXReadScheduler
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+import tuwien.auto.calimero.GroupAddress
+import tuwien.auto.calimero.Priority
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class KNXReadSchedulerTest extends Specification {
+
+    def "Throttle and prioritise the startup reads of status group addresses"() {
+
+        given: "a metrics registry"
+        def registry = new SimpleMeterRegistry()
+        Metrics.addRegistry(registry)
+
+        and: "a read scheduler with a budget of 50 telegrams per second whose reads are answered by a simulated bus"
+        def conditions = new PollingConditions(timeout: 20, delay: 0.1)
+        def executor = Executors.newScheduledThreadPool(2)
+        def sentReads = new CopyOnWriteArrayList<List>()
+        KNXReadScheduler scheduler
+        scheduler = new KNXReadScheduler(executor, 50, { groupAddress, priority ->
+            sentReads.add([groupAddress, System.nanoTime()])
+            executor.schedule({ scheduler.onValueReceived(groupAddress) }, 5, TimeUnit.MILLISECONDS)
+        })
+
+        when: "the connection is established and 200 status group addresses are queued for reading"
+        scheduler.start()
+        (1..200).each {
+            scheduler.requestRead(new GroupAddress(1, 1, it), Priority.LOW, it == 150 ? 3 : 1, true)
+        }
+        scheduler.onStartupReadsQueued()
+
+        and: "an attribute is linked to a group address whilst the startup reads are pending"
+        scheduler.requestRead(new GroupAddress(2, 2, 2), Priority.LOW, 1, false)
+
+        and: "the value of a group address arrives before it is read"
+        scheduler.onValueReceived(new GroupAddress(1, 1, 199))
+
+        and: "a group address is queued again"
+        scheduler.requestRead(new GroupAddress(1, 1, 10), Priority.LOW, 1, true)
+
+        then: "all reads should be sent once and answered"
+        conditions.eventually {
+            assert scheduler.startupComplete
+            assert scheduler.sentCount == 200
+            assert scheduler.completedCount == 200
+            assert scheduler.awaitedReadCount == 0
+        }
+        scheduler.skippedCount == 1
+        sentReads.size() == 200
+        sentReads.collect { it[0] }.unique().size() == 200
+        !sentReads.any { it[0] == new GroupAddress(1, 1, 199) }
+
+        and: "the linked attribute should be read first followed by the group address with the most subscribers"
+        sentReads[0][0] == new GroupAddress(2, 2, 2)
+        sentReads[1][0] == new GroupAddress(1, 1, 150)
+        sentReads[2][0] == new GroupAddress(1, 1, 1)
+
+        and: "no more reads should be sent in any second than the budget allows"
+        def sentNanos = sentReads.collect { it[1] as long }
+        sentNanos.every { start -> sentNanos.count { it >= start && it < start + 1_000_000_000L } <= 50 + scheduler.batchSize }
+        sentNanos.last() - sentNanos.first() >= TimeUnit.MILLISECONDS.toNanos(3000)
+
+        and: "the read completion times should be recorded"
+        registry.find("or.knx.read").tags("phase", "startup").timer().count() == 199
+        registry.find("or.knx.read").tags("phase", "link").timer().count() == 1
+        registry.find("or.knx.read.startup").timer().count() == 1
+
+        when: "the connection is lost and re-established"
+        scheduler.stop()
+        scheduler.requestRead(new GroupAddress(3, 3, 3), Priority.LOW, 1, false)
+
+        then: "reads should not be sent whilst disconnected"
+        scheduler.pendingReadCount == 0
+
+        cleanup:
+        scheduler?.stop()
+        executor?.shutdownNow()
+        Metrics.removeRegistry(registry)
+    }
+
+    def "Ignore a batch of a previous connection that is still being sent when reconnecting"() {
+
+        given: "a read scheduler sending batches of 5 reads whose first read blocks until released"
+        def conditions = new PollingConditions(timeout: 10, delay: 0.1)
+        def executor = Executors.newScheduledThreadPool(2)
+        def sentReads = new CopyOnWriteArrayList<GroupAddress>()
+        def releaseLatch = new CountDownLatch(1)
+        def blockedLatch = new CountDownLatch(1)
+        def scheduler = new KNXReadScheduler(executor, 50, { groupAddress, priority ->
+            sentReads.add(groupAddress)
+            if (groupAddress == new GroupAddress(1, 1, 1)) {
+                blockedLatch.countDown()
+                releaseLatch.await()
+            }
+        })
+
+        when: "the startup reads of the first connection are queued and the first batch is being sent"
+        scheduler.start()
+        (1..5).each { scheduler.requestRead(new GroupAddress(1, 1, it), Priority.LOW, 1, true) }
+        scheduler.onStartupReadsQueued()
+
+        then: "the first read should be blocked"
+        blockedLatch.await(5, TimeUnit.SECONDS)
+
+        when: "the connection is re-established and the startup reads of the new connection are queued"
+        scheduler.start()
+        (1..3).each { scheduler.requestRead(new GroupAddress(2, 2, it), Priority.LOW, 1, true) }
+        scheduler.onStartupReadsQueued()
+
+        and: "the batch of the previous connection completes"
+        releaseLatch.countDown()
+
+        then: "the startup of the new connection should complete once its own reads are sent"
+        conditions.eventually {
+            assert scheduler.startupComplete
+            assert sentReads.size() == 4
+        }
+        scheduler.pendingStartupReadCount == 0
+        scheduler.sentCount == 4
+
+        and: "the rest of the previous batch should not be sent and only the new reads awaited"
+        sentReads == [new GroupAddress(1, 1, 1)] + (1..3).collect { new GroupAddress(2, 2, it) }
+        scheduler.awaitedReadCount == 3
+
+        cleanup:
+        releaseLatch?.countDown()
+        scheduler?.stop()
+        executor?.shutdownNow()
+    }
+}
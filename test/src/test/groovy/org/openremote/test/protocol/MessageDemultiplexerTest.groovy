@@ -0,0 +1,101 @@
+/*
+ * Copyright 2020, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.test.protocol
+
+import org.openremote.agent.protocol.MessageDemultiplexer
+import org.openremote.model.attribute.AttributeRef
+import org.openremote.model.query.AssetQuery
+import org.openremote.model.query.filter.StringPredicate
+import spock.lang.Specification
+
+class MessageDemultiplexerTest extends Specification {
+
+    def "Messages are only dispatched to the consumers whose predicate matches"() {
+
+        given: "consumers with all kinds of match predicates"
+        def predicates = [
+            new StringPredicate(AssetQuery.Match.EXACT, "LIGHT1:ON"),
+            new StringPredicate(AssetQuery.Match.EXACT, false, "light1:off"),
+            new StringPredicate(AssetQuery.Match.BEGIN, "LIGHT1"),
+            new StringPredicate(AssetQuery.Match.BEGIN, "LIGHT"),
+            new StringPredicate(AssetQuery.Match.BEGIN, false, "dimmer"),
+            new StringPredicate(AssetQuery.Match.END, ":ON"),
+            new StringPredicate(AssetQuery.Match.END, false, "%"),
+            new StringPredicate(AssetQuery.Match.CONTAINS, "HT1"),
+            new StringPredicate(AssetQuery.Match.CONTAINS, "GHT"),
+            new StringPredicate(AssetQuery.Match.CONTAINS, false, "mer1"),
+            new StringPredicate(AssetQuery.Match.CONTAINS, "1:O"),
+            new StringPredicate(AssetQuery.Match.BEGIN, "LIGHT1").negate(true),
+            new StringPredicate(AssetQuery.Match.CONTAINS, ""),
+            new StringPredicate(AssetQuery.Match.EXACT, "LIGHT1:ON")
+        ]
+        def unindexed = [11, 12]
+        def dispatched = []
+        def received = []
+        def demultiplexer = new MessageDemultiplexer()
+        predicates.eachWithIndex { predicate, i ->
+            demultiplexer.add(new AttributeRef("asset", "attribute" + i), predicate, { message ->
+                dispatched << i
+                // Consumers apply their own predicate like the generic attribute message consumer
+                if (StringPredicate.asPredicate(predicate).test(message)) {
+                    received << i
+                }
+            })
+        }
+
+        expect: "each message to only be dispatched to the consumers whose predicate can match in the order they were added"
+        [
+            "LIGHT1:ON",
+            "light1:off",
+            "LIGHT1:OFF",
+            "LIGHT2:ON",
+            "DIMMER1:50%",
+            "Dimmer2:50%",
+            "XLIGHT1:ONX",
+            "HT1",
+            "1:O",
+            "something else"
+        ].each { message ->
+            dispatched.clear()
+            received.clear()
+            demultiplexer.accept(message)
+            def expected = (0..<predicates.size()).findAll { StringPredicate.asPredicate(predicates[it]).test(message) }
+            assert received == expected
+            assert dispatched == (expected + unindexed).unique().sort()
+        }
+
+        when: "a consumer is removed"
+        demultiplexer.remove(new AttributeRef("asset", "attribute0"))
+        received.clear()
+        demultiplexer.accept("LIGHT1:ON")
+
+        then: "it should no longer receive messages"
+        !received.contains(0)
+        received.contains(13)
+        demultiplexer.size() == predicates.size() - 1
+
+        when: "an empty message is received"
+        dispatched.clear()
+        demultiplexer.accept("")
+
+        then: "it should not be dispatched"
+        dispatched.isEmpty()
+    }
+}
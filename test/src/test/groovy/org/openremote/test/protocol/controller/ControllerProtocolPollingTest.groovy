@@ -0,0 +1,281 @@
+/*
+ * Copyright 2020, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.test.protocol.controller
+
+import com.sun.net.httpserver.HttpExchange
+import com.sun.net.httpserver.HttpServer
+import org.openremote.agent.protocol.controller.ControllerProtocol
+import org.openremote.manager.agent.AgentService
+import org.openremote.manager.asset.AssetStorageService
+import org.openremote.model.Constants
+import org.openremote.model.asset.Asset
+import org.openremote.model.asset.AssetAttribute
+import org.openremote.model.asset.AssetType
+import org.openremote.model.asset.agent.ConnectionStatus
+import org.openremote.model.attribute.AttributeRef
+import org.openremote.model.attribute.AttributeValueType
+import org.openremote.model.attribute.MetaItem
+import org.openremote.model.attribute.MetaItemType
+import org.openremote.model.value.Values
+import org.openremote.test.ManagerContainerTrait
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.lang.management.ManagementFactory
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.Executors
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.logging.Logger
+
+import static org.openremote.model.asset.agent.ProtocolConfiguration.initProtocolConfiguration
+
+class ControllerProtocolPollingTest extends Specification implements ManagerContainerTrait {
+
+    static final Logger LOG = Logger.getLogger(ControllerProtocolPollingTest.class.getName())
+    static final long LONG_POLL_MILLIS = 1000
+    static final long IDLE_MILLIS = 5000
+
+    /**
+     * A controller that answers polling requests for MyDevice after {@link #LONG_POLL_MILLIS} with a 408 unless a sensor
+     * value is pushed in the meantime; polling requests for BrokenDevice always fail.
+     */
+    static class StubController {
+        HttpServer server
+        def executor = Executors.newCachedThreadPool()
+        Map<String, List<List<String>>> pollingRequests = new ConcurrentHashMap<>()
+        Map<String, AtomicInteger> activePolls = new ConcurrentHashMap<>()
+        Map<String, AtomicInteger> maxActivePolls = new ConcurrentHashMap<>()
+        def pushedValues = new LinkedBlockingQueue<String>()
+
+        void start() {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 50)
+            server.executor = executor
+            server.createContext("/controller", { exchange ->
+                try {
+                    handle(exchange)
+                } finally {
+                    exchange.close()
+                }
+            })
+            server.start()
+        }
+
+        String getBaseUri() {
+            "http://127.0.0.1:" + server.address.port + "/controller"
+        }
+
+        void handle(HttpExchange exchange) {
+            def path = exchange.requestURI.path
+            def names = (exchange.requestURI.rawQuery ?: "").split("&").findAll { it.startsWith("name=") }.collect { URLDecoder.decode(it.substring(5), "UTF-8") }
+            def matcher = path =~ /\/controller\/rest\/devices\/([^\/]+)\/(status|polling\/.+)/
+
+            if (!matcher.matches()) {
+                respond(exchange, 200, "")
+                return
+            }
+
+            String device = matcher.group(1)
+
+            if (matcher.group(2) == "status") {
+                respond(exchange, 200, "[" + names.collect { "{\"name\": \"" + it + "\", \"value\": \"initial\"}" }.join(",") + "]")
+                return
+            }
+
+            pollingRequests.computeIfAbsent(device, { new CopyOnWriteArrayList<>() }).add(names)
+
+            if (device != "MyDevice") {
+                respond(exchange, 500, "")
+                return
+            }
+
+            def active = activePolls.computeIfAbsent(device, { new AtomicInteger() }).incrementAndGet()
+            maxActivePolls.computeIfAbsent(device, { new AtomicInteger() }).accumulateAndGet(active, { a, b -> Math.max(a, b) })
+            try {
+                def value = pushedValues.poll(LONG_POLL_MILLIS, TimeUnit.MILLISECONDS)
+                if (value != null) {
+                    respond(exchange, 200, "[{\"name\": \"my_sensor2\", \"value\": \"" + value + "\"}]")
+                } else {
+                    respond(exchange, 408, "")
+                }
+            } finally {
+                activePolls.get(device).decrementAndGet()
+            }
+        }
+
+        static void respond(HttpExchange exchange, int status, String body) {
+            def bytes = body.getBytes(StandardCharsets.UTF_8)
+            exchange.responseHeaders.add("Content-Type", "application/json")
+            exchange.sendResponseHeaders(status, bytes.length > 0 ? bytes.length : -1)
+            if (bytes.length > 0) {
+                exchange.responseBody.write(bytes)
+            }
+        }
+
+        int pollCount(String device) {
+            pollingRequests.getOrDefault(device, []).size()
+        }
+
+        void stop() {
+            server?.stop(0)
+            executor.shutdownNow()
+        }
+    }
+
+    def "Check sensors of a device are long polled with a single request and failed requests back off"() {
+
+        given: "expected conditions"
+        def conditions = new PollingConditions(timeout: 20, delay: 0.2)
+
+        and: "a stub controller"
+        def controller = new StubController()
+        controller.start()
+
+        and: "short backoff delays"
+        def backoffInitialMillis = ControllerProtocol.POLLING_BACKOFF_INITIAL_MILLIS
+        def backoffMaxMillis = ControllerProtocol.POLLING_BACKOFF_MAX_MILLIS
+        ControllerProtocol.POLLING_BACKOFF_INITIAL_MILLIS = 200
+        ControllerProtocol.POLLING_BACKOFF_MAX_MILLIS = 1600
+
+        and: "the container starts"
+        def container = startContainer(defaultConfig(), defaultServices())
+        def controllerProtocol = container.getService(ControllerProtocol.class)
+        def assetStorageService = container.getService(AssetStorageService.class)
+        def agentService = container.getService(AgentService.class)
+
+        when: "an agent with a controller protocol configuration is created"
+        def agent = new Asset("Controller Agent", AssetType.AGENT)
+        agent.setRealm(Constants.MASTER_REALM)
+        agent.setAttributes(
+            initProtocolConfiguration(new AssetAttribute("controllerConfig"), ControllerProtocol.PROTOCOL_NAME)
+                .addMeta(
+                    new MetaItem(ControllerProtocol.META_PROTOCOL_BASE_URI, Values.create(controller.baseUri))
+                )
+        )
+        agent = assetStorageService.merge(agent)
+        def controllerRef = new AttributeRef(agent.id, "controllerConfig")
+
+        then: "the controller should be connected"
+        conditions.eventually {
+            assert agentService.getProtocolConnectionStatus(controllerRef) == ConnectionStatus.CONNECTED
+        }
+
+        when: "an asset is created with three sensors of one device and a sensor of a device that fails"
+        def sensorAttribute = { String name, String device, String sensor ->
+            new AssetAttribute(name, AttributeValueType.STRING)
+                .addMeta(
+                    new MetaItem(MetaItemType.AGENT_LINK, controllerRef.toArrayValue()),
+                    new MetaItem(ControllerProtocol.META_ATTRIBUTE_DEVICE_NAME, Values.create(device)),
+                    new MetaItem(ControllerProtocol.META_ATTRIBUTE_SENSOR_NAME, Values.create(sensor)),
+                    new MetaItem(MetaItemType.READ_ONLY, Values.create(true))
+                )
+        }
+        def asset = new Asset("Controller Asset", AssetType.THING, agent)
+        asset.setAttributes(
+            sensorAttribute("sensor1", "MyDevice", "my_sensor1"),
+            sensorAttribute("sensor2", "MyDevice", "my_sensor2"),
+            sensorAttribute("sensor3", "MyDevice", "my_sensor3"),
+            sensorAttribute("brokenSensor", "BrokenDevice", "my_sensor4")
+        )
+        asset = assetStorageService.merge(asset)
+
+        then: "the initial sensor values should be set"
+        conditions.eventually {
+            asset = assetStorageService.find(asset.getId(), true)
+            ["sensor1", "sensor2", "sensor3", "brokenSensor"].each {
+                assert asset.getAttribute(it).flatMap({ it.getValueAsString() }).orElse(null) == "initial"
+            }
+        }
+
+        and: "all sensors of a device should be polled with a single request"
+        conditions.eventually {
+            assert controllerProtocol.pollingSensorList.size() == 2
+            assert controller.pollingRequests.get("MyDevice").last().toSet() == ["my_sensor1", "my_sensor2", "my_sensor3"].toSet()
+        }
+
+        when: "requests cancelled whilst the sensors were linked have been answered"
+        Thread.sleep(LONG_POLL_MILLIS * 2)
+        controller.maxActivePolls.get("MyDevice").set(controller.activePolls.get("MyDevice").get())
+
+        and: "the controller has no changes for a while"
+        def osMXBean = (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()
+        def pollCount = controller.pollCount("MyDevice")
+        def failedCount = controller.pollCount("BrokenDevice")
+        def cpuNanos = osMXBean.processCpuTime
+        def startNanos = System.nanoTime()
+        Thread.sleep(IDLE_MILLIS)
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9d
+        double pollRate = (controller.pollCount("MyDevice") - pollCount) / elapsedSeconds
+        double failedRate = (controller.pollCount("BrokenDevice") - failedCount) / elapsedSeconds
+        double cpuLoad = (osMXBean.processCpuTime - cpuNanos) / 1e9d / elapsedSeconds
+        LOG.info("Idle controller polling: requests/s=" + pollRate + ", failed requests/s=" + failedRate + ", process CPU cores=" + cpuLoad)
+
+        then: "there should be one polling request per long poll period for the device"
+        pollRate <= 1000d / LONG_POLL_MILLIS + 0.5
+        controller.maxActivePolls.get("MyDevice").get() == 1
+
+        and: "failed polling requests should back off"
+        failedRate <= 1000d / ControllerProtocol.POLLING_BACKOFF_MAX_MILLIS + 1
+
+        when: "the controller has a new sensor value"
+        controller.pushedValues.add("newValue2")
+
+        then: "the waiting polling request should update the attribute"
+        conditions.eventually {
+            asset = assetStorageService.find(asset.getId(), true)
+            assert asset.getAttribute("sensor2").flatMap({ it.getValueAsString() }).orElse(null) == "newValue2"
+        }
+
+        when: "a sensor is removed"
+        asset.removeAttribute("sensor3")
+        asset = assetStorageService.merge(asset)
+
+        then: "the device should be polled without the sensor"
+        conditions.eventually {
+            assert controller.pollingRequests.get("MyDevice").last().toSet() == ["my_sensor1", "my_sensor2"].toSet()
+        }
+
+        when: "the asset is deleted"
+        assetStorageService.delete([asset.id])
+
+        then: "polling should stop"
+        conditions.eventually {
+            assert controllerProtocol.pollingSensorList.isEmpty()
+            assert controller.activePolls.get("MyDevice").get() == 0
+        }
+
+        when: "some time passes"
+        pollCount = controller.pollCount("MyDevice")
+        failedCount = controller.pollCount("BrokenDevice")
+        Thread.sleep(LONG_POLL_MILLIS * 2)
+
+        then: "no more polling requests should be sent"
+        controller.pollCount("MyDevice") == pollCount
+        controller.pollCount("BrokenDevice") == failedCount
+
+        cleanup: "the stub controller is stopped and the backoff settings are restored"
+        ControllerProtocol.POLLING_BACKOFF_INITIAL_MILLIS = backoffInitialMillis
+        ControllerProtocol.POLLING_BACKOFF_MAX_MILLIS = backoffMaxMillis
+        controller?.stop()
+    }
+}
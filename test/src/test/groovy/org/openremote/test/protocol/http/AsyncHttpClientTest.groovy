@@ -0,0 +1,104 @@
+package org.openremote.test.protocol.http
+
+import org.openremote.agent.protocol.http.AsyncHttpClient
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class AsyncHttpClientTest extends Specification {
+
+    static AsyncHttpClient.CapturedRequest createRequest(String method, URI uri) {
+        def request = new AsyncHttpClient.CapturedRequest()
+        request.method = method
+        request.uri = uri
+        if (method == "POST") {
+            request.body = "foo".getBytes(StandardCharsets.UTF_8)
+        }
+        return request
+    }
+
+    def "Send an idempotent request again on a new connection if its pooled connection was closed by the server"() {
+
+        given: "a server that answers the first request of every connection and closes it on the next request"
+        def server = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"))
+        def connectionCount = new AtomicInteger()
+        def receivedRequests = new CopyOnWriteArrayList<String>()
+        def serverThread = Thread.start {
+            while (!server.closed) {
+                Socket socket
+                try {
+                    socket = server.accept()
+                } catch (SocketException ignored) {
+                    break
+                }
+                connectionCount.incrementAndGet()
+                Thread.start {
+                    try {
+                        def reader = new BufferedReader(new InputStreamReader(socket.inputStream, StandardCharsets.ISO_8859_1))
+                        int requestCount = 0
+                        String requestLine
+                        while ((requestLine = reader.readLine()) != null) {
+                            int contentLength = 0
+                            String header
+                            while ((header = reader.readLine()) != null && !header.isEmpty()) {
+                                if (header.toLowerCase().startsWith("content-length:")) {
+                                    contentLength = Integer.parseInt(header.substring("content-length:".length()).trim())
+                                }
+                            }
+                            contentLength.times { reader.read() }
+                            if (++requestCount > 1) {
+                                // The connection was closed whilst it was idle, the request isn't answered
+                                break
+                            }
+                            receivedRequests.add(requestLine)
+                            def body = requestLine.split(" ")[1].getBytes(StandardCharsets.ISO_8859_1)
+                            socket.outputStream.write(("HTTP/1.1 200 OK\r\nContent-Length: " + body.length + "\r\nConnection: keep-alive\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1))
+                            socket.outputStream.write(body)
+                            socket.outputStream.flush()
+                        }
+                    } finally {
+                        socket.close()
+                    }
+                }
+            }
+        }
+        def baseUri = "http://127.0.0.1:" + server.localPort
+
+        and: "an async HTTP client"
+        def client = new AsyncHttpClient(1)
+
+        when: "a request is sent"
+        def response = client.send(createRequest("GET", URI.create(baseUri + "/first")), 5000).get(5, TimeUnit.SECONDS)
+
+        then: "it should be answered on a new connection"
+        response.status == 200
+        response.readEntity(String.class) == "/first"
+        connectionCount.get() == 1
+
+        when: "an idempotent request is sent on the pooled connection that the server has closed"
+        response = client.send(createRequest("GET", URI.create(baseUri + "/second")), 5000).get(5, TimeUnit.SECONDS)
+
+        then: "it should be sent again on a new connection and be answered"
+        response.status == 200
+        response.readEntity(String.class) == "/second"
+        connectionCount.get() == 2
+
+        when: "a request that isn't idempotent is sent on the pooled connection that the server has closed"
+        client.send(createRequest("POST", URI.create(baseUri + "/third")), 5000).get(5, TimeUnit.SECONDS)
+
+        then: "it should fail without being sent again"
+        def e = thrown(ExecutionException)
+        e.cause instanceof IOException
+        connectionCount.get() == 2
+        receivedRequests == ["GET /first HTTP/1.1", "GET /second HTTP/1.1"]
+
+        cleanup:
+        client?.close()
+        server?.close()
+        serverThread?.join(1000)
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2020, OpenRemote Inc.
+ *
+ * See the CONTRIBUTORS.txt file in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.openremote.test.protocol.http
+
+import com.sun.net.httpserver.HttpServer
+import org.openremote.agent.protocol.http.AsyncHttpClient
+import org.openremote.agent.protocol.http.HttpClientProtocol
+import org.openremote.manager.asset.AssetStorageService
+import org.openremote.manager.concurrent.ManagerExecutorService
+import org.openremote.model.Constants
+import org.openremote.model.asset.Asset
+import org.openremote.model.asset.AssetAttribute
+import org.openremote.model.asset.AssetType
+import org.openremote.model.attribute.AttributeRef
+import org.openremote.model.attribute.AttributeValueType
+import org.openremote.model.attribute.MetaItem
+import org.openremote.model.attribute.MetaItemType
+import org.openremote.model.value.Values
+import org.openremote.test.ManagerContainerTrait
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+
+import static org.openremote.model.asset.agent.ProtocolConfiguration.initProtocolConfiguration
+
+class HttpClientProtocolAsyncTest extends Specification implements ManagerContainerTrait {
+
+    static final int ENDPOINT_COUNT = 200
+    static final long ENDPOINT_DELAY_MILLIS = 2000
+
+    def "Check slow HTTP servers don't hold up other protocols when using asynchronous requests"() {
+
+        given: "expected conditions"
+        def conditions = new PollingConditions(timeout: 20, delay: 0.2)
+
+        and: "a local server with slow endpoints"
+        def activeRequests = new AtomicInteger()
+        def maxActiveRequests = new AtomicInteger()
+        def server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), ENDPOINT_COUNT)
+        def serverExecutor = Executors.newCachedThreadPool()
+        server.executor = serverExecutor
+        server.createContext("/slow/", { exchange ->
+            def active = activeRequests.incrementAndGet()
+            maxActiveRequests.accumulateAndGet(active, { a, b -> Math.max(a, b) })
+            try {
+                Thread.sleep(ENDPOINT_DELAY_MILLIS)
+                def body = exchange.requestURI.path.substring("/slow/".length()).getBytes(StandardCharsets.UTF_8)
+                exchange.sendResponseHeaders(200, body.length)
+                exchange.responseBody.write(body)
+            } finally {
+                activeRequests.decrementAndGet()
+                exchange.close()
+            }
+        })
+        server.start()
+
+        and: "the async client allows a connection per endpoint"
+        def maxConnectionsPerHost = AsyncHttpClient.MAX_CONNECTIONS_PER_HOST
+        AsyncHttpClient.MAX_CONNECTIONS_PER_HOST = ENDPOINT_COUNT
+
+        and: "the container starts"
+        def container = startContainer(defaultConfig(), defaultServices())
+        def httpClientProtocol = container.getService(HttpClientProtocol.class)
+        def assetStorageService = container.getService(AssetStorageService.class)
+        def executorService = container.getService(ManagerExecutorService.class)
+
+        when: "an agent with a HTTP client protocol configuration using asynchronous requests is created"
+        def agent = new Asset("Async Agent", AssetType.AGENT)
+        agent.setRealm(Constants.MASTER_REALM)
+        agent.setAttributes(
+            initProtocolConfiguration(new AssetAttribute("protocolConfig"), HttpClientProtocol.PROTOCOL_NAME)
+                .addMeta(
+                    new MetaItem(
+                        HttpClientProtocol.META_PROTOCOL_BASE_URI,
+                        Values.create("http://127.0.0.1:" + server.address.port)
+                    ),
+                    new MetaItem(
+                        HttpClientProtocol.META_PROTOCOL_ASYNC_REQUESTS,
+                        Values.create(true)
+                    )
+                )
+        )
+        agent = assetStorageService.merge(agent)
+
+        then: "the protocol configuration should be linked"
+        conditions.eventually {
+            assert httpClientProtocol.linkedProtocolConfigurations.containsKey(new AttributeRef(agent.id, "protocolConfig"))
+        }
+
+        when: "an asset is created with an attribute polling each slow endpoint"
+        def asset = new Asset("Async Asset", AssetType.THING, agent)
+        asset.setAttributes(
+            (0..<ENDPOINT_COUNT).collect { i ->
+                new AssetAttribute("value" + i, AttributeValueType.NUMBER)
+                    .addMeta(
+                        new MetaItem(MetaItemType.AGENT_LINK, new AttributeRef(agent.id, "protocolConfig").toArrayValue()),
+                        new MetaItem(HttpClientProtocol.META_ATTRIBUTE_PATH, Values.create("slow/" + i)),
+                        new MetaItem(HttpClientProtocol.META_ATTRIBUTE_POLLING_MILLIS, Values.create(1000))
+                    )
+            }
+        )
+        asset = assetStorageService.merge(asset)
+
+        then: "far more requests should be waiting for a response than there are protocol threads"
+        conditions.eventually {
+            assert activeRequests.get() > ENDPOINT_COUNT / 2
+            assert activeRequests.get() > ManagerExecutorService.SCHEDULED_TASKS_THREADS_MAX_DEFAULT
+        }
+
+        when: "a task is scheduled on the protocol executor whilst the requests are waiting"
+        def ticks = new AtomicInteger()
+        def tickFuture = executorService.scheduleAtFixedRate({ ticks.incrementAndGet() }, 0, 50)
+        Thread.sleep(ENDPOINT_DELAY_MILLIS)
+        tickFuture.cancel(false)
+
+        then: "it should have kept to its schedule"
+        ticks.get() >= (ENDPOINT_DELAY_MILLIS / 50) * 0.75
+
+        and: "every attribute should be updated by the response of its endpoint"
+        conditions.eventually {
+            asset = assetStorageService.find(asset.getId(), true)
+            (0..<ENDPOINT_COUNT).each { i ->
+                assert asset.getAttribute("value" + i).flatMap({ it.getValueAsInteger() }).orElse(null) == i
+            }
+        }
+
+        and: "the requests should have been sent concurrently"
+        maxActiveRequests.get() > ENDPOINT_COUNT / 2
+
+        cleanup: "the server is stopped and the async client settings are restored"
+        AsyncHttpClient.MAX_CONNECTIONS_PER_HOST = maxConnectionsPerHost
+        server?.stop(0)
+        serverExecutor?.shutdownNow()
+    }
+}
@@ -74,6 +74,8 @@ class HttpClientProtocolTest extends Specification implements ManagerContainerTr
         private boolean putRequestWithHeadersCalled = false
         private int successFailureCount = 0
         private String dynamicPathParam = ""
+        private int sharedPollCount = 0
+        private int sharedPollNotModifiedCount = 0
 
         @Override
         void filter(ClientRequestContext requestContext) throws IOException {
@@ -244,6 +246,20 @@ class HttpClientProtocolTest extends Specification implements ManagerContainerTr
                             .build()
                     )
                     return
+                case "https://mockapi/get_poll_shared":
+                    sharedPollCount++
+                    if (requestContext.getHeaderString(HttpHeaders.IF_NONE_MATCH) == '"v1"') {
+                        sharedPollNotModifiedCount++
+                        requestContext.abortWith(Response.notModified().build())
+                        return
+                    }
+                    requestContext.abortWith(
+                        Response
+                            .ok("Temperature is 21 degrees and humidity is 55%", MediaType.TEXT_PLAIN)
+                            .tag("v1")
+                            .build()
+                    )
+                    return
                 case "https://mockapi/get_success_200":
                 case "https://redirected.mockapi/get_success_200":
                     successFailureCount++
@@ -273,6 +289,8 @@ class HttpClientProtocolTest extends Specification implements ManagerContainerTr
         mockServer.pollCountFast = 0
         mockServer.successFailureCount = 0
         mockServer.putRequestWithHeadersCalled = false
+        mockServer.sharedPollCount = 0
+        mockServer.sharedPollNotModifiedCount = 0
     }
 
     def "Check HTTP client protocol configuration and linked attribute deployment"() {
@@ -803,4 +821,125 @@ class HttpClientProtocolTest extends Specification implements ManagerContainerTr
             assert mockServer.successFailureCount == count + 1
         }
     }
+
+    def "Check identical polling requests are shared and unchanged responses are skipped"() {
+
+        given: "expected conditions"
+        def conditions = new PollingConditions(timeout: 10, initialDelay: 1)
+
+        and: "the HTTP client protocol min times are adjusted for testing"
+        HttpClientProtocol.MIN_POLLING_MILLIS = 10
+
+        and: "the container starts"
+        def container = startContainer(defaultConfig(), defaultServices())
+        def httpClientProtocol = container.getService(HttpClientProtocol.class)
+        def assetStorageService = container.getService(AssetStorageService.class)
+
+        when: "the web target builder is configured to use the mock server"
+        if (!httpClientProtocol.client.configuration.isRegistered(mockServer)) {
+            httpClientProtocol.client.register(mockServer, Integer.MAX_VALUE)
+        }
+
+        and: "an agent with a HTTP client protocol configuration is created"
+        def agent = new Asset("Shared Polling Agent", AssetType.AGENT)
+        agent.setRealm(Constants.MASTER_REALM)
+        agent.setAttributes(
+            initProtocolConfiguration(new AssetAttribute("protocolConfig"), HttpClientProtocol.PROTOCOL_NAME)
+                .addMeta(
+                    new MetaItem(
+                        HttpClientProtocol.META_PROTOCOL_BASE_URI,
+                        Values.create("https://mockapi")
+                    ),
+                    new MetaItem(
+                        Protocol.META_PROTOCOL_OAUTH_GRANT,
+                        new OAuthPasswordGrant("https://mockapi/token",
+                            "TestClient",
+                            "TestSecret",
+                            "scope1 scope2",
+                            "testuser",
+                            "password").toObjectValue()
+                    )
+                )
+        )
+        agent = assetStorageService.merge(agent)
+
+        then: "the protocol configuration should be linked"
+        conditions.eventually {
+            assert httpClientProtocol.linkedProtocolConfigurations.containsKey(new AttributeRef(agent.id, "protocolConfig"))
+        }
+
+        when: "an asset is created with two attributes that poll the same endpoint and filter different values"
+        def asset = new Asset("Shared Polling Asset", AssetType.THING, agent)
+        asset.setAttributes(
+            new AssetAttribute("temperature", AttributeValueType.NUMBER)
+                .addMeta(
+                    new MetaItem(MetaItemType.AGENT_LINK, new AttributeRef(agent.id, "protocolConfig").toArrayValue()),
+                    new MetaItem(HttpClientProtocol.META_ATTRIBUTE_PATH, Values.create("get_poll_shared")),
+                    new MetaItem(HttpClientProtocol.META_ATTRIBUTE_POLLING_MILLIS, Values.create(50)), // This is ms in testing
+                    new MetaItem(
+                        Protocol.META_ATTRIBUTE_VALUE_FILTERS,
+                        Values.createArray().add(Util.objectToValue(new RegexValueFilter("\\d+", 0, 0)).get())
+                    )
+                ),
+            new AssetAttribute("humidity", AttributeValueType.NUMBER)
+                .addMeta(
+                    new MetaItem(MetaItemType.AGENT_LINK, new AttributeRef(agent.id, "protocolConfig").toArrayValue()),
+                    new MetaItem(HttpClientProtocol.META_ATTRIBUTE_PATH, Values.create("get_poll_shared")),
+                    new MetaItem(HttpClientProtocol.META_ATTRIBUTE_POLLING_MILLIS, Values.create(50)), // This is ms in testing
+                    new MetaItem(
+                        Protocol.META_ATTRIBUTE_VALUE_FILTERS,
+                        Values.createArray().add(Util.objectToValue(new RegexValueFilter("\\d+", 0, 1)).get())
+                    )
+                )
+        )
+        asset = assetStorageService.merge(asset)
+
+        then: "a single polling request should be shared by both attributes"
+        conditions.eventually {
+            def pollingRequest = httpClientProtocol.pollingMap.get(new AttributeRef(asset.id, "temperature"))
+            assert pollingRequest != null
+            assert httpClientProtocol.pollingMap.get(new AttributeRef(asset.id, "humidity")) == pollingRequest
+            assert pollingRequest.attributeRefs.size() == 2
+        }
+
+        and: "both attributes should get their value from the shared response"
+        conditions.eventually {
+            asset = assetStorageService.find(asset.getId(), true)
+            assert asset.getAttribute("temperature").flatMap({it.getValueAsInteger()}).orElse(null) == 21
+            assert asset.getAttribute("humidity").flatMap({it.getValueAsInteger()}).orElse(null) == 55
+        }
+
+        and: "subsequent requests should be conditional and skipped by the server as nothing changed"
+        conditions.eventually {
+            assert mockServer.sharedPollNotModifiedCount > 2
+            assert mockServer.sharedPollNotModifiedCount >= mockServer.sharedPollCount - 3
+        }
+
+        when: "one of the attributes is removed"
+        asset.removeAttribute("humidity")
+        asset = assetStorageService.merge(asset)
+
+        then: "the polling request should still be used by the other attribute"
+        conditions.eventually {
+            def pollingRequest = httpClientProtocol.pollingMap.get(new AttributeRef(asset.id, "temperature"))
+            assert pollingRequest != null
+            assert pollingRequest.attributeRefs.size() == 1
+            assert httpClientProtocol.pollingMap.get(new AttributeRef(asset.id, "humidity")) == null
+        }
+
+        when: "the other attribute is removed"
+        asset.removeAttribute("temperature")
+        asset = assetStorageService.merge(asset)
+
+        then: "the shared polling request should be cancelled"
+        conditions.eventually {
+            assert httpClientProtocol.pollingMap.get(new AttributeRef(asset.id, "temperature")) == null
+            assert httpClientProtocol.sharedPollingMap.values().every { it.protocolConfigurationRef.entityId != agent.id }
+        }
+
+        and: "the server should not receive any more polling requests"
+        def pollCount = mockServer.sharedPollCount
+        Thread.sleep(200)
+        assert mockServer.sharedPollCount == pollCount
+    }
 }
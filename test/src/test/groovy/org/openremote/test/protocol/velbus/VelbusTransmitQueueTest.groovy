@@ -0,0 +1,131 @@
+package org.openremote.test.protocol.velbus
+
+import io.micrometer.core.instrument.Metrics
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.openremote.agent.protocol.velbus.VelbusNetwork
+import org.openremote.agent.protocol.velbus.VelbusPacket
+import org.openremote.agent.protocol.velbus.VelbusTransmitQueue
+import org.openremote.agent.protocol.velbus.device.VelbusDevice
+import org.openremote.model.asset.agent.ConnectionStatus
+import org.openremote.test.LoopbackVelbusClient
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.util.concurrent.Executors
+
+import static org.openremote.agent.protocol.velbus.VelbusTransmitQueue.TransmitClass.*
+
+class VelbusTransmitQueueTest extends Specification {
+
+    def "Send packets by class and coalesce duplicate reads"() {
+
+        given: "a transmit queue"
+        def queue = new VelbusTransmitQueue(100)
+
+        when: "maintenance packets, status reads and writes are queued"
+        def timePackets = VelbusDevice.createTimeInjectionPackets()
+        timePackets.each { queue.add(MAINTENANCE, it) }
+        (1..5).each { queue.add(STATUS_READ, VelbusDevice.createModuleTypePacket(it)) }
+        def duplicateReadAdded = queue.add(STATUS_READ, VelbusDevice.createModuleTypePacket(3))
+        def duplicateTimeAdded = queue.add(MAINTENANCE, timePackets[0])
+        queue.add(WRITE, new VelbusPacket(10, VelbusPacket.OutboundCommand.RELAY_ON.getCode(), (byte) 0x01))
+        queue.add(WRITE, new VelbusPacket(10, VelbusPacket.OutboundCommand.RELAY_ON.getCode(), (byte) 0x01))
+
+        then: "duplicate reads and maintenance packets should be dropped but not writes"
+        !duplicateReadAdded
+        !duplicateTimeAdded
+        queue.getCoalescedCount(STATUS_READ) == 1
+        queue.getCoalescedCount(MAINTENANCE) == 1
+        queue.getQueueDepth(WRITE) == 2
+        queue.getQueueDepth(STATUS_READ) == 5
+        queue.getQueueDepth(MAINTENANCE) == timePackets.length
+        queue.size() == 7 + timePackets.length
+
+        when: "the queue is drained"
+        def sent = []
+        def queuedPacket
+        while ((queuedPacket = queue.poll(0)) != null) {
+            sent.add(queuedPacket)
+        }
+
+        then: "the writes should be sent first, then the reads and then the maintenance packets"
+        sent.collect { it.transmitClass } == [WRITE] * 2 + [STATUS_READ] * 5 + [MAINTENANCE] * timePackets.length
+        sent.findAll { it.transmitClass == STATUS_READ }.collect { it.packet.address } == [1, 2, 3, 4, 5]
+        queue.getSentCount(WRITE) == 2
+        queue.getSentCount(STATUS_READ) == 5
+        queue.getSentCount(MAINTENANCE) == timePackets.length
+
+        and: "a read can be queued again once it has been sent"
+        queue.add(STATUS_READ, VelbusDevice.createModuleTypePacket(3))
+    }
+
+    def "Adapt the pace of a network to a simulated bus"() {
+
+        given: "a metrics registry"
+        def registry = new SimpleMeterRegistry()
+        Metrics.addRegistry(registry)
+
+        and: "a network connected to a fast loopback bus"
+        def conditions = new PollingConditions(timeout: 30, delay: 0.05)
+        def executor = Executors.newScheduledThreadPool(2)
+        def client = new LoopbackVelbusClient(100, 2)
+        def network = new VelbusNetwork(client, executor, null)
+        network.connect()
+
+        expect: "the network to be connected"
+        network.connectionStatus == ConnectionStatus.CONNECTED
+
+        when: "a burst of status reads is queued followed by a duplicate burst and a write"
+        def initialDelay = network.messageQueue.delayMillis
+        def write = new VelbusPacket(200, VelbusPacket.OutboundCommand.RELAY_ON.getCode(), (byte) 0x01)
+        network.sendPackets(STATUS_READ, (1..40).collect { VelbusDevice.createModuleTypePacket(it) } as VelbusPacket[])
+        network.sendPackets(STATUS_READ, (1..40).collect { VelbusDevice.createModuleTypePacket(it) } as VelbusPacket[])
+        def readDepth = registry.find("or.velbus.queue.depth").tags("network", client.clientUri, "class", STATUS_READ.name()).gauge().value()
+        network.sendPackets(write)
+
+        then: "the queue depth of each class should be reported"
+        readDepth >= 38
+        registry.find("or.velbus.queue.depth").tags("network", client.clientUri, "class", WRITE.name()).gauge() != null
+
+        and: "the duplicate reads should be coalesced unless the original was already sent"
+        network.messageQueue.getCoalescedCount(STATUS_READ) >= 38
+
+        and: "the write should overtake the queued reads"
+        conditions.eventually {
+            assert client.sentMessages.contains(write)
+            assert client.sentMessages.indexOf(write) <= 1
+        }
+
+        and: "every read should be sent once and acknowledged, speeding up the network"
+        conditions.eventually {
+            assert network.messageQueue.size() == 0
+            assert client.sentMessages.findAll { it.rtr }.size() == 80 - network.messageQueue.getCoalescedCount(STATUS_READ)
+            assert network.messageQueue.acknowledgedCount >= 16
+            assert network.messageQueue.delayMillis == VelbusTransmitQueue.MIN_DELAY_BETWEEN_PACKET_WRITES_MILLISECONDS
+            assert network.messageQueue.delayMillis < initialDelay
+        }
+
+        when: "the bus becomes slower than the network writes and the interface buffer is small"
+        client.busMillisPerPacket = 60
+        client.receiveBufferCapacity = 4
+        network.sendPackets(STATUS_READ, (41..70).collect { VelbusDevice.createModuleTypePacket(it) } as VelbusPacket[])
+
+        then: "the interface should report its buffer is full and the network should back off"
+        conditions.eventually {
+            assert network.messageQueue.receiveBufferFullCount > 0
+            assert network.messageQueue.delayMillis > VelbusTransmitQueue.MIN_DELAY_BETWEEN_PACKET_WRITES_MILLISECONDS
+        }
+
+        and: "the network should still empty its queue"
+        conditions.eventually {
+            assert network.messageQueue.size() == 0
+            assert network.messageQueue.getQueueDepth(STATUS_READ) == 0
+        }
+
+        cleanup:
+        network?.close()
+        client?.shutdown()
+        executor?.shutdownNow()
+        Metrics.removeRegistry(registry)
+    }
+}
@@ -39,8 +39,11 @@ import org.openremote.model.attribute.AttributeEvent
 import org.openremote.model.attribute.AttributeRef
 import org.openremote.model.attribute.MetaItem
 import org.openremote.model.attribute.MetaItemType
+import org.openremote.model.attribute.WriteAttributesRequestEvent
+import org.openremote.model.attribute.WriteAttributesResponseEvent
 import org.openremote.model.event.TriggeredEventSubscription
 import org.openremote.model.event.shared.CancelEventSubscription
+import org.openremote.model.event.shared.EventRequestResponseWrapper
 import org.openremote.model.event.shared.EventSubscription
 import org.openremote.model.value.Values
 import org.openremote.test.ManagerContainerTrait
@@ -220,6 +223,51 @@ class WebsocketClientTest extends Specification implements ManagerContainerTrait
         }
 
 
+        when: "time advances"
+        advancePseudoClock(1, TimeUnit.SECONDS, container)
+
+        and: "the client writes several attributes with one request, one of which doesn't exist"
+        receivedMessages.clear()
+        client.sendMessage(messageToString(EventRequestResponseWrapper.MESSAGE_PREFIX,
+            new EventRequestResponseWrapper<>(
+                "write1",
+                new WriteAttributesRequestEvent([
+                    new AttributeEvent(managerTestSetup.apartment1LivingroomId, "targetTemperature", Values.create(21)),
+                    new AttributeEvent(managerTestSetup.apartment1LivingroomId, "doesNotExist", Values.create(1)),
+                    new AttributeEvent(managerTestSetup.apartment1BathroomId, "targetTemperature", Values.create(22))
+                ] as AttributeEvent[]))))
+
+        then: "the client should receive the result of every write"
+        conditions.eventually {
+            def response = receivedMessages.find { it.startsWith(EventRequestResponseWrapper.MESSAGE_PREFIX) }
+            assert response != null
+            def wrapper = messageFromString(response, EventRequestResponseWrapper.MESSAGE_PREFIX, EventRequestResponseWrapper.class)
+            assert wrapper.messageId == "write1"
+            def results = (wrapper.event as WriteAttributesResponseEvent).results
+            assert results.length == 3
+            assert results[0].success
+            assert results[1].failure == "ATTRIBUTE_NOT_FOUND"
+            assert results[2].success
+        }
+
+        and: "the valid writes should have been stored"
+        conditions.eventually {
+            def livingroom = assetStorageService.find(managerTestSetup.apartment1LivingroomId)
+            def bathroom = assetStorageService.find(managerTestSetup.apartment1BathroomId)
+            assert livingroom.getAttribute("targetTemperature").flatMap{it.getValueAsNumber()}.orElse(0d) == 21d
+            assert bathroom.getAttribute("targetTemperature").flatMap{it.getValueAsNumber()}.orElse(0d) == 22d
+        }
+
+        and: "only the subscribed living room event should have been received"
+        conditions.eventually {
+            def triggeredMessages = receivedMessages.findAll { it.startsWith(TriggeredEventSubscription.MESSAGE_PREFIX) }
+            assert triggeredMessages.size() == 1
+            def triggeredEvent = messageFromString(triggeredMessages[0], TriggeredEventSubscription.MESSAGE_PREFIX, TriggeredEventSubscription.class)
+            assert triggeredEvent.subscriptionId == "1"
+            assert ((AttributeEvent)triggeredEvent.events[0]).entityId == managerTestSetup.apartment1LivingroomId
+            assert ((AttributeEvent)triggeredEvent.events[0]).value.flatMap{Values.getNumber(it)}.orElse(0) == 21
+        }
+
         when: "a subscription is made to the agent status event"
         receivedMessages.clear()
         client.sendMessage(messageToString(EventSubscription.SUBSCRIBE_MESSAGE_PREFIX,
@@ -9,6 +9,7 @@ import org.openremote.manager.rules.RulesClock
 import org.openremote.manager.rules.RulesEngine
 import org.openremote.manager.rules.RulesFacts
 import org.openremote.manager.rules.facade.AssetsFacade
+import org.openremote.model.rules.TemporaryFact
 import spock.lang.Specification
 
 import java.util.stream.Collectors
@@ -40,6 +41,24 @@ class BasicRulesFactsTest extends Specification {
         }
     }
 
+    @ToString(includeNames = true, includeSuper = true)
+    static class AnonTemporaryFactWithId extends TemporaryFact<String> {
+
+        AnonTemporaryFactWithId(long timestamp, long expirationMilliseconds, String id) {
+            super(timestamp, expirationMilliseconds, id)
+        }
+
+        @Override
+        boolean equals(Object o) {
+            return o instanceof AnonTemporaryFactWithId && fact == ((AnonTemporaryFactWithId) o).fact
+        }
+
+        @Override
+        int hashCode() {
+            return fact.hashCode()
+        }
+    }
+
     def assetsFacade
     RulesFacts rulesFacts
 
@@ -398,4 +417,90 @@ class BasicRulesFactsTest extends Specification {
         assert !rulesFacts.hasTemporaryFacts()
         assert rulesFacts.match(AnonFact).count() == 0
     }
+
+    def "Track the next temporary fact expiry"() {
+
+        given: "the expiry resolution"
+        def tick = RulesFacts.TEMPORARY_FACT_EXPIRY_TICK_MILLIS
+
+        expect: "no expiry without temporary facts"
+        assert rulesFacts.nextTemporaryFactExpiryTime == Long.MAX_VALUE
+
+        when: "some temporary facts are added"
+        rulesFacts.putTemporary("foo", "5s", "FOO")
+        rulesFacts.putTemporary("bar", "10s", "BAR")
+        def anonFact = new AnonFact("FOO1", 123, true)
+        rulesFacts.putTemporary("15s", anonFact)
+
+        then: "the next expiry should be the first fact to expire"
+        assert rulesFacts.nextTemporaryFactExpiryTime > 5000
+        assert rulesFacts.nextTemporaryFactExpiryTime <= 5000 + tick
+
+        when: "the first fact to expire is removed manually"
+        rulesFacts.remove("foo")
+
+        then: "the next expiry should be the next fact to expire"
+        assert rulesFacts.hasTemporaryFacts()
+        assert rulesFacts.nextTemporaryFactExpiryTime > 10000
+        assert rulesFacts.nextTemporaryFactExpiryTime <= 10000 + tick
+
+        when: "a temporary fact is replaced by a fact that does not expire"
+        rulesFacts.put("bar", "NEWBAR")
+
+        then: "the replaced fact should no longer expire"
+        assert rulesFacts.nextTemporaryFactExpiryTime > 15000
+        assert rulesFacts.nextTemporaryFactExpiryTime <= 15000 + tick
+
+        when: "the clock is advanced to the next expiry and temporary facts are expired"
+        rulesFacts.setClock(new RulesClock(rulesFacts.nextTemporaryFactExpiryTime))
+        rulesFacts.removeExpiredTemporaryFacts()
+
+        then: "only the fact that does not expire should be present"
+        assert !rulesFacts.hasTemporaryFacts()
+        assert rulesFacts.nextTemporaryFactExpiryTime == Long.MAX_VALUE
+        assert rulesFacts.match(AnonFact).count() == 0
+        assert rulesFacts.get("bar") == "NEWBAR"
+        assert rulesFacts.getAllFacts().count() == 1
+    }
+
+    def "Cancel the expiry of an anonymous temporary fact that is replaced by an equal fact"() {
+
+        given: "the expiry resolution"
+        def tick = RulesFacts.TEMPORARY_FACT_EXPIRY_TICK_MILLIS
+
+        when: "an anonymous temporary fact is added"
+        rulesFacts.put(new AnonTemporaryFactWithId(0, 5000, "FOO"))
+
+        then: "it should expire"
+        assert rulesFacts.nextTemporaryFactExpiryTime > 5000
+        assert rulesFacts.nextTemporaryFactExpiryTime <= 5000 + tick
+
+        when: "it is replaced by an equal fact that expires later"
+        def replacement = new AnonTemporaryFactWithId(0, 10000, "FOO")
+        rulesFacts.put(replacement)
+
+        then: "only the replacement should be present and expire"
+        assert rulesFacts.anonymousFacts.size() == 1
+        assert rulesFacts.anonymousFacts[0].is(replacement)
+        assert rulesFacts.temporaryFactExpiries.size() == 1
+        assert rulesFacts.nextTemporaryFactExpiryTime > 10000
+        assert rulesFacts.nextTemporaryFactExpiryTime <= 10000 + tick
+
+        when: "the replaced fact would have expired"
+        rulesFacts.setClock(new RulesClock(5000 + tick))
+        rulesFacts.removeExpiredTemporaryFacts()
+
+        then: "the replacement should still be present"
+        assert rulesFacts.hasTemporaryFacts()
+        assert rulesFacts.anonymousFacts[0].is(replacement)
+
+        when: "the replacement has expired"
+        rulesFacts.setClock(new RulesClock(10000 + tick))
+        rulesFacts.removeExpiredTemporaryFacts()
+
+        then: "no facts should be present"
+        assert !rulesFacts.hasTemporaryFacts()
+        assert rulesFacts.anonymousFacts.isEmpty()
+        assert rulesFacts.nextTemporaryFactExpiryTime == Long.MAX_VALUE
+    }
 }
@@ -0,0 +1,190 @@
+package org.openremote.test.rules
+
+import org.openremote.container.Container
+import org.openremote.container.timer.TimerService
+import org.openremote.manager.asset.AssetProcessingService
+import org.openremote.manager.asset.AssetStorageService
+import org.openremote.manager.concurrent.ManagerExecutorService
+import org.openremote.manager.datapoint.AssetDatapointService
+import org.openremote.manager.event.ClientEventService
+import org.openremote.manager.notification.NotificationService
+import org.openremote.manager.predicted.AssetPredictedDatapointService
+import org.openremote.manager.rules.RulesClock
+import org.openremote.manager.rules.RulesEngine
+import org.openremote.manager.rules.RulesEngineId
+import org.openremote.manager.rules.RulesFacts
+import org.openremote.manager.rules.RulesetDeployment
+import org.openremote.manager.security.ManagerIdentityService
+import org.openremote.model.rules.GlobalRuleset
+import org.openremote.model.rules.Ruleset
+import org.openremote.model.rules.TemporaryFact
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.ScheduledFuture
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class RulesTimerSchedulingTest extends Specification {
+
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor()
+
+    def setupSpec() {
+        // Init logging config
+        Container.LOG.info("Running test...")
+    }
+
+    def cleanup() {
+        scheduler.shutdownNow()
+    }
+
+    def "Run delayed rule actions in order of their due time with a single timer"() {
+
+        given: "a ruleset deployment whose executor counts the scheduled timers"
+        def conditions = new PollingConditions(timeout: 5, delay: 0.05)
+        def scheduleCount = new AtomicInteger()
+        def executorService = Mock(ManagerExecutorService) {
+            schedule(_ as Runnable, _ as Long) >> { Runnable runnable, long delayMillis ->
+                scheduleCount.incrementAndGet()
+                scheduler.schedule(runnable, delayMillis, TimeUnit.MILLISECONDS)
+            }
+        }
+        def ruleset = new GlobalRuleset("Delayed actions", Ruleset.Lang.JSON, "{}")
+        ruleset.id = 1
+        def deployment = new RulesetDeployment(ruleset, Mock(TimerService), null, null, Mock(AssetStorageService), executorService, null, null, null, null, null)
+
+        when: "actions are scheduled with delays that are not in order"
+        def startMillis = System.currentTimeMillis()
+        def actionMillis = new CopyOnWriteArrayList<List<Long>>()
+        deployment.scheduleRuleAction({ actionMillis.add([3L, System.currentTimeMillis() - startMillis]) }, 600)
+        deployment.scheduleRuleAction({ actionMillis.add([1L, System.currentTimeMillis() - startMillis]) }, 200)
+        deployment.scheduleRuleAction({ actionMillis.add([2L, System.currentTimeMillis() - startMillis]) }, 400)
+
+        then: "only the timer of the earliest action should be pending"
+        scheduleCount.get() == 2
+        deployment.scheduledRuleActions.size() == 3
+        deployment.scheduledRuleActionsTime < startMillis + 400
+
+        and: "every action should run in order once it is due and no timer should be left"
+        conditions.eventually {
+            assert actionMillis.size() == 3
+            assert deployment.scheduledRuleActionsTimer == null
+        }
+        actionMillis.collect { it[0] } == [1L, 2L, 3L]
+        actionMillis[0][1] >= 200
+        actionMillis[1][1] >= 400
+        actionMillis[2][1] >= 600
+        deployment.scheduledRuleActions.isEmpty()
+        deployment.scheduledRuleActionsTime == Long.MAX_VALUE
+
+        when: "an action is scheduled and the deployment is stopped before it is due"
+        def stoppedActionRuns = new AtomicInteger()
+        deployment.scheduleRuleAction({ stoppedActionRuns.incrementAndGet() }, 300)
+        deployment.stop(null)
+        Thread.sleep(600)
+
+        then: "the action should not run"
+        stoppedActionRuns.get() == 0
+        deployment.scheduledRuleActions.isEmpty()
+        deployment.scheduledRuleActionsTimer == null
+    }
+
+    def "Schedule a rules engine firing for the next temporary fact expiry"() {
+
+        given: "a rules engine with the real clock whose executor records the scheduled firings"
+        def nowMillis = 1000000L
+        def clock = TimerService.Clock.REAL
+        def timerService = Mock(TimerService) {
+            getClock() >> { clock }
+            getCurrentTimeMillis() >> { nowMillis }
+        }
+        def scheduledDelays = []
+        def scheduledFutures = []
+        def executorService = Mock(ManagerExecutorService) {
+            schedule(_ as Runnable, _ as Long) >> { Runnable runnable, long delayMillis ->
+                scheduledDelays.add(delayMillis)
+                def future = Mock(ScheduledFuture)
+                scheduledFutures.add(future)
+                future
+            }
+        }
+        def rulesEngine = new RulesEngine<GlobalRuleset>(
+            timerService,
+            null,
+            Mock(ManagerIdentityService),
+            executorService,
+            Mock(AssetStorageService),
+            Mock(AssetProcessingService),
+            Mock(NotificationService),
+            Mock(ClientEventService),
+            Mock(AssetDatapointService),
+            Mock(AssetPredictedDatapointService),
+            new RulesEngineId<GlobalRuleset>(),
+            null
+        )
+        RulesFacts facts = rulesEngine.facts
+        facts.setClock(new RulesClock(nowMillis))
+        def tick = RulesFacts.TEMPORARY_FACT_EXPIRY_TICK_MILLIS
+        def guaranteed = TemporaryFact.GUARANTEED_MIN_EXPIRATION_MILLIS
+
+        when: "there are no temporary facts"
+        rulesEngine.scheduleTemporaryFactExpiry()
+
+        then: "no firing should be scheduled"
+        scheduledDelays.isEmpty()
+        rulesEngine.temporaryFactExpiryTimer == null
+
+        when: "a temporary fact is added"
+        facts.putTemporary("foo", "10s", "FOO")
+        rulesEngine.scheduleTemporaryFactExpiry()
+
+        then: "a firing should be scheduled for its expiry less the guaranteed expiration time"
+        scheduledDelays.size() == 1
+        scheduledDelays[0] > 10000 - guaranteed
+        scheduledDelays[0] <= 10000 + tick - guaranteed
+
+        when: "a temporary fact that expires earlier is added"
+        facts.putTemporary("bar", "5s", "BAR")
+        rulesEngine.scheduleTemporaryFactExpiry()
+
+        then: "the previous firing should be cancelled and one scheduled for the earlier expiry"
+        1 * scheduledFutures[0].cancel(false)
+        scheduledDelays.size() == 2
+        scheduledDelays[1] > 5000 - guaranteed
+        scheduledDelays[1] <= 5000 + tick - guaranteed
+        rulesEngine.temporaryFactExpiryTimer.is(scheduledFutures[1])
+
+        when: "the earlier fact has expired and been removed"
+        nowMillis += 5000 + tick
+        facts.setClock(new RulesClock(nowMillis))
+        facts.removeExpiredTemporaryFacts()
+        rulesEngine.scheduleTemporaryFactExpiry()
+
+        then: "a firing should be scheduled for the remaining fact"
+        1 * scheduledFutures[1].cancel(false)
+        !facts.getOptional("bar").isPresent()
+        scheduledDelays.size() == 3
+        scheduledDelays[2] > 5000 - tick - guaranteed
+        scheduledDelays[2] <= 5000 - guaranteed
+
+        when: "the clock is the pseudo clock"
+        clock = TimerService.Clock.PSEUDO
+        rulesEngine.scheduleTemporaryFactExpiry()
+
+        then: "the firing should be scheduled without a delay"
+        scheduledDelays.size() == 4
+        scheduledDelays[3] == 0
+
+        when: "the remaining fact is removed"
+        facts.remove("foo")
+        rulesEngine.scheduleTemporaryFactExpiry()
+
+        then: "the pending firing should be cancelled and no firing scheduled"
+        1 * scheduledFutures[3].cancel(false)
+        scheduledDelays.size() == 4
+        rulesEngine.temporaryFactExpiryTimer == null
+    }
+}
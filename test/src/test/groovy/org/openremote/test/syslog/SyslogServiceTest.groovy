@@ -0,0 +1,145 @@
+package org.openremote.test.syslog
+
+import org.hibernate.Session
+import org.hibernate.jdbc.Work
+import org.openremote.container.persistence.PersistenceService
+import org.openremote.manager.concurrent.ManagerExecutorService
+import org.openremote.manager.event.ClientEventService
+import org.openremote.manager.syslog.SyslogService
+import org.openremote.model.syslog.SyslogCategory
+import org.openremote.model.syslog.SyslogConfig
+import org.openremote.model.syslog.SyslogEvent
+import org.openremote.model.syslog.SyslogLevel
+import spock.lang.Specification
+
+import javax.persistence.EntityManager
+import javax.persistence.EntityManagerFactory
+import java.sql.Connection
+import java.sql.PreparedStatement
+import java.util.concurrent.ScheduledFuture
+import java.util.function.Consumer
+import java.util.logging.Level
+import java.util.logging.LogRecord
+
+class SyslogServiceTest extends Specification {
+
+    static LogRecord createLogRecord(Level level, String message) {
+        def record = new LogRecord(level, message)
+        record.loggerName = SyslogServiceTest.class.name + "." + SyslogCategory.GATEWAY.name()
+        return record
+    }
+
+    def "Buffer log messages and drop them whilst the buffer is full"() {
+
+        given: "a syslog service with a small buffer"
+        def publishedEvents = []
+        def syslogService = new SyslogService()
+        syslogService.bufferSize = 5
+        syslogService.clientEventService = Mock(ClientEventService) {
+            publishEvent(_ as SyslogEvent) >> { SyslogEvent event -> publishedEvents.add(event) }
+        }
+
+        when: "more messages are logged than fit in the buffer"
+        (1..8).each { syslogService.publish(createLogRecord(Level.INFO, "message" + it)) }
+
+        then: "the first messages should be buffered and the rest dropped"
+        syslogService.droppedCount == 3
+        publishedEvents.isEmpty()
+
+        when: "a message that isn't an OpenRemote syslog message is logged"
+        syslogService.publish(new LogRecord(Level.INFO, "other"))
+
+        then: "it should be ignored"
+        syslogService.droppedCount == 3
+
+        when: "the buffer is drained"
+        syslogService.drainBuffer()
+
+        then: "the buffered messages should be published in order"
+        publishedEvents.collect { it.message } == (1..5).collect { "message" + it }
+
+        when: "more messages are logged"
+        publishedEvents.clear()
+        (6..8).each { syslogService.publish(createLogRecord(Level.INFO, "message" + it)) }
+        syslogService.drainBuffer()
+
+        then: "there should be room for them again and the dropped messages should have been reported"
+        syslogService.droppedCount == 3
+        publishedEvents.collect { it.message } == (6..8).collect { "message" + it }
+    }
+
+    def "Keep publishing buffered log messages when publishing one of them fails"() {
+
+        given: "a syslog service whose client event service fails to publish one message"
+        def publishedEvents = []
+        def syslogService = new SyslogService()
+        syslogService.clientEventService = Mock(ClientEventService) {
+            publishEvent(_ as SyslogEvent) >> { SyslogEvent event ->
+                if (event.message == "message2") {
+                    throw new IllegalStateException("Publish failed")
+                }
+                publishedEvents.add(event)
+            }
+        }
+
+        when: "messages are logged and the buffer is drained"
+        (1..5).each { syslogService.publish(createLogRecord(Level.INFO, "message" + it)) }
+        syslogService.drainBuffer()
+
+        then: "every other message should still be published in order and the failure counted"
+        publishedEvents.collect { it.message } == ["message1", "message3", "message4", "message5"]
+        syslogService.publishFailedCount == 1
+    }
+
+    def "Store buffered log messages with a single batch insert and flush them on stop"() {
+
+        given: "a syslog service whose database connection records the inserted rows"
+        def insertedMessages = []
+        int executeBatchCount = 0
+        def statement = Mock(PreparedStatement) {
+            setString(4, _ as String) >> { int index, String message -> insertedMessages.add(message) }
+            executeBatch() >> { executeBatchCount++; new int[0] }
+        }
+        def connection = Mock(Connection) {
+            prepareStatement(_ as String) >> statement
+        }
+        def entityManager = Mock(EntityManager) {
+            unwrap(Session) >> Mock(Session) {
+                doWork(_ as Work) >> { Work work -> work.execute(connection) }
+            }
+        }
+        def drainFuture = Mock(ScheduledFuture)
+        def syslogService = new SyslogService()
+        syslogService.config = new SyslogConfig(SyslogLevel.INFO, SyslogCategory.values(), 60)
+        syslogService.persistenceService = Mock(PersistenceService) {
+            getEntityManagerFactory() >> Mock(EntityManagerFactory)
+            doTransaction(_ as Consumer) >> { Consumer<EntityManager> consumer -> consumer.accept(entityManager) }
+        }
+        syslogService.executorService = Mock(ManagerExecutorService) {
+            scheduleWithFixedDelay(_ as Runnable, _ as Long, _ as Long) >> drainFuture
+        }
+
+        when: "the service is started and messages are logged"
+        syslogService.start(null)
+        syslogService.storeStartMillis = 0
+        syslogService.publish(createLogRecord(Level.INFO, "message1"))
+        syslogService.publish(createLogRecord(Level.FINE, "not stored"))
+        syslogService.publish(createLogRecord(Level.WARNING, "message2"))
+        syslogService.drainBuffer()
+
+        then: "the messages at the stored level should be inserted with one batch"
+        insertedMessages == ["message1", "message2"]
+        executeBatchCount == 1
+
+        when: "messages are logged and the service is stopped before the next drain"
+        insertedMessages.clear()
+        (3..5).each { syslogService.publish(createLogRecord(Level.INFO, "message" + it)) }
+        syslogService.stop(null)
+
+        then: "the drain task should be cancelled without interrupting it and the buffered messages stored"
+        1 * drainFuture.cancel(false)
+        0 * drainFuture.cancel(true)
+        insertedMessages == (3..5).collect { "message" + it }
+        executeBatchCount == 2
+    }
+}
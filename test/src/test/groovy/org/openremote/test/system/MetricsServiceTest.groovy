@@ -0,0 +1,57 @@
+package org.openremote.test.system
+
+import org.openremote.container.Container
+import org.openremote.container.metrics.MetricsService
+import org.openremote.model.system.HealthStatusProvider
+import org.openremote.model.value.Values
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+class MetricsServiceTest extends Specification {
+
+    def "Export pipeline stage metrics and health status values"() {
+
+        given: "the metrics service"
+        def container = Stub(Container) {
+            getConfig() >> [:]
+            hasService(_) >> false
+        }
+        def metricsService = new MetricsService()
+        metricsService.init(container)
+        metricsService.start(container)
+
+        and: "a health status provider"
+        def healthStatusProvider = Stub(HealthStatusProvider) {
+            getHealthStatusName() >> "test"
+            getHealthStatus() >> Values.createObject()
+                .put("queueSize", 12)
+                .put("connected", true)
+                .put("label", "ignored")
+        }
+        metricsService.addHealthStatusProvider(healthStatusProvider)
+
+        when: "a stage records its latency and a counter"
+        MetricsService.timer("or.test.stage", "Test stage").record(5, TimeUnit.MILLISECONDS)
+        MetricsService.counter("or.test.events", "Test events", "protocol", "test").increment(3)
+        def metrics = metricsService.scrape()
+
+        then: "the metrics are exported in the Prometheus text format"
+        metrics.contains("or_test_stage_seconds_count 1.0")
+        metrics.contains("or_test_stage_seconds_bucket{")
+        metrics.contains("or_test_events_total{protocol=\"test\",} 3.0")
+        metrics.contains("or_health_test_queueSize 12.0")
+        metrics.contains("or_health_test_connected 1.0")
+        !metrics.contains("or_health_test_label")
+        metrics.contains("jvm_memory_used_bytes")
+
+        when: "the service is stopped"
+        metricsService.stop(container)
+
+        then: "nothing is exported anymore"
+        metricsService.scrape() == ""
+
+        cleanup:
+        metricsService?.stop(container)
+    }
+}
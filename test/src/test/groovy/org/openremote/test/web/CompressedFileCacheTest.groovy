@@ -0,0 +1,183 @@
+package org.openremote.test.web
+
+import org.openremote.container.web.file.CompressedFileCache
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.util.zip.GZIPInputStream
+
+class CompressedFileCacheTest extends Specification {
+
+    def "Serve compressed variants of static files"() {
+
+        given: "a document root with a compressible file and a cache"
+        def docRoot = Files.createTempDirectory("docroot")
+        def cacheDirectory = Files.createTempDirectory("file-cache")
+        def content = (1..500).collect { "console.log('line " + it + "');" }.join("\n")
+        def file = docRoot.resolve("app.js").toFile()
+        file.text = content
+        def cache = new CompressedFileCache(cacheDirectory, 1024 * 1024, ["application/javascript"] as String[])
+
+        expect: "no variant when the client doesn't accept a supported encoding"
+        cache.getVariant(file, "application/javascript", null) == null
+        cache.getVariant(file, "application/javascript", "deflate") == null
+        cache.getVariant(file, "application/javascript", "gzip;q=0, *") == null
+
+        and: "no variant for content types that are not compressed"
+        cache.getVariant(file, "image/png", "gzip") == null
+
+        when: "a client accepting gzip requests the file"
+        def variant = cache.getVariant(file, "application/javascript", "gzip, deflate, br")
+
+        then: "a gzip variant is compressed and cached"
+        variant.encoding == CompressedFileCache.ENCODING_GZIP
+        variant.file.length() < file.length()
+        new GZIPInputStream(new FileInputStream(variant.file)).text == content
+        cache.size == variant.file.length()
+
+        and: "the same variant is returned on the next request"
+        def sameVariant = cache.getVariant(file, "application/javascript", "gzip")
+        sameVariant.file == variant.file
+        sameVariant.release()
+        variant.release()
+
+        when: "the build provided a pre-compressed brotli sibling"
+        def sibling = docRoot.resolve("app.js.br").toFile()
+        sibling.bytes = [1, 2, 3] as byte[]
+        sibling.lastModified = file.lastModified() + 1000
+
+        then: "it is preferred when the client accepts brotli"
+        cache.getVariant(file, "application/javascript", "gzip, br").file == sibling
+        cache.getVariant(file, "application/javascript", "gzip, br").encoding == CompressedFileCache.ENCODING_BROTLI
+        def gzipVariant = cache.getVariant(file, "application/javascript", "gzip")
+        gzipVariant.file == variant.file
+        gzipVariant.release()
+
+        when: "the file is modified"
+        file.text = content + "\nconsole.log('done');"
+        file.lastModified = sibling.lastModified() + 1000
+        def updatedVariant = cache.getVariant(file, "application/javascript", "gzip, br")
+
+        then: "the outdated sibling is ignored and a new variant is compressed"
+        updatedVariant.encoding == CompressedFileCache.ENCODING_GZIP
+        updatedVariant.file != variant.file
+        new GZIPInputStream(new FileInputStream(updatedVariant.file)).text == file.text
+
+        when: "the cache is cleared"
+        updatedVariant.release()
+        cache.clear()
+
+        then: "the compressed variants are deleted"
+        cache.size == 0
+        !updatedVariant.file.exists()
+        !variant.file.exists()
+
+        cleanup:
+        docRoot?.toFile()?.deleteDir()
+        cacheDirectory?.toFile()?.deleteDir()
+    }
+
+    def "Evict the least recently used variants but not whilst they are served"() {
+
+        given: "a document root with compressible files and a cache that fits about two variants"
+        def docRoot = Files.createTempDirectory("docroot")
+        def cacheDirectory = Files.createTempDirectory("file-cache")
+        def random = new Random(1)
+        def files = (1..3).collect { i ->
+            def file = docRoot.resolve("app" + i + ".js").toFile()
+            // Random words compress reasonably but not too well, so each variant has a meaningful size
+            file.text = (1..2000).collect { "var v" + random.nextInt(100000) + " = " + random.nextInt(100000) + ";" }.join("\n")
+            file
+        }
+        def measureCache = new CompressedFileCache(Files.createTempDirectory("file-cache"), Long.MAX_VALUE, ["application/javascript"] as String[])
+        def variantSizes = files.collect {
+            def variant = measureCache.getVariant(it, "application/javascript", "gzip")
+            variant.release()
+            variant.file.length()
+        }
+        measureCache.close()
+        measureCache.directory.toFile().deleteDir()
+        def maxSize = variantSizes[0] + variantSizes[1] + (long) (variantSizes[2] / 2)
+        def cache = new CompressedFileCache(cacheDirectory, maxSize, ["application/javascript"] as String[])
+
+        when: "the first two files are requested and the first is requested again"
+        def variant1 = cache.getVariant(files[0], "application/javascript", "gzip")
+        variant1.release()
+        def variant2 = cache.getVariant(files[1], "application/javascript", "gzip")
+        variant2.release()
+        cache.getVariant(files[0], "application/javascript", "gzip").release()
+
+        then: "both variants should be cached"
+        variant1.file.exists()
+        variant2.file.exists()
+        cache.size == variant1.file.length() + variant2.file.length()
+
+        when: "the third file is requested"
+        def variant3 = cache.getVariant(files[2], "application/javascript", "gzip")
+        variant3.release()
+
+        then: "the least recently used variant should be evicted"
+        variant1.file.exists()
+        !variant2.file.exists()
+        variant3.file.exists()
+        cache.size <= maxSize
+
+        when: "a variant is being served whilst it is evicted"
+        def served = cache.getVariant(files[0], "application/javascript", "gzip")
+        cache.getVariant(files[2], "application/javascript", "gzip").release()
+        cache.getVariant(files[1], "application/javascript", "gzip").release()
+
+        then: "its file should still exist until it is released"
+        !cache.entries.values().any { it.file == served.file }
+        served.file.exists()
+        new GZIPInputStream(new FileInputStream(served.file)).text == files[0].text
+
+        when: "the served variant is released"
+        served.release()
+
+        then: "its file should be deleted"
+        !served.file.exists()
+
+        when: "the file is requested again"
+        def recompressed = cache.getVariant(files[0], "application/javascript", "gzip")
+
+        then: "it should be compressed into a new file"
+        recompressed.file != served.file
+        new GZIPInputStream(new FileInputStream(recompressed.file)).text == files[0].text
+
+        cleanup:
+        recompressed?.release()
+        docRoot?.toFile()?.deleteDir()
+        cacheDirectory?.toFile()?.deleteDir()
+    }
+
+    def "Delete stale temporary cache directories on start"() {
+
+        given: "a temporary cache directory left over from a killed process"
+        def prefix = "or-file-cache-test-" + UUID.randomUUID()
+        def staleDirectory = Files.createTempDirectory(prefix)
+        staleDirectory.resolve("stale.gz").toFile().text = "stale"
+
+        when: "a temporary cache is created"
+        def cache = CompressedFileCache.createTemporary(prefix, 1024 * 1024, ["application/javascript"] as String[])
+
+        then: "the stale directory should have been deleted"
+        !Files.exists(staleDirectory)
+        Files.isDirectory(cache.directory)
+
+        when: "another temporary cache is created whilst the first is open"
+        def otherCache = CompressedFileCache.createTemporary(prefix, 1024 * 1024, ["application/javascript"] as String[])
+
+        then: "the directory of the open cache should be kept"
+        Files.isDirectory(cache.directory)
+        otherCache.directory != cache.directory
+
+        when: "the caches are closed"
+        cache.close()
+        otherCache.close()
+
+        then: "their directories should be deleted"
+        !Files.exists(cache.directory)
+        !Files.exists(otherCache.directory)
+    }
+}